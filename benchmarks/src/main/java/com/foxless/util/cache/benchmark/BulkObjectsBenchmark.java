@@ -0,0 +1,104 @@
+package com.foxless.util.cache.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.foxless.util.cache.RespServer;
+import com.foxless.util.cache.cacher.impl.JedisHelperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 逐个getObject/setObjectEX与一次getObjects/setObjects读写batch个对象的耗时比较，
+ * parallelDecodeBytes为0时getObjects在调用线程中依次解码。<br>
+ * 运行：java -jar target/benchmarks.jar BulkObjectsBenchmark
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkObjectsBenchmark {
+
+    private static final int KEYS = 10000;
+
+    @Param({"10", "100", "1000"})
+    public int batch;
+
+    @Param({"0", "65536"})
+    public int parallelDecodeBytes;
+
+    private RespServer server;
+    private JedisHelperImpl helper;
+    private final String[] keys = new String[KEYS];
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = new RespServer();
+        helper = new JedisHelperImpl(server.jedisConfig(false, parallelDecodeBytes));
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "object:" + i;
+            helper.setObject(keys[i], SerializeBenchmark.SAMPLE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        helper.close();
+        server.close();
+    }
+
+    private String[] randomKeys() {
+        String[] ret = new String[batch];
+        int start = ThreadLocalRandom.current().nextInt(KEYS - batch);
+        System.arraycopy(keys, start, ret, 0, batch);
+        return ret;
+    }
+
+    @Benchmark
+    public List<Object> getObjectLoop() {
+        List<Object> ret = new ArrayList<Object>(batch);
+        for (String key : randomKeys())
+            ret.add(helper.getObject(key, Object.class));
+        return ret;
+    }
+
+    @Benchmark
+    public List<Object> getObjects() {
+        return helper.getObjects(Object.class, randomKeys());
+    }
+
+    @Benchmark
+    public void setObjectLoop() {
+        for (String key : randomKeys())
+            helper.setObjectEX(key, SerializeBenchmark.SAMPLE, 3600);
+    }
+
+    @Benchmark
+    public void setObjects() {
+        Map<String, Object> values = new LinkedHashMap<String, Object>();
+        for (String key : randomKeys())
+            values.put(key, SerializeBenchmark.SAMPLE);
+        helper.setObjects(values, 3600);
+    }
+}
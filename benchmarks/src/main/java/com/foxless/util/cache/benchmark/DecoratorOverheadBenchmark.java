@@ -0,0 +1,109 @@
+package com.foxless.util.cache.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import com.foxless.util.cache.aop.ForwardingLocalCacheHelper;
+import com.foxless.util.cache.aop.MeasuredLocalCacheHelper;
+import com.foxless.util.cache.cacher.LocalCacheHelper;
+import com.foxless.util.cache.cacher.impl.LocalCacheHelperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 包装缓存调用的开销：以本地缓存为目标，比较直接调用、反射代理（原JedisHelperInvocationHandler的方式）、
+ * 两层不做处理的转发装饰器和计时装饰器，结果为每次调用的纳秒数。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecoratorOverheadBenchmark {
+
+    @Param({"direct", "proxy", "forwarding", "measured"})
+    public String mode;
+
+    private LocalCacheHelper helper;
+
+    /**
+     * 原来的反射代理：每次调用经过Method.invoke，参数装入Object[]
+     */
+    static class ReflectiveHandler implements InvocationHandler {
+        private final LocalCacheHelperImpl target;
+
+        ReflectiveHandler(LocalCacheHelperImpl target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (Exception e) {
+                LocalCacheHelperImpl.class.getMethod("info").invoke(target);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 不做任何处理的转发
+     */
+    static class PlainForwarding extends ForwardingLocalCacheHelper {
+        PlainForwarding(LocalCacheHelper delegate) {
+            super(delegate);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        LocalCacheHelperImpl target = new LocalCacheHelperImpl(null);
+        target.set("key", "value");
+        switch (mode) {
+            case "proxy":
+                helper = (LocalCacheHelper) Proxy.newProxyInstance(LocalCacheHelper.class.getClassLoader(),
+                        new Class[]{LocalCacheHelper.class}, new ReflectiveHandler(target));
+                break;
+            case "forwarding":
+                helper = new PlainForwarding(new PlainForwarding(target));
+                break;
+            case "measured":
+                helper = new MeasuredLocalCacheHelper(target);
+                break;
+            default:
+                helper = target;
+        }
+    }
+
+    @Benchmark
+    public String get() {
+        return helper.get("key");
+    }
+
+    @Benchmark
+    public Object getMultiMapValues() {
+        return helper.getMultiMapValues("missing", Object.class, 1L, 2L);
+    }
+
+    @Benchmark
+    public void set() {
+        helper.set("key", "value");
+    }
+}
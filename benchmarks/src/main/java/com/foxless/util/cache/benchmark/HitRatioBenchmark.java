@@ -0,0 +1,147 @@
+package com.foxless.util.cache.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import com.foxless.util.cache.bean.LocalCacheConfigBean;
+import com.foxless.util.cache.cacher.impl.LocalCacheHelperImpl;
+
+/**
+ * 本地缓存命中率测试。<br>
+ * 按Zipfian分布生成key的访问序列，未命中时写入缓存，统计不同容量下W-TinyLFU与LRU的命中率；
+ * 另外在热点访问中穿插一次性的顺序扫描，观察扫描是否会冲掉热点数据。<br>
+ * 运行：mvn -q compile exec:java -Dexec.mainClass=com.foxless.util.cache.benchmark.HitRatioBenchmark
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class HitRatioBenchmark {
+
+    private static final int KEY_SPACE = 1000000;
+    private static final int OPERATIONS = 2000000;
+    private static final double SKEW = 0.99;
+
+    /**
+     * Zipfian分布的key生成器（Gray等人的算法，与YCSB相同）
+     */
+    static final class ZipfianGenerator {
+        private final Random random;
+        private final long items;
+        private final double theta;
+        private final double zetan;
+        private final double alpha;
+        private final double eta;
+
+        ZipfianGenerator(long items, double theta, long seed) {
+            this.random = new Random(seed);
+            this.items = items;
+            this.theta = theta;
+            this.zetan = zeta(items, theta);
+            this.alpha = 1.0 / (1.0 - theta);
+            this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+        }
+
+        private static double zeta(long n, double theta) {
+            double sum = 0;
+            for (long i = 1; i <= n; i++)
+                sum += 1 / Math.pow(i, theta);
+            return sum;
+        }
+
+        long next() {
+            double u = random.nextDouble();
+            double uz = u * zetan;
+            if (uz < 1.0)
+                return 0;
+            if (uz < 1.0 + Math.pow(0.5, theta))
+                return 1;
+            return (long) (items * Math.pow(eta * u - eta + 1, alpha));
+        }
+    }
+
+    /**
+     * 作为对照的LRU缓存
+     */
+    static final class LruCache extends LinkedHashMap<String, String> {
+        private final int capacity;
+
+        LruCache(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private static LocalCacheConfigBean maxEntries(final long maxEntries) {
+        return new LocalCacheConfigBean() {
+            @Override
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            @Override
+            public long getMaxWeight() {
+                return 0;
+            }
+        };
+    }
+
+    /**
+     * @param scanEvery 每隔多少次访问插入一次长度为scanLength的顺序扫描，0表示不扫描
+     */
+    private static void run(String name, int capacity, int scanEvery, int scanLength) {
+        LocalCacheHelperImpl cache = new LocalCacheHelperImpl(maxEntries(capacity));
+        LruCache lru = new LruCache(capacity);
+        ZipfianGenerator generator = new ZipfianGenerator(KEY_SPACE, SKEW, 42);
+        long scanKey = KEY_SPACE;
+        long requests = 0;
+        long tinyLfuHits = 0;
+        long lruHits = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            if (scanEvery > 0 && i > 0 && i % scanEvery == 0) {
+                for (int j = 0; j < scanLength; j++) {
+                    String key = "k" + (scanKey++);
+                    cache.set(key, key);
+                    lru.put(key, key);
+                }
+            }
+            String key = "k" + generator.next();
+            requests++;
+            if (null != cache.get(key))
+                tinyLfuHits++;
+            else
+                cache.set(key, key);
+            if (null != lru.get(key))
+                lruHits++;
+            else
+                lru.put(key, key);
+        }
+        System.out.println(String.format("%-10s capacity=%-7d W-TinyLFU=%6.2f%%  LRU=%6.2f%%  evictions=%s",
+                name, capacity, 100.0 * tinyLfuHits / requests, 100.0 * lruHits / requests,
+                evictions(cache)));
+    }
+
+    private static String evictions(LocalCacheHelperImpl cache) {
+        String info = cache.info();
+        int index = info.indexOf("\"evictedKeys\":\"");
+        if (index < 0)
+            return "0";
+        int start = index + "\"evictedKeys\":\"".length();
+        return info.substring(start, info.indexOf('"', start));
+    }
+
+    public static void main(String[] args) {
+        System.out.println(String.format("zipfian keys=%d skew=%.2f operations=%d", KEY_SPACE, SKEW, OPERATIONS));
+        for (int capacity : new int[]{1000, 10000, 100000}) {
+            run("zipfian", capacity, 0, 0);
+        }
+        for (int capacity : new int[]{1000, 10000, 100000}) {
+            run("scan", capacity, 10000, capacity * 2);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.foxless.util.cache.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.foxless.util.cache.RespServer;
+import com.foxless.util.cache.cacher.impl.JedisHelperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JedisHelperImpl各模式的写入吞吐量，对应类注释中事务、管道、普通、本地线程模式的耗时对比。<br>
+ * 每次调用按该模式写入{@link #BATCH}条数据（事务和管道模式在一个事务/管道中，本地线程模式绑定一次Jedis），
+ * 结果为每秒写入的条数。服务端是进程内的{@link RespServer}，测得的是客户端和回环网络的开销。<br>
+ * 运行：java -jar target/benchmarks.jar JedisModesBenchmark -t 4
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JedisModesBenchmark {
+
+    static final int BATCH = 100;
+    private static final int KEYS = 10000;
+
+    @Param({"plain", "transaction", "pipeline", "threadLocal", "autoBatching"})
+    public String mode;
+
+    private RespServer server;
+    private JedisHelperImpl helper;
+
+    /**
+     * 每个线程写入自己的一组key
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+        private static final AtomicInteger THREADS = new AtomicInteger();
+        final String[] keys = new String[KEYS];
+        int next;
+
+        public Keys() {
+            int thread = THREADS.getAndIncrement();
+            for (int i = 0; i < KEYS; i++)
+                keys[i] = "bench:" + thread + ":" + i;
+        }
+
+        String next() {
+            String key = keys[next];
+            next = next + 1 == KEYS ? 0 : next + 1;
+            return key;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = new RespServer();
+        helper = new JedisHelperImpl(server.jedisConfig("autoBatching".equals(mode)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        helper.close();
+        server.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void setString(Keys keys) {
+        switch (mode) {
+            case "transaction":
+                helper.startTransaction();
+                for (int i = 0; i < BATCH; i++)
+                    helper.set(keys.next(), "value");
+                helper.commit();
+                break;
+            case "pipeline":
+                helper.openPipeline();
+                for (int i = 0; i < BATCH; i++)
+                    helper.set(keys.next(), "value");
+                helper.closePipeline();
+                break;
+            case "threadLocal":
+                helper.boundJedis();
+                for (int i = 0; i < BATCH; i++)
+                    helper.set(keys.next(), "value");
+                helper.unboundJedis();
+                break;
+            default:
+                for (int i = 0; i < BATCH; i++)
+                    helper.set(keys.next(), "value");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void setObject(Keys keys) {
+        switch (mode) {
+            case "transaction":
+                helper.startTransaction();
+                for (int i = 0; i < BATCH; i++)
+                    helper.setObject(keys.next(), SerializeBenchmark.SAMPLE);
+                helper.commit();
+                break;
+            case "pipeline":
+                helper.openPipeline();
+                for (int i = 0; i < BATCH; i++)
+                    helper.setObject(keys.next(), SerializeBenchmark.SAMPLE);
+                helper.closePipeline();
+                break;
+            case "threadLocal":
+                helper.boundJedis();
+                for (int i = 0; i < BATCH; i++)
+                    helper.setObject(keys.next(), SerializeBenchmark.SAMPLE);
+                helper.unboundJedis();
+                break;
+            default:
+                for (int i = 0; i < BATCH; i++)
+                    helper.setObject(keys.next(), SerializeBenchmark.SAMPLE);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.foxless.util.cache.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.foxless.util.cache.RespServer;
+import com.foxless.util.cache.cacher.impl.JedisHelperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JedisHelperImpl的读取吞吐量。事务和管道模式中不能读取，只比较普通、本地线程和自动批量三种方式；
+ * 本地线程模式在每个测试线程开始时绑定一次Jedis。<br>
+ * 运行：java -jar target/benchmarks.jar JedisReadBenchmark -t 16
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JedisReadBenchmark {
+
+    private static final int KEYS = 10000;
+
+    @Param({"plain", "threadLocal", "autoBatching"})
+    public String mode;
+
+    private RespServer server;
+    private JedisHelperImpl helper;
+    private final String[] keys = new String[KEYS];
+
+    /**
+     * 本地线程模式下每个线程绑定的Jedis
+     */
+    @State(Scope.Thread)
+    public static class Binding {
+        private JedisHelperImpl helper;
+
+        @Setup(Level.Trial)
+        public void bind(JedisReadBenchmark benchmark) {
+            if ("threadLocal".equals(benchmark.mode)) {
+                helper = benchmark.helper;
+                helper.boundJedis();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void unbind() {
+            if (null != helper)
+                helper.unboundJedis();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = new RespServer();
+        helper = new JedisHelperImpl(server.jedisConfig("autoBatching".equals(mode)));
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "bench:" + i;
+            helper.set(keys[i], "value" + i);
+            helper.setObject("object:" + keys[i], SerializeBenchmark.SAMPLE);
+            helper.appendMapItem("hash", (long) i, "value" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        helper.close();
+        server.close();
+    }
+
+    @Benchmark
+    public String get(Binding binding) {
+        return helper.get(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    public Object getObject(Binding binding) {
+        return helper.getObject("object:" + keys[ThreadLocalRandom.current().nextInt(KEYS)], Object.class);
+    }
+
+    @Benchmark
+    public Object getMapValue(Binding binding) {
+        return helper.getMapValue("hash", (long) ThreadLocalRandom.current().nextInt(KEYS), Object.class);
+    }
+}
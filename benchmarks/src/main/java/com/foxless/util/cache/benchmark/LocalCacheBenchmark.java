@@ -0,0 +1,147 @@
+package com.foxless.util.cache.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.foxless.util.cache.cacher.impl.LocalCacheHelperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LocalCacheHelperImpl各数据结构的常用操作吞吐量，所有线程共用一个缓存实例，
+ * 用 -t 指定线程数可以看到加锁带来的扩展性差异。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalCacheBenchmark {
+
+    private static final int KEYS = 10000;
+    private static final int LIST_SIZE = 1000;
+
+    private LocalCacheHelperImpl cache;
+    private final String[] keys = new String[KEYS];
+    private final String[] members = new String[KEYS];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cache = new LocalCacheHelperImpl(null);
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "key:" + i;
+            members[i] = "member" + i;
+            cache.set(keys[i], "value" + i);
+            cache.setObject("object:" + keys[i], SerializeBenchmark.SAMPLE);
+            cache.hset("hash", members[i], "value" + i);
+            cache.appendMapItem("objectHash", (long) i, SerializeBenchmark.SAMPLE);
+            cache.appendStringSetMember("set", members[i]);
+            cache.appendStringSortedObjectSetMember("zset", Collections.singletonMap((long) i, members[i]));
+        }
+        for (int i = 0; i < LIST_SIZE; i++)
+            cache.appendStringListItem("list", true, members[i]);
+    }
+
+    private static int next() {
+        return ThreadLocalRandom.current().nextInt(KEYS);
+    }
+
+    @Benchmark
+    public String get() {
+        return cache.get(keys[next()]);
+    }
+
+    @Benchmark
+    public void set() {
+        int i = next();
+        cache.set(keys[i], members[i]);
+    }
+
+    @Benchmark
+    public Object getObject() {
+        return cache.getObject("object:" + keys[next()], Object.class);
+    }
+
+    @Benchmark
+    public void setObject() {
+        cache.setObject("object:" + keys[next()], SerializeBenchmark.SAMPLE);
+    }
+
+    @Benchmark
+    public void incr() {
+        cache.incr("counter", 1L);
+    }
+
+    @Benchmark
+    public String hget() {
+        return cache.hget("hash", members[next()]);
+    }
+
+    @Benchmark
+    public void hset() {
+        int i = next();
+        cache.hset("hash", members[i], keys[i]);
+    }
+
+    @Benchmark
+    public Object getMapValue() {
+        return cache.getMapValue("objectHash", (long) next(), Object.class);
+    }
+
+    @Benchmark
+    public void appendMapItem() {
+        cache.appendMapItem("objectHash", (long) next(), SerializeBenchmark.SAMPLE);
+    }
+
+    @Benchmark
+    public Object getListRange() {
+        int start = ThreadLocalRandom.current().nextInt(LIST_SIZE - 10);
+        return cache.getStringListItems("list", start, start + 9);
+    }
+
+    /**
+     * 在尾部追加后去掉头部的一个元素，保持列表长度不变
+     */
+    @Benchmark
+    public void appendListItem() {
+        cache.appendStringListItem("list", true, members[next()]);
+        cache.trimList("list", 1, -1);
+    }
+
+    @Benchmark
+    public void setAddRemove() {
+        String member = members[next()];
+        cache.removeStringSetMember("set", member);
+        cache.appendStringSetMember("set", member);
+    }
+
+    @Benchmark
+    public Long zsetRank() {
+        return cache.getStringSortedObjectSetMemberRank("zset", members[next()]);
+    }
+
+    @Benchmark
+    public Object zsetRange() {
+        long start = next();
+        return cache.getReverseStringSortedObjectSetMember("zset", start, start + 9);
+    }
+
+    @Benchmark
+    public Long zsetIncr() {
+        return cache.increStringSortedObjectSetMemberScore("zset", members[next()], 1L);
+    }
+}
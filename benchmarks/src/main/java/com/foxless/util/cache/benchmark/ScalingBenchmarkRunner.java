@@ -0,0 +1,81 @@
+package com.foxless.util.cache.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 按1、2、4、8...个线程依次运行匹配的测试，最后打印各线程数下的吞吐量和相对单线程的倍数。<br>
+ * 运行：java -cp target/benchmarks.jar com.foxless.util.cache.benchmark.ScalingBenchmarkRunner [正则] [最大线程数]，
+ * 正则默认为LocalCacheBenchmark，最大线程数默认为CPU核数。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class ScalingBenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : LocalCacheBenchmark.class.getSimpleName();
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        List<Integer> threads = new ArrayList<Integer>();
+        for (int t = 1; t <= maxThreads; t *= 2)
+            threads.add(t);
+
+        List<Collection<RunResult>> results = new ArrayList<Collection<RunResult>>();
+        for (int t : threads) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(t)
+                    .build();
+            results.add(new Runner(options).run());
+        }
+
+        StringBuilder header = new StringBuilder(String.format("%-60s", "benchmark"));
+        for (int t : threads)
+            header.append(String.format("%16s", t + " threads"));
+        System.out.println();
+        System.out.println(header);
+        for (RunResult first : results.get(0)) {
+            String name = label(first);
+            double base = first.getPrimaryResult().getScore();
+            StringBuilder line = new StringBuilder(String.format("%-60s", name));
+            for (Collection<RunResult> run : results) {
+                Result result = find(run, name);
+                if (null == result) {
+                    line.append(String.format("%16s", "-"));
+                    continue;
+                }
+                line.append(String.format("%10.1f x%-4.1f", result.getScore(), base == 0 ? 0 : result.getScore() / base));
+            }
+            System.out.println(line);
+        }
+        System.out.println("unit: " + results.get(0).iterator().next().getPrimaryResult().getScoreUnit());
+    }
+
+    /**
+     * 测试方法名加上参数，如 JedisModesBenchmark.setString mode=pipeline
+     */
+    private static String label(RunResult result) {
+        String benchmark = result.getParams().getBenchmark();
+        StringBuilder label = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+        for (String key : result.getParams().getParamsKeys())
+            label.append(' ').append(key).append('=').append(result.getParams().getParam(key));
+        return label.toString();
+    }
+
+    private static Result find(Collection<RunResult> run, String label) {
+        for (RunResult result : run) {
+            if (label.equals(label(result)))
+                return result.getPrimaryResult();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,134 @@
+package com.foxless.util.cache.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.foxless.util.cache.SerializeUtil;
+import com.foxless.util.cache.codec.Codecs;
+import com.foxless.util.cache.codec.ValueCompressor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SerializeUtil、Codecs和ValueCompressor的耗时，结果为每次操作的纳秒数。<br>
+ * 加上 -prof gc 可以同时看到每次操作分配的字节数。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializeBenchmark {
+
+    /**
+     * 测试用的对象，其他测试中的对象值也使用它
+     */
+    public static class Sample {
+        private long id;
+        private String name;
+        private int level;
+        private double score;
+        private List<String> tags;
+
+        public Sample() {
+        }
+
+        Sample(long id, String name, int level, double score, List<String> tags) {
+            this.id = id;
+            this.name = name;
+            this.level = level;
+            this.score = score;
+            this.tags = tags;
+        }
+    }
+
+    static final Sample SAMPLE;
+
+    static {
+        List<String> tags = new ArrayList<String>();
+        tags.add("vip");
+        tags.add("beta");
+        SAMPLE = new Sample(10086L, "player10086", 42, 1234.5, tags);
+    }
+
+    private final byte[] sampleBytes = SerializeUtil.serialize(SAMPLE);
+    private final byte[] stringBytes = SerializeUtil.serialize("player10086");
+    private final byte[] encodedString = Codecs.encode("player10086");
+    private final ByteBuffer direct = ByteBuffer.allocateDirect(4096);
+
+    private final ValueCompressor compressor = new ValueCompressor(1024, 1);
+    private final byte[] large;
+    private final byte[] compressed;
+
+    public SerializeBenchmark() {
+        List<Sample> list = new ArrayList<Sample>();
+        for (int i = 0; i < 200; i++)
+            list.add(new Sample(i, "player" + i, i % 100, i * 1.5, SAMPLE.tags));
+        large = Codecs.encode(list);
+        compressed = compressor.compress(large);
+    }
+
+    @Benchmark
+    public byte[] serializeObject() {
+        return SerializeUtil.serialize(SAMPLE);
+    }
+
+    @Benchmark
+    public Object deserializeObject() {
+        return SerializeUtil.deserialize(sampleBytes, Sample.class);
+    }
+
+    @Benchmark
+    public byte[] serializeString() {
+        return SerializeUtil.serialize("player10086");
+    }
+
+    @Benchmark
+    public Object deserializeString() {
+        return SerializeUtil.deserialize(stringBytes, String.class);
+    }
+
+    @Benchmark
+    public int serializeToDirectBuffer() {
+        direct.clear();
+        return SerializeUtil.serializeTo(SAMPLE, direct);
+    }
+
+    @Benchmark
+    public byte[] encodeString() {
+        return Codecs.encode("player10086");
+    }
+
+    @Benchmark
+    public Object decodeString() {
+        return Codecs.decode(encodedString);
+    }
+
+    @Benchmark
+    public byte[] encodeLong() {
+        return Codecs.encode(10086L);
+    }
+
+    @Benchmark
+    public byte[] compressLarge() {
+        return compressor.compress(large);
+    }
+
+    @Benchmark
+    public Object decodeCompressedLarge() {
+        return Codecs.decode(compressed);
+    }
+}
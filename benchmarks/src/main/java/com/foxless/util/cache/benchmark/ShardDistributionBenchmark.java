@@ -0,0 +1,50 @@
+package com.foxless.util.cache.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.foxless.util.cache.util.ConsistentHashRing;
+
+/**
+ * 一致性hash环的分布测试：1M个key在各节点上的数量偏差，以及增加一个节点后改变归属的key的比例（理想值为1/(N+1)）
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class ShardDistributionBenchmark {
+
+    private static final int KEYS = 1000000;
+
+    public static void main(String[] args) {
+        for (int virtualNodes : new int[]{10, 40, 160, 640}) {
+            for (int n : new int[]{3, 8}) {
+                ConsistentHashRing<String> ring = new ConsistentHashRing<String>(virtualNodes);
+                for (int i = 0; i < n; i++)
+                    ring.add("10.0.0." + i + ":6379", "node" + i);
+                String[] owners = new String[KEYS];
+                Map<String, Integer> counts = new HashMap<String, Integer>();
+                long begin = System.nanoTime();
+                for (int k = 0; k < KEYS; k++) {
+                    owners[k] = ring.get("user:" + k);
+                    counts.merge(owners[k], 1, Integer::sum);
+                }
+                long lookupNanos = (System.nanoTime() - begin) / KEYS;
+                int min = Integer.MAX_VALUE;
+                int max = 0;
+                for (int c : counts.values()) {
+                    min = Math.min(min, c);
+                    max = Math.max(max, c);
+                }
+                ring.add("10.0.0." + n + ":6379", "node" + n);
+                int moved = 0;
+                for (int k = 0; k < KEYS; k++) {
+                    if (!owners[k].equals(ring.get("user:" + k)))
+                        moved++;
+                }
+                double mean = (double) KEYS / n;
+                System.out.println(String.format("vnodes=%-4d nodes=%d  min %.3f max %.3f of mean  moved %.3f (ideal %.3f)  lookup %d ns",
+                        virtualNodes, n, min / mean, max / mean, (double) moved / KEYS, 1.0 / (n + 1), lookupNanos));
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.foxless.util.cache.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.foxless.util.cache.cacher.impl.LocalCacheHelperImpl;
+
+/**
+ * 本地有序集合按名次翻页的耗时测试，集合中有1M个成员，分别读取头部、中部和尾部的一页
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class SortedSetRangeBenchmark {
+
+    private static final int MEMBERS = 1000000;
+    private static final int PAGE_SIZE = 100;
+    private static final int ROUNDS = 10000;
+
+    public static void main(String[] args) {
+        LocalCacheHelperImpl cache = new LocalCacheHelperImpl(null);
+        Map<Long, String> members = new HashMap<Long, String>(MEMBERS * 2);
+        for (long i = 0; i < MEMBERS; i++)
+            members.put(i, "player" + i);
+        cache.setStringSortedObjectSet("leaderboard", members);
+
+        for (long start : new long[]{0, MEMBERS / 2, MEMBERS - PAGE_SIZE}) {
+            // 预热
+            for (int i = 0; i < ROUNDS; i++)
+                cache.getReverseStringSortedObjectSetMember("leaderboard", start, start + PAGE_SIZE);
+            long begin = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++)
+                cache.getReverseStringSortedObjectSetMember("leaderboard", start, start + PAGE_SIZE);
+            long rangeNanos = (System.nanoTime() - begin) / ROUNDS;
+            begin = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++)
+                cache.getStringSortedObjectSetMemberRank("leaderboard", "player" + (MEMBERS - 1 - start));
+            long rankNanos = (System.nanoTime() - begin) / ROUNDS;
+            System.out.println(String.format("start=%-8d page=%d  reverse range %6d ns/op  rank %6d ns/op",
+                    start, PAGE_SIZE, rangeNanos, rankNanos));
+        }
+    }
+}
@@ -4,13 +4,24 @@
  */
 package com.foxless.util.cache;
 
-import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import com.foxless.util.cache.cacher.AsyncCacheHelper;
 import com.foxless.util.cache.cacher.LocalCacheHelper;
-import com.foxless.util.cache.aop.JedisHelperInvocationHandler;
+import com.foxless.util.cache.aop.CleanupJedisCacheHelper;
+import com.foxless.util.cache.aop.MeasuredJedisCacheHelper;
 import com.foxless.util.cache.bean.JedisConfigBean;
+import com.foxless.util.cache.bean.LocalCacheConfigBean;
+import com.foxless.util.cache.bean.NearCacheConfigBean;
 import com.foxless.util.cache.cacher.JedisCacheHelper;
+import com.foxless.util.cache.cacher.impl.JedisAsyncCacheHelper;
+import com.foxless.util.cache.cacher.impl.JedisHelperImpl;
+import com.foxless.util.cache.cacher.impl.LocalAsyncCacheHelper;
 import com.foxless.util.cache.cacher.impl.LocalCacheHelperImpl;
+import com.foxless.util.cache.cacher.impl.NearCacheHelper;
+import com.foxless.util.cache.cacher.impl.ReplicatedJedisCacheHelper;
+import com.foxless.util.cache.cacher.impl.ShardedJedisCacheHelper;
 
 
 public class CacheHelperFactory {
@@ -21,23 +32,144 @@ public class CacheHelperFactory {
     }
 
     /**
-     * 产生一个代理JedisHelper类
+     * 产生一个JedisHelper，方法抛出异常时回滚事务并归还当前线程绑定的Jedis，同时记录各方法的延迟
      */
     public static final JedisCacheHelper getJedisCacheHelper(JedisConfigBean jedisConfigBean) {
         if (null == jedisHelper) {
-            JedisHelperInvocationHandler jedisHelperInvocationHandler =
-                    new JedisHelperInvocationHandler(jedisConfigBean);
-            jedisHelper = (JedisCacheHelper) Proxy.newProxyInstance(JedisCacheHelper.class.getClassLoader(),
-                    new Class[]{JedisCacheHelper.class},
-                    jedisHelperInvocationHandler);
+            JedisHelperImpl target = new JedisHelperImpl(jedisConfigBean);
+            jedisHelper = new CleanupJedisCacheHelper(new MeasuredJedisCacheHelper(target), target::clear);
         }
         return jedisHelper;
     }
 
+    /**
+     * 产生一个按一致性hash把key分布到{@link JedisConfigBean#getShardNodes()}各节点上的JedisHelper，
+     * 每个节点使用jedisConfigBean中的连接池、密码和数据库配置
+     */
+    public static final ShardedJedisCacheHelper getShardedJedisCacheHelper(JedisConfigBean jedisConfigBean) {
+        String shardNodes = jedisConfigBean.getShardNodes();
+        if (null == shardNodes || shardNodes.trim().isEmpty())
+            throw new IllegalArgumentException("shardNodes cannot be empty");
+        Map<String, JedisCacheHelper> nodes = new LinkedHashMap<String, JedisCacheHelper>();
+        for (Map.Entry<String, JedisHelperImpl> node : parseNodes(jedisConfigBean, shardNodes).entrySet()) {
+            JedisHelperImpl target = node.getValue();
+            nodes.put(node.getKey(), new CleanupJedisCacheHelper(new MeasuredJedisCacheHelper(target), target::clear));
+        }
+        return new ShardedJedisCacheHelper(nodes, jedisConfigBean.getShardVirtualNodes());
+    }
+
+    /**
+     * 产生一个读写分离的JedisHelper，写操作发给host和port指定的主节点，
+     * 读操作发给{@link JedisConfigBean#getReplicaNodes()}中的从节点，从节点使用jedisConfigBean中的连接池、密码和数据库配置
+     */
+    public static final ReplicatedJedisCacheHelper getReplicatedJedisCacheHelper(JedisConfigBean jedisConfigBean) {
+        String replicaNodes = jedisConfigBean.getReplicaNodes();
+        if (null == replicaNodes || replicaNodes.trim().isEmpty())
+            throw new IllegalArgumentException("replicaNodes cannot be empty");
+        Map<String, JedisCacheHelper> replicas = new LinkedHashMap<String, JedisCacheHelper>();
+        for (Map.Entry<String, JedisHelperImpl> node : parseNodes(jedisConfigBean, replicaNodes).entrySet())
+            replicas.put(node.getKey(), new MeasuredJedisCacheHelper(node.getValue()));
+        JedisHelperImpl target = new JedisHelperImpl(nodeConfig(jedisConfigBean,
+                jedisConfigBean.getHost(), jedisConfigBean.getPort()));
+        return new ReplicatedJedisCacheHelper(new CleanupJedisCacheHelper(new MeasuredJedisCacheHelper(target), target::clear), replicas);
+    }
+
+    /**
+     * 解析host:port,host:port形式的节点列表
+     */
+    private static Map<String, JedisHelperImpl> parseNodes(JedisConfigBean config, String nodeList) {
+        Map<String, JedisHelperImpl> nodes = new LinkedHashMap<String, JedisHelperImpl>();
+        for (String node : nodeList.split(",")) {
+            node = node.trim();
+            int colon = node.lastIndexOf(':');
+            if (colon <= 0 || colon == node.length() - 1)
+                throw new IllegalArgumentException("Node must be host:port, got " + node);
+            nodes.put(node, new JedisHelperImpl(nodeConfig(config,
+                    node.substring(0, colon), Integer.parseInt(node.substring(colon + 1)))));
+        }
+        return nodes;
+    }
+
+    /**
+     * 只替换host和port的配置
+     */
+    private static JedisConfigBean nodeConfig(JedisConfigBean config, String host, int port) {
+        return new JedisConfigBean() {
+            public int getMaxTotal() { return config.getMaxTotal(); }
+            public int getMaxActive() { return config.getMaxActive(); }
+            public int getMaxIdle() { return config.getMaxIdle(); }
+            public int getMinIdle() { return config.getMinIdle(); }
+            public int getMaxWait() { return config.getMaxWait(); }
+            public String getHost() { return host; }
+            public int getPort() { return port; }
+            public int getDefaultDb() { return config.getDefaultDb(); }
+            public String getPassword() { return config.getPassword(); }
+            public boolean isTestOnBorrow() { return config.isTestOnBorrow(); }
+            public boolean isTestOnReturn() { return config.isTestOnReturn(); }
+            public boolean isAutoBatching() { return config.isAutoBatching(); }
+            public int getBatchConnections() { return config.getBatchConnections(); }
+            public int getBatchMaxSize() { return config.getBatchMaxSize(); }
+            public int getBatchLingerMicros() { return config.getBatchLingerMicros(); }
+            public int getCompressThreshold() { return config.getCompressThreshold(); }
+            public int getCompressLevel() { return config.getCompressLevel(); }
+            public String getShardNodes() { return null; }
+            public String getReplicaNodes() { return null; }
+            public double getRefreshAheadBeta() { return config.getRefreshAheadBeta(); }
+            public int getRefreshAheadThreads() { return config.getRefreshAheadThreads(); }
+            public int getParallelDecodeBytes() { return config.getParallelDecodeBytes(); }
+            public int getShardVirtualNodes() { return config.getShardVirtualNodes(); }
+        };
+    }
+
     /**
      * 产生一个LocalCacheHelper
      */
     public static final LocalCacheHelper getLocalCacheHelper() {
         return LocalCacheHelperImpl.getInstance();
     }
+
+    /**
+     * 产生一个限制容量的LocalCacheHelper，超出容量时按W-TinyLFU策略淘汰key
+     */
+    public static final LocalCacheHelper getLocalCacheHelper(LocalCacheConfigBean localCacheConfigBean) {
+        return LocalCacheHelperImpl.getInstance(localCacheConfigBean);
+    }
+
+    /**
+     * 产生一个两级缓存，本地层在前，Redis在后，写操作通过pub/sub通知各节点删除本地层中的key，
+     * 通知发往{@link NearCacheConfigBean#getInvalidationHost()}
+     */
+    public static final NearCacheHelper getNearCacheHelper(JedisConfigBean jedisConfigBean,
+                                                           NearCacheConfigBean nearCacheConfigBean) {
+        return getNearCacheHelper(getJedisCacheHelper(jedisConfigBean), nearCacheConfigBean);
+    }
+
+    /**
+     * 在已有的JedisCacheHelper（如分片或主从的helper）前加一层本地缓存
+     */
+    public static final NearCacheHelper getNearCacheHelper(JedisCacheHelper jedisCacheHelper,
+                                                           NearCacheConfigBean nearCacheConfigBean) {
+        return new NearCacheHelper(jedisCacheHelper, nearCacheConfigBean);
+    }
+
+    /**
+     * 产生一个异步的JedisCacheHelper，命令以管道方式批量发送，连接数等使用jedisConfigBean中的batch配置
+     */
+    public static final JedisAsyncCacheHelper getAsyncJedisCacheHelper(JedisConfigBean jedisConfigBean) {
+        return new JedisAsyncCacheHelper(jedisConfigBean);
+    }
+
+    /**
+     * 产生一个异步的LocalCacheHelper
+     */
+    public static final AsyncCacheHelper getAsyncLocalCacheHelper() {
+        return new LocalAsyncCacheHelper(getLocalCacheHelper());
+    }
+
+    /**
+     * 产生一个限制容量的异步LocalCacheHelper
+     */
+    public static final AsyncCacheHelper getAsyncLocalCacheHelper(LocalCacheConfigBean localCacheConfigBean) {
+        return new LocalAsyncCacheHelper(getLocalCacheHelper(localCacheConfigBean));
+    }
 }
@@ -1,8 +1,10 @@
 package com.foxless.util.cache;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.sql.Timestamp;
-import java.util.HashMap;
-import java.util.Map;
 
 import com.dyuproject.protostuff.LinkedBuffer;
 import com.dyuproject.protostuff.ProtostuffIOUtil;
@@ -12,17 +14,36 @@ import com.dyuproject.protostuff.runtime.RuntimeEnv;
 import com.dyuproject.protostuff.runtime.RuntimeSchema;
 import com.foxless.util.cache.bean.DataContainer;
 import com.foxless.util.cache.bean.TimestampDelegate;
+import com.foxless.util.cache.codec.Codecs;
 
 
+/**
+ * 基于Protostuff的对象序列化工具，线程安全。<br>
+ * 每个线程复用自己的LinkedBuffer和DataContainer，序列化小对象时只分配结果数组；
+ * Schema按类缓存在ClassValue中，查找不加锁。<br>
+ * {@link #serializeTo(Object, ByteBuffer)}和{@link #deserialize(ByteBuffer, Class)}直接读写ByteBuffer，不产生中间的byte[]。<br>
+ * 反序列化时不以{@link #CONTAINER_TAG}开头的数据交给{@link Codecs}按编码头解码。
+ */
 @SuppressWarnings("unchecked")
 public class SerializeUtil {
 
-    //用于缓存Protostuff的Schema信息
-    private static final Map<Class<?>, RuntimeSchema<?>> schemas =
-            new HashMap<Class<?>, RuntimeSchema<?>>();
-
     public static final int LINK_BUFFER_SIZE = 256;
 
+    /**
+     * 序列化结果的第一个字节：DataContainer的data字段（1号字段，group类型）
+     */
+    public static final byte CONTAINER_TAG = 11;
+
+    /**
+     * 每个线程复用的LinkedBuffer大小，超出部分按LINK_BUFFER_SIZE临时分配，用完即丢弃
+     */
+    public static final int THREAD_BUFFER_SIZE = 1024;
+
+    /**
+     * 反序列化堆外ByteBuffer时每个线程保留的读缓冲上限，更大的数据使用临时数组
+     */
+    private static final int MAX_RETAINED_READ_BUFFER = 64 * 1024;
+
 
     /**
      * 时间戳转换Delegate，解决时间戳转换后错误问题
@@ -35,40 +56,182 @@ public class SerializeUtil {
         idStrategy.registerDelegate(TIMESTAMP_DELEGATE);
     }
 
+    //用于缓存Protostuff的Schema信息
+    private static final ClassValue<RuntimeSchema<?>> schemas = new ClassValue<RuntimeSchema<?>>() {
+        @Override
+        protected RuntimeSchema<?> computeValue(Class<?> type) {
+            return RuntimeSchema.createFrom(type, idStrategy);
+        }
+    };
+
+    private static final RuntimeSchema<DataContainer> CONTAINER_SCHEMA = getSchema(DataContainer.class);
+
+    /**
+     * 线程内复用的序列化状态
+     */
+    private static final class Context {
+        private final LinkedBuffer buffer = LinkedBuffer.allocate(THREAD_BUFFER_SIZE);
+        private final DataContainer container = new DataContainer();
+        private final ByteBufferOutput output = new ByteBufferOutput();
+        private byte[] readBuffer = new byte[LINK_BUFFER_SIZE];
+        /**
+         * 防止同一线程重入时共用缓冲
+         */
+        private boolean inUse;
+    }
+
+    private static final ThreadLocal<Context> contexts = new ThreadLocal<Context>() {
+        @Override
+        protected Context initialValue() {
+            return new Context();
+        }
+    };
+
+    /**
+     * 把LinkedBuffer中的数据写入目标ByteBuffer
+     */
+    private static final class ByteBufferOutput extends OutputStream {
+        private ByteBuffer target;
+
+        @Override
+        public void write(int b) {
+            target.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            target.put(b, off, len);
+        }
+    }
+
+    private static Context acquire() {
+        Context context = contexts.get();
+        if (context.inUse)
+            return null;
+        context.inUse = true;
+        return context;
+    }
+
+    private static void release(Context context) {
+        context.buffer.clear();
+        context.container.setData(null);
+        context.inUse = false;
+    }
 
     /**
      * 从schemas集合获取类的RuntimeSchema，如果不存在，则创建，加入schemas并返回
      */
     public static <T> RuntimeSchema<T> getSchema(Class<T> type) {
-        RuntimeSchema<T> schema = (RuntimeSchema<T>) schemas.get(type);
-        if (null == schema) {
-            schema = RuntimeSchema.createFrom(type, idStrategy);
-            schemas.put(type, schema);
-        }
-        return schema;
+        return (RuntimeSchema<T>) schemas.get(type);
     }
 
     /**
      * 将一个对象反序列化为字节数组
      */
     public static byte[] serialize(Object obj) {
-        DataContainer objContainer = new DataContainer(obj);
-        RuntimeSchema<DataContainer> schema = getSchema(DataContainer.class);
-        LinkedBuffer buffer = LinkedBuffer.allocate(LINK_BUFFER_SIZE);
-        byte[] obj_bs = ProtostuffIOUtil.toByteArray(objContainer, schema, buffer);
-        buffer.clear();
-        buffer = null;
-        return obj_bs;
+        Context context = acquire();
+        if (null == context)
+            return ProtostuffIOUtil.toByteArray(new DataContainer(obj), CONTAINER_SCHEMA, LinkedBuffer.allocate(LINK_BUFFER_SIZE));
+        try {
+            context.container.setData(obj);
+            return ProtostuffIOUtil.toByteArray(context.container, CONTAINER_SCHEMA, context.buffer);
+        } finally {
+            release(context);
+        }
+    }
+
+    /**
+     * 将一个对象序列化后从dst的当前位置写入，返回写入的字节数。<br>
+     * dst剩余空间不足时抛出BufferOverflowException，dst不变。
+     */
+    public static int serializeTo(Object obj, ByteBuffer dst) {
+        Context context = acquire();
+        if (null == context) {
+            byte[] bs = serialize(obj);
+            if (bs.length > dst.remaining())
+                throw new BufferOverflowException();
+            dst.put(bs);
+            return bs.length;
+        }
+        try {
+            context.container.setData(obj);
+            int size = ProtostuffIOUtil.writeTo(context.buffer, context.container, CONTAINER_SCHEMA);
+            if (size > dst.remaining())
+                throw new BufferOverflowException();
+            context.output.target = dst;
+            try {
+                LinkedBuffer.writeTo(context.output, context.buffer);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                context.output.target = null;
+            }
+            return size;
+        } finally {
+            release(context);
+        }
     }
 
     /**
      * 将字节数组序列化为指定类型的类
      */
     public static <T> T deserialize(byte[] obj_bs, Class<T> type) {
-        DataContainer valueContainer = new DataContainer();
-        RuntimeSchema<DataContainer> schema = getSchema(DataContainer.class);
-        if (null != obj_bs && obj_bs.length > 0)
-            ProtostuffIOUtil.mergeFrom(obj_bs, valueContainer, schema);
-        return (T) valueContainer.getData();
+        if (null == obj_bs || obj_bs.length == 0)
+            return null;
+        return deserialize(obj_bs, 0, obj_bs.length, type);
+    }
+
+    /**
+     * 将字节数组中从offset开始的length个字节反序列化为指定类型的类
+     */
+    public static <T> T deserialize(byte[] obj_bs, int offset, int length, Class<T> type) {
+        if (length == 0)
+            return null;
+        if (obj_bs[offset] != CONTAINER_TAG)
+            return (T) Codecs.decode(obj_bs, offset, length);
+        Context context = acquire();
+        DataContainer valueContainer = null == context ? new DataContainer() : context.container;
+        try {
+            ProtostuffIOUtil.mergeFrom(obj_bs, offset, length, valueContainer, CONTAINER_SCHEMA);
+            return (T) valueContainer.getData();
+        } finally {
+            if (null != context)
+                release(context);
+        }
+    }
+
+    /**
+     * 将src中从当前位置到limit的数据反序列化为指定类型的类，之后src的位置移到limit
+     */
+    public static <T> T deserialize(ByteBuffer src, Class<T> type) {
+        int length = src.remaining();
+        if (length == 0)
+            return null;
+        if (src.hasArray()) {
+            T value = deserialize(src.array(), src.arrayOffset() + src.position(), length, type);
+            src.position(src.limit());
+            return value;
+        }
+        Context context = acquire();
+        if (null == context) {
+            byte[] bs = new byte[length];
+            src.get(bs);
+            return deserialize(bs, 0, length, type);
+        }
+        try {
+            byte[] bs = context.readBuffer;
+            if (bs.length < length) {
+                bs = new byte[Math.max(length, bs.length * 2)];
+                if (bs.length <= MAX_RETAINED_READ_BUFFER)
+                    context.readBuffer = bs;
+            }
+            src.get(bs, 0, length);
+            if (bs[0] != CONTAINER_TAG)
+                return (T) Codecs.decode(bs, 0, length);
+            ProtostuffIOUtil.mergeFrom(bs, 0, length, context.container, CONTAINER_SCHEMA);
+            return (T) context.container.getData();
+        } finally {
+            release(context);
+        }
     }
 }
@@ -0,0 +1,125 @@
+package com.foxless.util.cache.aop;
+
+/**
+ * CacheHelper及其子接口中的操作，装饰器用它识别当前调用的方法，重载的方法对应同一个操作。<br>
+ * 读操作（get、mget、hget、hmget、is、exists开头）另外统计命中情况。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public enum CacheOperation {
+    EX_KEY("exKey", false),
+    SET("set", false),
+    GET("get", true),
+    MGET("mget", true),
+    HGET("hget", true),
+    HMGET("hmget", true),
+    HSET("hset", false),
+    SET_EX("setEX", false),
+    SET_OBJECT_EX("setObjectEX", false),
+    SET_MAP("setMap", false),
+    GET_MAP_VALUE("getMapValue", true),
+    APPEND_MAP_ITEM("appendMapItem", false),
+    GET_MAP_VALUES("getMapValues", true),
+    GET_MULTI_MAP_VALUES("getMultiMapValues", true),
+    SET_OBJECT("setObject", false),
+    GET_OBJECT("getObject", true),
+    GET_OBJECTS("getObjects", true),
+    SET_OBJECTS("setObjects", false),
+    SET_STRING_LIST("setStringList", false),
+    APPEND_STRING_LIST_ITEM("appendStringListItem", false),
+    GET_STRING_LIST_ITEM("getStringListItem", true),
+    GET_STRING_LIST_ITEMS("getStringListItems", true),
+    SET_OBJECT_LIST("setObjectList", false),
+    GET_OBJECT_LIST_ITEM("getObjectListItem", true),
+    GET_OBJECT_LIST_ITEMS("getObjectListItems", true),
+    APPEND_OBJECT_LIST_ITEM("appendObjectListItem", false),
+    TRIM_LIST("trimList", false),
+    REMOVE_REPEAT_STRING_LIST_ITEM("removeRepeatStringListItem", false),
+    REMOVE_REPEAT_OBJECT_LIST_ITEM("removeRepeatObjectListItem", false),
+    GET_LIST_LENGTH("getListLength", true),
+    SET_OBJECT_SET("setObjectSet", false),
+    GET_OBJECT_SET_ALL("getObjectSetAll", true),
+    APPEND_OBJECT_SET_MEMBER("appendObjectSetMember", false),
+    REMOVE_OBJECT_SET_MEMBER("removeObjectSetMember", false),
+    GET_INTER_OBJECT_SET("getInterObjectSet", true),
+    GET_DIFF_OBJECT_SET("getDiffObjectSet", true),
+    GET_UNION_OBJECT_SET("getUnionObjectSet", true),
+    MOVE_OBJECT_SET_MEMBER("moveObjectSetMember", false),
+    IS_OBJECT_SET_MEMBER("isObjectSetMember", true),
+    SET_STRING_SET("setStringSet", false),
+    GET_STRING_SET_ALL("getStringSetAll", true),
+    APPEND_STRING_SET_MEMBER("appendStringSetMember", false),
+    REMOVE_STRING_SET_MEMBER("removeStringSetMember", false),
+    SET_SORTED_OBJECT_SET("setSortedObjectSet", false),
+    SET_STRING_SORTED_OBJECT_SET("setStringSortedObjectSet", false),
+    APPEND_SORTED_OBJECT_SET_MEMBER("appendSortedObjectSetMember", false),
+    APPEND_STRING_SORTED_OBJECT_SET_MEMBER("appendStringSortedObjectSetMember", false),
+    GET_SORTED_OBJECT_SET_MEMBER("getSortedObjectSetMember", true),
+    GET_STRING_SORTED_OBJECT_SET_MEMBER("getStringSortedObjectSetMember", true),
+    GET_REVERSE_SORTED_OBJECT_SET_MEMBER("getReverseSortedObjectSetMember", true),
+    GET_REVERSE_STRING_SORTED_OBJECT_SET_MEMBER("getReverseStringSortedObjectSetMember", true),
+    GET_SORTED_SET_SIZE("getSortedSetSize", true),
+    REMOVE_SORTED_OBJECT_SET_MEMBER("removeSortedObjectSetMember", false),
+    REMOVE_STRING_SORTED_OBJECT_SET_MEMBER("removeStringSortedObjectSetMember", false),
+    INCRE_SORTED_OBJECT_SET_MEMBER_SCORE("increSortedObjectSetMemberScore", false),
+    INCRE_STRING_SORTED_OBJECT_SET_MEMBER_SCORE("increStringSortedObjectSetMemberScore", false),
+    GET_SORTED_OBJECT_SET_MEMBER_BY_SCORE("getSortedObjectSetMemberByScore", true),
+    GET_STRING_SORTED_OBJECT_SET_MEMBER_BY_SCORE("getStringSortedObjectSetMemberByScore", true),
+    GET_SORTED_OBJECT_SET_MEMBER_RANK("getSortedObjectSetMemberRank", true),
+    GET_STRING_SORTED_OBJECT_SET_MEMBER_RANK("getStringSortedObjectSetMemberRank", true),
+    GET_REVERSE_SORTED_OBJECT_SET_MEMBER_RANK("getReverseSortedObjectSetMemberRank", true),
+    GET_REVERSE_STRING_SORTED_OBJECT_SET_MEMBER_RANK("getReverseStringSortedObjectSetMemberRank", true),
+    GET_SORTED_OBJECT_SET_MEMBER_SCORE("getSortedObjectSetMemberScore", true),
+    GET_STRING_SORTED_OBJECT_SET_MEMBER_SCORE("getStringSortedObjectSetMemberScore", true),
+    EXISTS_KEY("existsKey", true),
+    GET_TIME_TO_LIVE("getTimeToLive", true),
+    GET_SET_SIZE("getSetSize", true),
+    DEL("del", false),
+    HDEL("hdel", false),
+    INCR("incr", false),
+    HINCR("hincr", false),
+    KEYS("keys", false),
+    SCAN("scan", false),
+    START_TRANSACTION("startTransaction", false),
+    COMMIT("commit", false),
+    OPEN_PIPELINE("openPipeline", false),
+    SYNC("sync", false),
+    CLOSE_PIPELINE("closePipeline", false),
+    GET_NEW_JEDIS("getNewJedis", false),
+    BOUND_JEDIS("boundJedis", false),
+    UNBOUND_JEDIS("unboundJedis", false),
+    DISCARD("discard", false),
+    TRY_LEASE("tryLease", false),
+    RELEASE_LEASE("releaseLease", false),
+    GET_WITH_TTL("getWithTtl", true),
+    GET_OBJECT_WITH_TTL("getObjectWithTtl", true),
+    GET_OBJECTS_WITH_TTL("getObjectsWithTtl", true),
+    HGET_WITH_TTL("hgetWithTtl", true),
+    GET_MAP_VALUE_WITH_TTL("getMapValueWithTtl", true),
+    GET_INTER_STRING_SET("getInterStringSet", true),
+    GET_DIFF_STRING_SET("getDiffStringSet", true),
+    MOVE_STRING_SET_MEMBER("moveStringSetMember", false),
+    IS_STRING_SET_MEMBER("isStringSetMember", true),
+    SNAPSHOT("snapshot", false),
+    RESTORE("restore", false),
+    KEYS_WITH_PREFIX("keysWithPrefix", false),
+    COUNT_KEYS_WITH_PREFIX("countKeysWithPrefix", false),
+    DEL_BY_PREFIX("delByPrefix", false);
+
+    private final String methodName;
+    private final boolean read;
+
+    CacheOperation(String methodName, boolean read) {
+        this.methodName = methodName;
+        this.read = read;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public boolean isRead() {
+        return read;
+    }
+}
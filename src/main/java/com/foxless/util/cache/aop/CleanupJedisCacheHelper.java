@@ -0,0 +1,33 @@
+package com.foxless.util.cache.aop;
+
+import com.foxless.util.cache.cacher.JedisCacheHelper;
+
+/**
+ * 方法执行过程中抛出异常时执行清理，如回滚事务、归还当前线程绑定的Jedis，之后异常继续抛出
+ *
+ * @author Hetianyi 2017/12/30
+ * @version 1.0
+ */
+public class CleanupJedisCacheHelper extends ForwardingJedisCacheHelper {
+
+    private final Runnable cleanup;
+
+    /**
+     * @param cleanup 出现异常时执行，如{@link com.foxless.util.cache.cacher.impl.JedisHelperImpl#clear()}
+     */
+    public CleanupJedisCacheHelper(JedisCacheHelper delegate, Runnable cleanup) {
+        super(delegate);
+        if (null == cleanup)
+            throw new IllegalArgumentException("cleanup cannot be null");
+        this.cleanup = cleanup;
+    }
+
+    @Override
+    protected void failed(CacheOperation operation, long token, RuntimeException e) {
+        try {
+            cleanup.run();//清除本地线程数据
+        } catch (RuntimeException suppressed) {
+            e.addSuppressed(suppressed);
+        }
+    }
+}
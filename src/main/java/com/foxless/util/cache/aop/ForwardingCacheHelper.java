@@ -0,0 +1,1017 @@
+package com.foxless.util.cache.aop;
+
+import static com.foxless.util.cache.aop.CacheOperation.*;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.foxless.util.cache.cacher.CacheHelper;
+import com.foxless.util.cache.cacher.RefreshAhead;
+
+/**
+ * 把CacheHelper的所有方法转发给被装饰的对象，子类通过覆盖{@link #before}、{@link #after}、{@link #failed}
+ * 在每次调用前后加入处理，或者覆盖个别方法改变其行为。<br>
+ * 不使用反射，不装箱参数，多个装饰器可以层层嵌套，JIT可以内联整个调用链。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public abstract class ForwardingCacheHelper<H extends CacheHelper> implements CacheHelper {
+
+    protected final H delegate;
+
+    protected ForwardingCacheHelper(H delegate) {
+        if (null == delegate)
+            throw new IllegalArgumentException("delegate cannot be null");
+        this.delegate = delegate;
+    }
+
+    /**
+     * 被装饰的对象
+     */
+    public H getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 调用前执行，返回值原样传给after或failed，如开始时间
+     */
+    protected long before(CacheOperation operation) {
+        return 0;
+    }
+
+    /**
+     * 调用成功后执行，void方法的result为null
+     */
+    protected void after(CacheOperation operation, long token, Object result) {
+    }
+
+    /**
+     * 调用抛出异常后执行，之后异常会继续抛出
+     */
+    protected void failed(CacheOperation operation, long token, RuntimeException e) {
+    }
+
+    @Override
+    public void exKey(String key, int sec) {
+        long token = before(EX_KEY);
+        try {
+            delegate.exKey(key, sec);
+            after(EX_KEY, token, null);
+        } catch (RuntimeException e) {
+            failed(EX_KEY, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void set(String key, String value) {
+        long token = before(SET);
+        try {
+            delegate.set(key, value);
+            after(SET, token, null);
+        } catch (RuntimeException e) {
+            failed(SET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public String get(String key) {
+        long token = before(GET);
+        try {
+            String ret = delegate.get(key);
+            after(GET, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> mget(String... keys) {
+        long token = before(MGET);
+        try {
+            List<String> ret = delegate.mget(keys);
+            after(MGET, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(MGET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        long token = before(HGET);
+        try {
+            String ret = delegate.hget(key, field);
+            after(HGET, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(HGET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<String, String> hmget(String key, String... field) {
+        long token = before(HMGET);
+        try {
+            Map<String, String> ret = delegate.hmget(key, field);
+            after(HMGET, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(HMGET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void hset(String key, String field, String value) {
+        long token = before(HSET);
+        try {
+            delegate.hset(key, field, value);
+            after(HSET, token, null);
+        } catch (RuntimeException e) {
+            failed(HSET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setEX(String key, String value, int sec) {
+        long token = before(SET_EX);
+        try {
+            delegate.setEX(key, value, sec);
+            after(SET_EX, token, null);
+        } catch (RuntimeException e) {
+            failed(SET_EX, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setObjectEX(String key, Object value, int second) {
+        long token = before(SET_OBJECT_EX);
+        try {
+            delegate.setObjectEX(key, value, second);
+            after(SET_OBJECT_EX, token, null);
+        } catch (RuntimeException e) {
+            failed(SET_OBJECT_EX, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setMap(String key, Map<?, ?> map) {
+        long token = before(SET_MAP);
+        try {
+            delegate.setMap(key, map);
+            after(SET_MAP, token, null);
+        } catch (RuntimeException e) {
+            failed(SET_MAP, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> T getMapValue(String mapKey, Object fieldKey, Class<T> type) {
+        long token = before(GET_MAP_VALUE);
+        try {
+            T ret = delegate.getMapValue(mapKey, fieldKey, type);
+            after(GET_MAP_VALUE, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_MAP_VALUE, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void appendMapItem(String mapKey, Object fieldKey, Object value) {
+        long token = before(APPEND_MAP_ITEM);
+        try {
+            delegate.appendMapItem(mapKey, fieldKey, value);
+            after(APPEND_MAP_ITEM, token, null);
+        } catch (RuntimeException e) {
+            failed(APPEND_MAP_ITEM, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> List<T> getMapValues(String mapKey, Class<T> type) {
+        long token = before(GET_MAP_VALUES);
+        try {
+            List<T> ret = delegate.getMapValues(mapKey, type);
+            after(GET_MAP_VALUES, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_MAP_VALUES, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T, K> Map<K, T> getMultiMapValues(String mapKey, Class<T> type, K... keys) {
+        long token = before(GET_MULTI_MAP_VALUES);
+        try {
+            Map<K, T> ret = delegate.getMultiMapValues(mapKey, type, keys);
+            after(GET_MULTI_MAP_VALUES, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_MULTI_MAP_VALUES, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setObject(String key, Object obj) {
+        long token = before(SET_OBJECT);
+        try {
+            delegate.setObject(key, obj);
+            after(SET_OBJECT, token, null);
+        } catch (RuntimeException e) {
+            failed(SET_OBJECT, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> type) {
+        long token = before(GET_OBJECT);
+        try {
+            T ret = delegate.getObject(key, type);
+            after(GET_OBJECT, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_OBJECT, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> List<T> getObjects(Class<T> type, String... keys) {
+        long token = before(GET_OBJECTS);
+        try {
+            List<T> ret = delegate.getObjects(type, keys);
+            after(GET_OBJECTS, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_OBJECTS, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setObjects(Map<String, ?> values, int second) {
+        long token = before(SET_OBJECTS);
+        try {
+            delegate.setObjects(values, second);
+            after(SET_OBJECTS, token, null);
+        } catch (RuntimeException e) {
+            failed(SET_OBJECTS, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setStringList(String key, List<String> list) {
+        long token = before(SET_STRING_LIST);
+        try {
+            delegate.setStringList(key, list);
+            after(SET_STRING_LIST, token, null);
+        } catch (RuntimeException e) {
+            failed(SET_STRING_LIST, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void appendStringListItem(String key, boolean tail, String... strings) {
+        long token = before(APPEND_STRING_LIST_ITEM);
+        try {
+            delegate.appendStringListItem(key, tail, strings);
+            after(APPEND_STRING_LIST_ITEM, token, null);
+        } catch (RuntimeException e) {
+            failed(APPEND_STRING_LIST_ITEM, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public String getStringListItem(String key, int index) {
+        long token = before(GET_STRING_LIST_ITEM);
+        try {
+            String ret = delegate.getStringListItem(key, index);
+            after(GET_STRING_LIST_ITEM, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_STRING_LIST_ITEM, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> getStringListItems(String key, int start, int end) {
+        long token = before(GET_STRING_LIST_ITEMS);
+        try {
+            List<String> ret = delegate.getStringListItems(key, start, end);
+            after(GET_STRING_LIST_ITEMS, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_STRING_LIST_ITEMS, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setObjectList(String key, List<?> list) {
+        long token = before(SET_OBJECT_LIST);
+        try {
+            delegate.setObjectList(key, list);
+            after(SET_OBJECT_LIST, token, null);
+        } catch (RuntimeException e) {
+            failed(SET_OBJECT_LIST, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> T getObjectListItem(String key, int index, Class<T> type) {
+        long token = before(GET_OBJECT_LIST_ITEM);
+        try {
+            T ret = delegate.getObjectListItem(key, index, type);
+            after(GET_OBJECT_LIST_ITEM, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_OBJECT_LIST_ITEM, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> List<T> getObjectListItems(String key, int start, int end, Class<T> type) {
+        long token = before(GET_OBJECT_LIST_ITEMS);
+        try {
+            List<T> ret = delegate.getObjectListItems(key, start, end, type);
+            after(GET_OBJECT_LIST_ITEMS, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_OBJECT_LIST_ITEMS, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void appendObjectListItem(String key, boolean tail, Object... items) {
+        long token = before(APPEND_OBJECT_LIST_ITEM);
+        try {
+            delegate.appendObjectListItem(key, tail, items);
+            after(APPEND_OBJECT_LIST_ITEM, token, null);
+        } catch (RuntimeException e) {
+            failed(APPEND_OBJECT_LIST_ITEM, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void trimList(String key, int start, int end) {
+        long token = before(TRIM_LIST);
+        try {
+            delegate.trimList(key, start, end);
+            after(TRIM_LIST, token, null);
+        } catch (RuntimeException e) {
+            failed(TRIM_LIST, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void removeRepeatStringListItem(String key, int count, String value) {
+        long token = before(REMOVE_REPEAT_STRING_LIST_ITEM);
+        try {
+            delegate.removeRepeatStringListItem(key, count, value);
+            after(REMOVE_REPEAT_STRING_LIST_ITEM, token, null);
+        } catch (RuntimeException e) {
+            failed(REMOVE_REPEAT_STRING_LIST_ITEM, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void removeRepeatObjectListItem(String key, int count, Object value) {
+        long token = before(REMOVE_REPEAT_OBJECT_LIST_ITEM);
+        try {
+            delegate.removeRepeatObjectListItem(key, count, value);
+            after(REMOVE_REPEAT_OBJECT_LIST_ITEM, token, null);
+        } catch (RuntimeException e) {
+            failed(REMOVE_REPEAT_OBJECT_LIST_ITEM, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public long getListLength(String key) {
+        long token = before(GET_LIST_LENGTH);
+        try {
+            long ret = delegate.getListLength(key);
+            after(GET_LIST_LENGTH, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_LIST_LENGTH, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> void setObjectSet(String key, Set<T> sets) {
+        long token = before(SET_OBJECT_SET);
+        try {
+            delegate.setObjectSet(key, sets);
+            after(SET_OBJECT_SET, token, null);
+        } catch (RuntimeException e) {
+            failed(SET_OBJECT_SET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> Set<T> getObjectSetAll(String key, Class<T> type) {
+        long token = before(GET_OBJECT_SET_ALL);
+        try {
+            Set<T> ret = delegate.getObjectSetAll(key, type);
+            after(GET_OBJECT_SET_ALL, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_OBJECT_SET_ALL, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> void appendObjectSetMember(String key, T... objects) {
+        long token = before(APPEND_OBJECT_SET_MEMBER);
+        try {
+            delegate.appendObjectSetMember(key, objects);
+            after(APPEND_OBJECT_SET_MEMBER, token, null);
+        } catch (RuntimeException e) {
+            failed(APPEND_OBJECT_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> void removeObjectSetMember(String key, T... objects) {
+        long token = before(REMOVE_OBJECT_SET_MEMBER);
+        try {
+            delegate.removeObjectSetMember(key, objects);
+            after(REMOVE_OBJECT_SET_MEMBER, token, null);
+        } catch (RuntimeException e) {
+            failed(REMOVE_OBJECT_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> Set<T> getInterObjectSet(Class<T> type, byte[]... keys) {
+        long token = before(GET_INTER_OBJECT_SET);
+        try {
+            Set<T> ret = delegate.getInterObjectSet(type, keys);
+            after(GET_INTER_OBJECT_SET, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_INTER_OBJECT_SET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> Set<T> getDiffObjectSet(Class<T> type, byte[]... keys) {
+        long token = before(GET_DIFF_OBJECT_SET);
+        try {
+            Set<T> ret = delegate.getDiffObjectSet(type, keys);
+            after(GET_DIFF_OBJECT_SET, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_DIFF_OBJECT_SET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> Set<T> getUnionObjectSet(Class<T> type, byte[]... keys) {
+        long token = before(GET_UNION_OBJECT_SET);
+        try {
+            Set<T> ret = delegate.getUnionObjectSet(type, keys);
+            after(GET_UNION_OBJECT_SET, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_UNION_OBJECT_SET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int moveObjectSetMember(byte[] source, byte[] dest, Object member) {
+        long token = before(MOVE_OBJECT_SET_MEMBER);
+        try {
+            int ret = delegate.moveObjectSetMember(source, dest, member);
+            after(MOVE_OBJECT_SET_MEMBER, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(MOVE_OBJECT_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean isObjectSetMember(byte[] key, Object member) {
+        long token = before(IS_OBJECT_SET_MEMBER);
+        try {
+            boolean ret = delegate.isObjectSetMember(key, member);
+            after(IS_OBJECT_SET_MEMBER, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(IS_OBJECT_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setStringSet(String key, Set<String> sets) {
+        long token = before(SET_STRING_SET);
+        try {
+            delegate.setStringSet(key, sets);
+            after(SET_STRING_SET, token, null);
+        } catch (RuntimeException e) {
+            failed(SET_STRING_SET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<String> getStringSetAll(String key) {
+        long token = before(GET_STRING_SET_ALL);
+        try {
+            Set<String> ret = delegate.getStringSetAll(key);
+            after(GET_STRING_SET_ALL, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_STRING_SET_ALL, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void appendStringSetMember(String key, String... strings) {
+        long token = before(APPEND_STRING_SET_MEMBER);
+        try {
+            delegate.appendStringSetMember(key, strings);
+            after(APPEND_STRING_SET_MEMBER, token, null);
+        } catch (RuntimeException e) {
+            failed(APPEND_STRING_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void removeStringSetMember(String key, String... strings) {
+        long token = before(REMOVE_STRING_SET_MEMBER);
+        try {
+            delegate.removeStringSetMember(key, strings);
+            after(REMOVE_STRING_SET_MEMBER, token, null);
+        } catch (RuntimeException e) {
+            failed(REMOVE_STRING_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> void setSortedObjectSet(String key, Map<Long, T> set) {
+        long token = before(SET_SORTED_OBJECT_SET);
+        try {
+            delegate.setSortedObjectSet(key, set);
+            after(SET_SORTED_OBJECT_SET, token, null);
+        } catch (RuntimeException e) {
+            failed(SET_SORTED_OBJECT_SET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setStringSortedObjectSet(String key, Map<Long, String> set) {
+        long token = before(SET_STRING_SORTED_OBJECT_SET);
+        try {
+            delegate.setStringSortedObjectSet(key, set);
+            after(SET_STRING_SORTED_OBJECT_SET, token, null);
+        } catch (RuntimeException e) {
+            failed(SET_STRING_SORTED_OBJECT_SET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> void appendSortedObjectSetMember(String key, Map<Long, T> set) {
+        long token = before(APPEND_SORTED_OBJECT_SET_MEMBER);
+        try {
+            delegate.appendSortedObjectSetMember(key, set);
+            after(APPEND_SORTED_OBJECT_SET_MEMBER, token, null);
+        } catch (RuntimeException e) {
+            failed(APPEND_SORTED_OBJECT_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void appendStringSortedObjectSetMember(String key, Map<Long, String> set) {
+        long token = before(APPEND_STRING_SORTED_OBJECT_SET_MEMBER);
+        try {
+            delegate.appendStringSortedObjectSetMember(key, set);
+            after(APPEND_STRING_SORTED_OBJECT_SET_MEMBER, token, null);
+        } catch (RuntimeException e) {
+            failed(APPEND_STRING_SORTED_OBJECT_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> List<T> getSortedObjectSetMember(String key, long start, long end, Class<T> type) {
+        long token = before(GET_SORTED_OBJECT_SET_MEMBER);
+        try {
+            List<T> ret = delegate.getSortedObjectSetMember(key, start, end, type);
+            after(GET_SORTED_OBJECT_SET_MEMBER, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_SORTED_OBJECT_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> getStringSortedObjectSetMember(String key, long start, long end) {
+        long token = before(GET_STRING_SORTED_OBJECT_SET_MEMBER);
+        try {
+            List<String> ret = delegate.getStringSortedObjectSetMember(key, start, end);
+            after(GET_STRING_SORTED_OBJECT_SET_MEMBER, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_STRING_SORTED_OBJECT_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> List<T> getReverseSortedObjectSetMember(String key, long start, long end, Class<T> type) {
+        long token = before(GET_REVERSE_SORTED_OBJECT_SET_MEMBER);
+        try {
+            List<T> ret = delegate.getReverseSortedObjectSetMember(key, start, end, type);
+            after(GET_REVERSE_SORTED_OBJECT_SET_MEMBER, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_REVERSE_SORTED_OBJECT_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> getReverseStringSortedObjectSetMember(String key, long start, long end) {
+        long token = before(GET_REVERSE_STRING_SORTED_OBJECT_SET_MEMBER);
+        try {
+            List<String> ret = delegate.getReverseStringSortedObjectSetMember(key, start, end);
+            after(GET_REVERSE_STRING_SORTED_OBJECT_SET_MEMBER, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_REVERSE_STRING_SORTED_OBJECT_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public long getSortedSetSize(String key) {
+        long token = before(GET_SORTED_SET_SIZE);
+        try {
+            long ret = delegate.getSortedSetSize(key);
+            after(GET_SORTED_SET_SIZE, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_SORTED_SET_SIZE, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> void removeSortedObjectSetMember(String key, T... members) {
+        long token = before(REMOVE_SORTED_OBJECT_SET_MEMBER);
+        try {
+            delegate.removeSortedObjectSetMember(key, members);
+            after(REMOVE_SORTED_OBJECT_SET_MEMBER, token, null);
+        } catch (RuntimeException e) {
+            failed(REMOVE_SORTED_OBJECT_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void removeStringSortedObjectSetMember(String key, String... members) {
+        long token = before(REMOVE_STRING_SORTED_OBJECT_SET_MEMBER);
+        try {
+            delegate.removeStringSortedObjectSetMember(key, members);
+            after(REMOVE_STRING_SORTED_OBJECT_SET_MEMBER, token, null);
+        } catch (RuntimeException e) {
+            failed(REMOVE_STRING_SORTED_OBJECT_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> void removeSortedObjectSetMember(String key, long start, long end) {
+        long token = before(REMOVE_SORTED_OBJECT_SET_MEMBER);
+        try {
+            delegate.removeSortedObjectSetMember(key, start, end);
+            after(REMOVE_SORTED_OBJECT_SET_MEMBER, token, null);
+        } catch (RuntimeException e) {
+            failed(REMOVE_SORTED_OBJECT_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void removeStringSortedObjectSetMember(String key, long start, long end) {
+        long token = before(REMOVE_STRING_SORTED_OBJECT_SET_MEMBER);
+        try {
+            delegate.removeStringSortedObjectSetMember(key, start, end);
+            after(REMOVE_STRING_SORTED_OBJECT_SET_MEMBER, token, null);
+        } catch (RuntimeException e) {
+            failed(REMOVE_STRING_SORTED_OBJECT_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> Long increSortedObjectSetMemberScore(String key, T member, long incr) {
+        long token = before(INCRE_SORTED_OBJECT_SET_MEMBER_SCORE);
+        try {
+            Long ret = delegate.increSortedObjectSetMemberScore(key, member, incr);
+            after(INCRE_SORTED_OBJECT_SET_MEMBER_SCORE, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(INCRE_SORTED_OBJECT_SET_MEMBER_SCORE, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Long increStringSortedObjectSetMemberScore(String key, String member, long incr) {
+        long token = before(INCRE_STRING_SORTED_OBJECT_SET_MEMBER_SCORE);
+        try {
+            Long ret = delegate.increStringSortedObjectSetMemberScore(key, member, incr);
+            after(INCRE_STRING_SORTED_OBJECT_SET_MEMBER_SCORE, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(INCRE_STRING_SORTED_OBJECT_SET_MEMBER_SCORE, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> List<T> getSortedObjectSetMemberByScore(String key, long min, long max, Class<T> type) {
+        long token = before(GET_SORTED_OBJECT_SET_MEMBER_BY_SCORE);
+        try {
+            List<T> ret = delegate.getSortedObjectSetMemberByScore(key, min, max, type);
+            after(GET_SORTED_OBJECT_SET_MEMBER_BY_SCORE, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_SORTED_OBJECT_SET_MEMBER_BY_SCORE, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> getStringSortedObjectSetMemberByScore(String key, long min, long max) {
+        long token = before(GET_STRING_SORTED_OBJECT_SET_MEMBER_BY_SCORE);
+        try {
+            List<String> ret = delegate.getStringSortedObjectSetMemberByScore(key, min, max);
+            after(GET_STRING_SORTED_OBJECT_SET_MEMBER_BY_SCORE, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_STRING_SORTED_OBJECT_SET_MEMBER_BY_SCORE, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> Long getSortedObjectSetMemberRank(String key, T member) {
+        long token = before(GET_SORTED_OBJECT_SET_MEMBER_RANK);
+        try {
+            Long ret = delegate.getSortedObjectSetMemberRank(key, member);
+            after(GET_SORTED_OBJECT_SET_MEMBER_RANK, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_SORTED_OBJECT_SET_MEMBER_RANK, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Long getStringSortedObjectSetMemberRank(String key, String member) {
+        long token = before(GET_STRING_SORTED_OBJECT_SET_MEMBER_RANK);
+        try {
+            Long ret = delegate.getStringSortedObjectSetMemberRank(key, member);
+            after(GET_STRING_SORTED_OBJECT_SET_MEMBER_RANK, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_STRING_SORTED_OBJECT_SET_MEMBER_RANK, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> Long getReverseSortedObjectSetMemberRank(String key, T member) {
+        long token = before(GET_REVERSE_SORTED_OBJECT_SET_MEMBER_RANK);
+        try {
+            Long ret = delegate.getReverseSortedObjectSetMemberRank(key, member);
+            after(GET_REVERSE_SORTED_OBJECT_SET_MEMBER_RANK, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_REVERSE_SORTED_OBJECT_SET_MEMBER_RANK, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Long getReverseStringSortedObjectSetMemberRank(String key, String member) {
+        long token = before(GET_REVERSE_STRING_SORTED_OBJECT_SET_MEMBER_RANK);
+        try {
+            Long ret = delegate.getReverseStringSortedObjectSetMemberRank(key, member);
+            after(GET_REVERSE_STRING_SORTED_OBJECT_SET_MEMBER_RANK, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_REVERSE_STRING_SORTED_OBJECT_SET_MEMBER_RANK, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> Long getSortedObjectSetMemberScore(String key, T member) {
+        long token = before(GET_SORTED_OBJECT_SET_MEMBER_SCORE);
+        try {
+            Long ret = delegate.getSortedObjectSetMemberScore(key, member);
+            after(GET_SORTED_OBJECT_SET_MEMBER_SCORE, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_SORTED_OBJECT_SET_MEMBER_SCORE, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Long getStringSortedObjectSetMemberScore(String key, String member) {
+        long token = before(GET_STRING_SORTED_OBJECT_SET_MEMBER_SCORE);
+        try {
+            Long ret = delegate.getStringSortedObjectSetMemberScore(key, member);
+            after(GET_STRING_SORTED_OBJECT_SET_MEMBER_SCORE, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_STRING_SORTED_OBJECT_SET_MEMBER_SCORE, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean existsKey(String key) {
+        long token = before(EXISTS_KEY);
+        try {
+            boolean ret = delegate.existsKey(key);
+            after(EXISTS_KEY, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(EXISTS_KEY, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public long getTimeToLive(String key) {
+        long token = before(GET_TIME_TO_LIVE);
+        try {
+            long ret = delegate.getTimeToLive(key);
+            after(GET_TIME_TO_LIVE, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_TIME_TO_LIVE, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public long getSetSize(String key) {
+        long token = before(GET_SET_SIZE);
+        try {
+            long ret = delegate.getSetSize(key);
+            after(GET_SET_SIZE, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_SET_SIZE, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void del(String key) {
+        long token = before(DEL);
+        try {
+            delegate.del(key);
+            after(DEL, token, null);
+        } catch (RuntimeException e) {
+            failed(DEL, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void hdel(String key, String field) {
+        long token = before(HDEL);
+        try {
+            delegate.hdel(key, field);
+            after(HDEL, token, null);
+        } catch (RuntimeException e) {
+            failed(HDEL, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void hdel(String key, Object field) {
+        long token = before(HDEL);
+        try {
+            delegate.hdel(key, field);
+            after(HDEL, token, null);
+        } catch (RuntimeException e) {
+            failed(HDEL, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void incr(String key, Long value) {
+        long token = before(INCR);
+        try {
+            delegate.incr(key, value);
+            after(INCR, token, null);
+        } catch (RuntimeException e) {
+            failed(INCR, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void hincr(String key, String field, Long value) {
+        long token = before(HINCR);
+        try {
+            delegate.hincr(key, field, value);
+            after(HINCR, token, null);
+        } catch (RuntimeException e) {
+            failed(HINCR, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<String> keys(String pattern) {
+        long token = before(KEYS);
+        try {
+            Set<String> ret = delegate.keys(pattern);
+            after(KEYS, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(KEYS, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Iterator<String> scan(String pattern, int batchSize) {
+        long token = before(SCAN);
+        try {
+            Iterator<String> ret = delegate.scan(pattern, batchSize);
+            after(SCAN, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(SCAN, token, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 直接转发，不经过before和after
+     */
+    @Override
+    public RefreshAhead getRefreshAhead() {
+        return delegate.getRefreshAhead();
+    }
+}
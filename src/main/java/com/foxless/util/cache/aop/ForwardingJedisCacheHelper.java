@@ -0,0 +1,311 @@
+package com.foxless.util.cache.aop;
+
+import static com.foxless.util.cache.aop.CacheOperation.*;
+
+import java.util.List;
+import java.util.Set;
+
+import com.foxless.util.cache.cacher.ExpiringValue;
+import com.foxless.util.cache.cacher.JedisCacheHelper;
+import com.foxless.util.cache.metrics.CacheMetrics;
+import redis.clients.jedis.Jedis;
+
+/**
+ * 转发JedisCacheHelper所有方法的装饰器基类，见{@link ForwardingCacheHelper}。<br>
+ * info、getMetrics和close直接转发，不经过before和after。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public abstract class ForwardingJedisCacheHelper extends ForwardingCacheHelper<JedisCacheHelper> implements JedisCacheHelper {
+
+    protected ForwardingJedisCacheHelper(JedisCacheHelper delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public void info() {
+        delegate.info();
+    }
+
+    @Override
+    public CacheMetrics getMetrics() {
+        return delegate.getMetrics();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public boolean startTransaction() {
+        long token = before(START_TRANSACTION);
+        try {
+            boolean ret = delegate.startTransaction();
+            after(START_TRANSACTION, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(START_TRANSACTION, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean commit() {
+        long token = before(COMMIT);
+        try {
+            boolean ret = delegate.commit();
+            after(COMMIT, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(COMMIT, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean openPipeline() {
+        long token = before(OPEN_PIPELINE);
+        try {
+            boolean ret = delegate.openPipeline();
+            after(OPEN_PIPELINE, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(OPEN_PIPELINE, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void sync() {
+        long token = before(SYNC);
+        try {
+            delegate.sync();
+            after(SYNC, token, null);
+        } catch (RuntimeException e) {
+            failed(SYNC, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean closePipeline() {
+        long token = before(CLOSE_PIPELINE);
+        try {
+            boolean ret = delegate.closePipeline();
+            after(CLOSE_PIPELINE, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(CLOSE_PIPELINE, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Jedis getNewJedis() {
+        long token = before(GET_NEW_JEDIS);
+        try {
+            Jedis ret = delegate.getNewJedis();
+            after(GET_NEW_JEDIS, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_NEW_JEDIS, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean boundJedis() {
+        long token = before(BOUND_JEDIS);
+        try {
+            boolean ret = delegate.boundJedis();
+            after(BOUND_JEDIS, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(BOUND_JEDIS, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void unboundJedis() {
+        long token = before(UNBOUND_JEDIS);
+        try {
+            delegate.unboundJedis();
+            after(UNBOUND_JEDIS, token, null);
+        } catch (RuntimeException e) {
+            failed(UNBOUND_JEDIS, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean discard() {
+        long token = before(DISCARD);
+        try {
+            boolean ret = delegate.discard();
+            after(DISCARD, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(DISCARD, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<String> getInterStringSet(String... key) {
+        long token = before(GET_INTER_STRING_SET);
+        try {
+            Set<String> ret = delegate.getInterStringSet(key);
+            after(GET_INTER_STRING_SET, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_INTER_STRING_SET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<String> getDiffStringSet(String... keys) {
+        long token = before(GET_DIFF_STRING_SET);
+        try {
+            Set<String> ret = delegate.getDiffStringSet(keys);
+            after(GET_DIFF_STRING_SET, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_DIFF_STRING_SET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<String> getUnionObjectSet(String... keys) {
+        long token = before(GET_UNION_OBJECT_SET);
+        try {
+            Set<String> ret = delegate.getUnionObjectSet(keys);
+            after(GET_UNION_OBJECT_SET, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_UNION_OBJECT_SET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int moveStringSetMember(String source, String dest, String member) {
+        long token = before(MOVE_STRING_SET_MEMBER);
+        try {
+            int ret = delegate.moveStringSetMember(source, dest, member);
+            after(MOVE_STRING_SET_MEMBER, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(MOVE_STRING_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean isStringSetMember(String key, String member) {
+        long token = before(IS_STRING_SET_MEMBER);
+        try {
+            boolean ret = delegate.isStringSetMember(key, member);
+            after(IS_STRING_SET_MEMBER, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(IS_STRING_SET_MEMBER, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean tryLease(String key, String value, long millis) {
+        long token = before(TRY_LEASE);
+        try {
+            boolean ret = delegate.tryLease(key, value, millis);
+            after(TRY_LEASE, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(TRY_LEASE, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean releaseLease(String key, String value) {
+        long token = before(RELEASE_LEASE);
+        try {
+            boolean ret = delegate.releaseLease(key, value);
+            after(RELEASE_LEASE, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(RELEASE_LEASE, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public ExpiringValue<String> getWithTtl(String key) {
+        long token = before(GET_WITH_TTL);
+        try {
+            ExpiringValue<String> ret = delegate.getWithTtl(key);
+            after(GET_WITH_TTL, token, ret.getValue());
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_WITH_TTL, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> ExpiringValue<T> getObjectWithTtl(String key, Class<T> type) {
+        long token = before(GET_OBJECT_WITH_TTL);
+        try {
+            ExpiringValue<T> ret = delegate.getObjectWithTtl(key, type);
+            after(GET_OBJECT_WITH_TTL, token, ret.getValue());
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_OBJECT_WITH_TTL, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> List<ExpiringValue<T>> getObjectsWithTtl(Class<T> type, String... keys) {
+        long token = before(GET_OBJECTS_WITH_TTL);
+        try {
+            List<ExpiringValue<T>> ret = delegate.getObjectsWithTtl(type, keys);
+            after(GET_OBJECTS_WITH_TTL, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_OBJECTS_WITH_TTL, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public ExpiringValue<String> hgetWithTtl(String key, String field) {
+        long token = before(HGET_WITH_TTL);
+        try {
+            ExpiringValue<String> ret = delegate.hgetWithTtl(key, field);
+            after(HGET_WITH_TTL, token, ret.getValue());
+            return ret;
+        } catch (RuntimeException e) {
+            failed(HGET_WITH_TTL, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> ExpiringValue<T> getMapValueWithTtl(String mapKey, Object fieldKey, Class<T> type) {
+        long token = before(GET_MAP_VALUE_WITH_TTL);
+        try {
+            ExpiringValue<T> ret = delegate.getMapValueWithTtl(mapKey, fieldKey, type);
+            after(GET_MAP_VALUE_WITH_TTL, token, ret.getValue());
+            return ret;
+        } catch (RuntimeException e) {
+            failed(GET_MAP_VALUE_WITH_TTL, token, e);
+            throw e;
+        }
+    }
+}
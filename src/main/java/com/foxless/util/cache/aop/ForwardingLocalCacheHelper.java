@@ -0,0 +1,109 @@
+package com.foxless.util.cache.aop;
+
+import static com.foxless.util.cache.aop.CacheOperation.*;
+
+import java.util.Set;
+
+import com.foxless.util.cache.cacher.LocalCacheHelper;
+import com.foxless.util.cache.metrics.CacheMetrics;
+
+/**
+ * 转发LocalCacheHelper所有方法的装饰器基类，见{@link ForwardingCacheHelper}。<br>
+ * info和getMetrics直接转发，不经过before和after。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public abstract class ForwardingLocalCacheHelper extends ForwardingCacheHelper<LocalCacheHelper> implements LocalCacheHelper {
+
+    protected ForwardingLocalCacheHelper(LocalCacheHelper delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public void hset(String key, Object field, Object value) {
+        long token = before(HSET);
+        try {
+            delegate.hset(key, field, value);
+            after(HSET, token, null);
+        } catch (RuntimeException e) {
+            failed(HSET, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public String info() {
+        return delegate.info();
+    }
+
+    @Override
+    public CacheMetrics getMetrics() {
+        return delegate.getMetrics();
+    }
+
+    @Override
+    public long snapshot(String path) {
+        long token = before(SNAPSHOT);
+        try {
+            long ret = delegate.snapshot(path);
+            after(SNAPSHOT, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(SNAPSHOT, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public long restore(String path) {
+        long token = before(RESTORE);
+        try {
+            long ret = delegate.restore(path);
+            after(RESTORE, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(RESTORE, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<String> keysWithPrefix(String prefix) {
+        long token = before(KEYS_WITH_PREFIX);
+        try {
+            Set<String> ret = delegate.keysWithPrefix(prefix);
+            after(KEYS_WITH_PREFIX, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(KEYS_WITH_PREFIX, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public long countKeysWithPrefix(String prefix) {
+        long token = before(COUNT_KEYS_WITH_PREFIX);
+        try {
+            long ret = delegate.countKeysWithPrefix(prefix);
+            after(COUNT_KEYS_WITH_PREFIX, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(COUNT_KEYS_WITH_PREFIX, token, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public long delByPrefix(String prefix) {
+        long token = before(DEL_BY_PREFIX);
+        try {
+            long ret = delegate.delByPrefix(prefix);
+            after(DEL_BY_PREFIX, token, ret);
+            return ret;
+        } catch (RuntimeException e) {
+            failed(DEL_BY_PREFIX, token, e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.foxless.util.cache.aop;
+
+import com.foxless.util.cache.cacher.JedisCacheHelper;
+import com.foxless.util.cache.metrics.CacheMetrics;
+
+/**
+ * 按方法名记录每次调用的延迟，读方法另外统计命中情况，结果记录在metrics中
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class MeasuredJedisCacheHelper extends ForwardingJedisCacheHelper {
+
+    private final OperationRecorder recorder;
+
+    /**
+     * 记录到被装饰对象的{@link JedisCacheHelper#getMetrics()}中
+     */
+    public MeasuredJedisCacheHelper(JedisCacheHelper delegate) {
+        this(delegate, delegate.getMetrics());
+    }
+
+    public MeasuredJedisCacheHelper(JedisCacheHelper delegate, CacheMetrics metrics) {
+        super(delegate);
+        this.recorder = new OperationRecorder(metrics);
+    }
+
+    @Override
+    protected long before(CacheOperation operation) {
+        return System.nanoTime();
+    }
+
+    @Override
+    protected void after(CacheOperation operation, long token, Object result) {
+        recorder.record(operation, token, result);
+    }
+
+    @Override
+    protected void failed(CacheOperation operation, long token, RuntimeException e) {
+        recorder.recordError(operation, token);
+    }
+
+    @Override
+    public CacheMetrics getMetrics() {
+        return recorder.getMetrics();
+    }
+}
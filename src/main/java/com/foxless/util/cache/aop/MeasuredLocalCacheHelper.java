@@ -0,0 +1,48 @@
+package com.foxless.util.cache.aop;
+
+import com.foxless.util.cache.cacher.LocalCacheHelper;
+import com.foxless.util.cache.metrics.CacheMetrics;
+
+/**
+ * 按方法名记录每次调用的延迟，读方法另外统计命中情况，结果记录在metrics中。<br>
+ * 本地缓存的单次操作通常只有几十纳秒，计时本身的开销与之相当，需要时再开启
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class MeasuredLocalCacheHelper extends ForwardingLocalCacheHelper {
+
+    private final OperationRecorder recorder;
+
+    /**
+     * 记录到被装饰对象的{@link LocalCacheHelper#getMetrics()}中
+     */
+    public MeasuredLocalCacheHelper(LocalCacheHelper delegate) {
+        this(delegate, delegate.getMetrics());
+    }
+
+    public MeasuredLocalCacheHelper(LocalCacheHelper delegate, CacheMetrics metrics) {
+        super(delegate);
+        this.recorder = new OperationRecorder(metrics);
+    }
+
+    @Override
+    protected long before(CacheOperation operation) {
+        return System.nanoTime();
+    }
+
+    @Override
+    protected void after(CacheOperation operation, long token, Object result) {
+        recorder.record(operation, token, result);
+    }
+
+    @Override
+    protected void failed(CacheOperation operation, long token, RuntimeException e) {
+        recorder.recordError(operation, token);
+    }
+
+    @Override
+    public CacheMetrics getMetrics() {
+        return recorder.getMetrics();
+    }
+}
@@ -0,0 +1,46 @@
+package com.foxless.util.cache.aop;
+
+import com.foxless.util.cache.metrics.CacheMetrics;
+import com.foxless.util.cache.metrics.OperationMetrics;
+
+/**
+ * 按操作记录延迟和命中情况，供统计用的装饰器共用
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+final class OperationRecorder {
+
+    private final CacheMetrics metrics;
+    /**
+     * 按{@link CacheOperation#ordinal()}缓存的统计项，首次调用时才创建；并发创建时得到的是同一个对象
+     */
+    private final OperationMetrics[] operations = new OperationMetrics[CacheOperation.values().length];
+
+    OperationRecorder(CacheMetrics metrics) {
+        if (null == metrics)
+            throw new IllegalArgumentException("metrics cannot be null");
+        this.metrics = metrics;
+    }
+
+    CacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    void record(CacheOperation operation, long start, Object result) {
+        operation(operation).record(System.nanoTime() - start, result);
+    }
+
+    void recordError(CacheOperation operation, long start) {
+        operation(operation).recordError(System.nanoTime() - start);
+    }
+
+    private OperationMetrics operation(CacheOperation operation) {
+        OperationMetrics op = operations[operation.ordinal()];
+        if (null == op) {
+            op = metrics.operation(operation.getMethodName(), operation.isRead());
+            operations[operation.ordinal()] = op;
+        }
+        return op;
+    }
+}
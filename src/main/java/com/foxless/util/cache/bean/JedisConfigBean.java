@@ -23,6 +23,30 @@ public interface JedisConfigBean {
     //protected boolean testOnBorrow = true;
     //#在返回连接的时候检查有效性
     //protected boolean testOnReturn = false;
+    //#普通模式下把各线程的命令合并到共享连接上以管道方式批量发送，事务、管道、本地线程模式不受影响
+    //protected boolean autoBatching = false;
+    //#自动批量使用的连接数，这些连接不占用连接池
+    //protected int batchConnections = 2;
+    //#每批最多发送的命令数
+    //protected int batchMaxSize = 128;
+    //#不满一批时最多等待的微秒数，0表示不等待，只合并发送期间到达的命令
+    //protected int batchLingerMicros = 0;
+    //#对象值编码后不小于该字节数时尝试压缩，0表示不压缩；读取时总能识别压缩过的值
+    //protected int compressThreshold = 0;
+    //#压缩级别，1~9，越大压缩率越高、越耗时
+    //protected int compressLevel = 1;
+    //#分片的节点列表，如 10.0.0.1:6379,10.0.0.2:6379，用于CacheHelperFactory.getShardedJedisCacheHelper，host和port被忽略
+    //protected String shardNodes = null;
+    //#每个节点在一致性hash环上的虚拟节点数
+    //protected int shardVirtualNodes = 160;
+    //#从节点列表，如 10.0.0.2:6379,10.0.0.3:6379，用于CacheHelperFactory.getReplicatedJedisCacheHelper，host和port为主节点
+    //protected String replicaNodes = null;
+    //#getOrLoad提前刷新的beta，越大越早刷新，通常为1；小于等于0表示不开启
+    //protected double refreshAheadBeta = 0;
+    //#执行提前刷新的线程数
+    //protected int refreshAheadThreads = 2;
+    //#getObjects读到的总字节数达到该值时并行解码，小于等于0表示不并行
+    //protected int parallelDecodeBytes = 65536;
 
     int getMaxTotal();
 
@@ -45,4 +69,52 @@ public interface JedisConfigBean {
     boolean isTestOnBorrow();
 
     boolean isTestOnReturn();
+
+    default boolean isAutoBatching() {
+        return false;
+    }
+
+    default int getBatchConnections() {
+        return 2;
+    }
+
+    default int getBatchMaxSize() {
+        return 128;
+    }
+
+    default int getBatchLingerMicros() {
+        return 0;
+    }
+
+    default int getCompressThreshold() {
+        return 0;
+    }
+
+    default int getCompressLevel() {
+        return 1;
+    }
+
+    default String getShardNodes() {
+        return null;
+    }
+
+    default int getShardVirtualNodes() {
+        return 160;
+    }
+
+    default String getReplicaNodes() {
+        return null;
+    }
+
+    default double getRefreshAheadBeta() {
+        return 0;
+    }
+
+    default int getRefreshAheadThreads() {
+        return 2;
+    }
+
+    default int getParallelDecodeBytes() {
+        return 65536;
+    }
 }
@@ -0,0 +1,78 @@
+package com.foxless.util.cache.bean;
+
+public interface LocalCacheConfigBean {
+    //#最大key数量，小于等于0表示不限制
+    //protected long maxEntries = 0;
+    //#最大权重（按值占用的字节估算），小于等于0表示不限制
+    //protected long maxWeight = 0;
+    //#对象List和对象Set序列化后的数据存放在堆外的最大字节数，小于等于0表示存放在堆上
+    //protected long maxOffHeapBytes = 0;
+    //#堆外slab的字节数，也是单个对象序列化后大小的上限
+    //protected int offHeapSlabSize = 4194304;
+    //#快照文件路径，启动时从该文件恢复，JVM退出时写入，为null表示不使用快照
+    //protected String snapshotPath = null;
+    //#写日志目录，为null表示不记录写日志；设置后启动时从写日志恢复，snapshotPath不再生效
+    //protected String journalPath = null;
+    //#两次fsync之间的最大毫秒数，崩溃时最多丢失这段时间内的写入，0表示每批写入后立即fsync
+    //protected long journalFsyncMillis = 1000;
+    //#写日志内存队列能容纳的记录数
+    //protected int journalBufferSize = 65536;
+    //#单个日志段的字节数
+    //protected long journalSegmentBytes = 67108864;
+    //#已关闭的日志段累计超过该字节数时在后台压缩为快照
+    //protected long journalCompactBytes = 268435456;
+    //#维护key的前缀索引，按前缀查询、计数、删除时只访问该前缀下的key；新增和删除key时多一次索引更新
+    //protected boolean keyIndexEnabled = false;
+    //#getOrLoad提前刷新的beta，越大越早刷新，通常为1；小于等于0表示不开启
+    //protected double refreshAheadBeta = 0;
+    //#执行提前刷新的线程数
+    //protected int refreshAheadThreads = 2;
+
+    long getMaxEntries();
+
+    long getMaxWeight();
+
+    default long getMaxOffHeapBytes() {
+        return 0;
+    }
+
+    default int getOffHeapSlabSize() {
+        return 4 * 1024 * 1024;
+    }
+
+    default String getSnapshotPath() {
+        return null;
+    }
+
+    default String getJournalPath() {
+        return null;
+    }
+
+    default long getJournalFsyncMillis() {
+        return 1000;
+    }
+
+    default int getJournalBufferSize() {
+        return 64 * 1024;
+    }
+
+    default long getJournalSegmentBytes() {
+        return 64L * 1024 * 1024;
+    }
+
+    default long getJournalCompactBytes() {
+        return 256L * 1024 * 1024;
+    }
+
+    default boolean isKeyIndexEnabled() {
+        return false;
+    }
+
+    default double getRefreshAheadBeta() {
+        return 0;
+    }
+
+    default int getRefreshAheadThreads() {
+        return 2;
+    }
+}
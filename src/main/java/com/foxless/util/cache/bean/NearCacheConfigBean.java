@@ -0,0 +1,35 @@
+package com.foxless.util.cache.bean;
+
+/**
+ * 近端缓存的配置，本地层的容量等沿用{@link LocalCacheConfigBean}，maxEntries和maxWeight至少设置一个
+ */
+public interface NearCacheConfigBean extends LocalCacheConfigBean {
+    //#值在本地层中最多保留的秒数，同时不超过Redis中该key剩余的过期时间
+    //protected int nearCacheTtlSeconds = 60;
+    //#各节点之间发送失效通知的pub/sub频道
+    //protected String invalidationChannel = "cache-helper:near-cache:invalidate";
+    //#发送和订阅失效通知的Redis，必须设置；使用独立的连接，存放数据的是分片或主从的Redis时也只需一个
+    //protected String invalidationHost = null;
+    //protected int invalidationPort = 6379;
+    //protected String invalidationPassword = null;
+
+    default int getNearCacheTtlSeconds() {
+        return 60;
+    }
+
+    default String getInvalidationChannel() {
+        return "cache-helper:near-cache:invalidate";
+    }
+
+    default String getInvalidationHost() {
+        return null;
+    }
+
+    default int getInvalidationPort() {
+        return 6379;
+    }
+
+    default String getInvalidationPassword() {
+        return null;
+    }
+}
@@ -0,0 +1,179 @@
+package com.foxless.util.cache.cacher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link CacheHelper}的异步版本，方法与CacheHelper中的同名方法含义相同，结果通过CompletableFuture返回。<br>
+ * 调用立即返回，一个线程可以同时发出多个命令并组合它们的结果；命令出错时future以该异常结束。<br>
+ * 方法本身不抛出异常，参数不合法（如key为null）、序列化失败等在调用线程中发现的错误同样以失败的future返回。<br>
+ * 同一线程先后发出的命令按发出顺序执行。
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public interface AsyncCacheHelper {
+
+	CompletableFuture<Void> exKey(String key, int sec);
+
+	CompletableFuture<Void> set(String key, String value);
+
+	CompletableFuture<String> get(String key);
+
+	CompletableFuture<List<String>> mget(String... keys);
+
+
+	//---Hash(Map)↓---$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+
+	CompletableFuture<String> hget(String key, String field);
+
+	CompletableFuture<Map<String, String>> hmget(String key, String... field);
+
+	CompletableFuture<Void> hset(String key, String field, String value);
+
+	CompletableFuture<Void> setEX(String key, String value, int sec);
+
+	CompletableFuture<Void> setObjectEX(String key, Object value, int second);
+
+	CompletableFuture<Void> setMap(String key, Map<?, ?> map);
+
+	<T> CompletableFuture<T> getMapValue(String mapKey, Object fieldKey, Class<T> type);
+
+	CompletableFuture<Void> appendMapItem(String mapKey, Object fieldKey, Object value);
+
+	<T> CompletableFuture<List<T>> getMapValues(String mapKey, Class<T> type);
+
+	<T, K> CompletableFuture<Map<K, T>> getMultiMapValues(String mapKey, Class<T> type, K... keys);
+
+	//---Hash(Map)↑---$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+
+	CompletableFuture<Void> setObject(String key, Object obj);
+
+	<T> CompletableFuture<T> getObject(String key, Class<T> type);
+
+
+	//---List↓---$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+
+	CompletableFuture<Void> setStringList(String key, List<String> list);
+
+	CompletableFuture<Void> appendStringListItem(String key, boolean tail, String... strings);
+
+	CompletableFuture<String> getStringListItem(String key, int index);
+
+	CompletableFuture<List<String>> getStringListItems(String key, int start, int end);
+
+	CompletableFuture<Void> setObjectList(String key, List<?> list);
+
+	<T> CompletableFuture<T> getObjectListItem(String key, int index, Class<T> type);
+
+	<T> CompletableFuture<List<T>> getObjectListItems(String key, int start, int end, Class<T> type);
+
+	CompletableFuture<Void> appendObjectListItem(String key, boolean tail, Object... items);
+
+	CompletableFuture<Void> trimList(String key, int start, int end);
+
+	CompletableFuture<Void> removeRepeatStringListItem(String key, int count, String value);
+
+	CompletableFuture<Void> removeRepeatObjectListItem(String key, int count, Object value);
+
+	CompletableFuture<Long> getListLength(String key);
+
+	//---List↑---$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+
+
+	//////////////////////   Object Set
+
+	<T> CompletableFuture<Void> setObjectSet(String key, Set<T> sets);
+
+	<T> CompletableFuture<Set<T>> getObjectSetAll(String key, Class<T> type);
+
+	<T> CompletableFuture<Void> appendObjectSetMember(String key, T... objects);
+
+	<T> CompletableFuture<Void> removeObjectSetMember(String key, T... objects);
+
+	<T> CompletableFuture<Set<T>> getInterObjectSet(Class<T> type, byte[]... keys);
+
+	<T> CompletableFuture<Set<T>> getDiffObjectSet(Class<T> type, byte[]... keys);
+
+	<T> CompletableFuture<Set<T>> getUnionObjectSet(Class<T> type, byte[]... keys);
+
+	CompletableFuture<Integer> moveObjectSetMember(byte[] source, byte[] dest, Object member);
+
+	CompletableFuture<Boolean> isObjectSetMember(byte[] key, Object member);
+
+	//////////////////////   String Set
+
+	CompletableFuture<Void> setStringSet(String key, Set<String> sets);
+
+	CompletableFuture<Set<String>> getStringSetAll(String key);
+
+	CompletableFuture<Void> appendStringSetMember(String key, String... strings);
+
+	CompletableFuture<Void> removeStringSetMember(String key, String... strings);
+
+	////////  SortedSet
+
+	<T> CompletableFuture<Void> setSortedObjectSet(String key, Map<Long, T> set);
+
+	CompletableFuture<Void> setStringSortedObjectSet(String key, Map<Long, String> set);
+
+	<T> CompletableFuture<Void> appendSortedObjectSetMember(String key, Map<Long, T> set);
+
+	CompletableFuture<Void> appendStringSortedObjectSetMember(String key, Map<Long, String> set);
+
+	<T> CompletableFuture<List<T>> getSortedObjectSetMember(String key, long start, long end, Class<T> type);
+
+	CompletableFuture<List<String>> getStringSortedObjectSetMember(String key, long start, long end);
+
+	<T> CompletableFuture<List<T>> getReverseSortedObjectSetMember(String key, long start, long end, Class<T> type);
+
+	CompletableFuture<List<String>> getReverseStringSortedObjectSetMember(String key, long start, long end);
+
+	CompletableFuture<Long> getSortedSetSize(String key);
+
+	<T> CompletableFuture<Void> removeSortedObjectSetMember(String key, T... members);
+
+	CompletableFuture<Void> removeStringSortedObjectSetMember(String key, String... members);
+
+	CompletableFuture<Void> removeSortedObjectSetMember(String key, long start, long end);
+
+	CompletableFuture<Void> removeStringSortedObjectSetMember(String key, long start, long end);
+
+	<T> CompletableFuture<Long> increSortedObjectSetMemberScore(String key, T member, long incr);
+
+	CompletableFuture<Long> increStringSortedObjectSetMemberScore(String key, String member, long incr);
+
+	<T> CompletableFuture<List<T>> getSortedObjectSetMemberByScore(String key, long min, long max, Class<T> type);
+
+	CompletableFuture<List<String>> getStringSortedObjectSetMemberByScore(String key, long min, long max);
+
+	<T> CompletableFuture<Long> getSortedObjectSetMemberRank(String key, T member);
+
+	CompletableFuture<Long> getStringSortedObjectSetMemberRank(String key, String member);
+
+	<T> CompletableFuture<Long> getReverseSortedObjectSetMemberRank(String key, T member);
+
+	CompletableFuture<Long> getReverseStringSortedObjectSetMemberRank(String key, String member);
+
+	<T> CompletableFuture<Long> getSortedObjectSetMemberScore(String key, T member);
+
+	CompletableFuture<Long> getStringSortedObjectSetMemberScore(String key, String member);
+
+
+	CompletableFuture<Boolean> existsKey(String key);
+
+	CompletableFuture<Long> getSetSize(String key);
+
+	CompletableFuture<Void> del(String key);
+
+	CompletableFuture<Void> hdel(String key, String field);
+
+	CompletableFuture<Void> hdel(String key, Object field);
+
+	CompletableFuture<Void> incr(String key, Long value);
+
+	CompletableFuture<Void> hincr(String key, String field, Long value);
+
+	CompletableFuture<Set<String>> keys(String pattern);
+}
@@ -1,8 +1,16 @@
 package com.foxless.util.cache.cacher;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface CacheHelper {
 	
@@ -120,6 +128,14 @@ public interface CacheHelper {
 	 * 根据key从缓存字节获取对象
 	 */
 	<T> T getObject(String key, Class<T> type);
+	/**
+	 * 批量获取对象，返回的List与keys一一对应，不存在的key对应null
+	 */
+	<T> List<T> getObjects(Class<T> type, String... keys);
+	/**
+	 * 批量设置对象，second秒后过期，不大于0时不过期；值为null的key被删除
+	 */
+	void setObjects(Map<String, ?> values, int second);
 	
 	
 	//---List↓---$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
@@ -226,6 +242,22 @@ public interface CacheHelper {
 	 * 获得几个Object类型的集合的交集，并以指定的集合类型返回
 	 */
 	<T> Set<T> getInterObjectSet(Class<T> type, byte[]... keys);
+	/**
+	 * 获得几个Object类型的集合之间的差集，并以指定的集合类型返回
+	 */
+	<T> Set<T> getDiffObjectSet(Class<T> type, byte[]... keys);
+	/**
+	 * 获得几个Object类型的集合之间的并集，并以指定的集合类型返回
+	 */
+	<T> Set<T> getUnionObjectSet(Class<T> type, byte[]... keys);
+	/**
+	 * 将 member 元素从 source 集合移动到 dest 集合，移动成功返回1
+	 */
+	int moveObjectSetMember(byte[] source, byte[] dest, Object member);
+	/**
+	 * 判断 member 元素是否集合 key 的成员。
+	 */
+	boolean isObjectSetMember(byte[] key, Object member);
 
 	
 	//////////////////////   String Set
@@ -295,11 +327,35 @@ public interface CacheHelper {
 	 */
 	<T> Long increSortedObjectSetMemberScore(String key, T member, long incr);
 	Long increStringSortedObjectSetMemberScore(String key, String member, long incr);
+	/**
+	 * 获取score在[min, max]之间的有序集合元素，按score升序排列
+	 */
+	<T> List<T> getSortedObjectSetMemberByScore(String key, long min, long max, Class<T> type);
+	List<String> getStringSortedObjectSetMemberByScore(String key, long min, long max);
+	/**
+	 * 获取有序集合元素按score升序的名次(从0开始)，元素不存在时返回null
+	 */
+	<T> Long getSortedObjectSetMemberRank(String key, T member);
+	Long getStringSortedObjectSetMemberRank(String key, String member);
+	/**
+	 * 获取有序集合元素按score降序的名次(从0开始)，元素不存在时返回null
+	 */
+	<T> Long getReverseSortedObjectSetMemberRank(String key, T member);
+	Long getReverseStringSortedObjectSetMemberRank(String key, String member);
+	/**
+	 * 获取有序集合元素的score，元素不存在时返回null
+	 */
+	<T> Long getSortedObjectSetMemberScore(String key, T member);
+	Long getStringSortedObjectSetMemberScore(String key, String member);
 	
 	/**
 	 * 检测key是否存在
 	 */
 	boolean existsKey(String key);
+	/**
+	 * 获取key剩余的存活毫秒数，key不存在时返回-2，没有设置过期时间时返回-1
+	 */
+	long getTimeToLive(String key);
 	/**
 	 * 获取Set集合的大小（集合的元素数量）
 	 */
@@ -335,4 +391,46 @@ public interface CacheHelper {
 	 * @return
 	 */
 	Set<String> keys(String pattern) ;
+
+	/**
+	 * 逐批遍历匹配指定模式的key，不会像keys一样一次取出所有key<br>
+	 * pattern使用Redis的glob写法（*、?、[a-z]），local和jedis方式含义相同，null表示所有key。<br>
+	 * jedis方式使用SCAN命令，batchSize是每次SCAN的COUNT，同一个key可能返回多次；
+	 * local方式直接遍历内存中的key，遍历期间新增或删除的key可能返回也可能不返回。
+	 */
+	Iterator<String> scan(String pattern, int batchSize);
+
+	/**
+	 * 以Stream的方式遍历匹配指定模式的key，参见{@link #scan(String, int)}
+	 */
+	default Stream<String> scanStream(String pattern, int batchSize) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(scan(pattern, batchSize),
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * 读取对象，不存在时调用loader加载并写入缓存，ttl秒后过期（不大于0时不过期）。<br>
+	 * 同一JVM中对同一个key的并发加载只执行一次，其他线程等待并得到相同的结果或异常；loader返回null时不写入缓存。<br>
+	 * 开启了提前刷新（{@link #getRefreshAhead()}不为null）时，读到即将过期的key会在后台重新加载，调用方仍得到当前的值。
+	 */
+	default <T> T getOrLoad(String key, Class<T> type, int ttl, Supplier<? extends T> loader) {
+		return CacheLoaders.getOrLoad(this, key, type, ttl, loader);
+	}
+
+	/**
+	 * {@link #getOrLoad(String, Class, int, Supplier)}的批量形式，以{@link #getObjects}一次读取，
+	 * 不存在的key一次交给bulkLoader加载，再以{@link #setObjects}一次写入。<br>
+	 * 返回的Map按keys的顺序排列，不含值为null的key
+	 */
+	default <T> Map<String, T> getAllOrLoad(Collection<String> keys, Class<T> type, int ttl,
+											Function<? super Collection<String>, ? extends Map<String, ? extends T>> bulkLoader) {
+		return CacheLoaders.getAllOrLoad(this, keys, type, ttl, bulkLoader);
+	}
+
+	/**
+	 * 提前刷新的设置，为null表示不开启，见{@link RefreshAhead}
+	 */
+	default RefreshAhead getRefreshAhead() {
+		return null;
+	}
 }
@@ -0,0 +1,222 @@
+package com.foxless.util.cache.cacher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.foxless.util.cache.util.SingleFlight;
+
+/**
+ * {@link CacheHelper#getOrLoad}等方法的实现。<br>
+ * 同一个JVM中对同一个helper、同一个key的并发加载经{@link SingleFlight}合并为一次；
+ * 加载得到的null不写入缓存，下次读取仍会加载。<br>
+ * helper开启了{@link RefreshAhead}时，读到即将过期的key会在后台提前加载。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+@SuppressWarnings("unchecked")
+final class CacheLoaders {
+
+    /**
+     * Redis中租约key的后缀
+     */
+    static final String LEASE_SUFFIX = ":lease";
+
+    private static final long MAX_POLL_MILLIS = 100;
+
+    private static final SingleFlight<LoadKey, Object> flights = new SingleFlight<LoadKey, Object>();
+
+    /**
+     * 按helper实例区分的key，不同helper中的同名key分别加载
+     */
+    private static final class LoadKey {
+        private final CacheHelper helper;
+        private final String key;
+
+        LoadKey(CacheHelper helper, String key) {
+            this.helper = helper;
+            this.key = key;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(helper) * 31 + key.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof LoadKey))
+                return false;
+            LoadKey other = (LoadKey) o;
+            return helper == other.helper && key.equals(other.key);
+        }
+    }
+
+    private CacheLoaders() {
+    }
+
+    private static void assertKey(String key) {
+        if (null == key)
+            throw new IllegalArgumentException("Key cannot be null!");
+    }
+
+    private static void store(CacheHelper helper, String key, Object value, int ttl) {
+        if (null == value)
+            return;
+        if (ttl > 0)
+            helper.setObjectEX(key, value, ttl);
+        else
+            helper.setObject(key, value);
+    }
+
+    static <T> T getOrLoad(CacheHelper helper, String key, Class<T> type, int ttl, Supplier<? extends T> loader) {
+        assertKey(key);
+        T value = helper.getObject(key, type);
+        if (null != value) {
+            refreshIfExpiring(helper, key, ttl, loader);
+            return value;
+        }
+        return (T) flights.execute(new LoadKey(helper, key), () -> {
+            // 前一次加载可能在本次读取之后刚刚完成
+            T cached = helper.getObject(key, type);
+            if (null != cached)
+                return cached;
+            return load(helper, key, ttl, loader);
+        });
+    }
+
+    /**
+     * 调用loader并写入缓存，开启了提前刷新时记录加载耗时
+     */
+    private static <T> T load(CacheHelper helper, String key, int ttl, Supplier<? extends T> loader) {
+        long start = System.nanoTime();
+        T loaded = loader.get();
+        RefreshAhead refreshAhead = helper.getRefreshAhead();
+        if (null != refreshAhead && null != loaded)
+            refreshAhead.recordLoad(key, System.nanoTime() - start, ttl);
+        store(helper, key, loaded, ttl);
+        return loaded;
+    }
+
+    /**
+     * 开启了提前刷新且key即将过期时在后台重新加载，与同一key的加载合并
+     */
+    private static <T> void refreshIfExpiring(CacheHelper helper, String key, int ttl, Supplier<? extends T> loader) {
+        RefreshAhead refreshAhead = helper.getRefreshAhead();
+        if (null == refreshAhead || ttl <= 0)
+            return;
+        LoadKey loadKey = new LoadKey(helper, key);
+        refreshAhead.onHit(loadKey, key, helper::getTimeToLive,
+                () -> flights.execute(loadKey, () -> load(helper, key, ttl, loader)));
+    }
+
+    static <T> Map<String, T> getAllOrLoad(CacheHelper helper, Collection<String> keys, Class<T> type, int ttl,
+                                           Function<? super Collection<String>, ? extends Map<String, ? extends T>> bulkLoader) {
+        Map<String, T> result = new LinkedHashMap<String, T>();
+        List<LoadKey> missing = new ArrayList<LoadKey>();
+        if (keys.isEmpty())
+            return result;
+        String[] names = keys.toArray(new String[keys.size()]);
+        for (String key : names)
+            assertKey(key);
+        List<T> cached = helper.getObjects(type, names);
+        for (int i = 0; i < names.length; i++) {
+            String key = names[i];
+            T value = cached.get(i);
+            if (result.containsKey(key))
+                continue;
+            result.put(key, value);
+            if (null == value)
+                missing.add(new LoadKey(helper, key));
+            else
+                refreshIfExpiring(helper, key, ttl, () -> {
+                    Map<String, ? extends T> values = bulkLoader.apply(Collections.singletonList(key));
+                    return null == values ? null : values.get(key);
+                });
+        }
+        if (!missing.isEmpty()) {
+            Map<LoadKey, Object> loaded = flights.executeAll(missing, loadKeys -> {
+                List<String> loadNames = new ArrayList<String>(loadKeys.size());
+                for (LoadKey loadKey : loadKeys)
+                    loadNames.add(loadKey.key);
+                long start = System.nanoTime();
+                Map<String, ? extends T> values = bulkLoader.apply(loadNames);
+                long nanos = System.nanoTime() - start;
+                RefreshAhead refreshAhead = helper.getRefreshAhead();
+                Map<LoadKey, Object> byLoadKey = new LinkedHashMap<LoadKey, Object>();
+                Map<String, Object> toStore = new LinkedHashMap<String, Object>();
+                if (null != values) {
+                    for (LoadKey loadKey : loadKeys) {
+                        T value = values.get(loadKey.key);
+                        if (null == value)
+                            continue;
+                        // 每个key都按整批的耗时记录
+                        if (null != refreshAhead)
+                            refreshAhead.recordLoad(loadKey.key, nanos, ttl);
+                        toStore.put(loadKey.key, value);
+                        byLoadKey.put(loadKey, value);
+                    }
+                }
+                // 一次批量写入，null不写入缓存
+                if (!toStore.isEmpty())
+                    helper.setObjects(toStore, ttl);
+                return byLoadKey;
+            });
+            for (Map.Entry<LoadKey, Object> entry : loaded.entrySet())
+                result.put(entry.getKey().key, (T) entry.getValue());
+        }
+        result.values().removeIf(v -> null == v);
+        return result;
+    }
+
+    /**
+     * 先在Redis中以SET NX PX取得key的租约，取得租约的节点执行加载；
+     * 其他节点轮询缓存，直到读到值、租约被释放后自己取得租约，或者等待超过leaseMillis后自行加载
+     */
+    static <T> T getOrLoad(JedisCacheHelper helper, String key, Class<T> type, int ttl, long leaseMillis,
+                           Supplier<? extends T> loader) {
+        assertKey(key);
+        if (leaseMillis <= 0)
+            throw new IllegalArgumentException("leaseMillis must be greater than 0");
+        T value = helper.getObject(key, type);
+        if (null != value) {
+            refreshIfExpiring(helper, key, ttl, loader);
+            return value;
+        }
+        return (T) flights.execute(new LoadKey(helper, key), () -> {
+            String leaseKey = key + LEASE_SUFFIX;
+            String token = Long.toHexString(ThreadLocalRandom.current().nextLong());
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+            long pollMillis = 5;
+            while (true) {
+                T cached = helper.getObject(key, type);
+                if (null != cached)
+                    return cached;
+                boolean leased = helper.tryLease(leaseKey, token, leaseMillis);
+                if (leased || deadline - System.nanoTime() <= 0) {
+                    try {
+                        return load(helper, key, ttl, loader);
+                    } finally {
+                        if (leased)
+                            helper.releaseLease(leaseKey, token);
+                    }
+                }
+                try {
+                    Thread.sleep(pollMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for lease " + leaseKey, e);
+                }
+                pollMillis = Math.min(pollMillis * 2, MAX_POLL_MILLIS);
+            }
+        });
+    }
+}
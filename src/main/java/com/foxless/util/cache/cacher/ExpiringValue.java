@@ -0,0 +1,32 @@
+package com.foxless.util.cache.cacher;
+
+/**
+ * 读到的值和key剩余的存活毫秒数，见{@link JedisCacheHelper#getWithTtl(String)}
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class ExpiringValue<T> {
+
+    private final T value;
+    private final long timeToLive;
+
+    public ExpiringValue(T value, long timeToLive) {
+        this.value = value;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * 读到的值，不存在时为null
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * key剩余的存活毫秒数，同{@link CacheHelper#getTimeToLive(String)}：key不存在时为-2，没有设置过期时间时为-1
+     */
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+}
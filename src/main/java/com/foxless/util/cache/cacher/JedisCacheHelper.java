@@ -1,9 +1,13 @@
 package com.foxless.util.cache.cacher;
 
+import com.foxless.util.cache.metrics.CacheMetrics;
 import redis.clients.jedis.Jedis;
 
+import java.io.Closeable;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * JedisHelper封装实现了Jedis常用的一些API，
@@ -13,9 +17,20 @@ import java.util.Set;
  * @author Hetainyi 2017/12/30
  * @version 1.0
  */
-public interface JedisCacheHelper extends CacheHelper {
+public interface JedisCacheHelper extends CacheHelper, Closeable {
 
 	void info();
+	/**
+	 * 统计信息，可以定时拉取。<br>
+	 * 各操作的延迟和命中情况由{@link com.foxless.util.cache.aop.MeasuredJedisCacheHelper}记录，
+	 * 通过CacheHelperFactory获取的对象已经包含
+	 */
+	CacheMetrics getMetrics();
+	/**
+	 * 关闭连接池以及自动批量、提前刷新的连接和线程，之后不能再使用
+	 */
+	@Override
+	void close();
 	/**
 	 * 标记一个新的事务开始，如果上一次操作的事务未提交的情况下又开启一个新事务，<br>
 	 * 则上次的事务回滚，从当前点开启一个新事务。<br>
@@ -131,4 +146,46 @@ public interface JedisCacheHelper extends CacheHelper {
 	 * 获取有序集合的大小
 	 */
 	long getSortedSetSize(String key);
+
+	/**
+	 * 以SET NX PX取得key的租约，值为token，租约millis毫秒后自动释放，返回是否取得
+	 */
+	boolean tryLease(String key, String token, long millis);
+	/**
+	 * key的值仍是token时删除key，比较和删除在Redis中一次完成，返回是否删除
+	 */
+	boolean releaseLease(String key, String token);
+
+	//////////////////////   读取值和剩余存活时间
+
+	/**
+	 * 读取K-V值和key剩余的存活毫秒数，GET和PTTL在同一个管道中发送，只需一次往返
+	 */
+	ExpiringValue<String> getWithTtl(String key);
+	/**
+	 * 读取对象和key剩余的存活毫秒数，GET和PTTL在同一个管道中发送
+	 */
+	<T> ExpiringValue<T> getObjectWithTtl(String key, Class<T> type);
+	/**
+	 * 批量读取对象和各key剩余的存活毫秒数，一条MGET和每个key的PTTL在同一个管道中发送，
+	 * 返回的List与keys一一对应
+	 */
+	<T> List<ExpiringValue<T>> getObjectsWithTtl(Class<T> type, String... keys);
+	/**
+	 * 读取Hash的field和key剩余的存活毫秒数，HGET和PTTL在同一个管道中发送
+	 */
+	ExpiringValue<String> hgetWithTtl(String key, String field);
+	/**
+	 * 读取Map的值和key剩余的存活毫秒数，HGET和PTTL在同一个管道中发送
+	 */
+	<T> ExpiringValue<T> getMapValueWithTtl(String mapKey, Object fieldKey, Class<T> type);
+
+	/**
+	 * 跨节点合并加载的{@link #getOrLoad(String, Class, int, Supplier)}：
+	 * 加载前先以SET NX PX在Redis中取得key+":lease"的租约，其他节点在租约期间轮询缓存而不加载，
+	 * 等待超过leaseMillis（如加载方宕机）后自行加载。leaseMillis应大于加载通常所需的时间
+	 */
+	default <T> T getOrLoad(String key, Class<T> type, int ttl, long leaseMillis, Supplier<? extends T> loader) {
+		return CacheLoaders.getOrLoad(this, key, type, ttl, leaseMillis, loader);
+	}
 }
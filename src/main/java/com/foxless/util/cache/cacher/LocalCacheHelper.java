@@ -1,5 +1,9 @@
 package com.foxless.util.cache.cacher;
 
+import java.util.Set;
+
+import com.foxless.util.cache.metrics.CacheMetrics;
+
 
 
 public interface LocalCacheHelper extends CacheHelper{
@@ -7,4 +11,35 @@ public interface LocalCacheHelper extends CacheHelper{
 	void hset(String key, Object field, Object value);
 
 	String info();
+
+	/**
+	 * 统计信息，可以定时拉取，包括读取的命中情况、过期和淘汰数量等
+	 */
+	CacheMetrics getMetrics();
+
+	/**
+	 * 将本地缓存的全部数据（含过期时间）写入快照文件，返回写入的记录数
+	 */
+	long snapshot(String path);
+
+	/**
+	 * 从快照文件恢复数据，只读取索引，数据在首次访问时或由后台线程加载。<br>
+	 * 返回快照中的key数量，文件不存在时返回0
+	 */
+	long restore(String path);
+
+	/**
+	 * 返回以prefix开头的未过期key，开启keyIndexEnabled时只访问该前缀下的key，否则遍历所有key
+	 */
+	Set<String> keysWithPrefix(String prefix);
+
+	/**
+	 * 以prefix开头的未过期key的数量
+	 */
+	long countKeysWithPrefix(String prefix);
+
+	/**
+	 * 删除以prefix开头的所有key，返回删除的数量
+	 */
+	long delByPrefix(String prefix);
 }
\ No newline at end of file
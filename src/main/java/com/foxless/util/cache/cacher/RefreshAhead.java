@@ -0,0 +1,194 @@
+package com.foxless.util.cache.cacher;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.foxless.util.cache.metrics.CacheMetrics;
+import com.foxless.util.cache.metrics.OperationMetrics;
+
+/**
+ * 提前刷新：{@link CacheHelper#getOrLoad}读到即将过期的key时，按XFetch算法以一定概率在后台重新加载，调用方仍然得到当前的值。<br>
+ * 剩余存活时间不大于 delta * beta * -ln(random) 时触发刷新，delta是该key最近一次加载的耗时，
+ * 越接近过期、加载越慢，越可能提前刷新；beta越大刷新越早，1为默认值。<br>
+ * key的过期时间点记在本地，只有本地记录显示即将过期时才向缓存查询实际的剩余时间，平时的读取不增加请求；
+ * 本地没有记录的key（由其他节点加载或记录已被淘汰）不提前刷新。
+ * 同一个key同时只有一个刷新任务，任务队列满时放弃本次刷新；刷新失败时保留原值，到期后由读取方加载。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class RefreshAhead implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshAhead.class);
+
+    /**
+     * 本地记录过期时间和加载耗时的key数量上限，超出后淘汰抽样中最久没有读写的记录，并发写入时可能略微超出
+     */
+    private static final int MAX_TRACKED_KEYS = 10000;
+    /**
+     * 每次淘汰时抽样的记录数
+     */
+    private static final int EVICTION_SAMPLES = 8;
+    private static final int QUEUE_SIZE = 1024;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * key的过期时间点和最近一次加载的毫秒数，过期时间点为0表示未知，Long.MAX_VALUE表示不过期
+     */
+    private static final class KeyStats {
+        private volatile long expireAt;
+        private volatile long delta;
+        private volatile long accessedAt;
+    }
+
+    private final double beta;
+    private final ThreadPoolExecutor executor;
+    /**
+     * 读取不加锁，只在加载后新增记录时按抽样淘汰
+     */
+    private final Map<String, KeyStats> stats = new ConcurrentHashMap<String, KeyStats>();
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final OperationMetrics refreshes;
+    private final LongAdder triggered = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param beta    提前程度，大于0
+     * @param threads 执行刷新的线程数
+     * @param metrics 刷新次数和耗时记录在其中的"refresh"操作
+     */
+    public RefreshAhead(double beta, int threads, CacheMetrics metrics) {
+        if (!(beta > 0))
+            throw new IllegalArgumentException("refreshAheadBeta must be greater than 0");
+        if (threads <= 0)
+            throw new IllegalArgumentException("refreshAheadThreads must be greater than 0");
+        this.beta = beta;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(QUEUE_SIZE), r -> {
+            Thread t = new Thread(r, "cache-helper-refresh-" + THREAD_COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.refreshes = metrics.operation("refresh", false);
+        metrics.registerGauge("refreshTriggered", triggered::sum);
+        metrics.registerGauge("refreshRejected", rejected::sum);
+        metrics.registerGauge("refreshing", refreshing::size);
+    }
+
+    public double getBeta() {
+        return beta;
+    }
+
+    /**
+     * 记录一次加载的耗时和写入的存活秒数
+     */
+    void recordLoad(String key, long nanos, int ttl) {
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos));
+        long now = System.currentTimeMillis();
+        KeyStats s = stats.get(key);
+        if (null == s) {
+            s = stats.computeIfAbsent(key, k -> new KeyStats());
+            while (stats.size() > MAX_TRACKED_KEYS) {
+                if (!evictOne(key))
+                    break;
+            }
+        }
+        s.accessedAt = now;
+        s.delta = millis;
+        s.expireAt = ttl > 0 ? now + 1000L * ttl : 0;
+    }
+
+    /**
+     * 在前EVICTION_SAMPLES条记录中淘汰最久没有读写的一条，不淘汰刚加入的key，返回是否淘汰了记录。<br>
+     * ConcurrentHashMap按哈希值遍历，抽到的key与访问时间无关
+     */
+    private boolean evictOne(String added) {
+        Map.Entry<String, KeyStats> victim = null;
+        Iterator<Map.Entry<String, KeyStats>> it = stats.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLES && it.hasNext(); i++) {
+            Map.Entry<String, KeyStats> e = it.next();
+            if (e.getKey().equals(added))
+                continue;
+            if (null == victim || e.getValue().accessedAt < victim.getValue().accessedAt)
+                victim = e;
+        }
+        return null != victim && stats.remove(victim.getKey(), victim.getValue());
+    }
+
+    /**
+     * 读到key时调用，需要提前刷新时在后台执行refresh，返回是否提交了刷新。<br>
+     * 本实例没有记录该key的加载耗时时不刷新，也不查询剩余时间
+     *
+     * @param id  刷新任务的标识，相同的id同时只有一个任务
+     * @param ttl 查询key在缓存中剩余的存活毫秒数
+     */
+    boolean onHit(Object id, String key, ToLongFunction<String> ttl, Runnable refresh) {
+        KeyStats s = stats.get(key);
+        if (null == s)
+            return false;
+        long now = System.currentTimeMillis();
+        // 同一毫秒内的读取不重复写入，减少热点key上的缓存行争用
+        if (s.accessedAt != now)
+            s.accessedAt = now;
+        // 1 - nextDouble()在(0, 1]之间，对数不会是无穷大
+        double threshold = s.delta * beta * -Math.log(1 - ThreadLocalRandom.current().nextDouble());
+        if (s.expireAt > 0 && s.expireAt - now > threshold)
+            return false;
+        // 本地记录显示即将过期或过期时间未知，其他节点可能已经刷新过，以缓存中的剩余时间为准
+        long remaining = ttl.applyAsLong(key);
+        s.expireAt = remaining >= 0 ? now + remaining : remaining == -1 ? Long.MAX_VALUE : 0;
+        if (remaining < 0 || remaining > threshold)
+            return false;
+        return submit(id, key, refresh);
+    }
+
+    private boolean submit(Object id, String key, Runnable refresh) {
+        if (!refreshing.add(id))
+            return false;
+        triggered.increment();
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    refresh.run();
+                    refreshes.record(System.nanoTime() - start, null);
+                } catch (RuntimeException e) {
+                    refreshes.recordError(System.nanoTime() - start);
+                    logger.warn("Failed to refresh key " + key + ", the current value is kept until it expires.", e);
+                } finally {
+                    refreshing.remove(id);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(id);
+            rejected.increment();
+            return false;
+        }
+    }
+
+    /**
+     * 停止刷新线程，已在队列中的刷新任务仍会执行
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
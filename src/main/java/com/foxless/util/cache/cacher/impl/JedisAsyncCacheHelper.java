@@ -0,0 +1,903 @@
+package com.foxless.util.cache.cacher.impl;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.foxless.util.cache.SerializeUtil;
+import com.foxless.util.cache.bean.JedisConfigBean;
+import com.foxless.util.cache.cacher.AsyncCacheHelper;
+import com.foxless.util.cache.codec.Codecs;
+import com.foxless.util.cache.codec.ValueCompressor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * 基于Redis的{@link AsyncCacheHelper}，命令通过{@link JedisBatcher}以管道方式发送，不占用调用线程。<br>
+ * 数据格式与{@link JedisHelperImpl}相同，两者可以读写同一份数据。
+ * 对象在调用线程中序列化，结果在batcher的回调线程中反序列化并完成future，
+ * 后续阶段可以再调用本对象或同步的helper，不会阻塞发送线程。<br>
+ * 需要先删除再写入的方法（setObjectList等）的多条命令在同一管道中连续发送。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+@SuppressWarnings("unchecked")
+public class JedisAsyncCacheHelper implements AsyncCacheHelper, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JedisAsyncCacheHelper.class);
+
+    private final JedisBatcher batcher;
+    /**
+     * 对象值的压缩，未开启时为null
+     */
+    private final ValueCompressor compressor;
+
+    public JedisAsyncCacheHelper(JedisConfigBean jedisConfigBean) {
+        logger.debug("redis.async.connections = {}", jedisConfigBean.getBatchConnections());
+        logger.debug("redis.async.maxSize = {}", jedisConfigBean.getBatchMaxSize());
+        logger.debug("redis.async.lingerMicros = {}", jedisConfigBean.getBatchLingerMicros());
+        this.batcher = new JedisBatcher(JedisBatcher.connectionFactory(jedisConfigBean),
+                jedisConfigBean.getBatchConnections(), jedisConfigBean.getBatchMaxSize(),
+                jedisConfigBean.getBatchLingerMicros(), JedisBatcher.executeTimeoutMillis(jedisConfigBean));
+        this.compressor = jedisConfigBean.getCompressThreshold() > 0
+                ? new ValueCompressor(jedisConfigBean.getCompressThreshold(), jedisConfigBean.getCompressLevel())
+                : null;
+    }
+
+    /**
+     * 压缩统计，未开启压缩时为null
+     */
+    public ValueCompressor getCompressor() {
+        return compressor;
+    }
+
+    /**
+     * 发送完已提交的命令后关闭连接
+     */
+    @Override
+    public void close() {
+        batcher.close();
+    }
+
+    private static void assertKey(Object keyorfield) {
+        if (null == keyorfield)
+            throw new IllegalArgumentException("Key or field cannot be null!");
+    }
+
+    private static <T> CompletableFuture<T> completed(T value) {
+        return CompletableFuture.completedFuture(value);
+    }
+
+    /**
+     * 在调用线程中检查参数、序列化并提交命令，其中抛出的异常以失败的future返回，与{@link LocalAsyncCacheHelper}一致
+     */
+    private static <T> CompletableFuture<T> guard(Supplier<CompletableFuture<T>> command) {
+        try {
+            return command.get();
+        } catch (RuntimeException e) {
+            CompletableFuture<T> future = new CompletableFuture<T>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * 提交命令，丢弃结果
+     */
+    private <T> CompletableFuture<Void> run(Function<Pipeline, Response<T>> action) {
+        return batcher.submit(action).thenApply(r -> null);
+    }
+
+    /**
+     * 编码对象值，开启压缩时压缩大的值
+     */
+    private byte[] encodeValue(Object value) {
+        byte[] bs = Codecs.encode(value);
+        return null == compressor ? bs : compressor.compress(bs);
+    }
+
+    private static int lastIndex(int end) {
+        return end == -1 ? -1 : end - 1;
+    }
+
+    private static long lastIndex(long end) {
+        return end == -1 ? -1 : end - 1;
+    }
+
+    private static byte[][] serializeAll(Object[] objects) {
+        byte[][] bls = new byte[objects.length][];
+        for (int i = 0; i < objects.length; i++)
+            bls[i] = SerializeUtil.serialize(objects[i]);
+        return bls;
+    }
+
+    private static <T> List<T> deserializeList(Iterable<byte[]> bss, Class<T> type) {
+        List<T> ret = new ArrayList<T>();
+        for (byte[] bs : bss)
+            ret.add(SerializeUtil.deserialize(bs, type));
+        return ret;
+    }
+
+    private static <T> Set<T> deserializeSet(Set<byte[]> bss, Class<T> type) {
+        Set<T> ret = new HashSet<T>();
+        if (null != bss) {
+            for (Iterator<byte[]> iterator = bss.iterator(); iterator.hasNext(); )
+                ret.add(SerializeUtil.deserialize(iterator.next(), type));
+        }
+        return ret;
+    }
+
+    private static Long floorScore(Double score) {
+        return null == score ? null : Long.valueOf((long) Math.floor(score));
+    }
+
+    @Override
+    public CompletableFuture<Void> exKey(String key, int sec) {
+        return guard(() -> {
+            assertKey(key);
+            return run(p -> p.expire(key, sec));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> set(String key, String value) {
+        return setEX(key, value, 0);
+    }
+
+    @Override
+    public CompletableFuture<String> get(String key) {
+        return guard(() -> {
+            assertKey(key);
+            return batcher.submit(p -> p.get(key));
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<String>> mget(String... keys) {
+        return guard(() -> {
+            if (null == keys || keys.length == 0)
+                throw new IllegalArgumentException("Keys cannot be null or empty!");
+            return batcher.submit(p -> p.mget(keys));
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> hget(String key, String field) {
+        return guard(() -> {
+            assertKey(key);
+            return batcher.submit(p -> p.hget(key, field));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> hmget(String key, String... field) {
+        return guard(() -> {
+            assertKey(key);
+            if (null == field || field.length == 0)
+                return completed(null);
+            return batcher.submit(p -> p.hmget(key, field)).thenApply(list -> {
+                Map<String, String> ret = new HashMap<String, String>(field.length);
+                for (int i = 0; i < field.length; i++)
+                    ret.put(field[i], list.get(i));
+                return ret;
+            });
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> hset(String key, String field, String value) {
+        return guard(() -> {
+            assertKey(key);
+            assertKey(field);
+            if (null == value)
+                return hdel(key, field);
+            return run(p -> p.hset(key, field, value));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setEX(String key, String value, int sec) {
+        return guard(() -> {
+            assertKey(key);
+            return set(key.getBytes(), null == value ? null : value.getBytes(), sec);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setObjectEX(String key, Object value, int second) {
+        return guard(() -> {
+            assertKey(key);
+            return set(key.getBytes(), encodeValue(value), second);
+        });
+    }
+
+    private CompletableFuture<Void> set(byte[] key, byte[] value, int second) {
+        if (null == value)
+            return run(p -> p.del(key));
+        if (second <= 0)
+            return run(p -> p.set(key, value));
+        return run(p -> p.setex(key, second, value));
+    }
+
+    @Override
+    public CompletableFuture<Void> setMap(String key, Map<?, ?> map) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] k = key.getBytes();
+            if (null == map)
+                return run(p -> p.del(k));
+            if (map.isEmpty())
+                return completed(null);
+            byte[][] fields = new byte[map.size()][];
+            byte[][] values = new byte[map.size()][];
+            int i = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                fields[i] = SerializeUtil.serialize(entry.getKey());
+                values[i++] = encodeValue(entry.getValue());
+            }
+            return run(p -> {
+                Response<Long> ret = null;
+                for (int j = 0; j < fields.length; j++)
+                    ret = p.hset(k, fields[j], values[j]);
+                return ret;
+            });
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getMapValue(String mapKey, Object fieldKey, Class<T> type) {
+        return guard(() -> {
+            assertKey(mapKey);
+            byte[] field = SerializeUtil.serialize(fieldKey);
+            byte[] bkey = mapKey.getBytes();
+            return batcher.submit(p -> p.hget(bkey, field))
+                    .thenApply(bs -> SerializeUtil.deserialize(bs, type));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> appendMapItem(String mapKey, Object fieldKey, Object value) {
+        return guard(() -> {
+            assertKey(mapKey);
+            byte[] field = SerializeUtil.serialize(fieldKey);
+            byte[] bs = encodeValue(value);
+            byte[] bkey = mapKey.getBytes();
+            return run(p -> p.hset(bkey, field, bs));
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> getMapValues(String mapKey, Class<T> type) {
+        return guard(() -> {
+            assertKey(mapKey);
+            byte[] bkey = mapKey.getBytes();
+            return batcher.submit(p -> p.hvals(bkey))
+                    .thenApply(bss -> null == bss ? null : deserializeList(bss, type));
+        });
+    }
+
+    @Override
+    public <T, K> CompletableFuture<Map<K, T>> getMultiMapValues(String mapKey, Class<T> type, K... keys) {
+        return guard(() -> {
+            assertKey(mapKey);
+            if (null == keys)
+                return completed(null);
+            byte[][] fields = serializeAll(keys);
+            byte[] bkey = mapKey.getBytes();
+            return batcher.submit(p -> p.hmget(bkey, fields)).thenApply(list -> {
+                Map<K, T> ret = new HashMap<K, T>(keys.length);
+                for (int i = 0; i < keys.length; i++)
+                    ret.put(keys[i], SerializeUtil.deserialize(list.get(i), type));
+                return ret;
+            });
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setObject(String key, Object obj) {
+        return guard(() -> {
+            assertKey(key);
+            return set(key.getBytes(), null == obj ? null : encodeValue(obj), 0);
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getObject(String key, Class<T> type) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] bkey = key.getBytes();
+            return batcher.submit(p -> p.get(bkey))
+                    .thenApply(bs -> SerializeUtil.deserialize(bs, type));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setStringList(String key, List<String> list) {
+        return guard(() -> {
+            assertKey(key);
+            if (null == list)
+                return run(p -> p.del(key));
+            String[] strings = list.toArray(new String[0]);
+            return run(p -> {
+                Response<Long> ret = p.del(key);
+                return strings.length == 0 ? ret : p.rpush(key, strings);
+            });
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> appendStringListItem(String key, boolean tail, String... strings) {
+        return guard(() -> {
+            assertKey(key);
+            if (null == strings || strings.length == 0)
+                return completed(null);
+            return run(p -> tail ? p.rpush(key, strings) : p.lpush(key, strings));
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> getStringListItem(String key, int index) {
+        return guard(() -> {
+            assertKey(key);
+            return batcher.submit(p -> p.lindex(key, index));
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getStringListItems(String key, int start, int end) {
+        return guard(() -> {
+            assertKey(key);
+            return batcher.submit(p -> p.lrange(key, start, lastIndex(end)));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setObjectList(String key, List<?> list) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] k = key.getBytes();
+            if (null == list)
+                return run(p -> p.del(k));
+            byte[][] bls = serializeAll(list.toArray());
+            return run(p -> {
+                Response<Long> ret = p.del(k);
+                return bls.length == 0 ? ret : p.rpush(k, bls);
+            });
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getObjectListItem(String key, int index, Class<T> type) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] bkey = key.getBytes();
+            return batcher.submit(p -> p.lindex(bkey, index))
+                    .thenApply(bs -> SerializeUtil.deserialize(bs, type));
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> getObjectListItems(String key, int start, int end, Class<T> type) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] bkey = key.getBytes();
+            return batcher.submit(p -> p.lrange(bkey, start, lastIndex(end)))
+                    .thenApply(bss -> null == bss || bss.isEmpty() ? null : deserializeList(bss, type));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> appendObjectListItem(String key, boolean tail, Object... items) {
+        return guard(() -> {
+            assertKey(key);
+            if (null == items || items.length == 0)
+                return completed(null);
+            byte[][] bls = serializeAll(items);
+            byte[] bkey = key.getBytes();
+            return run(p -> tail ? p.rpush(bkey, bls) : p.lpush(bkey, bls));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> trimList(String key, int start, int end) {
+        return guard(() -> {
+            assertKey(key);
+            return run(p -> p.ltrim(key, start, lastIndex(end)));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> removeRepeatStringListItem(String key, int count, String value) {
+        return guard(() -> {
+            assertKey(key);
+            return run(p -> p.lrem(key, count, value));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> removeRepeatObjectListItem(String key, int count, Object value) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] b = SerializeUtil.serialize(value);
+            byte[] bkey = key.getBytes();
+            return run(p -> p.lrem(bkey, count, b));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Long> getListLength(String key) {
+        return guard(() -> {
+            assertKey(key);
+            return batcher.submit(p -> p.llen(key));
+        });
+    }
+
+    ////////////////////////////////////////////////////////////////////// Object Set
+
+    @Override
+    public <T> CompletableFuture<Void> setObjectSet(String key, Set<T> sets) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] k = key.getBytes();
+            if (null == sets || sets.isEmpty())
+                return run(p -> p.del(k));
+            byte[][] bls = serializeAll(sets.toArray());
+            return run(p -> {
+                p.del(k);
+                return p.sadd(k, bls);
+            });
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<Set<T>> getObjectSetAll(String key, Class<T> type) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] bkey = key.getBytes();
+            return batcher.submit(p -> p.smembers(bkey))
+                    .thenApply(bss -> null == bss || bss.isEmpty() ? null : deserializeSet(bss, type));
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> appendObjectSetMember(String key, T... objects) {
+        return guard(() -> {
+            assertKey(key);
+            if (null == objects || objects.length == 0)
+                return completed(null);
+            byte[][] bls = serializeAll(objects);
+            byte[] bkey = key.getBytes();
+            return run(p -> p.sadd(bkey, bls));
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> removeObjectSetMember(String key, T... objects) {
+        return guard(() -> {
+            assertKey(key);
+            if (null == objects || objects.length == 0)
+                return completed(null);
+            byte[][] bls = serializeAll(objects);
+            byte[] bkey = key.getBytes();
+            return run(p -> p.srem(bkey, bls));
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<Set<T>> getInterObjectSet(Class<T> type, byte[]... keys) {
+        return guard(() -> {
+            if (null == keys || keys.length == 0)
+                return completed(null);
+            return batcher.submit(p -> p.sinter(keys)).thenApply(bss -> deserializeSet(bss, type));
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<Set<T>> getDiffObjectSet(Class<T> type, byte[]... keys) {
+        return guard(() -> {
+            if (null == keys || keys.length == 0)
+                return completed(null);
+            return batcher.submit(p -> p.sdiff(keys)).thenApply(bss -> deserializeSet(bss, type));
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<Set<T>> getUnionObjectSet(Class<T> type, byte[]... keys) {
+        return guard(() -> {
+            if (null == keys || keys.length == 0)
+                return completed(null);
+            return batcher.submit(p -> p.sunion(keys)).thenApply(bss -> deserializeSet(bss, type));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Integer> moveObjectSetMember(byte[] source, byte[] dest, Object member) {
+        return guard(() -> {
+            if (null == source || source.length == 0 || null == dest || dest.length == 0 || null == member)
+                return completed(0);
+            byte[] b = SerializeUtil.serialize(member);
+            return batcher.submit(p -> p.smove(source, dest, b)).thenApply(Long::intValue);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isObjectSetMember(byte[] key, Object member) {
+        return guard(() -> {
+            if (null == key || key.length == 0 || null == member)
+                return completed(false);
+            byte[] b = SerializeUtil.serialize(member);
+            return batcher.submit(p -> p.sismember(key, b));
+        });
+    }
+
+    ////////////////////////////////////////////////////////////////////// String Set
+
+    @Override
+    public CompletableFuture<Void> setStringSet(String key, Set<String> sets) {
+        return guard(() -> {
+            assertKey(key);
+            if (null == sets || sets.isEmpty())
+                return run(p -> p.del(key));
+            String[] strings = sets.toArray(new String[0]);
+            return run(p -> {
+                p.del(key);
+                return p.sadd(key, strings);
+            });
+        });
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> getStringSetAll(String key) {
+        return guard(() -> {
+            assertKey(key);
+            return batcher.submit(p -> p.smembers(key));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> appendStringSetMember(String key, String... strings) {
+        return guard(() -> {
+            assertKey(key);
+            if (null == strings || strings.length == 0)
+                return completed(null);
+            return run(p -> p.sadd(key, strings));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> removeStringSetMember(String key, String... strings) {
+        return guard(() -> {
+            assertKey(key);
+            if (null == strings || strings.length == 0)
+                return completed(null);
+            return run(p -> p.srem(key, strings));
+        });
+    }
+
+    ////////////////////////////////////////////////////////////////////// SortedSet
+
+    /**
+     * 在同一管道中连续发送多个zadd，replace为true时先删除原有的key
+     */
+    private CompletableFuture<Void> zadd(byte[] key, Map<Long, ?> set, boolean stringMember, boolean replace) {
+        double[] scores = new double[set.size()];
+        byte[][] members = new byte[set.size()][];
+        int i = 0;
+        for (Map.Entry<Long, ?> entry : set.entrySet()) {
+            scores[i] = entry.getKey();
+            members[i++] = stringMember ? SafeEncoder.encode((String) entry.getValue())
+                    : SerializeUtil.serialize(entry.getValue());
+        }
+        return run(p -> {
+            if (replace)
+                p.del(key);
+            Response<Long> ret = null;
+            for (int j = 0; j < members.length; j++)
+                ret = p.zadd(key, scores[j], members[j]);
+            return ret;
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> setSortedObjectSet(String key, Map<Long, T> set) {
+        return guard(() -> {
+            assertKey(key);
+            if (null == set || set.isEmpty())
+                return run(p -> p.del(key));
+            return zadd(key.getBytes(), set, false, true);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setStringSortedObjectSet(String key, Map<Long, String> set) {
+        return guard(() -> {
+            assertKey(key);
+            if (null == set || set.isEmpty())
+                return run(p -> p.del(key));
+            return zadd(SafeEncoder.encode(key), set, true, true);
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> appendSortedObjectSetMember(String key, Map<Long, T> set) {
+        return guard(() -> {
+            assertKey(key);
+            if (null == set || set.isEmpty())
+                return completed(null);
+            return zadd(key.getBytes(), set, false, false);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> appendStringSortedObjectSetMember(String key, Map<Long, String> set) {
+        return guard(() -> {
+            assertKey(key);
+            if (null == set || set.isEmpty())
+                return completed(null);
+            return zadd(SafeEncoder.encode(key), set, true, false);
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> getSortedObjectSetMember(String key, long start, long end, Class<T> type) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] bkey = key.getBytes();
+            return batcher.submit(p -> p.zrange(bkey, start, lastIndex(end)))
+                    .thenApply(bss -> null == bss || bss.isEmpty() ? null : deserializeList(bss, type));
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getStringSortedObjectSetMember(String key, long start, long end) {
+        return guard(() -> {
+            assertKey(key);
+            return batcher.submit(p -> p.zrange(key, start, lastIndex(end)))
+                    .thenApply(ss -> null == ss || ss.isEmpty() ? null : new ArrayList<String>(ss));
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> getReverseSortedObjectSetMember(String key, long start, long end, Class<T> type) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] bkey = key.getBytes();
+            return batcher.submit(p -> p.zrevrange(bkey, start, lastIndex(end)))
+                    .thenApply(bss -> null == bss || bss.isEmpty() ? null : deserializeList(bss, type));
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getReverseStringSortedObjectSetMember(String key, long start, long end) {
+        return guard(() -> {
+            assertKey(key);
+            return batcher.submit(p -> p.zrevrange(key, start, lastIndex(end)))
+                    .thenApply(ss -> null == ss || ss.isEmpty() ? null : new ArrayList<String>(ss));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Long> getSortedSetSize(String key) {
+        return guard(() -> {
+            assertKey(key);
+            return batcher.submit(p -> p.zcard(key));
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> removeSortedObjectSetMember(String key, T... members) {
+        return guard(() -> {
+            assertKey(key);
+            if (null == members || members.length == 0)
+                return completed(null);
+            byte[][] bls = serializeAll(members);
+            byte[] bkey = key.getBytes();
+            return run(p -> p.zrem(bkey, bls));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> removeStringSortedObjectSetMember(String key, String... members) {
+        return guard(() -> {
+            assertKey(key);
+            if (null == members || members.length == 0)
+                return completed(null);
+            return run(p -> p.zrem(key, members));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> removeSortedObjectSetMember(String key, long start, long end) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] bkey = key.getBytes();
+            return run(p -> p.zremrangeByRank(bkey, start, lastIndex(end)));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> removeStringSortedObjectSetMember(String key, long start, long end) {
+        return guard(() -> {
+            assertKey(key);
+            return run(p -> p.zremrangeByRank(key, start, lastIndex(end)));
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<Long> increSortedObjectSetMemberScore(String key, T member, long incr) {
+        return guard(() -> {
+            if (null == key || null == member)
+                return completed(0L);
+            byte[] b = SerializeUtil.serialize(member);
+            byte[] bkey = key.getBytes();
+            return batcher.submit(p -> p.zincrby(bkey, incr, b)).thenApply(JedisAsyncCacheHelper::floorScore);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Long> increStringSortedObjectSetMemberScore(String key, String member, long incr) {
+        return guard(() -> {
+            if (null == key || null == member)
+                return completed(0L);
+            return batcher.submit(p -> p.zincrby(key, incr, member)).thenApply(JedisAsyncCacheHelper::floorScore);
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> getSortedObjectSetMemberByScore(String key, long min, long max, Class<T> type) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] bkey = key.getBytes();
+            return batcher.submit(p -> p.zrangeByScore(bkey, min, max))
+                    .thenApply(bss -> null == bss || bss.isEmpty() ? null : deserializeList(bss, type));
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getStringSortedObjectSetMemberByScore(String key, long min, long max) {
+        return guard(() -> {
+            assertKey(key);
+            return batcher.submit(p -> p.zrangeByScore(key, min, max))
+                    .thenApply(ss -> null == ss || ss.isEmpty() ? null : new ArrayList<String>(ss));
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<Long> getSortedObjectSetMemberRank(String key, T member) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] b = SerializeUtil.serialize(member);
+            byte[] bkey = key.getBytes();
+            return batcher.submit(p -> p.zrank(bkey, b));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Long> getStringSortedObjectSetMemberRank(String key, String member) {
+        return guard(() -> {
+            assertKey(key);
+            return batcher.submit(p -> p.zrank(key, member));
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<Long> getReverseSortedObjectSetMemberRank(String key, T member) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] b = SerializeUtil.serialize(member);
+            byte[] bkey = key.getBytes();
+            return batcher.submit(p -> p.zrevrank(bkey, b));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Long> getReverseStringSortedObjectSetMemberRank(String key, String member) {
+        return guard(() -> {
+            assertKey(key);
+            return batcher.submit(p -> p.zrevrank(key, member));
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<Long> getSortedObjectSetMemberScore(String key, T member) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] b = SerializeUtil.serialize(member);
+            byte[] bkey = key.getBytes();
+            return batcher.submit(p -> p.zscore(bkey, b)).thenApply(JedisAsyncCacheHelper::floorScore);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Long> getStringSortedObjectSetMemberScore(String key, String member) {
+        return guard(() -> {
+            assertKey(key);
+            return batcher.submit(p -> p.zscore(key, member)).thenApply(JedisAsyncCacheHelper::floorScore);
+        });
+    }
+
+    ////////////////////////////////////////////////////////////////////// key
+
+    @Override
+    public CompletableFuture<Boolean> existsKey(String key) {
+        return guard(() -> {
+            assertKey(key);
+            return batcher.submit(p -> p.exists(key));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Long> getSetSize(String key) {
+        return guard(() -> {
+            assertKey(key);
+            return batcher.submit(p -> p.scard(key));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> del(String key) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] bkey = key.getBytes();
+            return run(p -> p.del(bkey));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> hdel(String key, String field) {
+        return guard(() -> {
+            assertKey(key);
+            assertKey(field);
+            byte[] bkey = key.getBytes();
+            byte[] bfield = field.getBytes();
+            return run(p -> p.hdel(bkey, bfield));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> hdel(String key, Object field) {
+        return guard(() -> {
+            assertKey(key);
+            byte[] b = SerializeUtil.serialize(field);
+            byte[] bkey = key.getBytes();
+            return run(p -> p.hdel(bkey, b));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> incr(String key, Long value) {
+        return guard(() -> {
+            assertKey(key);
+            return run(p -> p.incrBy(key, value));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> hincr(String key, String field, Long value) {
+        return guard(() -> {
+            assertKey(key);
+            assertKey(field);
+            return run(p -> p.hincrBy(key, field, value));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> keys(String pattern) {
+        return guard(() -> {
+            return batcher.submit(p -> p.keys(pattern))
+                    .thenApply(keys -> null == keys ? new HashSet<String>() : keys);
+        });
+    }
+}
@@ -0,0 +1,355 @@
+package com.foxless.util.cache.cacher.impl;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.foxless.util.cache.bean.JedisConfigBean;
+import com.foxless.util.cache.util.MpscRingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * 把多个线程的命令合并到少量共享连接上，以管道方式批量发送。<br>
+ * 每条连接（lane）有一个发送线程，调用方把命令放入该lane的队列后得到一个{@link CompletableFuture}。
+ * 同一线程提交的命令总是进入同一个lane，按提交顺序发送。
+ * 发送线程每次取出队列中已有的命令（最多batchMaxSize条）组成一个管道发送，发送期间到达的命令进入下一批；
+ * batchLingerMicros大于0时，不满一批的命令最多再等待该时间以凑成更大的批次。<br>
+ * 一个命令函数中可以发出多条命令，它们在管道中是连续的，函数返回最后需要的结果；
+ * 命令函数在发送线程中执行，序列化等耗时操作应在提交前完成。<br>
+ * 某条命令返回错误时只有该命令的future失败；连接出错时整批失败，下一批重新建立连接。<br>
+ * {@link #submit}返回的future在单独的回调线程中完成，其后续阶段可以再调用本batcher而不会阻塞发送线程；
+ * {@link #execute}的future不会暴露给调用方，直接在发送线程中完成，等待结果最多executeTimeoutMillis毫秒。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class JedisBatcher implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JedisBatcher.class);
+
+    private static final long IDLE_PARK_NANOS = 100_000_000L;
+    private static final long STALL_PARK_NANOS = 10_000L;
+
+    private static final AtomicInteger CALLBACK_COUNTER = new AtomicInteger();
+
+    private static final class Command<T> {
+        private final Function<Pipeline, Response<T>> action;
+        private final CompletableFuture<T> future = new CompletableFuture<T>();
+        /**
+         * future交给了调用方，可能有后续阶段，需要在回调线程中完成
+         */
+        private final boolean async;
+
+        Command(Function<Pipeline, Response<T>> action, boolean async) {
+            this.action = action;
+            this.async = async;
+        }
+    }
+
+    private final Supplier<Jedis> connectionFactory;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final long executeTimeoutMillis;
+    private final Lane[] lanes;
+    /**
+     * 完成{@link #submit}返回的future，后续阶段可能阻塞，线程数不设上限
+     */
+    private final ExecutorService callbacks = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "cache-helper-jedis-batch-callback-" + CALLBACK_COUNTER.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean running = true;
+
+    //统计
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder connectionErrors = new LongAdder();
+
+    /**
+     * @param connectionFactory    建立一条已认证、已选择数据库的连接，连接由batcher独占
+     * @param executeTimeoutMillis {@link #execute}等待结果的最长毫秒数
+     */
+    public JedisBatcher(Supplier<Jedis> connectionFactory, int connections, int maxBatch, int lingerMicros,
+                        long executeTimeoutMillis) {
+        if (connections <= 0)
+            throw new IllegalArgumentException("batchConnections must be greater than 0");
+        if (maxBatch <= 0)
+            throw new IllegalArgumentException("batchMaxSize must be greater than 0");
+        if (lingerMicros < 0)
+            throw new IllegalArgumentException("batchLingerMicros cannot be negative");
+        if (executeTimeoutMillis <= 0)
+            throw new IllegalArgumentException("executeTimeoutMillis must be greater than 0");
+        this.connectionFactory = connectionFactory;
+        this.maxBatch = maxBatch;
+        this.lingerNanos = lingerMicros * 1000L;
+        this.executeTimeoutMillis = executeTimeoutMillis;
+        this.lanes = new Lane[connections];
+        for (int i = 0; i < connections; i++) {
+            lanes[i] = new Lane(i);
+            lanes[i].thread.start();
+        }
+    }
+
+    /**
+     * 按配置建立已认证、已选择数据库的独占连接，不占用连接池
+     */
+    public static Supplier<Jedis> connectionFactory(JedisConfigBean jedisConfigBean) {
+        return () -> {
+            Jedis jedis = new Jedis(jedisConfigBean.getHost(), jedisConfigBean.getPort());
+            if (null != jedisConfigBean.getPassword() && !"".equals(jedisConfigBean.getPassword())) {
+                jedis.auth(jedisConfigBean.getPassword());
+            }
+            jedis.select(jedisConfigBean.getDefaultDb());
+            return jedis;
+        };
+    }
+
+    /**
+     * execute等待结果的毫秒数：连接池的maxWait加上一次读写的socket超时，maxWait不大于0时只按socket超时
+     */
+    public static long executeTimeoutMillis(JedisConfigBean jedisConfigBean) {
+        return Math.max(0, jedisConfigBean.getMaxWait()) + Protocol.DEFAULT_TIMEOUT;
+    }
+
+    /**
+     * 提交一个命令，返回该命令结果的future，future在回调线程中完成
+     */
+    public <T> CompletableFuture<T> submit(Function<Pipeline, Response<T>> action) {
+        return enqueue(new Command<T>(action, true));
+    }
+
+    private <T> CompletableFuture<T> enqueue(Command<T> command) {
+        if (!running) {
+            command.future.completeExceptionally(new IllegalStateException("JedisBatcher is closed"));
+            return command.future;
+        }
+        commands.increment();
+        long id = Thread.currentThread().getId();
+        lanes[(int) ((id ^ (id >>> 16)) & Integer.MAX_VALUE) % lanes.length].offer(command);
+        return command.future;
+    }
+
+    /**
+     * 提交一个命令并等待结果，命令的异常原样抛出；超过executeTimeoutMillis没有结果时抛出{@link JedisConnectionException}
+     */
+    public <T> T execute(Function<Pipeline, Response<T>> action) {
+        try {
+            return enqueue(new Command<T>(action, false)).get(executeTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            throw new JedisConnectionException("No reply to a batched redis command within " + executeTimeoutMillis + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a batched redis command", e);
+        }
+    }
+
+    /**
+     * 完成命令的future，submit提交的命令交给回调线程，回调线程池已关闭时直接完成
+     */
+    private <T> void complete(Command<T> command, T value, RuntimeException error) {
+        if (command.async) {
+            try {
+                callbacks.execute(() -> complete(command.future, value, error));
+                return;
+            } catch (RejectedExecutionException e) {
+                // batcher已关闭
+            }
+        }
+        complete(command.future, value, error);
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, T value, RuntimeException error) {
+        if (null == error)
+            future.complete(value);
+        else
+            future.completeExceptionally(error);
+    }
+
+    public long getCommands() {
+        return commands.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getConnectionErrors() {
+        return connectionErrors.sum();
+    }
+
+    /**
+     * 发送完队列中的命令后关闭各连接，已发出的回调仍会执行
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Lane lane : lanes)
+            LockSupport.unpark(lane.thread);
+        try {
+            for (Lane lane : lanes)
+                lane.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            callbacks.shutdown();
+        }
+    }
+
+    private final class Lane implements Runnable {
+        private final MpscRingBuffer<Command<?>> queue = new MpscRingBuffer<Command<?>>(Math.max(1024, maxBatch * 4));
+        private final Command<?>[] batch = new Command<?>[maxBatch];
+        private final Response<?>[] responses = new Response<?>[maxBatch];
+        /**
+         * 命令函数本身抛出了异常，future已经失败
+         */
+        private final boolean[] failed = new boolean[maxBatch];
+        private final Thread thread;
+        private volatile boolean idle;
+        private Jedis jedis;
+
+        Lane(int index) {
+            thread = new Thread(this, "cache-helper-jedis-batch-" + index);
+            thread.setDaemon(true);
+        }
+
+        void offer(Command<?> command) {
+            while (!queue.offer(command)) {
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(STALL_PARK_NANOS);
+            }
+            if (idle)
+                LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                int n = collect();
+                if (n > 0) {
+                    flush(n);
+                    continue;
+                }
+                if (!queue.isEmpty()) {
+                    // 生产者已占位但还未写入元素
+                    Thread.yield();
+                    continue;
+                }
+                if (!running)
+                    break;
+                idle = true;
+                if (queue.isEmpty())
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                idle = false;
+            }
+            if (null != jedis)
+                closeQuietly(jedis);
+        }
+
+        /**
+         * 取出一批命令，linger大于0时等待凑满一批或到达等待时间
+         */
+        private int collect() {
+            int n = 0;
+            for (Command<?> c; n < maxBatch && null != (c = queue.poll()); )
+                batch[n++] = c;
+            if (n == 0 || n == maxBatch || lingerNanos == 0)
+                return n;
+            long deadline = System.nanoTime() + lingerNanos;
+            while (n < maxBatch) {
+                Command<?> c = queue.poll();
+                if (null != c) {
+                    batch[n++] = c;
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    break;
+                Thread.yield();
+            }
+            return n;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void flush(int n) {
+            batches.increment();
+            try {
+                if (null == jedis)
+                    jedis = connectionFactory.get();
+                Pipeline pipeline = jedis.pipelined();
+                for (int i = 0; i < n; i++) {
+                    try {
+                        responses[i] = batch[i].action.apply(pipeline);
+                    } catch (RuntimeException e) {
+                        responses[i] = null;
+                        failed[i] = true;
+                        complete((Command<Object>) batch[i], null, e);
+                    }
+                }
+                pipeline.sync();
+            } catch (RuntimeException e) {
+                connectionErrors.increment();
+                logger.warn("Failed to send a batch of " + n + " redis commands.", e);
+                if (null != jedis) {
+                    closeQuietly(jedis);
+                    jedis = null;
+                }
+                for (int i = 0; i < n; i++) {
+                    if (!failed[i])
+                        complete((Command<Object>) batch[i], null, e);
+                    batch[i] = null;
+                    responses[i] = null;
+                    failed[i] = false;
+                }
+                return;
+            }
+            for (int i = 0; i < n; i++) {
+                Command<Object> command = (Command<Object>) batch[i];
+                if (!failed[i]) {
+                    Object value = null;
+                    RuntimeException error = null;
+                    try {
+                        value = null == responses[i] ? null : responses[i].get();
+                    } catch (RuntimeException e) {
+                        error = e;
+                    }
+                    complete(command, value, error);
+                }
+                batch[i] = null;
+                responses[i] = null;
+                failed[i] = false;
+            }
+        }
+    }
+
+    private static void closeQuietly(Jedis jedis) {
+        try {
+            jedis.close();
+        } catch (Exception e) {
+            logger.debug("Failed to close batch connection.", e);
+        }
+    }
+}
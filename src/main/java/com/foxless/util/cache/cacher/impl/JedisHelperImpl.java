@@ -3,13 +3,21 @@ package com.foxless.util.cache.cacher.impl;
 
 import com.foxless.util.cache.SerializeUtil;
 import com.foxless.util.cache.bean.JedisConfigBean;
+import com.foxless.util.cache.cacher.ExpiringValue;
 import com.foxless.util.cache.cacher.JedisCacheHelper;
+import com.foxless.util.cache.cacher.RefreshAhead;
+import com.foxless.util.cache.codec.Codecs;
+import com.foxless.util.cache.codec.ValueCompressor;
+import com.foxless.util.cache.metrics.CacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.*;
+import redis.clients.util.SafeEncoder;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
  * JedisHelperImpl使用有四种模式：<br>
@@ -17,6 +25,8 @@ import java.util.Map.Entry;
  * 2.事务模式；<br>
  * 3.管道模式；<br>
  * 4.当前线程Jedis唯一模式，不同于事务模式和管道模式，此模式可同时读写。<br>
+ * 普通模式下可以通过{@link JedisConfigBean#isAutoBatching()}开启自动批量，各线程的命令由{@link JedisBatcher}
+ * 合并到少量共享连接上以管道方式发送，调用方式不变。<br>
  * 以下是写入操作的一些测试数据。<br><br>
  * 使用事务模式的方式：
  * <pre>
@@ -41,6 +51,7 @@ import java.util.Map.Entry;
  * </pre>
  * 测试10,000条数据的写入，使用事务耗时105ms，使用管道耗时109ms，使用普通模式耗时26506<br>
  * 测试1000,000条数据的写入，使用事务耗时5322ms，使用管道耗时6235ms，本地线程耗时564592ms
+ * 这些数据可以用benchmarks模块中的JedisModesBenchmark复现，不需要Redis服务端。
  *
  * @author Hetianyi 2017/12/30
  * @version 1.0
@@ -52,27 +63,47 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	private JedisPool pool;
 
 	private JedisConfigBean jedisConfigBean;
+	/**
+	 * 普通模式下的自动批量，未开启时为null
+	 */
+	private JedisBatcher batcher;
+	/**
+	 * 对象值的压缩，未开启时为null
+	 */
+	private ValueCompressor compressor;
+	/**
+	 * getOrLoad的提前刷新，未开启时为null
+	 */
+	private RefreshAhead refreshAhead;
+	/**
+	 * getObjects读到的字节数达到该值时并行解码，不大于0时不并行
+	 */
+	private int parallelDecodeBytes;
+	/**
+	 * 统计信息，各操作的延迟由{@link com.foxless.util.cache.aop.MeasuredJedisCacheHelper}记录
+	 */
+	private final CacheMetrics metrics = new CacheMetrics();
 
 	/**
 	 * 用于事务模式
 	 */
-	private static ThreadLocal<Transaction> currentTransaction = new ThreadLocal<Transaction>();
+	private final ThreadLocal<Transaction> currentTransaction = new ThreadLocal<Transaction>();
 	/**
 	 * 用于事务模式和管道模式，当事务模式或管道模式开启时绑定到此处
 	 */
-	private static ThreadLocal<Jedis> currentJedis = new ThreadLocal<Jedis>();
+	private final ThreadLocal<Jedis> currentJedis = new ThreadLocal<Jedis>();
 	/**
 	 * 用于管道模式
 	 */
-	private static ThreadLocal<Pipeline> currentPipeline = new ThreadLocal<Pipeline>();
+	private final ThreadLocal<Pipeline> currentPipeline = new ThreadLocal<Pipeline>();
 	/**
 	 * 本地线程的Jedis实例，用于当前线程Jedis唯一模式
 	 */
-	private static ThreadLocal<Jedis> currentThreadLocalJedis = new ThreadLocal<Jedis>();
+	private final ThreadLocal<Jedis> currentThreadLocalJedis = new ThreadLocal<Jedis>();
 	/**
 	 * 当前使用的模式
 	 */
-	private static ThreadLocal<Integer> mode = new ThreadLocal<Integer>();
+	private final ThreadLocal<Integer> mode = new ThreadLocal<Integer>();
 	/**
 	 * 事务模式
 	 */
@@ -89,6 +120,16 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	 * 普通模式
 	 */
 	private static final Integer MODE_PLAIN = 4;
+	/**
+	 * keys方法每次SCAN的COUNT
+	 */
+	private static final int KEYS_SCAN_COUNT = 1000;
+	/**
+	 * 值等于ARGV[1]时删除KEYS[1]
+	 */
+	private static final String COMPARE_AND_DEL_SCRIPT =
+			"if redis.call('get',KEYS[1])==ARGV[1] then return redis.call('del',KEYS[1]) end";
+	private static final byte[] COMPARE_AND_DEL_SCRIPT_BYTES = SafeEncoder.encode(COMPARE_AND_DEL_SCRIPT);
 	//初始化JedisPool连接池
 	private void initJedisPool(JedisConfigBean jedisConfigBean) {
 	    this.jedisConfigBean  =jedisConfigBean;
@@ -115,6 +156,34 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	    config.setMaxTotal(jedisConfigBean.getMaxTotal());
         config.setMinIdle(jedisConfigBean.getMinIdle());
 	    pool = new JedisPool(config, jedisConfigBean.getHost(), jedisConfigBean.getPort());
+	    metrics.registerGauge("poolIdle", pool::getNumIdle);
+	    metrics.registerGauge("poolActive", pool::getNumActive);
+	    metrics.registerGauge("poolWaiters", pool::getNumWaiters);
+	    if (jedisConfigBean.isAutoBatching()) {
+	        logger.debug("redis.batch.connections = {}", jedisConfigBean.getBatchConnections());
+	        logger.debug("redis.batch.maxSize = {}", jedisConfigBean.getBatchMaxSize());
+	        logger.debug("redis.batch.lingerMicros = {}", jedisConfigBean.getBatchLingerMicros());
+	        batcher = new JedisBatcher(JedisBatcher.connectionFactory(jedisConfigBean), jedisConfigBean.getBatchConnections(),
+	                jedisConfigBean.getBatchMaxSize(), jedisConfigBean.getBatchLingerMicros(),
+	                JedisBatcher.executeTimeoutMillis(jedisConfigBean));
+	        metrics.registerGauge("batchCommands", batcher::getCommands);
+	        metrics.registerGauge("batches", batcher::getBatches);
+	        metrics.registerGauge("batchConnectionErrors", batcher::getConnectionErrors);
+	    }
+	    if (jedisConfigBean.getCompressThreshold() > 0) {
+	        logger.debug("redis.compress.threshold = {}", jedisConfigBean.getCompressThreshold());
+	        logger.debug("redis.compress.level = {}", jedisConfigBean.getCompressLevel());
+	        compressor = new ValueCompressor(jedisConfigBean.getCompressThreshold(), jedisConfigBean.getCompressLevel());
+	        metrics.registerGauge("compressedValues", compressor::getCompressedValues);
+	        metrics.registerGauge("compressBytesSaved", compressor::getBytesSaved);
+	    }
+	    parallelDecodeBytes = jedisConfigBean.getParallelDecodeBytes();
+	    logger.debug("redis.parallelDecodeBytes = {}", parallelDecodeBytes);
+	    if (jedisConfigBean.getRefreshAheadBeta() > 0) {
+	        logger.debug("redis.refreshAhead.beta = {}", jedisConfigBean.getRefreshAheadBeta());
+	        logger.debug("redis.refreshAhead.threads = {}", jedisConfigBean.getRefreshAheadThreads());
+	        refreshAhead = new RefreshAhead(jedisConfigBean.getRefreshAheadBeta(), jedisConfigBean.getRefreshAheadThreads(), metrics);
+	    }
 	}
 	
 	
@@ -135,7 +204,9 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	
 	@Override
 	public Jedis getNewJedis() {
+		long start = System.nanoTime();
 		Jedis jedis = pool.getResource();
+		metrics.recordPoolWait(System.nanoTime() - start);
 		if (null != jedisConfigBean.getPassword() && !"".equals(jedisConfigBean.getPassword())) {
             jedis.auth(jedisConfigBean.getPassword());
         }
@@ -165,6 +236,73 @@ public class JedisHelperImpl implements JedisCacheHelper {
 			jedis.close();
 		}
 	}
+	/**
+	 * 开启了自动批量且当前线程没有绑定Jedis时，命令交给batcher合并发送
+	 */
+	private boolean batching() {
+		return null != batcher && null == currentThreadLocalJedis.get();
+	}
+	/**
+	 * 编码对象值，开启压缩时压缩大的值
+	 */
+	private byte[] encodeValue(Object value) {
+		byte[] bs = Codecs.encode(value);
+		if(null != compressor)
+			bs = compressor.compress(bs);
+		metrics.recordBytesOut(bs.length);
+		return bs;
+	}
+	/**
+	 * 序列化Hash的field、集合成员等，并统计写出的字节数
+	 */
+	private byte[] serialize(Object o) {
+		byte[] bs = SerializeUtil.serialize(o);
+		metrics.recordBytesOut(bs.length);
+		return bs;
+	}
+	/**
+	 * 解码读到的数据并统计读入的字节数
+	 */
+	private <T> T decodeValue(byte[] bs, Class<T> type) {
+		if(null != bs)
+			metrics.recordBytesIn(bs.length);
+		return SerializeUtil.deserialize(bs, type);
+	}
+	/**
+	 * 解码批量读到的数据，总字节数达到parallelDecodeBytes时在ForkJoin公共池中并行解码
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> List<T> decodeValues(List<byte[]> bss, Class<T> type) {
+		long total = 0;
+		for(byte[] bs : bss) {
+			if(null != bs)
+				total += bs.length;
+		}
+		Object[] values = new Object[bss.size()];
+		IntStream indexes = IntStream.range(0, values.length);
+		if(parallelDecodeBytes > 0 && total >= parallelDecodeBytes && values.length > 1)
+			indexes = indexes.parallel();
+		indexes.forEach(i -> values[i] = decodeValue(bss.get(i), type));
+		return (List<T>) Arrays.asList(values);
+	}
+	/**
+	 * 自动批量模式下，多个zadd在同一批次中连续发送，成员在调用线程中序列化
+	 */
+	private void batchZadd(byte[] key, Map<Long, ?> set, boolean stringMember) {
+		double[] scores = new double[set.size()];
+		byte[][] members = new byte[set.size()][];
+		int i = 0;
+		for(Map.Entry<Long, ?> entry : set.entrySet()) {
+			scores[i] = entry.getKey();
+			members[i++] = stringMember ? SafeEncoder.encode((String) entry.getValue()) : serialize(entry.getValue());
+		}
+		batcher.execute(p -> {
+			Response<Long> ret = null;
+			for(int j = 0; j < members.length; j++)
+				ret = p.zadd(key, scores[j], members[j]);
+			return ret;
+		});
+	}
 	@Override
 	public boolean boundJedis() {
 		if(getCurrentMode() == MODE_THREAD_LOCAL)
@@ -342,9 +480,14 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	@Override
 	public String get(String key) {
 		assertKey(key);
-		Jedis jedis = getJedis();
-		String ret = jedis.get(key);
-		closeIfNoCurrentJedis(jedis);
+		String ret;
+		if(batching()) {
+			ret = batcher.execute(p -> p.get(key));
+		} else {
+			Jedis jedis = getJedis();
+			ret = jedis.get(key);
+			closeIfNoCurrentJedis(jedis);
+		}
 		return ret;
 	}
 	@Override
@@ -359,7 +502,7 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	}
 	@Override
 	public void setObjectEX(String key, Object value, int second) {
-		byte[] bs = SerializeUtil.serialize(value);
+		byte[] bs = encodeValue(value);
 		this.set(key.getBytes(), bs, second);
 	}
 
@@ -380,6 +523,11 @@ public class JedisHelperImpl implements JedisCacheHelper {
 			pl.set(key, value);
 			else
 			pl.setex(key, second, value);
+		} else if(batching()) {
+			if(second <= 0)
+			batcher.execute(p -> p.set(key, value));
+			else
+			batcher.execute(p -> p.setex(key, second, value));
 		} else {
 			Jedis jedis = getJedis();
 			if(second <= 0)
@@ -394,9 +542,14 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	public List<String> mget(String... keys) {
 		if(null == keys || keys.length == 0)
 			throw new IllegalArgumentException("Keys cannot be null or empty!");
-		Jedis jedis = getJedis();
-		List<String> ret = jedis.mget(keys);
-		closeIfNoCurrentJedis(jedis);
+		List<String> ret;
+		if(batching()) {
+			ret = batcher.execute(p -> p.mget(keys));
+		} else {
+			Jedis jedis = getJedis();
+			ret = jedis.mget(keys);
+			closeIfNoCurrentJedis(jedis);
+		}
 		return ret;
 	}
 
@@ -404,9 +557,14 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	@Override
 	public String hget(String key, String field) {
 		assertKey(key);
-		Jedis jedis = getJedis();
-		String ret = jedis.hget(key, field);
-		closeIfNoCurrentJedis(jedis);
+		String ret;
+		if(batching()) {
+			ret = batcher.execute(p -> p.hget(key, field));
+		} else {
+			Jedis jedis = getJedis();
+			ret = jedis.hget(key, field);
+			closeIfNoCurrentJedis(jedis);
+		}
 		return ret;
 	}
 
@@ -416,9 +574,14 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		if (null == field || field.length == 0) {
 			return null;
 		}
-		Jedis jedis = getJedis();
-		List<String> list = jedis.hmget(key, field);
-		closeIfNoCurrentJedis(jedis);
+		List<String> list;
+		if(batching()) {
+			list = batcher.execute(p -> p.hmget(key, field));
+		} else {
+			Jedis jedis = getJedis();
+			list = jedis.hmget(key, field);
+			closeIfNoCurrentJedis(jedis);
+		}
 		Map<String, String> ret = new HashMap<String, String>(field.length);
 		for (int i = 0; i < field.length; i++) {
 			ret.put(field[i], list.get(i));
@@ -437,9 +600,13 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		if(null != currentTransaction.get()) {
 			currentTransaction.get().hset(key, field, value);
 		} else {
-			Jedis jedis = getJedis();
-			jedis.hset(key, field, value);
-			closeIfNoCurrentJedis(jedis);
+			if(batching()) {
+				batcher.execute(p -> p.hset(key, field, value));
+			} else {
+				Jedis jedis = getJedis();
+				jedis.hset(key, field, value);
+				closeIfNoCurrentJedis(jedis);
+			}
 		}
 	}
 	///////////////////////////////////////////////////////////////////////////////===String类型的Hash结构结束
@@ -450,9 +617,13 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		if(null != currentTransaction.get()) {
 			valbytes = currentTransaction.get().get(fieldBytes).get();
 		} else {
-			Jedis jedis = getJedis();
-			valbytes = jedis.hget(key.getBytes(), fieldBytes);
-			closeIfNoCurrentJedis(jedis);
+			if(batching()) {
+				valbytes = batcher.execute(p -> p.hget(key.getBytes(), fieldBytes));
+			} else {
+				Jedis jedis = getJedis();
+				valbytes = jedis.hget(key.getBytes(), fieldBytes);
+				closeIfNoCurrentJedis(jedis);
+			}
 		}
 		return SerializeUtil.deserialize(valbytes, recoverType);
 	}*/
@@ -470,12 +641,17 @@ public class JedisHelperImpl implements JedisCacheHelper {
 			this.hdel(key, field);
 			return;
 		}
+		byte[] bkey = key.getBytes();
 		if(null != currentTransaction.get()) {
-			currentTransaction.get().hset(key.getBytes(), field, value);
+			currentTransaction.get().hset(bkey, field, value);
 		} else {
-			Jedis jedis = getJedis();
-			jedis.hset(key.getBytes(), field, value);
-			closeIfNoCurrentJedis(jedis);
+			if(batching()) {
+				batcher.execute(p -> p.hset(bkey, field, value));
+			} else {
+				Jedis jedis = getJedis();
+				jedis.hset(bkey, field, value);
+				closeIfNoCurrentJedis(jedis);
+			}
 		}
 	}
 	///////////////////////////////////////////////////////////////////////////////===整个Map的存取开始
@@ -491,7 +667,7 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	}
 	@Override
 	public void setMap(String key, Map<?, ?> map) {
-		byte[] bs = SerializeUtil.serialize(map);
+		byte[] bs = serialize(map);
 		this.set(key.getBytes(), bs, 0);
 	}*/
 	///////////////////////////////////////////////////////////////////////////////===整个Map的存取结束
@@ -505,8 +681,8 @@ public class JedisHelperImpl implements JedisCacheHelper {
 			return;
 		}
 		for(Entry<?, ?> entry : map.entrySet()) {
-			byte[] fieldBytes = SerializeUtil.serialize(entry.getKey());
-			byte[] valueBytes = SerializeUtil.serialize(entry.getValue());
+			byte[] fieldBytes = serialize(entry.getKey());
+			byte[] valueBytes = encodeValue(entry.getValue());
 			this.hset(key, fieldBytes , valueBytes);
 		}
 	}
@@ -514,26 +690,37 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	@Override
 	public <T> T getMapValue(String mapKey, Object fieldKey, Class<T> type) {
 		assertKey(mapKey);
-		byte[] fieldBytes = SerializeUtil.serialize(fieldKey);
+		byte[] fieldBytes = serialize(fieldKey);
 		assertKey(fieldBytes);
 		byte[] valbytes;
-		Jedis jedis = getJedis();
-		valbytes = jedis.hget(mapKey.getBytes(), fieldBytes);
-		closeIfNoCurrentJedis(jedis);
-		return SerializeUtil.deserialize(valbytes, type);
+		byte[] bkey = mapKey.getBytes();
+		if(batching()) {
+			valbytes = batcher.execute(p -> p.hget(bkey, fieldBytes));
+		} else {
+			Jedis jedis = getJedis();
+			valbytes = jedis.hget(bkey, fieldBytes);
+			closeIfNoCurrentJedis(jedis);
+		}
+		return decodeValue(valbytes, type);
 	}
 
 	@Override
 	public <T> List<T> getMapValues(String mapKey, Class<T> type) {
 		assertKey(mapKey);
-		Jedis jedis = getJedis();
-		List<byte[]> ret = jedis.hvals(mapKey.getBytes());
-		closeIfNoCurrentJedis(jedis);
+		List<byte[]> ret;
+		byte[] bkey = mapKey.getBytes();
+		if(batching()) {
+			ret = batcher.execute(p -> p.hvals(bkey));
+		} else {
+			Jedis jedis = getJedis();
+			ret = jedis.hvals(bkey);
+			closeIfNoCurrentJedis(jedis);
+		}
 		List<T> list = null;
 		if(null != ret) {
 			list = new ArrayList<T>();
 			for(byte[] bs : ret) {
-				T o = SerializeUtil.deserialize(bs, type);
+				T o = decodeValue(bs, type);
 				list.add(o);
 			}
 		}
@@ -548,15 +735,21 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		}
 		byte[][] fieldBytes = new byte[keys.length][];
 		for (int i = 0; i < keys.length; i++) {
-			fieldBytes[i] = SerializeUtil.serialize(keys[i]);
+			fieldBytes[i] = serialize(keys[i]);
 			assertKey(fieldBytes[i]);
 		}
-		Jedis jedis = getJedis();
-		List<byte[]> list = jedis.hmget(mapKey.getBytes(), fieldBytes);
-		closeIfNoCurrentJedis(jedis);
+		List<byte[]> list;
+		byte[] bkey = mapKey.getBytes();
+		if(batching()) {
+			list = batcher.execute(p -> p.hmget(bkey, fieldBytes));
+		} else {
+			Jedis jedis = getJedis();
+			list = jedis.hmget(bkey, fieldBytes);
+			closeIfNoCurrentJedis(jedis);
+		}
 		Map<K, T> ret = new HashMap<K, T>(keys.length);
 		for (int i = 0; i < keys.length; i++) {
-			ret.put(keys[i], SerializeUtil.deserialize(list.get(i), type));
+			ret.put(keys[i], decodeValue(list.get(i), type));
 		}
 		return ret;
 	}
@@ -568,7 +761,7 @@ public class JedisHelperImpl implements JedisCacheHelper {
 			this.del(key);
 			return;
 		}
-		byte[] bs = SerializeUtil.serialize(obj);
+		byte[] bs = encodeValue(obj);
 		this.set(key.getBytes(), bs, 0);
 	}
 
@@ -576,10 +769,96 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	public <T> T getObject(String key, Class<T> type) {
 		assertKey(key);
 		byte[] bs;
-		Jedis jedis = getJedis();
-		bs = jedis.get(key.getBytes());
-		closeIfNoCurrentJedis(jedis);
-		return SerializeUtil.deserialize(bs, type);
+		byte[] bkey = key.getBytes();
+		if(batching()) {
+			bs = batcher.execute(p -> p.get(bkey));
+		} else {
+			Jedis jedis = getJedis();
+			bs = jedis.get(bkey);
+			closeIfNoCurrentJedis(jedis);
+		}
+		return decodeValue(bs, type);
+	}
+
+	@Override
+	public <T> List<T> getObjects(Class<T> type, String... keys) {
+		if(null == keys || keys.length == 0)
+			throw new IllegalArgumentException("Keys cannot be null or empty!");
+		byte[][] bkeys = new byte[keys.length][];
+		for(int i = 0; i < keys.length; i++) {
+			assertKey(keys[i]);
+			bkeys[i] = keys[i].getBytes();
+		}
+		List<byte[]> bss;
+		if(batching()) {
+			bss = batcher.execute(p -> p.mget(bkeys));
+		} else {
+			Jedis jedis = getJedis();
+			bss = jedis.mget(bkeys);
+			closeIfNoCurrentJedis(jedis);
+		}
+		return decodeValues(bss, type);
+	}
+
+	/**
+	 * 不过期时以一条MSET写入；有过期时间时MSET不能设置过期，每个key一条SETEX；值为null的key以一条DEL删除。<br>
+	 * 这些命令加入当前的事务或管道，或在同一批次、同一个pipeline中发送
+	 */
+	@Override
+	public void setObjects(Map<String, ?> values, int second) {
+		if(null == values)
+			throw new IllegalArgumentException("Values cannot be null!");
+		List<byte[]> keys = new ArrayList<byte[]>(values.size());
+		List<byte[]> bss = new ArrayList<byte[]>(values.size());
+		List<byte[]> dels = new ArrayList<byte[]>();
+		for(Entry<String, ?> entry : values.entrySet()) {
+			assertKey(entry.getKey());
+			if(null == entry.getValue()) {
+				dels.add(entry.getKey().getBytes());
+			} else {
+				keys.add(entry.getKey().getBytes());
+				bss.add(encodeValue(entry.getValue()));
+			}
+		}
+		if(keys.isEmpty() && dels.isEmpty())
+			return;
+		if(null != currentTransaction.get()) {
+			queueObjects(currentTransaction.get(), keys, bss, dels, second);
+		} else if(null != currentPipeline.get()) {
+			queueObjects(currentPipeline.get(), keys, bss, dels, second);
+		} else if(batching()) {
+			batcher.execute(p -> queueObjects(p, keys, bss, dels, second));
+		} else {
+			Jedis jedis = getJedis();
+			Pipeline pl = jedis.pipelined();
+			queueObjects(pl, keys, bss, dels, second);
+			pl.sync();
+			closeIfNoCurrentJedis(jedis);
+		}
+	}
+	/**
+	 * 把setObjects的DEL、MSET或SETEX加入事务或管道，返回最后一条命令的结果
+	 */
+	@SuppressWarnings("unchecked")
+	private Response<Object> queueObjects(MultiKeyPipelineBase p, List<byte[]> keys, List<byte[]> bss,
+										  List<byte[]> dels, int second) {
+		Response<?> ret = null;
+		if(!dels.isEmpty())
+			ret = p.del(dels.toArray(new byte[dels.size()][]));
+		if(keys.isEmpty())
+			return (Response<Object>) ret;
+		if(second <= 0) {
+			byte[][] kvs = new byte[keys.size() * 2][];
+			for(int i = 0; i < keys.size(); i++) {
+				kvs[2 * i] = keys.get(i);
+				kvs[2 * i + 1] = bss.get(i);
+			}
+			ret = p.mset(kvs);
+		} else {
+			for(int i = 0; i < keys.size(); i++)
+				ret = p.setex(keys.get(i), second, bss.get(i));
+		}
+		return (Response<Object>) ret;
 	}
 
 	@Override
@@ -594,40 +873,56 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		}
 		byte[][] bls = new byte[list.size()][];
 		for(int i = 0; i < list.size(); i++) {
-			byte[] b = SerializeUtil.serialize(list.get(i));
+			byte[] b = serialize(list.get(i));
 			bls[i] = b;
 		}
+		byte[] bkey = key.getBytes();
 		if(null != currentTransaction.get()) {
-			currentTransaction.get().rpush(key.getBytes(), bls);
+			currentTransaction.get().rpush(bkey, bls);
 		} else {
-			Jedis jedis = getJedis();
-			jedis.rpush(key.getBytes(), bls);
-			closeIfNoCurrentJedis(jedis);
+			if(batching()) {
+				batcher.execute(p -> p.rpush(bkey, bls));
+			} else {
+				Jedis jedis = getJedis();
+				jedis.rpush(bkey, bls);
+				closeIfNoCurrentJedis(jedis);
+			}
 		}
 	}
 
 	@Override
 	public <T> T getObjectListItem(String key, int index, Class<T> type) {
 		assertKey(key);
-		Jedis jedis = getJedis();
-		byte[] resp = jedis.lindex(key.getBytes(), index);
-		closeIfNoCurrentJedis(jedis);
-		return SerializeUtil.deserialize(resp, type);
+		byte[] resp;
+		byte[] bkey = key.getBytes();
+		if(batching()) {
+			resp = batcher.execute(p -> p.lindex(bkey, index));
+		} else {
+			Jedis jedis = getJedis();
+			resp = jedis.lindex(bkey, index);
+			closeIfNoCurrentJedis(jedis);
+		}
+		return decodeValue(resp, type);
 	}
 
 	@Override
 	public <T> List<T> getObjectListItems(String key, int start, int end, Class<T> type) {
 		assertKey(key);
 		List<byte[]> bss;
-		Jedis jedis = getJedis();
-		bss = jedis.lrange(key.getBytes(), start, end == -1 ? -1 : end - 1);
-		closeIfNoCurrentJedis(jedis);
+		byte[] bkey = key.getBytes();
+		if(batching()) {
+			bss = batcher.execute(p -> p.lrange(bkey, start, end == -1 ? -1 : end - 1));
+		} else {
+			Jedis jedis = getJedis();
+			bss = jedis.lrange(bkey, start, end == -1 ? -1 : end - 1);
+			closeIfNoCurrentJedis(jedis);
+		}
 		if(null == bss || bss.isEmpty()) {
 			return null;
 		} else {
 			List<T> ret = new ArrayList<T>();
 			for(byte[] bs : bss) {
-				ret.add(SerializeUtil.deserialize(bs, type));
+				ret.add(decodeValue(bs, type));
 			}
 			return ret;
 		}
@@ -639,21 +934,27 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		byte[][] bls = new byte[items.length][];
 		if(null != items && items.length > 0) {
 			for(int i = 0; i < items.length; i++) {
-				byte[] b = SerializeUtil.serialize(items[i]);
+				byte[] b = serialize(items[i]);
 				bls[i] = b;
 			}
 		} else return;
+		byte[] bkey = key.getBytes();
 		if(null != currentTransaction.get()) {
 			if(tail)
-			currentTransaction.get().rpush(key.getBytes(), bls);
+			currentTransaction.get().rpush(bkey, bls);
+			else
+			currentTransaction.get().lpush(bkey, bls);
+		} else if(batching()) {
+			if(tail)
+			batcher.execute(p -> p.rpush(bkey, bls));
 			else
-			currentTransaction.get().lpush(key.getBytes(), bls);
+			batcher.execute(p -> p.lpush(bkey, bls));
 		} else {
 			Jedis jedis = getJedis();
 			if(tail)
-			jedis.rpush(key.getBytes(), bls);
+			jedis.rpush(bkey, bls);
 			else
-			jedis.lpush(key.getBytes(), bls);
+			jedis.lpush(bkey, bls);
 			closeIfNoCurrentJedis(jedis);
 		}
 	}
@@ -671,9 +972,13 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		if(null != currentTransaction.get()) {
 			currentTransaction.get().rpush(key, list.toArray(new String[0]));
 		} else {
-			Jedis jedis = getJedis();
-			jedis.rpush(key, list.toArray(new String[0]));
-			closeIfNoCurrentJedis(jedis);
+			if(batching()) {
+				batcher.execute(p -> p.rpush(key, list.toArray(new String[0])));
+			} else {
+				Jedis jedis = getJedis();
+				jedis.rpush(key, list.toArray(new String[0]));
+				closeIfNoCurrentJedis(jedis);
+			}
 		}
 	}
 	@Override
@@ -686,6 +991,11 @@ public class JedisHelperImpl implements JedisCacheHelper {
 			currentTransaction.get().rpush(key, strings);
 			else
 			currentTransaction.get().rpush(key, strings);
+		} else if(batching()) {
+			if(tail)
+			batcher.execute(p -> p.rpush(key, strings));
+			else
+			batcher.execute(p -> p.lpush(key, strings));
 		} else {
 			Jedis jedis = getJedis();
 			if(tail)
@@ -703,9 +1013,13 @@ public class JedisHelperImpl implements JedisCacheHelper {
 			Pipeline pl = currentPipeline.get();
 			resp = pl.lindex(key, index).get();
 		} else {
-			Jedis jedis = getJedis();
-			resp = jedis.lindex(key, index);
-			closeIfNoCurrentJedis(jedis);
+			if(batching()) {
+				resp = batcher.execute(p -> p.lindex(key, index));
+			} else {
+				Jedis jedis = getJedis();
+				resp = jedis.lindex(key, index);
+				closeIfNoCurrentJedis(jedis);
+			}
 		}
 		return resp;
 	}
@@ -713,40 +1027,62 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	public List<String> getStringListItems(String key, int start, int end) {
 		assertKey(key);
 		List<String> resp;
-		Jedis jedis = getJedis();
-		resp = jedis.lrange(key, start, end == -1 ? -1 : end - 1);
-		closeIfNoCurrentJedis(jedis);
+		if(batching()) {
+			resp = batcher.execute(p -> p.lrange(key, start, end == -1 ? -1 : end - 1));
+		} else {
+			Jedis jedis = getJedis();
+			resp = jedis.lrange(key, start, end == -1 ? -1 : end - 1);
+			closeIfNoCurrentJedis(jedis);
+		}
 		return resp;
 	}
 	@Override
 	public void trimList(String key, int start, int end) {
 		assertKey(key);
-		Jedis jedis = getJedis();
-		jedis.ltrim(key, start, end == -1 ? -1 : end - 1);
-		closeIfNoCurrentJedis(jedis);
+		if(batching()) {
+			batcher.execute(p -> p.ltrim(key, start, end == -1 ? -1 : end - 1));
+		} else {
+			Jedis jedis = getJedis();
+			jedis.ltrim(key, start, end == -1 ? -1 : end - 1);
+			closeIfNoCurrentJedis(jedis);
+		}
 	}
 
 	@Override
 	public void removeRepeatObjectListItem(String key, int count, Object value) {
 		assertKey(key);
-		byte[] b = SerializeUtil.serialize(value);
-		Jedis jedis = getJedis();
-		jedis.lrem(key.getBytes(), count, b);
-		closeIfNoCurrentJedis(jedis);
+		byte[] b = serialize(value);
+		byte[] bkey = key.getBytes();
+		if(batching()) {
+			batcher.execute(p -> p.lrem(bkey, count, b));
+		} else {
+			Jedis jedis = getJedis();
+			jedis.lrem(bkey, count, b);
+			closeIfNoCurrentJedis(jedis);
+		}
 	}
 	@Override
 	public void removeRepeatStringListItem(String key, int count, String value) {
 		assertKey(key);
-		Jedis jedis = getJedis();
-		jedis.lrem(key, count, value);
-		closeIfNoCurrentJedis(jedis);
+		if(batching()) {
+			batcher.execute(p -> p.lrem(key, count, value));
+		} else {
+			Jedis jedis = getJedis();
+			jedis.lrem(key, count, value);
+			closeIfNoCurrentJedis(jedis);
+		}
 	}
 	@Override
 	public long getListLength(String key) {
 		assertKey(key);
-		Jedis jedis = getJedis();
-		Long len = jedis.llen(key);
-		closeIfNoCurrentJedis(jedis);
+		Long len;
+		if(batching()) {
+			len = batcher.execute(p -> p.llen(key));
+		} else {
+			Jedis jedis = getJedis();
+			len = jedis.llen(key);
+			closeIfNoCurrentJedis(jedis);
+		}
 		return len;
 	}
 	
@@ -766,30 +1102,40 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		byte[][] bls = new byte[sets.size()][];
 		int index = 0;
 		for(Iterator<?> iterator = sets.iterator(); iterator.hasNext();) {
-			byte[] b = SerializeUtil.serialize(iterator.next());
+			byte[] b = serialize(iterator.next());
 			bls[index++] = b;
 		}
+		byte[] bkey = key.getBytes();
 		if(null != currentTransaction.get()) {
-			currentTransaction.get().sadd(key.getBytes(), bls);
+			currentTransaction.get().sadd(bkey, bls);
 		} else {
-			Jedis jedis = getJedis();
-			jedis.sadd(key.getBytes(), bls);
-			closeIfNoCurrentJedis(jedis);
+			if(batching()) {
+				batcher.execute(p -> p.sadd(bkey, bls));
+			} else {
+				Jedis jedis = getJedis();
+				jedis.sadd(bkey, bls);
+				closeIfNoCurrentJedis(jedis);
+			}
 		}
 	}
 	@Override
 	public <T> Set<T> getObjectSetAll(String key, Class<T> type) {
 		assertKey(key);
 		Set<byte[]> returnBytes;
-		Jedis jedis = getJedis();
-		returnBytes = jedis.smembers(key.getBytes());
-		closeIfNoCurrentJedis(jedis);
+		byte[] bkey = key.getBytes();
+		if(batching()) {
+			returnBytes = batcher.execute(p -> p.smembers(bkey));
+		} else {
+			Jedis jedis = getJedis();
+			returnBytes = jedis.smembers(bkey);
+			closeIfNoCurrentJedis(jedis);
+		}
 		if(null == returnBytes || returnBytes.isEmpty()) {
 			return null;
 		}
 		Set<T> retSet = new HashSet<T>();
 		for(Iterator<byte[]> iterator = returnBytes.iterator(); iterator.hasNext();) {
-			T obj = SerializeUtil.deserialize(iterator.next(), type);
+			T obj = decodeValue(iterator.next(), type);
 			retSet.add(obj);
 		}
 		return retSet;
@@ -801,15 +1147,20 @@ public class JedisHelperImpl implements JedisCacheHelper {
 			return;
 		byte[][] bls = new byte[objects.length][];
 		for(int i = 0; i < objects.length; i++) {
-			byte[] b = SerializeUtil.serialize(objects[i]);
+			byte[] b = serialize(objects[i]);
 			bls[i] = b;
 		}
+		byte[] bkey = key.getBytes();
 		if(null != currentTransaction.get()) {
-			currentTransaction.get().sadd(key.getBytes(), bls);
+			currentTransaction.get().sadd(bkey, bls);
 		} else {
-			Jedis jedis = getJedis();
-			jedis.sadd(key.getBytes(), bls);
-			closeIfNoCurrentJedis(jedis);
+			if(batching()) {
+				batcher.execute(p -> p.sadd(bkey, bls));
+			} else {
+				Jedis jedis = getJedis();
+				jedis.sadd(bkey, bls);
+				closeIfNoCurrentJedis(jedis);
+			}
 		}
 	}
 	@Override
@@ -819,77 +1170,113 @@ public class JedisHelperImpl implements JedisCacheHelper {
 			return;
 		byte[][] bls = new byte[objects.length][];
 		for(int i = 0; i < objects.length; i++) {
-			byte[] b = SerializeUtil.serialize(objects[i]);
+			byte[] b = serialize(objects[i]);
 			bls[i] = b;
 		}
-		Jedis jedis = getJedis();
-		jedis.srem(key.getBytes(), bls);
-		closeIfNoCurrentJedis(jedis);
+		byte[] bkey = key.getBytes();
+		if(batching()) {
+			batcher.execute(p -> p.srem(bkey, bls));
+		} else {
+			Jedis jedis = getJedis();
+			jedis.srem(bkey, bls);
+			closeIfNoCurrentJedis(jedis);
+		}
 	}
 	@Override
 	public <T> Set<T> getInterObjectSet(Class<T> type, byte[]... keys) {
 		if(null == keys || keys.length == 0)
 			return null;
 		Set<T> ret = new HashSet<T>();
-		Jedis jedis = getJedis();
-		Set<byte[]> bsset = jedis.sinter(keys);
-		closeIfNoCurrentJedis(jedis);
+		Set<byte[]> bsset;
+		if(batching()) {
+			bsset = batcher.execute(p -> p.sinter(keys));
+		} else {
+			Jedis jedis = getJedis();
+			bsset = jedis.sinter(keys);
+			closeIfNoCurrentJedis(jedis);
+		}
 		if (null == bsset)
 			return ret;
 		for(Iterator<byte[]> iterator = bsset.iterator(); iterator.hasNext();) {
-			T o = SerializeUtil.deserialize(iterator.next(), type);
+			T o = decodeValue(iterator.next(), type);
 			ret.add(o);
 		}
 		return ret;
 	}
 
+	@Override
 	public <T> Set<T> getDiffObjectSet(Class<T> type, byte[]... keys) {
 		if(null == keys || keys.length == 0)
 			return null;
 		Set<T> ret = new HashSet<T>();
-		Jedis jedis = getJedis();
-		Set<byte[]> bsset = jedis.sdiff(keys);
-		closeIfNoCurrentJedis(jedis);
+		Set<byte[]> bsset;
+		if(batching()) {
+			bsset = batcher.execute(p -> p.sdiff(keys));
+		} else {
+			Jedis jedis = getJedis();
+			bsset = jedis.sdiff(keys);
+			closeIfNoCurrentJedis(jedis);
+		}
 		if (null == bsset)
 			return ret;
 		for(Iterator<byte[]> iterator = bsset.iterator(); iterator.hasNext();) {
-			T o = SerializeUtil.deserialize(iterator.next(), type);
+			T o = decodeValue(iterator.next(), type);
 			ret.add(o);
 		}
 		return ret;
 	}
 
+	@Override
 	public <T> Set<T> getUnionObjectSet(Class<T> type, byte[]... keys) {
 		if(null == keys || keys.length == 0)
 			return null;
 		Set<T> ret = new HashSet<T>();
-		Jedis jedis = getJedis();
-		Set<byte[]> bsset = jedis.sunion(keys);
-		closeIfNoCurrentJedis(jedis);
+		Set<byte[]> bsset;
+		if(batching()) {
+			bsset = batcher.execute(p -> p.sunion(keys));
+		} else {
+			Jedis jedis = getJedis();
+			bsset = jedis.sunion(keys);
+			closeIfNoCurrentJedis(jedis);
+		}
 		if (null == bsset)
 			return ret;
 		for(Iterator<byte[]> iterator = bsset.iterator(); iterator.hasNext();) {
-			T o = SerializeUtil.deserialize(iterator.next(), type);
+			T o = decodeValue(iterator.next(), type);
 			ret.add(o);
 		}
 		return ret;
 	}
 
+	@Override
 	public int moveObjectSetMember(byte[] source, byte[] dest, Object member) {
 		if(null == source || source.length == 0 || null == dest || dest.length == 0 || null == member)
 			return 0;
-		Jedis jedis = getJedis();
-		long count = jedis.smove(source, dest, SerializeUtil.serialize(member));
-		closeIfNoCurrentJedis(jedis);
+		long count;
+		byte[] bMember = serialize(member);
+		if(batching()) {
+			count = batcher.execute(p -> p.smove(source, dest, bMember));
+		} else {
+			Jedis jedis = getJedis();
+			count = jedis.smove(source, dest, bMember);
+			closeIfNoCurrentJedis(jedis);
+		}
 		return Integer.valueOf("" + count);
 	}
 
+	@Override
 	public boolean isObjectSetMember(byte[] key, Object member) {
 		if(null == key || key.length == 0 || null == member)
 			return false;
-		Jedis jedis = getJedis();
-		boolean isMember = jedis.sismember(key, SerializeUtil.serialize(member));
-		closeIfNoCurrentJedis(jedis);
+		boolean isMember;
+		byte[] bMember = serialize(member);
+		if(batching()) {
+			isMember = batcher.execute(p -> p.sismember(key, bMember));
+		} else {
+			Jedis jedis = getJedis();
+			isMember = jedis.sismember(key, bMember);
+			closeIfNoCurrentJedis(jedis);
+		}
 		return isMember;
 	}
 	
@@ -908,18 +1295,26 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		if(null != currentTransaction.get()) {
 			currentTransaction.get().sadd(key, sets.toArray(new String[0]));
 		} else {
-			Jedis jedis = getJedis();
-			jedis.sadd(key, sets.toArray(new String[0]));
-			closeIfNoCurrentJedis(jedis);
+			if(batching()) {
+				batcher.execute(p -> p.sadd(key, sets.toArray(new String[0])));
+			} else {
+				Jedis jedis = getJedis();
+				jedis.sadd(key, sets.toArray(new String[0]));
+				closeIfNoCurrentJedis(jedis);
+			}
 		}
 	}
 	@Override
 	public Set<String> getStringSetAll(String key) {
 		assertKey(key);
 		Set<String> returnStrings;
-		Jedis jedis = getJedis();
-		returnStrings = jedis.smembers(key);
-		closeIfNoCurrentJedis(jedis);
+		if(batching()) {
+			returnStrings = batcher.execute(p -> p.smembers(key));
+		} else {
+			Jedis jedis = getJedis();
+			returnStrings = jedis.smembers(key);
+			closeIfNoCurrentJedis(jedis);
+		}
 		return returnStrings;
 	}
 
@@ -931,9 +1326,13 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		if(null != currentTransaction.get()) {
 			currentTransaction.get().sadd(key, strings);
 		} else {
-			Jedis jedis = getJedis();
-			jedis.sadd(key, strings);
-			closeIfNoCurrentJedis(jedis);
+			if(batching()) {
+				batcher.execute(p -> p.sadd(key, strings));
+			} else {
+				Jedis jedis = getJedis();
+				jedis.sadd(key, strings);
+				closeIfNoCurrentJedis(jedis);
+			}
 		}
 	}
 
@@ -942,29 +1341,43 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		assertKey(key);
 		if(null == strings || strings.length == 0)
 			return;
-		Jedis jedis = getJedis();
-		jedis.srem(key, strings);
-		closeIfNoCurrentJedis(jedis);
+		if(batching()) {
+			batcher.execute(p -> p.srem(key, strings));
+		} else {
+			Jedis jedis = getJedis();
+			jedis.srem(key, strings);
+			closeIfNoCurrentJedis(jedis);
+		}
 	}
 
 	@Override
 	public Set<String> getInterStringSet(String... keys) {
 		if(null == keys || keys.length == 0)
 			return null;
-		Jedis jedis = getJedis();
-		Set<String> bsset = jedis.sinter(keys);
-		closeIfNoCurrentJedis(jedis);
-		return bsset;
-	}
-
+		Set<String> bsset;
+		if(batching()) {
+			bsset = batcher.execute(p -> p.sinter(keys));
+		} else {
+			Jedis jedis = getJedis();
+			bsset = jedis.sinter(keys);
+			closeIfNoCurrentJedis(jedis);
+		}
+		return bsset;
+	}
+
 
 	@Override
 	public Set<String> getDiffStringSet(String... keys) {
 		if(null == keys || keys.length == 0)
 			return null;
-		Jedis jedis = getJedis();
-		Set<String> bsset = jedis.sdiff(keys);
-		closeIfNoCurrentJedis(jedis);
+		Set<String> bsset;
+		if(batching()) {
+			bsset = batcher.execute(p -> p.sdiff(keys));
+		} else {
+			Jedis jedis = getJedis();
+			bsset = jedis.sdiff(keys);
+			closeIfNoCurrentJedis(jedis);
+		}
 		return bsset;
 	}
 
@@ -972,9 +1385,14 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	public Set<String> getUnionObjectSet(String... keys) {
 		if(null == keys || keys.length == 0)
 			return null;
-		Jedis jedis = getJedis();
-		Set<String> bsset = jedis.sunion(keys);
-		closeIfNoCurrentJedis(jedis);
+		Set<String> bsset;
+		if(batching()) {
+			bsset = batcher.execute(p -> p.sunion(keys));
+		} else {
+			Jedis jedis = getJedis();
+			bsset = jedis.sunion(keys);
+			closeIfNoCurrentJedis(jedis);
+		}
 		return bsset;
 	}
 
@@ -983,9 +1401,14 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	public int moveStringSetMember(String source, String dest, String member) {
 		if (null == source || null == dest || null == member)
 			return 0;
-		Jedis jedis = getJedis();
-		long count = jedis.smove(source, dest, member);
-		closeIfNoCurrentJedis(jedis);
+		long count;
+		if(batching()) {
+			count = batcher.execute(p -> p.smove(source, dest, member));
+		} else {
+			Jedis jedis = getJedis();
+			count = jedis.smove(source, dest, member);
+			closeIfNoCurrentJedis(jedis);
+		}
 		return Integer.valueOf("" + count);
 	}
 
@@ -994,9 +1417,14 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	public boolean isStringSetMember(String key, String member) {
 		if (null == key || null == member)
 			return false;
-		Jedis jedis = getJedis();
-		boolean isMember = jedis.sismember(key, member);
-		closeIfNoCurrentJedis(jedis);
+		boolean isMember;
+		if(batching()) {
+			isMember = batcher.execute(p -> p.sismember(key, member));
+		} else {
+			Jedis jedis = getJedis();
+			isMember = jedis.sismember(key, member);
+			closeIfNoCurrentJedis(jedis);
+		}
 		return isMember;
 	}
 
@@ -1005,21 +1433,177 @@ public class JedisHelperImpl implements JedisCacheHelper {
 
 	@Override
 	public boolean existsKey(String key) {
-		Jedis jedis = getJedis();
-		boolean flag = jedis.exists(key);
-		closeIfNoCurrentJedis(jedis);
+		boolean flag;
+		if(batching()) {
+			flag = batcher.execute(p -> p.exists(key));
+		} else {
+			Jedis jedis = getJedis();
+			flag = jedis.exists(key);
+			closeIfNoCurrentJedis(jedis);
+		}
 		return flag;
 	}
 	@Override
+	public long getTimeToLive(String key) {
+		Long ttl;
+		if(batching()) {
+			ttl = batcher.execute(p -> p.pttl(key));
+		} else {
+			Jedis jedis = getJedis();
+			ttl = jedis.pttl(key);
+			closeIfNoCurrentJedis(jedis);
+		}
+		return null == ttl ? -2 : ttl;
+	}
+	/**
+	 * 读取命令和key的PTTL在同一个管道中发送，返回读取命令的结果和剩余毫秒数
+	 */
+	private <R> ExpiringValue<R> readWithTtl(byte[] key, Function<Pipeline, Response<R>> read) {
+		List<Response<R>> value = new ArrayList<Response<R>>(1);
+		Long ttl;
+		if(batching()) {
+			ttl = batcher.execute(p -> {
+				value.add(read.apply(p));
+				return p.pttl(key);
+			});
+		} else {
+			Jedis jedis = getJedis();
+			Pipeline pl = jedis.pipelined();
+			value.add(read.apply(pl));
+			Response<Long> pttl = pl.pttl(key);
+			pl.sync();
+			closeIfNoCurrentJedis(jedis);
+			ttl = pttl.get();
+		}
+		return new ExpiringValue<R>(value.get(0).get(), null == ttl ? -2 : ttl);
+	}
+	@Override
+	public ExpiringValue<String> getWithTtl(String key) {
+		assertKey(key);
+		byte[] bkey = SafeEncoder.encode(key);
+		return readWithTtl(bkey, p -> p.get(key));
+	}
+	@Override
+	public <T> ExpiringValue<T> getObjectWithTtl(String key, Class<T> type) {
+		assertKey(key);
+		byte[] bkey = key.getBytes();
+		ExpiringValue<byte[]> ret = readWithTtl(bkey, p -> p.get(bkey));
+		return new ExpiringValue<T>(decodeValue(ret.getValue(), type), ret.getTimeToLive());
+	}
+	@Override
+	public <T> List<ExpiringValue<T>> getObjectsWithTtl(Class<T> type, String... keys) {
+		if(null == keys || keys.length == 0)
+			throw new IllegalArgumentException("Keys cannot be null or empty!");
+		byte[][] bkeys = new byte[keys.length][];
+		for(int i = 0; i < keys.length; i++) {
+			assertKey(keys[i]);
+			bkeys[i] = keys[i].getBytes();
+		}
+		List<Response<Long>> ttls = new ArrayList<Response<Long>>(keys.length);
+		List<byte[]> bss;
+		if(batching()) {
+			bss = batcher.execute(p -> {
+				Response<List<byte[]>> ret = p.mget(bkeys);
+				for(byte[] bkey : bkeys)
+					ttls.add(p.pttl(bkey));
+				return ret;
+			});
+		} else {
+			Jedis jedis = getJedis();
+			Pipeline pl = jedis.pipelined();
+			Response<List<byte[]>> ret = pl.mget(bkeys);
+			for(byte[] bkey : bkeys)
+				ttls.add(pl.pttl(bkey));
+			pl.sync();
+			closeIfNoCurrentJedis(jedis);
+			bss = ret.get();
+		}
+		List<T> values = decodeValues(bss, type);
+		List<ExpiringValue<T>> ret = new ArrayList<ExpiringValue<T>>(keys.length);
+		for(int i = 0; i < keys.length; i++) {
+			Long ttl = ttls.get(i).get();
+			ret.add(new ExpiringValue<T>(values.get(i), null == ttl ? -2 : ttl));
+		}
+		return ret;
+	}
+	@Override
+	public ExpiringValue<String> hgetWithTtl(String key, String field) {
+		assertKey(key);
+		byte[] bkey = SafeEncoder.encode(key);
+		return readWithTtl(bkey, p -> p.hget(key, field));
+	}
+	@Override
+	public <T> ExpiringValue<T> getMapValueWithTtl(String mapKey, Object fieldKey, Class<T> type) {
+		assertKey(mapKey);
+		byte[] fieldBytes = serialize(fieldKey);
+		assertKey(fieldBytes);
+		byte[] bkey = mapKey.getBytes();
+		ExpiringValue<byte[]> ret = readWithTtl(bkey, p -> p.hget(bkey, fieldBytes));
+		return new ExpiringValue<T>(decodeValue(ret.getValue(), type), ret.getTimeToLive());
+	}
+	@Override
+	public boolean tryLease(String key, String token, long millis) {
+		assertKey(key);
+		String ret;
+		if(batching()) {
+			// 管道的SET只接受int的过期时间
+			int px = (int) Math.min(millis, Integer.MAX_VALUE);
+			ret = batcher.execute(p -> p.set(key, token, "NX", "PX", px));
+		} else {
+			Jedis jedis = getJedis();
+			ret = jedis.set(key, token, "NX", "PX", millis);
+			closeIfNoCurrentJedis(jedis);
+		}
+		return "OK".equals(ret);
+	}
+	@Override
+	public boolean releaseLease(String key, String token) {
+		assertKey(key);
+		Object ret;
+		if(batching()) {
+			// 管道中String参数的eval按字符串解析结果，整数结果会转换失败，使用字节数组的重载
+			byte[] bkey = SafeEncoder.encode(key);
+			byte[] btoken = SafeEncoder.encode(token);
+			ret = batcher.execute(p -> p.eval(COMPARE_AND_DEL_SCRIPT_BYTES, 1, bkey, btoken));
+		} else {
+			Jedis jedis = getJedis();
+			ret = jedis.eval(COMPARE_AND_DEL_SCRIPT, Collections.singletonList(key), Collections.singletonList(token));
+			closeIfNoCurrentJedis(jedis);
+		}
+		return Long.valueOf(1).equals(ret);
+	}
+	@Override
+	public RefreshAhead getRefreshAhead() {
+		return refreshAhead;
+	}
+	/**
+	 * 关闭自动批量的连接和线程、提前刷新的线程和连接池
+	 */
+	@Override
+	public void close() {
+		try {
+			if(null != batcher)
+				batcher.close();
+			if(null != refreshAhead)
+				refreshAhead.close();
+		} finally {
+			pool.close();
+		}
+	}
+	@Override
 	public void del(String key) {
 		this.del(key.getBytes());
 	}
 	
 	private void del(byte[] key) {
 		assertKey(key);
-		Jedis jedis = getJedis();
-		jedis.del(key);
-		closeIfNoCurrentJedis(jedis);
+		if(batching()) {
+			batcher.execute(p -> p.del(key));
+		} else {
+			Jedis jedis = getJedis();
+			jedis.del(key);
+			closeIfNoCurrentJedis(jedis);
+		}
 	}
 	
 	@Override
@@ -1033,7 +1617,7 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	@Override
 	public void hdel(String key, Object field) {
 		assertKey(key);
-		byte[] fieldBytes = SerializeUtil.serialize(field);
+		byte[] fieldBytes = serialize(field);
 		assertKey(fieldBytes);
 		this.hdel(key, fieldBytes);
 	}
@@ -1041,25 +1625,35 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	private void hdel(String key, byte[] field) {
 		assertKey(key);
 		assertKey(field);
-		Jedis jedis = getJedis();
-		jedis.hdel(key.getBytes(), field);
-		closeIfNoCurrentJedis(jedis);
+		byte[] bkey = key.getBytes();
+		if(batching()) {
+			batcher.execute(p -> p.hdel(bkey, field));
+		} else {
+			Jedis jedis = getJedis();
+			jedis.hdel(bkey, field);
+			closeIfNoCurrentJedis(jedis);
+		}
 	}
 
 	@Override
 	public long getSetSize(String key) {
 		assertKey(key);
-		Jedis jedis = getJedis();
-		long size = jedis.scard(key);
-		closeIfNoCurrentJedis(jedis);
+		long size;
+		if(batching()) {
+			size = batcher.execute(p -> p.scard(key));
+		} else {
+			Jedis jedis = getJedis();
+			size = jedis.scard(key);
+			closeIfNoCurrentJedis(jedis);
+		}
 		return size;
 	}
 
 	@Override
 	public void appendMapItem(String mapKey, Object fieldKey, Object value) {
 		assertKey(mapKey);
-		byte[] fieldBytes = SerializeUtil.serialize(fieldKey);
-		byte[] valueBytes = SerializeUtil.serialize(value);
+		byte[] fieldBytes = serialize(fieldKey);
+		byte[] valueBytes = encodeValue(value);
 		assertKey(mapKey);
 		if(null == valueBytes) {
 			this.hdel(mapKey, fieldBytes);
@@ -1083,15 +1677,17 @@ public class JedisHelperImpl implements JedisCacheHelper {
 			for(Map.Entry<Long, T> entry : set.entrySet()) {
 				Long score = entry.getKey();
 				T o = entry.getValue();
-				byte[] bs = SerializeUtil.serialize(o);
+				byte[] bs = serialize(o);
 				currentTransaction.get().zadd(key.getBytes(), Double.valueOf(Long.toString(score)), bs);
 			}
+		} else if(batching()) {
+			this.batchZadd(key.getBytes(), set, false);
 		} else {
 			Jedis jedis = getJedis();
 			for(Map.Entry<Long, T> entry : set.entrySet()) {
 				Long score = entry.getKey();
 				T o = entry.getValue();
-				byte[] bs = SerializeUtil.serialize(o);
+				byte[] bs = serialize(o);
 				jedis.zadd(key.getBytes(), Double.valueOf(Long.toString(score)), bs);
 			}
 			closeIfNoCurrentJedis(jedis);
@@ -1117,6 +1713,8 @@ public class JedisHelperImpl implements JedisCacheHelper {
 				String o = entry.getValue();
 				currentTransaction.get().zadd(key, Double.valueOf(Long.toString(score)), o);
 			}
+		} else if(batching()) {
+			this.batchZadd(SafeEncoder.encode(key), set, true);
 		} else {
 			Jedis jedis = getJedis();
 			for(Map.Entry<Long, String> entry : set.entrySet()) {
@@ -1139,15 +1737,17 @@ public class JedisHelperImpl implements JedisCacheHelper {
 			for(Map.Entry<Long, T> entry : set.entrySet()) {
 				Long score = entry.getKey();
 				T o = entry.getValue();
-				byte[] bs = SerializeUtil.serialize(o);
+				byte[] bs = serialize(o);
 				currentTransaction.get().zadd(key.getBytes(), Double.valueOf(Long.toString(score)), bs);
 			}
+		} else if(batching()) {
+			this.batchZadd(key.getBytes(), set, false);
 		} else {
 			Jedis jedis = getJedis();
 			for(Map.Entry<Long, T> entry : set.entrySet()) {
 				Long score = entry.getKey();
 				T o = entry.getValue();
-				byte[] bs = SerializeUtil.serialize(o);
+				byte[] bs = serialize(o);
 				jedis.zadd(key.getBytes(), Double.valueOf(Long.toString(score)), bs);
 			}
 			closeIfNoCurrentJedis(jedis);
@@ -1166,6 +1766,8 @@ public class JedisHelperImpl implements JedisCacheHelper {
 				String o = entry.getValue();
 				currentTransaction.get().zadd(key, Double.valueOf(Long.toString(score)), o);
 			}
+		} else if(batching()) {
+			this.batchZadd(SafeEncoder.encode(key), set, true);
 		} else {
 			Jedis jedis = getJedis();
 			for(Map.Entry<Long, String> entry : set.entrySet()) {
@@ -1185,12 +1787,17 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		}
 		byte[][] bls = new byte[members.length][];
 		for(int i = 0; i < members.length; i++) {
-			byte[] b = SerializeUtil.serialize(members[i]);
+			byte[] b = serialize(members[i]);
 			bls[i] = b;
 		}
-		Jedis jedis = getJedis();
-		jedis.zrem(key.getBytes(), bls);
-		closeIfNoCurrentJedis(jedis);
+		byte[] bkey = key.getBytes();
+		if(batching()) {
+			batcher.execute(p -> p.zrem(bkey, bls));
+		} else {
+			Jedis jedis = getJedis();
+			jedis.zrem(bkey, bls);
+			closeIfNoCurrentJedis(jedis);
+		}
 	}
 
 	@Override
@@ -1199,35 +1806,51 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		if(null == members || members.length == 0) {
 			return;
 		}
-		Jedis jedis = getJedis();
-		jedis.zrem(key, members);
-		closeIfNoCurrentJedis(jedis);
+		if(batching()) {
+			batcher.execute(p -> p.zrem(key, members));
+		} else {
+			Jedis jedis = getJedis();
+			jedis.zrem(key, members);
+			closeIfNoCurrentJedis(jedis);
+		}
 	}
 
 	@Override
 	public <T> void removeSortedObjectSetMember(String key, long start, long end) {
 		assertKey(key);
-		Jedis jedis = getJedis();
-		jedis.zremrangeByRank(key.getBytes(), start, end == -1 ? -1 : end - 1);
-		closeIfNoCurrentJedis(jedis);
+		byte[] bkey = key.getBytes();
+		if(batching()) {
+			batcher.execute(p -> p.zremrangeByRank(bkey, start, end == -1 ? -1 : end - 1));
+		} else {
+			Jedis jedis = getJedis();
+			jedis.zremrangeByRank(bkey, start, end == -1 ? -1 : end - 1);
+			closeIfNoCurrentJedis(jedis);
+		}
 	}
 
 	@Override
 	public void removeStringSortedObjectSetMember(String key, long start,
 			long end) {
 		assertKey(key);
-		Jedis jedis = getJedis();
-		jedis.zremrangeByRank(key, start, end == -1 ? -1 : end - 1);
-		closeIfNoCurrentJedis(jedis);
+		if(batching()) {
+			batcher.execute(p -> p.zremrangeByRank(key, start, end == -1 ? -1 : end - 1));
+		} else {
+			Jedis jedis = getJedis();
+			jedis.zremrangeByRank(key, start, end == -1 ? -1 : end - 1);
+			closeIfNoCurrentJedis(jedis);
+		}
 	}
 
 	@Override
 	public <T> Long increSortedObjectSetMemberScore(String key, T member,
 			long incr) {
 		if(null == key || null == member) return 0L;
+		byte[] b = serialize(member);
+		byte[] bkey = key.getBytes();
+		if(batching())
+			return Long.valueOf((long) Math.floor(batcher.execute(p -> p.zincrby(bkey,  Double.valueOf(incr), b))));
 		Jedis jedis = getJedis();
-		byte[] b = SerializeUtil.serialize(member);
-		Long ret = Long.valueOf((long) Math.floor(jedis.zincrby(key.getBytes(),  Double.valueOf(incr), b)));
+		Long ret = Long.valueOf((long) Math.floor(jedis.zincrby(bkey,  Double.valueOf(incr), b)));
 		closeIfNoCurrentJedis(jedis);
 		return ret;
 	}
@@ -1235,19 +1858,159 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	public Long increStringSortedObjectSetMemberScore(String key,
 			String member, long incr) {
 		if(null == key || null == member) return 0L;
+		if(batching())
+			return Long.valueOf((long) Math.floor(batcher.execute(p -> p.zincrby(key,  Double.valueOf(incr), member))));
 		Jedis jedis = getJedis();
 		Long ret = Long.valueOf((long) Math.floor(jedis.zincrby(key,  Double.valueOf(incr), member)));
 		closeIfNoCurrentJedis(jedis);
 		return ret;
 	}
 	
+	@Override
+	public <T> List<T> getSortedObjectSetMemberByScore(String key, long min, long max, Class<T> type) {
+		assertKey(key);
+		List<T> ss = null;
+		Set<byte[]> bset;
+		byte[] bkey = key.getBytes();
+		if(batching()) {
+			bset = batcher.execute(p -> p.zrangeByScore(bkey, min, max));
+		} else {
+			Jedis jedis = getJedis();
+			bset = jedis.zrangeByScore(bkey, min, max);
+			closeIfNoCurrentJedis(jedis);
+		}
+		if(null == bset || bset.isEmpty())
+			return null;
+		else {
+			ss = new ArrayList<T>(bset.size());
+		}
+		for(Iterator<byte[]> it = bset.iterator(); it.hasNext();) {
+			byte[] bs = it.next();
+			T o = decodeValue(bs, type);
+			ss.add(o);
+		}
+		return ss;
+	}
+
+	@Override
+	public List<String> getStringSortedObjectSetMemberByScore(String key, long min, long max) {
+		assertKey(key);
+		Set<String> bset;
+		if(batching()) {
+			bset = batcher.execute(p -> p.zrangeByScore(key, min, max));
+		} else {
+			Jedis jedis = getJedis();
+			bset = jedis.zrangeByScore(key, min, max);
+			closeIfNoCurrentJedis(jedis);
+		}
+		if(null == bset || bset.isEmpty())
+			return null;
+		return new ArrayList<String>(bset);
+	}
+
+	@Override
+	public <T> Long getSortedObjectSetMemberRank(String key, T member) {
+		assertKey(key);
+		Long rank;
+		byte[] bkey = key.getBytes();
+		byte[] bMember = serialize(member);
+		if(batching()) {
+			rank = batcher.execute(p -> p.zrank(bkey, bMember));
+		} else {
+			Jedis jedis = getJedis();
+			rank = jedis.zrank(bkey, bMember);
+			closeIfNoCurrentJedis(jedis);
+		}
+		return rank;
+	}
+
+	@Override
+	public Long getStringSortedObjectSetMemberRank(String key, String member) {
+		assertKey(key);
+		Long rank;
+		if(batching()) {
+			rank = batcher.execute(p -> p.zrank(key, member));
+		} else {
+			Jedis jedis = getJedis();
+			rank = jedis.zrank(key, member);
+			closeIfNoCurrentJedis(jedis);
+		}
+		return rank;
+	}
+
+	@Override
+	public <T> Long getReverseSortedObjectSetMemberRank(String key, T member) {
+		assertKey(key);
+		Long rank;
+		byte[] bkey = key.getBytes();
+		byte[] bMember = serialize(member);
+		if(batching()) {
+			rank = batcher.execute(p -> p.zrevrank(bkey, bMember));
+		} else {
+			Jedis jedis = getJedis();
+			rank = jedis.zrevrank(bkey, bMember);
+			closeIfNoCurrentJedis(jedis);
+		}
+		return rank;
+	}
+
+	@Override
+	public Long getReverseStringSortedObjectSetMemberRank(String key, String member) {
+		assertKey(key);
+		Long rank;
+		if(batching()) {
+			rank = batcher.execute(p -> p.zrevrank(key, member));
+		} else {
+			Jedis jedis = getJedis();
+			rank = jedis.zrevrank(key, member);
+			closeIfNoCurrentJedis(jedis);
+		}
+		return rank;
+	}
+
+	@Override
+	public <T> Long getSortedObjectSetMemberScore(String key, T member) {
+		assertKey(key);
+		Double score;
+		byte[] bkey = key.getBytes();
+		byte[] bMember = serialize(member);
+		if(batching()) {
+			score = batcher.execute(p -> p.zscore(bkey, bMember));
+		} else {
+			Jedis jedis = getJedis();
+			score = jedis.zscore(bkey, bMember);
+			closeIfNoCurrentJedis(jedis);
+		}
+		return null == score ? null : Long.valueOf((long) Math.floor(score));
+	}
+
+	@Override
+	public Long getStringSortedObjectSetMemberScore(String key, String member) {
+		assertKey(key);
+		Double score;
+		if(batching()) {
+			score = batcher.execute(p -> p.zscore(key, member));
+		} else {
+			Jedis jedis = getJedis();
+			score = jedis.zscore(key, member);
+			closeIfNoCurrentJedis(jedis);
+		}
+		return null == score ? null : Long.valueOf((long) Math.floor(score));
+	}
+
 	@Override
 	public <T> List<T> getSortedObjectSetMember(String key, long start, long end, Class<T> type) {
 		assertKey(key);
 		List<T> ss = null;
-		Jedis jedis = getJedis();
-		Set<byte[]> bset = jedis.zrange(key.getBytes(), start, end == -1 ? -1 : end - 1);
-		closeIfNoCurrentJedis(jedis);
+		Set<byte[]> bset;
+		byte[] bkey = key.getBytes();
+		if(batching()) {
+			bset = batcher.execute(p -> p.zrange(bkey, start, end == -1 ? -1 : end - 1));
+		} else {
+			Jedis jedis = getJedis();
+			bset = jedis.zrange(bkey, start, end == -1 ? -1 : end - 1);
+			closeIfNoCurrentJedis(jedis);
+		}
 		if(null == bset || bset.isEmpty())
 			return null;
 		else {
@@ -1255,7 +2018,7 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		}
 		for(Iterator<byte[]> it = bset.iterator(); it.hasNext();) {
 			byte[] bs = it.next();
-			T o = SerializeUtil.deserialize(bs, type);
+			T o = decodeValue(bs, type);
 			ss.add(o);
 		}
 		return ss;
@@ -1265,9 +2028,15 @@ public class JedisHelperImpl implements JedisCacheHelper {
 			long end, Class<T> type) {
 		assertKey(key);
 		List<T> ss = null;
-		Jedis jedis = getJedis();
-		Set<byte[]> bset = jedis.zrevrange(key.getBytes(), start, end == -1 ? -1 : end - 1);
-		closeIfNoCurrentJedis(jedis);
+		Set<byte[]> bset;
+		byte[] bkey = key.getBytes();
+		if(batching()) {
+			bset = batcher.execute(p -> p.zrevrange(bkey, start, end == -1 ? -1 : end - 1));
+		} else {
+			Jedis jedis = getJedis();
+			bset = jedis.zrevrange(bkey, start, end == -1 ? -1 : end - 1);
+			closeIfNoCurrentJedis(jedis);
+		}
 		if(null == bset || bset.isEmpty())
 			return null;
 		else {
@@ -1275,7 +2044,7 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		}
 		for(Iterator<byte[]> it = bset.iterator(); it.hasNext();) {
 			byte[] bs = it.next();
-			T o = SerializeUtil.deserialize(bs, type);
+			T o = decodeValue(bs, type);
 			ss.add(o);
 		}
 		return ss;
@@ -1287,9 +2056,14 @@ public class JedisHelperImpl implements JedisCacheHelper {
 			long end) {
 		assertKey(key);
 		List<String> ss = null;
-		Jedis jedis = getJedis();
-		Set<String> bset = jedis.zrange(key, start, end == -1 ? -1 : end - 1);
-		closeIfNoCurrentJedis(jedis);
+		Set<String> bset;
+		if(batching()) {
+			bset = batcher.execute(p -> p.zrange(key, start, end == -1 ? -1 : end - 1));
+		} else {
+			Jedis jedis = getJedis();
+			bset = jedis.zrange(key, start, end == -1 ? -1 : end - 1);
+			closeIfNoCurrentJedis(jedis);
+		}
 		if(null == bset || bset.isEmpty())
 			return null;
 		else {
@@ -1306,9 +2080,14 @@ public class JedisHelperImpl implements JedisCacheHelper {
 			long start, long end) {
 		assertKey(key);
 		List<String> ss = null;
-		Jedis jedis = getJedis();
-		Set<String> bset = jedis.zrevrange(key, start, end == -1 ? -1 : end - 1);
-		closeIfNoCurrentJedis(jedis);
+		Set<String> bset;
+		if(batching()) {
+			bset = batcher.execute(p -> p.zrevrange(key, start, end == -1 ? -1 : end - 1));
+		} else {
+			Jedis jedis = getJedis();
+			bset = jedis.zrevrange(key, start, end == -1 ? -1 : end - 1);
+			closeIfNoCurrentJedis(jedis);
+		}
 		if(null == bset || bset.isEmpty())
 			return null;
 		else {
@@ -1323,9 +2102,14 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	@Override
 	public long getSortedSetSize(String key) {
 		assertKey(key);
-		Jedis jedis = getJedis();
-		long size = jedis.zcard(key);
-		closeIfNoCurrentJedis(jedis);
+		long size;
+		if(batching()) {
+			size = batcher.execute(p -> p.zcard(key));
+		} else {
+			Jedis jedis = getJedis();
+			size = jedis.zcard(key);
+			closeIfNoCurrentJedis(jedis);
+		}
 		return size;
 	}
 
@@ -1339,6 +2123,16 @@ public class JedisHelperImpl implements JedisCacheHelper {
 	@Override
 	public void info() {
 		logger.info("当前Jedis资源池信息, 空闲连接数:{}, 活动连接数:{}", pool.getNumIdle(), pool.getNumActive());
+		if(null != batcher)
+			logger.info("自动批量信息, 命令数:{}, 批次数:{}, 连接错误数:{}", batcher.getCommands(), batcher.getBatches(), batcher.getConnectionErrors());
+		if(null != compressor)
+			logger.info("压缩信息:{}", compressor.info());
+		logger.info("统计信息:{}", metrics.info());
+	}
+
+	@Override
+	public CacheMetrics getMetrics() {
+		return metrics;
 	}
 
 
@@ -1348,9 +2142,13 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		if(null != currentTransaction.get()) {
 			currentTransaction.get().incrBy(key, value);
 		} else {
-			Jedis jedis = getJedis();
-			jedis.incrBy(key, value);
-			closeIfNoCurrentJedis(jedis);
+			if(batching()) {
+				batcher.execute(p -> p.incrBy(key, value));
+			} else {
+				Jedis jedis = getJedis();
+				jedis.incrBy(key, value);
+				closeIfNoCurrentJedis(jedis);
+			}
 		}
 	}
 
@@ -1362,9 +2160,13 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		if(null != currentTransaction.get()) {
 			currentTransaction.get().hincrBy(key, field, value);
 		} else {
-			Jedis jedis = getJedis();
-			jedis.hincrBy(key, field, value);
-			closeIfNoCurrentJedis(jedis);
+			if(batching()) {
+				batcher.execute(p -> p.hincrBy(key, field, value));
+			} else {
+				Jedis jedis = getJedis();
+				jedis.hincrBy(key, field, value);
+				closeIfNoCurrentJedis(jedis);
+			}
 		}
 	}
 
@@ -1374,19 +2176,61 @@ public class JedisHelperImpl implements JedisCacheHelper {
 		if(null != currentTransaction.get()) {
 			currentTransaction.get().expire(key, sec);
 		} else {
-			Jedis jedis = getJedis();
-			jedis.expire(key, sec);
-			closeIfNoCurrentJedis(jedis);
+			if(batching()) {
+				batcher.execute(p -> p.expire(key, sec));
+			} else {
+				Jedis jedis = getJedis();
+				jedis.expire(key, sec);
+				closeIfNoCurrentJedis(jedis);
+			}
 		}
 	}
 
 
+	/**
+	 * 使用SCAN逐批取出，不会像KEYS命令一样在遍历整个数据库期间阻塞Redis
+	 */
 	@Override
 	public Set<String> keys(String pattern) {
-		Jedis jedis = getJedis();
-		Set<String> keys = jedis.keys(pattern);
-		closeIfNoCurrentJedis(jedis);
-		return null == keys ? new HashSet<String>() : keys;
+		Set<String> keys = new HashSet<String>();
+		for(Iterator<String> it = scan(pattern, KEYS_SCAN_COUNT); it.hasNext();) {
+			keys.add(it.next());
+		}
+		return keys;
+	}
+
+	@Override
+	public Iterator<String> scan(String pattern, int batchSize) {
+		if(batchSize <= 0)
+			throw new IllegalArgumentException("batchSize must be greater than 0");
+		ScanParams params = new ScanParams().count(batchSize);
+		if(null != pattern)
+			params.match(pattern);
+		return new Iterator<String>() {
+			private String cursor = ScanParams.SCAN_POINTER_START;
+			private Iterator<String> batch = Collections.<String>emptyList().iterator();
+			private boolean finished;
+
+			@Override
+			public boolean hasNext() {
+				while(!batch.hasNext() && !finished) {
+					Jedis jedis = getJedis();
+					ScanResult<String> result = jedis.scan(cursor, params);
+					closeIfNoCurrentJedis(jedis);
+					cursor = result.getStringCursor();
+					finished = ScanParams.SCAN_POINTER_START.equals(cursor);
+					batch = result.getResult().iterator();
+				}
+				return batch.hasNext();
+			}
+
+			@Override
+			public String next() {
+				if(!hasNext())
+					throw new NoSuchElementException();
+				return batch.next();
+			}
+		};
 	}
 	
 	
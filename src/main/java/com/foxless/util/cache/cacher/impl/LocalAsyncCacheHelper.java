@@ -0,0 +1,411 @@
+package com.foxless.util.cache.cacher.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import com.foxless.util.cache.cacher.AsyncCacheHelper;
+import com.foxless.util.cache.cacher.LocalCacheHelper;
+
+/**
+ * 基于本地缓存的{@link AsyncCacheHelper}。<br>
+ * 本地缓存的操作只访问内存，在调用线程中直接执行并返回已完成的future，不切换线程，
+ * 可以和{@link JedisAsyncCacheHelper}使用同一套异步代码。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+@SuppressWarnings("unchecked")
+public class LocalAsyncCacheHelper implements AsyncCacheHelper {
+
+    private final LocalCacheHelper local;
+
+    public LocalAsyncCacheHelper(LocalCacheHelper local) {
+        if (null == local)
+            throw new IllegalArgumentException("LocalCacheHelper cannot be null!");
+        this.local = local;
+    }
+
+    private static CompletableFuture<Void> run(Runnable action) {
+        CompletableFuture<Void> future = new CompletableFuture<Void>();
+        try {
+            action.run();
+            future.complete(null);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static <T> CompletableFuture<T> call(Supplier<T> action) {
+        CompletableFuture<T> future = new CompletableFuture<T>();
+        try {
+            future.complete(action.get());
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Void> exKey(String key, int sec) {
+        return run(() -> local.exKey(key, sec));
+    }
+
+    @Override
+    public CompletableFuture<Void> set(String key, String value) {
+        return run(() -> local.set(key, value));
+    }
+
+    @Override
+    public CompletableFuture<String> get(String key) {
+        return call(() -> local.get(key));
+    }
+
+    @Override
+    public CompletableFuture<List<String>> mget(String... keys) {
+        return call(() -> local.mget(keys));
+    }
+
+    @Override
+    public CompletableFuture<String> hget(String key, String field) {
+        return call(() -> local.hget(key, field));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> hmget(String key, String... field) {
+        return call(() -> local.hmget(key, field));
+    }
+
+    @Override
+    public CompletableFuture<Void> hset(String key, String field, String value) {
+        return run(() -> local.hset(key, field, value));
+    }
+
+    @Override
+    public CompletableFuture<Void> setEX(String key, String value, int sec) {
+        return run(() -> local.setEX(key, value, sec));
+    }
+
+    @Override
+    public CompletableFuture<Void> setObjectEX(String key, Object value, int second) {
+        return run(() -> local.setObjectEX(key, value, second));
+    }
+
+    @Override
+    public CompletableFuture<Void> setMap(String key, Map<?, ?> map) {
+        return run(() -> local.setMap(key, map));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getMapValue(String mapKey, Object fieldKey, Class<T> type) {
+        return call(() -> local.getMapValue(mapKey, fieldKey, type));
+    }
+
+    @Override
+    public CompletableFuture<Void> appendMapItem(String mapKey, Object fieldKey, Object value) {
+        return run(() -> local.appendMapItem(mapKey, fieldKey, value));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> getMapValues(String mapKey, Class<T> type) {
+        return call(() -> local.getMapValues(mapKey, type));
+    }
+
+    @Override
+    public <T, K> CompletableFuture<Map<K, T>> getMultiMapValues(String mapKey, Class<T> type, K... keys) {
+        return call(() -> local.getMultiMapValues(mapKey, type, keys));
+    }
+
+    @Override
+    public CompletableFuture<Void> setObject(String key, Object obj) {
+        return run(() -> local.setObject(key, obj));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getObject(String key, Class<T> type) {
+        return call(() -> local.getObject(key, type));
+    }
+
+    @Override
+    public CompletableFuture<Void> setStringList(String key, List<String> list) {
+        return run(() -> local.setStringList(key, list));
+    }
+
+    @Override
+    public CompletableFuture<Void> appendStringListItem(String key, boolean tail, String... strings) {
+        return run(() -> local.appendStringListItem(key, tail, strings));
+    }
+
+    @Override
+    public CompletableFuture<String> getStringListItem(String key, int index) {
+        return call(() -> local.getStringListItem(key, index));
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getStringListItems(String key, int start, int end) {
+        return call(() -> local.getStringListItems(key, start, end));
+    }
+
+    @Override
+    public CompletableFuture<Void> setObjectList(String key, List<?> list) {
+        return run(() -> local.setObjectList(key, list));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getObjectListItem(String key, int index, Class<T> type) {
+        return call(() -> local.getObjectListItem(key, index, type));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> getObjectListItems(String key, int start, int end, Class<T> type) {
+        return call(() -> local.getObjectListItems(key, start, end, type));
+    }
+
+    @Override
+    public CompletableFuture<Void> appendObjectListItem(String key, boolean tail, Object... items) {
+        return run(() -> local.appendObjectListItem(key, tail, items));
+    }
+
+    @Override
+    public CompletableFuture<Void> trimList(String key, int start, int end) {
+        return run(() -> local.trimList(key, start, end));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeRepeatStringListItem(String key, int count, String value) {
+        return run(() -> local.removeRepeatStringListItem(key, count, value));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeRepeatObjectListItem(String key, int count, Object value) {
+        return run(() -> local.removeRepeatObjectListItem(key, count, value));
+    }
+
+    @Override
+    public CompletableFuture<Long> getListLength(String key) {
+        return call(() -> local.getListLength(key));
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> setObjectSet(String key, Set<T> sets) {
+        return run(() -> local.setObjectSet(key, sets));
+    }
+
+    @Override
+    public <T> CompletableFuture<Set<T>> getObjectSetAll(String key, Class<T> type) {
+        return call(() -> local.getObjectSetAll(key, type));
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> appendObjectSetMember(String key, T... objects) {
+        return run(() -> local.appendObjectSetMember(key, objects));
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> removeObjectSetMember(String key, T... objects) {
+        return run(() -> local.removeObjectSetMember(key, objects));
+    }
+
+    @Override
+    public <T> CompletableFuture<Set<T>> getInterObjectSet(Class<T> type, byte[]... keys) {
+        return call(() -> local.getInterObjectSet(type, keys));
+    }
+
+    @Override
+    public <T> CompletableFuture<Set<T>> getDiffObjectSet(Class<T> type, byte[]... keys) {
+        return call(() -> local.getDiffObjectSet(type, keys));
+    }
+
+    @Override
+    public <T> CompletableFuture<Set<T>> getUnionObjectSet(Class<T> type, byte[]... keys) {
+        return call(() -> local.getUnionObjectSet(type, keys));
+    }
+
+    @Override
+    public CompletableFuture<Integer> moveObjectSetMember(byte[] source, byte[] dest, Object member) {
+        return call(() -> local.moveObjectSetMember(source, dest, member));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isObjectSetMember(byte[] key, Object member) {
+        return call(() -> local.isObjectSetMember(key, member));
+    }
+
+    @Override
+    public CompletableFuture<Void> setStringSet(String key, Set<String> sets) {
+        return run(() -> local.setStringSet(key, sets));
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> getStringSetAll(String key) {
+        return call(() -> local.getStringSetAll(key));
+    }
+
+    @Override
+    public CompletableFuture<Void> appendStringSetMember(String key, String... strings) {
+        return run(() -> local.appendStringSetMember(key, strings));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeStringSetMember(String key, String... strings) {
+        return run(() -> local.removeStringSetMember(key, strings));
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> setSortedObjectSet(String key, Map<Long, T> set) {
+        return run(() -> local.setSortedObjectSet(key, set));
+    }
+
+    @Override
+    public CompletableFuture<Void> setStringSortedObjectSet(String key, Map<Long, String> set) {
+        return run(() -> local.setStringSortedObjectSet(key, set));
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> appendSortedObjectSetMember(String key, Map<Long, T> set) {
+        return run(() -> local.appendSortedObjectSetMember(key, set));
+    }
+
+    @Override
+    public CompletableFuture<Void> appendStringSortedObjectSetMember(String key, Map<Long, String> set) {
+        return run(() -> local.appendStringSortedObjectSetMember(key, set));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> getSortedObjectSetMember(String key, long start, long end, Class<T> type) {
+        return call(() -> local.getSortedObjectSetMember(key, start, end, type));
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getStringSortedObjectSetMember(String key, long start, long end) {
+        return call(() -> local.getStringSortedObjectSetMember(key, start, end));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> getReverseSortedObjectSetMember(String key, long start, long end, Class<T> type) {
+        return call(() -> local.getReverseSortedObjectSetMember(key, start, end, type));
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getReverseStringSortedObjectSetMember(String key, long start, long end) {
+        return call(() -> local.getReverseStringSortedObjectSetMember(key, start, end));
+    }
+
+    @Override
+    public CompletableFuture<Long> getSortedSetSize(String key) {
+        return call(() -> local.getSortedSetSize(key));
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> removeSortedObjectSetMember(String key, T... members) {
+        return run(() -> local.removeSortedObjectSetMember(key, members));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeStringSortedObjectSetMember(String key, String... members) {
+        return run(() -> local.removeStringSortedObjectSetMember(key, members));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeSortedObjectSetMember(String key, long start, long end) {
+        return run(() -> local.removeSortedObjectSetMember(key, start, end));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeStringSortedObjectSetMember(String key, long start, long end) {
+        return run(() -> local.removeStringSortedObjectSetMember(key, start, end));
+    }
+
+    @Override
+    public <T> CompletableFuture<Long> increSortedObjectSetMemberScore(String key, T member, long incr) {
+        return call(() -> local.increSortedObjectSetMemberScore(key, member, incr));
+    }
+
+    @Override
+    public CompletableFuture<Long> increStringSortedObjectSetMemberScore(String key, String member, long incr) {
+        return call(() -> local.increStringSortedObjectSetMemberScore(key, member, incr));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> getSortedObjectSetMemberByScore(String key, long min, long max, Class<T> type) {
+        return call(() -> local.getSortedObjectSetMemberByScore(key, min, max, type));
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getStringSortedObjectSetMemberByScore(String key, long min, long max) {
+        return call(() -> local.getStringSortedObjectSetMemberByScore(key, min, max));
+    }
+
+    @Override
+    public <T> CompletableFuture<Long> getSortedObjectSetMemberRank(String key, T member) {
+        return call(() -> local.getSortedObjectSetMemberRank(key, member));
+    }
+
+    @Override
+    public CompletableFuture<Long> getStringSortedObjectSetMemberRank(String key, String member) {
+        return call(() -> local.getStringSortedObjectSetMemberRank(key, member));
+    }
+
+    @Override
+    public <T> CompletableFuture<Long> getReverseSortedObjectSetMemberRank(String key, T member) {
+        return call(() -> local.getReverseSortedObjectSetMemberRank(key, member));
+    }
+
+    @Override
+    public CompletableFuture<Long> getReverseStringSortedObjectSetMemberRank(String key, String member) {
+        return call(() -> local.getReverseStringSortedObjectSetMemberRank(key, member));
+    }
+
+    @Override
+    public <T> CompletableFuture<Long> getSortedObjectSetMemberScore(String key, T member) {
+        return call(() -> local.getSortedObjectSetMemberScore(key, member));
+    }
+
+    @Override
+    public CompletableFuture<Long> getStringSortedObjectSetMemberScore(String key, String member) {
+        return call(() -> local.getStringSortedObjectSetMemberScore(key, member));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> existsKey(String key) {
+        return call(() -> local.existsKey(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> getSetSize(String key) {
+        return call(() -> local.getSetSize(key));
+    }
+
+    @Override
+    public CompletableFuture<Void> del(String key) {
+        return run(() -> local.del(key));
+    }
+
+    @Override
+    public CompletableFuture<Void> hdel(String key, String field) {
+        return run(() -> local.hdel(key, field));
+    }
+
+    @Override
+    public CompletableFuture<Void> hdel(String key, Object field) {
+        return run(() -> local.hdel(key, field));
+    }
+
+    @Override
+    public CompletableFuture<Void> incr(String key, Long value) {
+        return run(() -> local.incr(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Void> hincr(String key, String field, Long value) {
+        return run(() -> local.hincr(key, field, value));
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> keys(String pattern) {
+        return call(() -> local.keys(pattern));
+    }
+}
@@ -1,7 +1,14 @@
 package com.foxless.util.cache.cacher.impl;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -9,21 +16,55 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.SortedSet;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 import com.foxless.util.cache.SerializeUtil;
+import com.foxless.util.cache.bean.LocalCacheConfigBean;
 import com.foxless.util.cache.cacher.LocalCacheHelper;
+import com.foxless.util.cache.cacher.RefreshAhead;
+import com.foxless.util.cache.codec.Codecs;
+import com.foxless.util.cache.metrics.CacheMetrics;
+import com.foxless.util.cache.metrics.OperationMetrics;
+import com.foxless.util.cache.offheap.OffHeapByteList;
+import com.foxless.util.cache.offheap.OffHeapByteSet;
+import com.foxless.util.cache.offheap.OffHeapValue;
+import com.foxless.util.cache.offheap.SlabAllocator;
+import com.foxless.util.cache.persist.JournalOp;
+import com.foxless.util.cache.persist.JournalRecord;
+import com.foxless.util.cache.persist.LocalCacheJournal;
+import com.foxless.util.cache.persist.LocalCacheSnapshot;
+import com.foxless.util.cache.util.ByteArrayHashSet;
+import com.foxless.util.cache.util.ByteSet;
+import com.foxless.util.cache.util.FieldKey;
+import com.foxless.util.cache.util.GlobMatcher;
+import com.foxless.util.cache.util.IndexedSkipList;
 import com.foxless.util.cache.util.Md5Util;
+import com.foxless.util.cache.util.RadixKeyIndex;
+import com.foxless.util.cache.util.TimingWheel;
+import com.foxless.util.cache.util.TimingWheel.Timeout;
+import com.foxless.util.cache.util.WTinyLfuPolicy;
 import com.foxless.util.cache.bean.SortedSetBean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * 仿照Jedis缓存的本地内存中实现
+ * 仿照Jedis缓存的本地内存中实现<br>
+ * 所有的键空间均使用ConcurrentHashMap存储，单个key的读取不加锁，不同key的写入互不竞争；<br>
+ * 对同一个值内部的修改（如List追加、Set添加、Hash字段设置）以该值对象本身作为锁，保证单值内的原子性。<br>
+ * 通过{@link LocalCacheConfigBean}设置最大key数量或最大权重后，超出容量时按W-TinyLFU策略淘汰key，
+ * 权重按值占用的字节估算，其中对象List和对象Set按其序列化后的byte[]长度计算。<br>
+ * 设置了maxOffHeapBytes时，对象List和对象Set序列化后的数据存放在堆外slab中，堆上只保留key和handle，
+ * 值被删除、过期、淘汰或覆盖时立即归还堆外内存。<br>
+ * 可以把全部数据（含过期时间）写入快照文件，重启后映射快照文件，只读取索引，
+ * 每个key在首次访问时才解码，其余key由后台线程逐步加载。<br>
+ * 设置了journalPath时，每个写操作在修改该值的同一个锁内把记录放入写日志队列，由后台线程写入磁盘，
+ * 同一个key上的修改在日志中的顺序与实际执行的顺序一致；过期和淘汰不记录，重放时按过期时间点和容量重新处理。
  * @author Hetianyi 2017/12/30
  * @version 1.0
  */
@@ -38,31 +79,185 @@ public class LocalCacheHelperImpl implements LocalCacheHelper {
     /**
      * 存放对象的K-V容器
      */
-    private Map<String, Object> ObjectKVData =
-            Collections.synchronizedMap(new HashMap<String, Object>());
-    ;
+    private final Map<String, Object> ObjectKVData = new ConcurrentHashMap<String, Object>();
     /**
-     * 存放Hash结构的K-V容器
+     * 存放Hash结构的K-V容器，Hash结构本身也是ConcurrentHashMap
      */
-    private Map<String, Map<Object, Object>> hashData =
-            Collections.synchronizedMap(new HashMap<String, Map<Object, Object>>());
+    private final Map<String, Map<Object, Object>> hashData =
+            new ConcurrentHashMap<String, Map<Object, Object>>();
     /**
-     * 记录需要过期的键和过期时间
+     * 记录需要过期的键和对应的时间轮过期任务
      */
-    private Map<String, Long> expiredKeyMap =
-            Collections.synchronizedMap(new HashMap<String, Long>());
+    private final Map<String, Timeout<String>> expiredKeyMap = new ConcurrentHashMap<String, Timeout<String>>();
+    /**
+     * 时间轮tick的毫秒数
+     */
+    private static final long EXPIRE_TICK_MILLIS = 100;
+    /**
+     * 每个过期处理时间片的最大毫秒数
+     */
+    private static final long EXPIRE_SLICE_MILLIS = 2;
+    /**
+     * 无法按字节估算的对象的权重
+     */
+    private static final long OBJECT_WEIGHT = 16;
+    /**
+     * 过期key调度的时间轮
+     */
+    private final TimingWheel<String> expireWheel =
+            new TimingWheel<String>(EXPIRE_TICK_MILLIS, EXPIRE_SLICE_MILLIS, this::expire);
+    /**
+     * 淘汰策略，未限制容量时为null
+     */
+    private final WTinyLfuPolicy<String> evictionPolicy;
+    /**
+     * 堆外内存分配器，未启用堆外存储时为null
+     */
+    private final SlabAllocator offHeapAllocator;
+    /**
+     * 从快照恢复、尚未加载的数据，没有待加载的key时为null
+     */
+    private volatile PendingSnapshot pendingSnapshot;
+    /**
+     * 写日志，未启用时为null；恢复完成后才设置，重放时的修改不会再次记录
+     */
+    private volatile LocalCacheJournal journal;
+    /**
+     * key的前缀索引，未启用时为null
+     */
+    private final RadixKeyIndex keyIndex;
+    /**
+     * getOrLoad的提前刷新，未开启时为null
+     */
+    private final RefreshAhead refreshAhead;
+    /**
+     * 恢复了旧版本写入的快照或日志段（由文件头和日志段的格式记录标明），其中的对象field以md5保存，
+     * 对象field查找不到时再按md5查找；写出的快照也带上该标志
+     */
+    private volatile boolean legacyFieldKeys;
+    /**
+     * 统计信息
+     */
+    private final CacheMetrics metrics = new CacheMetrics();
+    /**
+     * 按key读取值（String、对象、List、Set、SortedSet）和读取Hash结构的命中情况
+     */
+    private final OperationMetrics valueReads = metrics.operation("value", true);
+    private final OperationMetrics hashReads = metrics.operation("hash", true);
+
+    /**
+     * 已映射的快照文件和其中尚未加载的key
+     */
+    private static final class PendingSnapshot {
+        private final LocalCacheSnapshot.Reader reader;
+        private final Map<String, LocalCacheSnapshot.Entry> index;
+
+        PendingSnapshot(LocalCacheSnapshot.Reader reader, Map<String, LocalCacheSnapshot.Entry> index) {
+            this.reader = reader;
+            this.index = index;
+        }
+    }
 
-    private LocalCacheHelperImpl() {
-        Timer timer = new Timer();
-        timer.scheduleAtFixedRate(new CleanKeyTask(), 0, 10000);
+    /**
+     * 从快照恢复时按当前的存储方式创建容器
+     */
+    private final LocalCacheSnapshot.ValueFactory snapshotValueFactory = new LocalCacheSnapshot.ValueFactory() {
+        @Override
+        public List<byte[]> newObjectList(int size) {
+            return LocalCacheHelperImpl.this.newObjectList(size);
+        }
+
+        @Override
+        public ByteSet newObjectSet(int size) {
+            return LocalCacheHelperImpl.this.newObjectSet(size);
+        }
+
+        @Override
+        public IndexedSkipList<Object> newSortedSet() {
+            return LocalCacheHelperImpl.newSortedSet();
+        }
+
+        @Override
+        public Object memberKey(Object member) {
+            return LocalCacheHelperImpl.memberKey(member);
+        }
+    };
+
+    /**
+     * 创建一个独立的本地缓存实例，localCacheConfigBean为null时不限制容量
+     */
+    public LocalCacheHelperImpl(LocalCacheConfigBean localCacheConfigBean) {
+        if (null != localCacheConfigBean
+                && (localCacheConfigBean.getMaxEntries() > 0 || localCacheConfigBean.getMaxWeight() > 0)) {
+            logger.debug("local.cache.maxEntries = {}", localCacheConfigBean.getMaxEntries());
+            logger.debug("local.cache.maxWeight = {}", localCacheConfigBean.getMaxWeight());
+            evictionPolicy = new WTinyLfuPolicy<String>(localCacheConfigBean.getMaxEntries(),
+                    localCacheConfigBean.getMaxWeight(), this::evict);
+        } else {
+            evictionPolicy = null;
+        }
+        if (null != localCacheConfigBean && localCacheConfigBean.getMaxOffHeapBytes() > 0) {
+            logger.debug("local.cache.maxOffHeapBytes = {}", localCacheConfigBean.getMaxOffHeapBytes());
+            logger.debug("local.cache.offHeapSlabSize = {}", localCacheConfigBean.getOffHeapSlabSize());
+            offHeapAllocator = new SlabAllocator(localCacheConfigBean.getMaxOffHeapBytes(),
+                    localCacheConfigBean.getOffHeapSlabSize());
+        } else {
+            offHeapAllocator = null;
+        }
+        if (null != localCacheConfigBean && localCacheConfigBean.isKeyIndexEnabled()) {
+            logger.debug("local.cache.keyIndexEnabled = true");
+            keyIndex = new RadixKeyIndex();
+        } else {
+            keyIndex = null;
+        }
+        if (null != localCacheConfigBean && localCacheConfigBean.getRefreshAheadBeta() > 0) {
+            logger.debug("local.cache.refreshAheadBeta = {}", localCacheConfigBean.getRefreshAheadBeta());
+            refreshAhead = new RefreshAhead(localCacheConfigBean.getRefreshAheadBeta(),
+                    localCacheConfigBean.getRefreshAheadThreads(), metrics);
+        } else {
+            refreshAhead = null;
+        }
+        expireWheel.start("cache-helper-expire");
+        registerGauges();
+        if (null != localCacheConfigBean && null != localCacheConfigBean.getJournalPath()) {
+            logger.debug("local.cache.journalPath = {}", localCacheConfigBean.getJournalPath());
+            logger.debug("local.cache.journalFsyncMillis = {}", localCacheConfigBean.getJournalFsyncMillis());
+            if (null != localCacheConfigBean.getSnapshotPath())
+                logger.warn("local.cache.snapshotPath is ignored when the journal is enabled.");
+            LocalCacheJournal localCacheJournal = new LocalCacheJournal(new File(localCacheConfigBean.getJournalPath()),
+                    localCacheConfigBean.getJournalFsyncMillis(), localCacheConfigBean.getJournalBufferSize(),
+                    localCacheConfigBean.getJournalSegmentBytes(), localCacheConfigBean.getJournalCompactBytes(),
+                    () -> new LocalCacheHelperImpl(null).replica());
+            localCacheJournal.recover(replica());
+            journal = localCacheJournal;
+            Runtime.getRuntime().addShutdownHook(new Thread(localCacheJournal::close, "cache-helper-journal-close"));
+        } else if (null != localCacheConfigBean && null != localCacheConfigBean.getSnapshotPath()) {
+            final String snapshotPath = localCacheConfigBean.getSnapshotPath();
+            logger.debug("local.cache.snapshotPath = {}", snapshotPath);
+            try {
+                restore(snapshotPath);
+            } catch (RuntimeException e) {
+                logger.error("Failed to restore local cache from snapshot " + snapshotPath + ", starting empty.", e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> snapshot(snapshotPath), "cache-helper-snapshot"));
+        }
     }
 
     /**
      * 获取单例的LocalCacheHelper
      */
-    public static synchronized LocalCacheHelper getInstance() {
+    public static LocalCacheHelper getInstance() {
+        return getInstance(null);
+    }
+
+    /**
+     * 获取单例的LocalCacheHelper，配置只在第一次创建时生效
+     */
+    public static synchronized LocalCacheHelper getInstance(LocalCacheConfigBean localCacheConfigBean) {
         if (null == localCacheHelper) {
-            localCacheHelper = new LocalCacheHelperImpl();
+            localCacheHelper = new LocalCacheHelperImpl(localCacheConfigBean);
+        } else if (null != localCacheConfigBean) {
+            logger.warn("LocalCacheHelper has already been created, the config is ignored.");
         }
         return localCacheHelper;
     }
@@ -87,17 +282,290 @@ public class LocalCacheHelperImpl implements LocalCacheHelper {
     }
 
     /**
-     * 比较两个字节数组是否相等
+     * 估算值占用的字节数作为淘汰权重
+     */
+    private static long weigh(Object value) {
+        if (null == value)
+            return 0;
+        if (value instanceof byte[])
+            return ((byte[]) value).length;
+        if (value instanceof String)
+            return ((String) value).length();
+        if (value instanceof FieldKey)
+            return OBJECT_WEIGHT + ((FieldKey) value).length();
+        if (value instanceof ByteSet)
+            return ((ByteSet) value).bytes();
+        if (value instanceof OffHeapValue)
+            return ((OffHeapValue) value).bytes();
+        if (value instanceof IndexedSkipList) {
+            IndexedSkipList<?> members = (IndexedSkipList<?>) value;
+            return 8 * members.size() + members.weight();
+        }
+        if (value instanceof Collection) {
+            long weight = 0;
+            for (Object o : (Collection<?>) value)
+                weight += weigh(o);
+            return weight;
+        }
+        if (value instanceof Map) {
+            long weight = 0;
+            for (Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+                weight += weigh(entry.getKey()) + weigh(entry.getValue());
+            return weight;
+        }
+        return OBJECT_WEIGHT;
+    }
+
+    private void recordAccess(String key) {
+        if (null != evictionPolicy)
+            evictionPolicy.recordAccess(key);
+    }
+
+    private void recordWrite(String key, Object value) {
+        if (null != evictionPolicy)
+            evictionPolicy.recordWrite(key, weigh(value));
+    }
+
+    private void recordWeightChange(String key, long delta) {
+        if (null != evictionPolicy)
+            evictionPolicy.recordWeightChange(key, delta);
+    }
+
+    private void recordRemove(String key) {
+        if (null != evictionPolicy)
+            evictionPolicy.recordRemove(key);
+    }
+
+    /**
+     * K-V或Hash中新增key之后调用。在索引的锁内按key当前是否存在更新索引，
+     * 与并发的删除无论谁先执行，最后一次更新都与容器的状态一致
+     */
+    private void indexAdd(String key) {
+        if (null == keyIndex)
+            return;
+        synchronized (keyIndex) {
+            if (ObjectKVData.containsKey(key) || hashData.containsKey(key))
+                keyIndex.add(key);
+        }
+    }
+
+    /**
+     * 从K-V或Hash中删除key之后调用，key仍然存在（同名的另一种结构或并发写入）时保留索引
      */
-    private boolean byteEqual(byte[] a, byte[] b) {
-        if (null == a && null == b) return true;
-        if (null == a && null != b) return false;
-        if (null == b && null != a) return false;
-        if (a.length != b.length) return false;
-        for (int i = 0; i < a.length; i++) {
-            if (a[i] != b[i]) return false;
+    private void indexRemove(String key) {
+        if (null == keyIndex)
+            return;
+        synchronized (keyIndex) {
+            if (!ObjectKVData.containsKey(key) && !hashData.containsKey(key))
+                keyIndex.remove(key);
+        }
+    }
+
+    /**
+     * 是否需要记录写日志，为false时不必编码记录
+     */
+    private boolean journaling() {
+        return null != journal;
+    }
+
+    /**
+     * 把编码好的记录放入写日志队列，需要在修改该值的锁内调用以保证顺序
+     */
+    private void journal(byte[] record) {
+        LocalCacheJournal localCacheJournal = journal;
+        if (null != localCacheJournal && null != record)
+            localCacheJournal.append(record);
+    }
+
+    /**
+     * 替换K-V容器中的值并在同一个桶锁内记录写日志，返回原来的值
+     */
+    private Object replaceValue(String key, Object value, byte[] record) {
+        if (null == record)
+            return ObjectKVData.put(key, value);
+        final Object[] old = new Object[1];
+        ObjectKVData.compute(key, (k, v) -> {
+            old[0] = v;
+            journal(record);
+            return value;
+        });
+        return old[0];
+    }
+
+    /**
+     * 读取key对应的值，key已过期时返回null，命中时记录一次访问
+     */
+    private Object readValue(String key) {
+        loadPending(key);
+        if (isKeyExpired(key)) {
+            valueReads.recordNull();
+            return null;
+        }
+        Object value = ObjectKVData.get(key);
+        if (null != value) {
+            recordAccess(key);
+            valueReads.recordHit();
+        } else {
+            valueReads.recordNull();
+        }
+        return value;
+    }
+
+    /**
+     * 读取key对应的Hash结构，key已过期时返回null，命中时记录一次访问
+     */
+    private Map<Object, Object> readHash(String key) {
+        loadPending(key);
+        if (isKeyExpired(key)) {
+            hashReads.recordNull();
+            return null;
+        }
+        Map<Object, Object> map = hashData.get(key);
+        if (null != map) {
+            recordAccess(key);
+            hashReads.recordHit();
+        } else {
+            hashReads.recordNull();
+        }
+        return map;
+    }
+
+    /**
+     * 读取key对应的值用于修改，key已过期时返回null，不记录访问
+     */
+    private Object peekValue(String key) {
+        loadPending(key);
+        if (isKeyExpired(key))
+            return null;
+        return ObjectKVData.get(key);
+    }
+
+    /**
+     * 读取key对应的Hash结构用于修改，key已过期时返回null，不记录访问
+     */
+    private Map<Object, Object> peekHash(String key) {
+        loadPending(key);
+        if (isKeyExpired(key))
+            return null;
+        return hashData.get(key);
+    }
+
+    /**
+     * 整体替换key对应的值，不改变过期时间
+     */
+    private void putValue(String key, Object value, byte[] record) {
+        loadPending(key);
+        Object old = replaceValue(key, value, record);
+        release(old);
+        recordWrite(key, value);
+        if (null == old)
+            indexAdd(key);
+    }
+
+    /**
+     * 创建一个存放序列化对象的List，启用堆外存储时数据存放在堆外
+     */
+    private List<byte[]> newObjectList(int initialCapacity) {
+        if (null != offHeapAllocator)
+            return new OffHeapByteList(offHeapAllocator, initialCapacity);
+        return new ArrayList<byte[]>(initialCapacity);
+    }
+
+    /**
+     * 创建一个存放序列化对象的集合，启用堆外存储时数据存放在堆外
+     */
+    private ByteSet newObjectSet(int expectedSize) {
+        if (null != offHeapAllocator)
+            return new OffHeapByteSet(offHeapAllocator, expectedSize);
+        return new ByteArrayHashSet(expectedSize);
+    }
+
+    /**
+     * 比较List中的元素与bs是否相等，堆外List直接比较堆外数据
+     */
+    private static boolean elementEquals(List<byte[]> list, int index, byte[] bs) {
+        if (list instanceof OffHeapByteList)
+            return ((OffHeapByteList) list).contentEquals(index, bs);
+        return Arrays.equals(bs, list.get(index));
+    }
+
+    /**
+     * 归还已从缓存中移除的值占用的堆外内存
+     */
+    private static void release(Object value) {
+        if (value instanceof OffHeapValue) {
+            synchronized (value) {
+                ((OffHeapValue) value).release();
+            }
+        }
+    }
+
+    /**
+     * 获取key对应的容器，如果不存在（或已过期）则原子地创建一个新的容器
+     */
+    private <V> V valueOf(String key, Function<String, V> creator) {
+        expireIfNeeded(key);
+        Object value = ObjectKVData.get(key);
+        if (null == value) {
+            final boolean[] created = new boolean[1];
+            value = ObjectKVData.computeIfAbsent(key, k -> {
+                created[0] = true;
+                return creator.apply(k);
+            });
+            if (created[0]) {
+                recordWrite(key, null);
+                indexAdd(key);
+            }
+        }
+        return (V) value;
+    }
+
+    /**
+     * 获取key对应的List，如果不存在则原子地创建一个新的List
+     */
+    private <E> List<E> listOf(String key) {
+        return valueOf(key, k -> new ArrayList<E>());
+    }
+
+    /**
+     * 获取key对应的Hash结构，如果不存在则原子地创建一个新的Hash结构
+     */
+    private Map<Object, Object> hashOf(String key) {
+        expireIfNeeded(key);
+        Map<Object, Object> map = this.hashData.get(key);
+        if (null == map) {
+            final boolean[] created = new boolean[1];
+            map = this.hashData.computeIfAbsent(key, k -> {
+                created[0] = true;
+                return new ConcurrentHashMap<Object, Object>();
+            });
+            if (created[0]) {
+                recordWrite(key, null);
+                indexAdd(key);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * 复制List的一段，复制过程持有该List的锁，返回的结果与缓存中的List不再关联
+     */
+    private <E> List<E> copyRange(List<E> list, int start, int end) {
+        synchronized (list) {
+            if (list.isEmpty())
+                return null;
+            if (end == -1) {
+                if (list.size() <= start)
+                    return null;
+                return new ArrayList<E>(list.subList(start, list.size()));
+            } else {
+                if (start >= end)
+                    return null;
+                if (list.size() <= start)
+                    return null;
+                return new ArrayList<E>(list.subList(start, list.size() < end ? list.size() : end));
+            }
         }
-        return true;
     }
 
     @Override
@@ -117,19 +585,12 @@ public class LocalCacheHelperImpl implements LocalCacheHelper {
             this.del(key);
             return;
         }
-        ObjectKVData.put(key, value);
-        if (sec > 0) {
-            expiredKeyMap.put(key, System.currentTimeMillis() + 1000 * sec);
-        } else if (expiredKeyMap.containsKey(key)) {
-            expiredKeyMap.remove(key);
-        }
+        putWithExpire(key, value, sec);
     }
 
     @Override
     public String get(String key) {
-        if (isKeyExpired(key))
-            return null;
-        return (String) ObjectKVData.get(key);
+        return (String) readValue(key);
     }
 
     @Override
@@ -139,73 +600,127 @@ public class LocalCacheHelperImpl implements LocalCacheHelper {
         }
         List<String> list = new ArrayList<String>();
         for (String s : keys) {
-            if (isKeyExpired(s))
-                list.add(null);
-            list.add((String) ObjectKVData.get(s));
+            list.add((String) readValue(s));
         }
         return list;
     }
 
     @Override
     public String hget(String key, String field) {
-        if (isKeyExpired(key))
-            return null;
-        Map<Object, Object> itemMap = hashData.get(key);
-        if (null != itemMap)
-            return itemMap.get(field) == null ? null : itemMap.get(field).toString();
+        Map<Object, Object> itemMap = readHash(key);
+        if (null != itemMap) {
+            Object value = itemMap.get(field);
+            return value == null ? null : value.toString();
+        }
         return null;
     }
 
     @Override
     public Map<String, String> hmget(String key, String... field) {
-        if (isKeyExpired(key))
-            return null;
-        Map<Object, Object> itemMap = hashData.get(key);
+        Map<Object, Object> itemMap = readHash(key);
         if (null != itemMap && null != field) {
             Map<String, String> ret = new HashMap<String, String>(field.length);
             for (String f : field) {
-                ret.put(f, itemMap.get(field) == null ? null : itemMap.get(field).toString());
+                Object value = itemMap.get(f);
+                ret.put(f, value == null ? null : value.toString());
             }
             return ret;
         }
         return null;
     }
 
+    /**
+     * 设置Hash结构中的一个字段，并记录权重的变化
+     */
+    private void putHashField(String key, Object field, Object value) {
+        byte[] record = journaling() ? JournalRecord.begin(JournalOp.HSET, key).writeItem(field).writeItem(value).end() : null;
+        Map<Object, Object> map = hashOf(key);
+        Object old;
+        if (null == record) {
+            old = map.put(field, value);
+        } else {
+            final Object[] replaced = new Object[1];
+            map.compute(field, (f, v) -> {
+                replaced[0] = v;
+                journal(record);
+                return value;
+            });
+            old = replaced[0];
+        }
+        recordWeightChange(key, weigh(value) - (null == old ? -weigh(field) : weigh(old)));
+    }
+
+    /**
+     * 删除Hash结构中的一个字段，并记录权重的变化
+     */
+    private void removeHashField(String key, Object field) {
+        Map<Object, Object> map = peekHash(key);
+        if (null == map)
+            return;
+        Object old;
+        if (!journaling()) {
+            old = map.remove(field);
+        } else {
+            final Object[] removed = new Object[1];
+            map.computeIfPresent(field, (f, v) -> {
+                removed[0] = v;
+                journal(JournalRecord.begin(JournalOp.HDEL, key).writeItem(f).end());
+                return null;
+            });
+            old = removed[0];
+        }
+        if (null != old)
+            recordWeightChange(key, -weigh(field) - weigh(old));
+    }
+
     @Override
     public void hset(String key, String field, String value) {
         assertKey(key);
         assertKey(field);
-        Map<Object, Object> itemMap = hashData.get(key);
-        if (null == itemMap) {
-            itemMap = new HashMap<Object, Object>();
-            hashData.put(key, itemMap);
-        }
         if (null == value) {
             this.hdel(key, field);
             return;
         }
-        itemMap.put(field, value);
+        putHashField(key, field, value);
     }
 
     /**
-     * 保存Hash对象时对象的键field为field的md5值
+     * 保存Hash对象时对象的键为field的{@link FieldKey}
      */
     @Override
     public void hset(String key, Object field, Object value) {
         assertKey(key);
-        Map<Object, Object> itemMap = hashData.get(key);
-        if (null == itemMap) {
-            itemMap = new HashMap<Object, Object>();
-            hashData.put(key, itemMap);
-        }
         if (null == value) {
             this.hdel(key, field);
             return;
         }
-        byte[] fieldBytes = SerializeUtil.serialize(field);
-        assertKey(fieldBytes);
-        String fieldMd5 = Md5Util.getMd5(fieldBytes);
-        itemMap.put(fieldMd5, value);
+        putHashField(key, FieldKey.of(field), value);
+        if (legacyFieldKeys)
+            removeHashField(key, legacyField(field));
+    }
+
+    /**
+     * 旧版本中对象field的键
+     */
+    private static String legacyField(Object field) {
+        return Md5Util.getMd5(SerializeUtil.serialize(field));
+    }
+
+    /**
+     * 恢复了旧版本写入的数据，开启md5形式field的兼容查找
+     */
+    private void enableLegacyFieldKeys(String source) {
+        if (!legacyFieldKeys) {
+            logger.info("{} was written by an older version with md5 hash fields, enabling fallback lookups.", source);
+            legacyFieldKeys = true;
+        }
+    }
+
+    private Object getHashField(Map<Object, Object> map, Object field) {
+        Object value = map.get(FieldKey.of(field));
+        if (null == value && legacyFieldKeys)
+            value = map.get(legacyField(field));
+        return value;
     }
 
 
@@ -213,7 +728,27 @@ public class LocalCacheHelperImpl implements LocalCacheHelper {
     public void setMap(String key, Map<?, ?> map) {
         assertKey(key);
         if (null == map) {
-            this.hashData.remove(key);
+            loadPending(key);
+            Map<Object, Object> removed;
+            if (!journaling()) {
+                removed = this.hashData.remove(key);
+            } else {
+                byte[] record = JournalRecord.begin(JournalOp.DEL_HASH, key).end();
+                final AtomicReference<Map<Object, Object>> old = new AtomicReference<Map<Object, Object>>();
+                this.hashData.compute(key, (k, m) -> {
+                    old.set(m);
+                    journal(record);
+                    return null;
+                });
+                removed = old.get();
+            }
+            if (null != removed) {
+                if (this.ObjectKVData.containsKey(key))
+                    recordWeightChange(key, -weigh(removed));
+                else
+                    recordRemove(key);
+                indexRemove(key);
+            }
             return;
         }
         for (Entry<?, ?> item : map.entrySet()) {
@@ -224,42 +759,26 @@ public class LocalCacheHelperImpl implements LocalCacheHelper {
     @Override
     public <T> T getMapValue(String mapKey, Object fieldKey, Class<T> type) {
         if (null == mapKey || null == fieldKey) return null;
-        if (isKeyExpired(mapKey))
-            return null;
-        Map<Object, Object> itemMap = hashData.get(mapKey);
+        Map<Object, Object> itemMap = readHash(mapKey);
         if (null == itemMap)
             return null;
-        byte[] fieldBytes = SerializeUtil.serialize(fieldKey);
-        String fieldMd5 = Md5Util.getMd5(fieldBytes);
-        return (T) itemMap.get(fieldMd5);
+        return (T) getHashField(itemMap, fieldKey);
     }
 
 
     @Override
     public void appendMapItem(String mapKey, Object fieldKey, Object value) {
-        Map<Object, Object> map = this.hashData.get(mapKey);
-        if (null == map) {
-            map = new HashMap<Object, Object>();
-        }
-        byte[] fieldBytes = SerializeUtil.serialize(fieldKey);
-        assertKey(fieldBytes);
-        String fieldMd5 = Md5Util.getMd5(fieldBytes);
-        map.put(fieldMd5, value);
+        this.hset(mapKey, fieldKey, value);
     }
 
     @Override
     public <T> List<T> getMapValues(String mapKey, Class<T> type) {
-        if (isKeyExpired(mapKey))
-            return null;
-        Map<Object, Object> map = this.hashData.get(mapKey);
+        Map<Object, Object> map = readHash(mapKey);
         List<T> list = null;
         if (null != map) {
             list = new ArrayList<T>();
             for (Object o : map.values()) {
-                if (null == o)
-                    list.add(null);
-                else
-                    list.add((T) o);
+                list.add((T) o);
             }
         }
         return list;
@@ -267,15 +786,11 @@ public class LocalCacheHelperImpl implements LocalCacheHelper {
 
     @Override
     public <T, K> Map<K, T> getMultiMapValues(String mapKey, Class<T> type, K... keys) {
-        if (isKeyExpired(mapKey))
-            return null;
-        Map<Object, Object> map = this.hashData.get(mapKey);
+        Map<Object, Object> map = readHash(mapKey);
         if (null != map && null != keys) {
             Map<K, T> ret = new HashMap<K, T>(keys.length);
             for (K o : keys) {
-                byte[] fieldBytes = SerializeUtil.serialize(o);
-                String fieldMd5 = Md5Util.getMd5(fieldBytes);
-                ret.put(o, (T) map.get(fieldMd5));
+                ret.put(o, (T) getHashField(map, o));
             }
             return ret;
         }
@@ -284,76 +799,114 @@ public class LocalCacheHelperImpl implements LocalCacheHelper {
 
     @Override
     public void setObject(String key, Object obj) {
-        this.ObjectKVData.put(key, obj);
+        assertKey(key);
+        if (null == obj) {
+            this.del(key);
+            return;
+        }
+        putValue(key, obj, journaling() ? JournalRecord.begin(JournalOp.PUT, key).writeItem(obj).end() : null);
     }
 
     @Override
     public void setObjectEX(String key, Object value, int sec) {
-        this.setObject(key, value);
-        if (sec > 0) {
-            expiredKeyMap.put(key, System.currentTimeMillis() + 1000 * sec);
-        } else if (expiredKeyMap.containsKey(key)) {
-            expiredKeyMap.remove(key);
+        assertKey(key);
+        if (null == value) {
+            this.del(key);
+            return;
         }
+        putWithExpire(key, value, sec);
     }
 
     @Override
     public <T> T getObject(String key, Class<T> type) {
-        if (isKeyExpired(key))
-            return null;
-        return (T) this.ObjectKVData.get(key);
+        return (T) readValue(key);
     }
 
-
     @Override
-    public void setStringList(String key, List<String> list) {
-        this.ObjectKVData.put(key, list);
+    public <T> List<T> getObjects(Class<T> type, String... keys) {
+        if (null == keys || keys.length == 0)
+            throw new IllegalArgumentException("Keys cannot be null or empty!");
+        List<T> list = new ArrayList<T>(keys.length);
+        for (String key : keys)
+            list.add((T) readValue(key));
+        return list;
     }
 
     @Override
-    public void appendStringListItem(String key, boolean tail, String... strings) {
-        if (null == strings || strings.length == 0)
-            return;
-        List<String> list = (List<String>) this.ObjectKVData.get(key);
-        if (null == list) {
-            list = new ArrayList<String>();
-            this.ObjectKVData.put(key, list);
-        }
-        for (String s : strings) {
-            if (tail)
-                list.add(s);
+    public void setObjects(Map<String, ?> values, int second) {
+        if (null == values)
+            throw new IllegalArgumentException("Values cannot be null!");
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            if (second > 0)
+                setObjectEX(entry.getKey(), entry.getValue(), second);
             else
-                list.add(0, s);
+                setObject(entry.getKey(), entry.getValue());
         }
     }
 
-    @Override
-    public String getStringListItem(String key, int index) {
-        if (isKeyExpired(key))
-            return null;
-        List<String> list = (List<String>) this.ObjectKVData.get(key);
-        if (null == list || list.isEmpty() || list.size() <= index)
-            return null;
-        return list.get(index);
-    }
 
     @Override
-    public List<String> getStringListItems(String key, int start, int end) {
-        if (isKeyExpired(key))
-            return null;
-        List<String> list = (List<String>) this.ObjectKVData.get(key);
-        if (null != list && !list.isEmpty()) {
-            if (end == -1) {
-                if (list.size() <= start)
-                    return null;
-                return list.subList(start, list.size());
-            } else {
-                if (start >= end)
-                    return null;
-                return list.subList(start, list.size() < end ? list.size() : end);
+    public void setStringList(String key, List<String> list) {
+        assertKey(key);
+        if (null == list) {
+            this.del(key);
+            return;
+        }
+        byte[] record = null;
+        if (journaling()) {
+            JournalRecord r = JournalRecord.begin(JournalOp.PUT_STRING_LIST, key).writeInt(list.size());
+            for (String s : list)
+                r.writeString(s);
+            record = r.end();
+        }
+        putValue(key, new ArrayList<String>(list), record);
+    }
+
+    @Override
+    public void appendStringListItem(String key, boolean tail, String... strings) {
+        if (null == strings || strings.length == 0)
+            return;
+        byte[] record = null;
+        if (journaling()) {
+            JournalRecord r = JournalRecord.begin(JournalOp.APPEND_STRING_LIST, key).writeBoolean(tail)
+                    .writeInt(strings.length);
+            for (String s : strings)
+                r.writeString(s);
+            record = r.end();
+        }
+        List<String> list = listOf(key);
+        long weight = 0;
+        synchronized (list) {
+            for (String s : strings) {
+                if (tail)
+                    list.add(s);
+                else
+                    list.add(0, s);
+                weight += weigh(s);
             }
+            journal(record);
         }
-        return null;
+        recordWeightChange(key, weight);
+    }
+
+    @Override
+    public String getStringListItem(String key, int index) {
+        List<String> list = (List<String>) readValue(key);
+        if (null == list)
+            return null;
+        synchronized (list) {
+            if (list.isEmpty() || list.size() <= index)
+                return null;
+            return list.get(index);
+        }
+    }
+
+    @Override
+    public List<String> getStringListItems(String key, int start, int end) {
+        List<String> list = (List<String>) readValue(key);
+        if (null == list)
+            return null;
+        return copyRange(list, start, end);
     }
 
 
@@ -366,113 +919,176 @@ public class LocalCacheHelperImpl implements LocalCacheHelper {
      */
     @Override
     public void setObjectList(String key, List<?> list) {
-        if (null != list) {
-            List<byte[]> dataformBytes = new ArrayList<byte[]>();
-            for (int i = 0; i < list.size(); i++) {
-                byte[] bs = SerializeUtil.serialize(list.get(i));
+        assertKey(key);
+        if (null == list) {
+            this.del(key);
+            return;
+        }
+        byte[][] bss = new byte[list.size()][];
+        for (int i = 0; i < bss.length; i++)
+            bss[i] = SerializeUtil.serialize(list.get(i));
+        putObjectList(key, bss);
+    }
+
+    /**
+     * 以序列化后的元素整体替换对象List
+     */
+    private void putObjectList(String key, byte[][] bss) {
+        byte[] record = journaling() ? writeBytesArray(JournalRecord.begin(JournalOp.PUT_OBJECT_LIST, key), bss) : null;
+        List<byte[]> dataformBytes = newObjectList(bss.length);
+        try {
+            for (byte[] bs : bss)
                 dataformBytes.add(bs);
-            }
-            this.ObjectKVData.put(key, dataformBytes);
-        } else
-            this.ObjectKVData.put(key, list);
+        } catch (RuntimeException e) {
+            release(dataformBytes);
+            throw e;
+        }
+        putValue(key, dataformBytes, record);
+    }
+
+    /**
+     * 写入 int n, n * bytes 并结束记录
+     */
+    private static byte[] writeBytesArray(JournalRecord record, byte[][] bss) {
+        record.writeInt(bss.length);
+        for (byte[] bs : bss)
+            record.writeBytes(bs);
+        return record.end();
+    }
+
+    /**
+     * 读取 int n, n * bytes
+     */
+    private static byte[][] readBytesArray(JournalRecord.Reader record) {
+        byte[][] bss = new byte[record.readInt()][];
+        for (int i = 0; i < bss.length; i++)
+            bss[i] = record.readBytes();
+        return bss;
+    }
+
+    /**
+     * 读取 int n, n * string
+     */
+    private static String[] readStringArray(JournalRecord.Reader record) {
+        String[] strings = new String[record.readInt()];
+        for (int i = 0; i < strings.length; i++)
+            strings[i] = record.readString();
+        return strings;
     }
 
     @Override
     public <T> T getObjectListItem(String key, int index, Class<T> type) {
-        if (isKeyExpired(key))
-            return null;
-        List<byte[]> list = (List<byte[]>) this.ObjectKVData.get(key);
-        if (null == list || list.isEmpty() || list.size() <= index)
+        List<byte[]> list = (List<byte[]>) readValue(key);
+        if (null == list)
             return null;
-        byte[] bs = list.get(index);
+        byte[] bs;
+        synchronized (list) {
+            if (list.isEmpty() || list.size() <= index)
+                return null;
+            bs = list.get(index);
+        }
         return (T) SerializeUtil.deserialize(bs, type);
     }
 
     @Override
     public <T> List<T> getObjectListItems(String key, int start, int end,
                                           Class<T> type) {
-        if (isKeyExpired(key))
+        List<byte[]> list = (List<byte[]>) readValue(key);
+        if (null == list)
             return null;
-        List<byte[]> list = (List<byte[]>) this.ObjectKVData.get(key);
-        if (null != list && !list.isEmpty()) {
-            if (end == -1) {
-                if (list.size() <= start)
-                    return null;
-                list = list.subList(start, list.size());
-                List<T> retList = new ArrayList<T>();
-                for (int i = 0; i < list.size(); i++)
-                    retList.add(SerializeUtil.deserialize(list.get(i), type));
-                return retList;
-            } else {
-                if (start >= end)
-                    return null;
-                list = list.subList(start, list.size() < end ? list.size() : end);
-                List<T> retList = new ArrayList<T>();
-                for (int i = 0; i < list.size(); i++)
-                    retList.add(SerializeUtil.deserialize(list.get(i), type));
-                return retList;
-            }
-        }
-        return null;
+        List<byte[]> range = copyRange(list, start, end);
+        if (null == range)
+            return null;
+        List<T> retList = new ArrayList<T>(range.size());
+        for (int i = 0; i < range.size(); i++)
+            retList.add(SerializeUtil.deserialize(range.get(i), type));
+        return retList;
     }
 
     @Override
     public void appendObjectListItem(String key, boolean tail, Object... items) {
         if (null == items || items.length == 0)
             return;
-        List<byte[]> list = (List<byte[]>) this.ObjectKVData.get(key);
-        if (null == list) {
-            list = new ArrayList<byte[]>();
-            this.ObjectKVData.put(key, list);
-        }
-        for (Object s : items) {
-            byte[] bs = SerializeUtil.serialize(s);
-            if (tail)
-                list.add(bs);
-            else
-                list.add(0, bs);
+        byte[][] bss = new byte[items.length][];
+        for (int i = 0; i < items.length; i++)
+            bss[i] = SerializeUtil.serialize(items[i]);
+        appendObjectList(key, tail, bss);
+    }
+
+    /**
+     * 向对象List追加序列化后的元素
+     */
+    private void appendObjectList(String key, boolean tail, byte[][] bss) {
+        byte[] record = journaling()
+                ? writeBytesArray(JournalRecord.begin(JournalOp.APPEND_OBJECT_LIST, key).writeBoolean(tail), bss) : null;
+        long weight = 0;
+        for (byte[] bs : bss)
+            weight += bs.length;
+        List<byte[]> list = valueOf(key, k -> newObjectList(bss.length));
+        synchronized (list) {
+            for (byte[] bs : bss) {
+                if (tail)
+                    list.add(bs);
+                else
+                    list.add(0, bs);
+            }
+            journal(record);
         }
+        recordWeightChange(key, weight);
     }
 
     @Override
     public void trimList(String key, int start, int end) {
-        if (isKeyExpired(key))
-            return;
-        List<Object> list = (List<Object>) this.ObjectKVData.get(key);
-        if (null == list || list.isEmpty())
+        List<Object> list = (List<Object>) peekValue(key);
+        if (null == list)
             return;
+        long removed;
         synchronized (list) {
+            if (journaling())
+                journal(JournalRecord.begin(JournalOp.TRIM_LIST, key).writeInt(start).writeInt(end).end());
+            if (list.isEmpty())
+                return;
+            int from;
+            int to;
             if (end == -1) {
                 if (list.size() <= start)
                     return;
-                list = list.subList(start, list.size());
+                from = start;
+                to = list.size();
             } else {
                 if (start >= end)
                     return;
-                list = list.subList(start, end >= list.size() ? list.size() : end);
+                from = start;
+                to = end >= list.size() ? list.size() : end;
             }
-            this.ObjectKVData.put(key, list);
+            List<Object> tailPart = list.subList(to, list.size());
+            List<Object> headPart = list.subList(0, from);
+            removed = weigh(tailPart) + weigh(headPart);
+            tailPart.clear();
+            list.subList(0, from).clear();
         }
+        recordWeightChange(key, -removed);
     }
 
     @Override
     public void removeRepeatStringListItem(String key, int count, String value) {
-        if (isKeyExpired(key))
-            return;
-        List<String> list = (List<String>) this.ObjectKVData.get(key);
-        if (null == list || list.isEmpty())
+        List<String> list = (List<String>) peekValue(key);
+        if (null == list)
             return;
-        int list_size = list.size();
-        int hit_count = 0;
+        byte[] record = journaling()
+                ? JournalRecord.begin(JournalOp.REMOVE_STRING_LIST_ITEM, key).writeInt(count).writeString(value).end() : null;
+        int removed = 0;
         synchronized (list) {
+            journal(record);
+            int list_size = list.size();
             if (count > 0) {
                 for (int i = 0; i < list_size; i++) {
                     if ((null == value && value == list.get(i)) || (null != value && value.equals(list.get(i)))) {
                         list.remove(i);
                         list_size--;
-                        hit_count++;
+                        removed++;
                         i--;
-                        if (hit_count == count)
+                        if (removed == count)
                             break;
                     }
                 }
@@ -481,8 +1097,8 @@ public class LocalCacheHelperImpl implements LocalCacheHelper {
                     if ((null == value && value == list.get(i)) || (null != value && value.equals(list.get(i)))) {
                         list.remove(i);
                         list_size--;
-                        hit_count++;
-                        if (hit_count == -count)
+                        removed++;
+                        if (removed == -count)
                             break;
                     }
                 }
@@ -491,564 +1107,710 @@ public class LocalCacheHelperImpl implements LocalCacheHelper {
                     if ((null == value && value == list.get(i)) || (null != value && value.equals(list.get(i)))) {
                         list.remove(i);
                         list_size--;
+                        removed++;
                         i--;
                     }
                 }
             }
         }
+        recordWeightChange(key, -removed * weigh(value));
     }
 
     @Override
     public void removeRepeatObjectListItem(String key, int count, Object value) {
-        if (isKeyExpired(key))
+        if (null == value)
             return;
-        List<byte[]> list = (List<byte[]>) this.ObjectKVData.get(key);
-        if (null == list || list.isEmpty())
+        removeObjectListItem(key, count, SerializeUtil.serialize(value));
+    }
+
+    /**
+     * 按序列化后的字节从对象List中移除元素，count的含义与{@link #removeRepeatObjectListItem(String, int, Object)}相同
+     */
+    private void removeObjectListItem(String key, int count, byte[] valuebs) {
+        List<byte[]> list = (List<byte[]>) peekValue(key);
+        if (null == list)
             return;
-        int list_size = list.size();
-        int hit_count = 0;
+        byte[] record = journaling()
+                ? JournalRecord.begin(JournalOp.REMOVE_OBJECT_LIST_ITEM, key).writeInt(count).writeBytes(valuebs).end() : null;
+        int removed = 0;
         synchronized (list) {
-            byte[] valuebs = SerializeUtil.serialize(value);
+            journal(record);
+            int list_size = list.size();
             if (count > 0) {
                 for (int i = 0; i < list_size; i++) {
-                    if ((null == value && value == list.get(i)) || (null != value && Arrays.equals(valuebs, list.get(i)))) {
+                    if (elementEquals(list, i, valuebs)) {
                         list.remove(i);
                         list_size--;
-                        hit_count++;
+                        removed++;
                         i--;
-                        if (hit_count == count)
+                        if (removed == count)
                             break;
                     }
                 }
             } else if (count < 0) {
                 for (int i = list_size - 1; i >= 0; i--) {
-                    if ((null == value && value == list.get(i)) || (null != value && Arrays.equals(valuebs, list.get(i)))) {
+                    if (elementEquals(list, i, valuebs)) {
                         list.remove(i);
                         list_size--;
-                        hit_count++;
-                        if (hit_count == -count)
+                        removed++;
+                        if (removed == -count)
                             break;
                     }
                 }
             } else {
                 for (int i = 0; i < list_size; i++) {
-                    if ((null == value && value == list.get(i)) || (null != value && Arrays.equals(valuebs, list.get(i)))) {
+                    if (elementEquals(list, i, valuebs)) {
                         list.remove(i);
                         list_size--;
+                        removed++;
                         i--;
                     }
                 }
             }
         }
+        recordWeightChange(key, -removed * (long) valuebs.length);
     }
 
     @Override
     public long getListLength(String key) {
-        if (isKeyExpired(key))
-            return 0;
-        List<Object> list = (List<Object>) this.ObjectKVData.get(key);
+        List<Object> list = (List<Object>) readValue(key);
         if (null == list)
             return 0;
-        return list.size();
+        synchronized (list) {
+            return list.size();
+        }
     }
 
 
     ///////////////////////////////////////////////////////////////////////////////////  Set
 
 
+    /**
+     * 获取key对应的对象集合用于读取，不存在时返回null
+     */
+    private ByteSet readObjectSet(byte[] key) {
+        if (null == key || key.length == 0)
+            return null;
+        return (ByteSet) readValue(new String(key));
+    }
+
+    /**
+     * 将序列化后的成员反序列化为指定类型的集合
+     */
+    private <T> Set<T> deserializeMembers(Collection<byte[]> members, Class<T> type) {
+        Set<T> ret = new HashSet<T>();
+        for (byte[] bs : members) {
+            ret.add(SerializeUtil.deserialize(bs, type));
+        }
+        return ret;
+    }
+
     @Override
     public <T> void setObjectSet(String key, Set<T> sets) {
         if (null == sets)
             return;
-        Set<byte[]> bssetBytes = new HashSet<byte[]>();
-        for (Iterator<T> iterator = sets.iterator(); iterator.hasNext(); ) {
-            byte[] bs = SerializeUtil.serialize(iterator.next());
-            bssetBytes.add(bs);
+        byte[][] bss = new byte[sets.size()][];
+        int i = 0;
+        for (Iterator<T> iterator = sets.iterator(); iterator.hasNext() && i < bss.length; ) {
+            bss[i++] = SerializeUtil.serialize(iterator.next());
+        }
+        putObjectSet(key, i == bss.length ? bss : Arrays.copyOf(bss, i));
+    }
+
+    /**
+     * 以序列化后的成员整体替换对象集合
+     */
+    private void putObjectSet(String key, byte[][] bss) {
+        byte[] record = journaling() ? writeBytesArray(JournalRecord.begin(JournalOp.PUT_OBJECT_SET, key), bss) : null;
+        ByteSet bssetBytes = newObjectSet(bss.length);
+        try {
+            for (byte[] bs : bss)
+                bssetBytes.add(bs);
+        } catch (RuntimeException e) {
+            release(bssetBytes);
+            throw e;
         }
-        this.ObjectKVData.put(key, bssetBytes);
+        putValue(key, bssetBytes, record);
     }
 
     @Override
     public <T> Set<T> getObjectSetAll(String key, Class<T> type) {
-        if (isKeyExpired(key))
-            return null;
-        Set<byte[]> bssetBytes = (Set<byte[]>) this.ObjectKVData.get(key);
+        ByteSet bssetBytes = (ByteSet) readValue(key);
         if (null == bssetBytes)
             return null;
-        Set<T> ret_set = new HashSet<T>();
-        for (Iterator<byte[]> iterator = bssetBytes.iterator(); iterator.hasNext(); ) {
-            T obj = SerializeUtil.deserialize(iterator.next(), type);
-            ret_set.add(obj);
+        List<byte[]> members;
+        synchronized (bssetBytes) {
+            members = bssetBytes.toList();
         }
-        return ret_set;
+        return deserializeMembers(members, type);
     }
 
     @Override
     public <T> void appendObjectSetMember(String key, T... objects) {
         if (null == objects || objects.length == 0)
             return;
-        Set<byte[]> bssetBytes = (Set<byte[]>) this.ObjectKVData.get(key);
-        if (null == bssetBytes)
-            bssetBytes = new HashSet<byte[]>();
-        this.ObjectKVData.put(key, bssetBytes);
-        for (T o : objects) {
-            byte[] bs = SerializeUtil.serialize(o);
-            bssetBytes.add(bs);
+        byte[][] bss = new byte[objects.length][];
+        for (int i = 0; i < objects.length; i++) {
+            bss[i] = SerializeUtil.serialize(objects[i]);
+        }
+        addObjectSetMembers(key, bss);
+    }
+
+    /**
+     * 向对象集合加入序列化后的成员，返回新加入的成员数
+     */
+    private int addObjectSetMembers(String key, byte[][] bss) {
+        byte[] record = journaling() ? writeBytesArray(JournalRecord.begin(JournalOp.ADD_OBJECT_SET, key), bss) : null;
+        ByteSet bssetBytes = valueOf(key, k -> newObjectSet(0));
+        long weight = 0;
+        int added = 0;
+        synchronized (bssetBytes) {
+            for (byte[] bs : bss) {
+                if (bssetBytes.add(bs)) {
+                    weight += bs.length;
+                    added++;
+                }
+            }
+            journal(record);
         }
+        recordWeightChange(key, weight);
+        return added;
     }
 
     @Override
     public <T> void removeObjectSetMember(String key, T... objects) {
-        if (isKeyExpired(key))
-            return;
         if (null == objects || objects.length == 0)
             return;
-        Set<byte[]> bssetBytes = (Set<byte[]>) this.ObjectKVData.get(key);
+        byte[][] valbss = new byte[objects.length][];
+        for (int i = 0; i < objects.length; i++) {
+            valbss[i] = SerializeUtil.serialize(objects[i]);
+        }
+        removeObjectSetMembers(key, valbss);
+    }
+
+    /**
+     * 从对象集合移除序列化后的成员，返回实际移除的成员数
+     */
+    private int removeObjectSetMembers(String key, byte[][] valbss) {
+        ByteSet bssetBytes = (ByteSet) peekValue(key);
+        if (null == bssetBytes)
+            return 0;
+        byte[] record = journaling() ? writeBytesArray(JournalRecord.begin(JournalOp.REMOVE_OBJECT_SET, key), valbss) : null;
+        long removed = 0;
+        int count = 0;
         synchronized (bssetBytes) {
-            List<byte[]> mark = new ArrayList<byte[]>();
-            for (int i = 0; i < objects.length; i++) {
-                byte[] valbs = SerializeUtil.serialize(objects[i]);
-                for (Iterator<byte[]> iterator = bssetBytes.iterator(); iterator.hasNext(); ) {
-                    byte[] bs = iterator.next();
-                    if (Arrays.equals(valbs, bs)) {
-                        mark.add(bs);
-                    }
+            for (byte[] valbs : valbss) {
+                if (bssetBytes.remove(valbs)) {
+                    removed += valbs.length;
+                    count++;
                 }
             }
-            for (byte[] bs : mark)
-                bssetBytes.remove(bs);
+            journal(record);
         }
+        recordWeightChange(key, -removed);
+        return count;
     }
 
+    /**
+     * {@inheritDoc}
+     * 从最小的集合出发，逐个集合过滤；每次只持有一个集合的锁，结果不是所有集合同一时刻的快照。
+     */
     @Override
-    @Deprecated
     public <T> Set<T> getInterObjectSet(Class<T> type, byte[]... keys) {
-        throw new RuntimeException("This method is not avalible now!");
+        if (null == keys || keys.length == 0)
+            return null;
+        ByteSet[] sets = new ByteSet[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            sets[i] = readObjectSet(keys[i]);
+            if (null == sets[i])
+                return new HashSet<T>();
+        }
+        Arrays.sort(sets, (a, b) -> Integer.compare(a.size(), b.size()));
+        List<byte[]> members;
+        synchronized (sets[0]) {
+            members = sets[0].toList();
+        }
+        for (int i = 1; i < sets.length && !members.isEmpty(); i++) {
+            synchronized (sets[i]) {
+                for (Iterator<byte[]> it = members.iterator(); it.hasNext(); ) {
+                    if (!sets[i].contains(it.next()))
+                        it.remove();
+                }
+            }
+        }
+        return deserializeMembers(members, type);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 结果为第一个集合减去其余集合的成员。
+     */
+    @Override
+    public <T> Set<T> getDiffObjectSet(Class<T> type, byte[]... keys) {
+        if (null == keys || keys.length == 0)
+            return null;
+        ByteSet first = readObjectSet(keys[0]);
+        if (null == first)
+            return new HashSet<T>();
+        List<byte[]> members;
+        synchronized (first) {
+            members = first.toList();
+        }
+        for (int i = 1; i < keys.length && !members.isEmpty(); i++) {
+            ByteSet set = readObjectSet(keys[i]);
+            if (null == set || set == first)
+                continue;
+            synchronized (set) {
+                for (Iterator<byte[]> it = members.iterator(); it.hasNext(); ) {
+                    if (set.contains(it.next()))
+                        it.remove();
+                }
+            }
+        }
+        return deserializeMembers(members, type);
+    }
+
+    @Override
+    public <T> Set<T> getUnionObjectSet(Class<T> type, byte[]... keys) {
+        if (null == keys || keys.length == 0)
+            return null;
+        ByteArrayHashSet union = new ByteArrayHashSet();
+        for (byte[] key : keys) {
+            ByteSet set = readObjectSet(key);
+            if (null == set)
+                continue;
+            List<byte[]> members;
+            synchronized (set) {
+                members = set.toList();
+            }
+            for (byte[] bs : members)
+                union.add(bs);
+        }
+        return deserializeMembers(union.toList(), type);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 先从源集合移除再加入目标集合，两步之间其他线程可能看到成员不在任何一个集合中。
+     */
+    @Override
+    public int moveObjectSetMember(byte[] source, byte[] dest, Object member) {
+        if (null == source || source.length == 0 || null == dest || dest.length == 0 || null == member)
+            return 0;
+        byte[][] bss = {SerializeUtil.serialize(member)};
+        if (0 == removeObjectSetMembers(new String(source), bss))
+            return 0;
+        addObjectSetMembers(new String(dest), bss);
+        return 1;
+    }
+
+    @Override
+    public boolean isObjectSetMember(byte[] key, Object member) {
+        if (null == member)
+            return false;
+        ByteSet set = readObjectSet(key);
+        if (null == set)
+            return false;
+        byte[] bs = SerializeUtil.serialize(member);
+        synchronized (set) {
+            return set.contains(bs);
+        }
     }
 
     @Override
     public void setStringSet(String key, Set<String> sets) {
-        this.ObjectKVData.put(key, sets);
+        assertKey(key);
+        if (null == sets) {
+            this.del(key);
+            return;
+        }
+        Set<String> stringSet = ConcurrentHashMap.newKeySet(sets.size());
+        stringSet.addAll(sets);
+        byte[] record = null;
+        if (journaling()) {
+            JournalRecord r = JournalRecord.begin(JournalOp.PUT_STRING_SET, key).writeInt(stringSet.size());
+            for (String s : stringSet)
+                r.writeString(s);
+            record = r.end();
+        }
+        putValue(key, stringSet, record);
     }
 
     @Override
     public Set<String> getStringSetAll(String key) {
-        if (isKeyExpired(key))
-            return null;
-        return (Set<String>) this.ObjectKVData.get(key);
+        Set<String> stringSet = (Set<String>) readValue(key);
+        return null == stringSet ? null : new HashSet<String>(stringSet);
     }
 
     @Override
     public void appendStringSetMember(String key, String... strings) {
         if (null == strings)
             return;
-        Set<String> stringSet = (Set<String>) this.ObjectKVData.get(key);
-        if (null == stringSet) {
-            stringSet = new HashSet<String>();
-            this.ObjectKVData.put(key, stringSet);
+        byte[] record = null;
+        if (journaling()) {
+            JournalRecord r = JournalRecord.begin(JournalOp.ADD_STRING_SET, key).writeInt(strings.length);
+            for (String s : strings)
+                r.writeString(s);
+            record = r.end();
+        }
+        Set<String> stringSet = valueOf(key, k -> ConcurrentHashMap.<String>newKeySet());
+        long weight = 0;
+        synchronized (stringSet) {
+            for (String string : strings) {
+                if (stringSet.add(string))
+                    weight += weigh(string);
+            }
+            journal(record);
         }
-        for (String string : strings)
-            stringSet.add(string);
+        recordWeightChange(key, weight);
     }
 
     @Override
     public void removeStringSetMember(String key, String... strings) {
-        if (isKeyExpired(key))
-            return;
         if (null == strings || strings.length == 0)
             return;
-        Set<String> stringSet = (Set<String>) this.ObjectKVData.get(key);
+        Set<String> stringSet = (Set<String>) peekValue(key);
+        if (null == stringSet)
+            return;
+        byte[] record = null;
+        if (journaling()) {
+            JournalRecord r = JournalRecord.begin(JournalOp.REMOVE_STRING_SET, key).writeInt(strings.length);
+            for (String s : strings)
+                r.writeString(s);
+            record = r.end();
+        }
+        long removed = 0;
         synchronized (stringSet) {
-            List<String> mark = new ArrayList<String>();
-            for (int i = 0; i < strings.length; i++) {
-                for (Iterator<String> iterator = stringSet.iterator(); iterator.hasNext(); ) {
-                    String s = iterator.next();
-                    if ((null == strings[i] && strings[i] == s) || (null != strings[i] && strings[i].equals(s))) {
-                        mark.add(s);
-                    }
-                }
+            for (String s : strings) {
+                if (null != s && stringSet.remove(s))
+                    removed += weigh(s);
             }
-            for (String bs : mark)
-                stringSet.remove(bs);
+            journal(record);
         }
+        recordWeightChange(key, -removed);
     }
 
     @Override
     public boolean existsKey(String key) {
+        loadPending(key);
         if (isKeyExpired(key))
             return false;
         return this.ObjectKVData.containsKey(key) || this.hashData.containsKey(key);
     }
 
+    @Override
+    public long getTimeToLive(String key) {
+        if (!existsKey(key))
+            return -2;
+        long deadline = deadlineOf(key);
+        return deadline == 0 ? -1 : Math.max(0, deadline - System.currentTimeMillis());
+    }
+
+    @Override
+    public RefreshAhead getRefreshAhead() {
+        return refreshAhead;
+    }
+
     @Override
     public long getSetSize(String key) {
-        if (isKeyExpired(key))
+        Object set = readValue(key);
+        if (null == set)
             return 0;
-        Set<Object> set = (Set<Object>) this.ObjectKVData.get(key);
-        return null == set ? 0 : set.size();
+        if (set instanceof ByteSet) {
+            synchronized (set) {
+                return ((ByteSet) set).size();
+            }
+        }
+        return ((Set<Object>) set).size();
     }
 
     ////////////////////////////////////////////   SortedObjectSet
 
+    /**
+     * 有序集合中成员的唯一标识，String成员以自身为标识，其他对象以序列化后的字节为标识
+     */
+    private static Object memberKey(Object member) {
+        if (member instanceof String)
+            return member;
+        return ByteBuffer.wrap(SerializeUtil.serialize(member));
+    }
+
+    /**
+     * 获取key对应的有序集合，如果不存在则原子地创建一个新的有序集合
+     */
+    private IndexedSkipList<Object> sortedSetOf(String key) {
+        return valueOf(key, k -> newSortedSet());
+    }
+
+    /**
+     * 创建一个累计成员权重的有序集合
+     */
+    private static IndexedSkipList<Object> newSortedSet() {
+        return new IndexedSkipList<Object>(LocalCacheHelperImpl::weigh);
+    }
+
     @Override
     public <T> void setSortedObjectSet(String key, Map<Long, T> set) {
         if (null == set || set.isEmpty()) {
             this.del(key);
             return;
         }
-        SortedSet<SortedSetBean> sorterset = Collections.synchronizedSortedSet(new TreeSet<SortedSetBean>());
-        this.ObjectKVData.put(key, sorterset);
+        IndexedSkipList<Object> sortedset = newSortedSet();
         for (Map.Entry<Long, T> entry : set.entrySet()) {
-            SortedSetBean sb = new SortedSetBean(entry.getKey(), entry.getValue());
-            sorterset.add(sb);
+            sortedset.add(memberKey(entry.getValue()), entry.getValue(), entry.getKey());
         }
+        putValue(key, sortedset, journaling() ? writeScores(JournalRecord.begin(JournalOp.PUT_SORTED_SET, key), set) : null);
     }
 
     @Override
     public void setStringSortedObjectSet(String key, Map<Long, String> set) {
-        if (null == set || set.isEmpty()) {
-            this.del(key);
-            return;
-        }
-        SortedSet<SortedSetBean> sorterset = Collections.synchronizedSortedSet(new TreeSet<SortedSetBean>());
-        this.ObjectKVData.put(key, sorterset);
-        for (Map.Entry<Long, String> entry : set.entrySet()) {
-            SortedSetBean sb = new SortedSetBean(entry.getKey(), entry.getValue());
-            sorterset.add(sb);
-        }
+        this.setSortedObjectSet(key, set);
     }
 
     @Override
     public <T> void appendSortedObjectSetMember(String key, Map<Long, T> set) {
         if (null == set || set.isEmpty()) return;
-        SortedSet<SortedSetBean> storedset = (SortedSet<SortedSetBean>) this.ObjectKVData.get(key);
-        if (null == storedset) {
-            storedset = Collections.synchronizedSortedSet(new TreeSet<SortedSetBean>());
-            this.ObjectKVData.put(key, storedset);
+        byte[] record = journaling() ? writeScores(JournalRecord.begin(JournalOp.ADD_SORTED_SET, key), set) : null;
+        IndexedSkipList<Object> storedset = sortedSetOf(key);
+        long weight = 0;
+        synchronized (storedset) {
+            for (Map.Entry<Long, T> entry : set.entrySet()) {
+                if (storedset.add(memberKey(entry.getValue()), entry.getValue(), entry.getKey()))
+                    weight += 8 + weigh(entry.getValue());
+            }
+            journal(record);
         }
-        for (Map.Entry<Long, T> entry : set.entrySet()) {
-            SortedSetBean sb = new SortedSetBean(entry.getKey(), entry.getValue());
-            storedset.add(sb);
+        recordWeightChange(key, weight);
+    }
+
+    /**
+     * 写入 int n, n * (long score, item member) 并结束记录
+     */
+    private static <T> byte[] writeScores(JournalRecord record, Map<Long, T> set) {
+        record.writeInt(set.size());
+        for (Map.Entry<Long, T> entry : set.entrySet())
+            record.writeLong(entry.getKey()).writeItem(entry.getValue());
+        return record.end();
+    }
+
+    /**
+     * 读取 int n, n * (long score, item member)
+     */
+    private static Map<Long, Object> readScores(JournalRecord.Reader record) {
+        int size = record.readInt();
+        Map<Long, Object> set = new HashMap<Long, Object>(Math.max(16, size * 4 / 3 + 1));
+        for (int i = 0; i < size; i++) {
+            long score = record.readLong();
+            set.put(score, record.readItem());
         }
+        return set;
     }
 
     @Override
     public void appendStringSortedObjectSetMember(String key,
                                                   Map<Long, String> set) {
-        if (null == set || set.isEmpty()) return;
-        SortedSet<SortedSetBean> storedset = (SortedSet<SortedSetBean>) this.ObjectKVData.get(key);
-        if (null == storedset) {
-            storedset = Collections.synchronizedSortedSet(new TreeSet<SortedSetBean>());
-            this.ObjectKVData.put(key, storedset);
-        }
-        for (Map.Entry<Long, String> entry : set.entrySet()) {
-            SortedSetBean sb = new SortedSetBean(entry.getKey(), entry.getValue());
-            storedset.add(sb);
-        }
+        this.appendSortedObjectSetMember(key, set);
     }
 
     @Override
     public <T> void removeSortedObjectSetMember(String key, T... members) {
-        if (isKeyExpired(key))
-            return;
         if (null == members || members.length == 0) return;
-        SortedSet<SortedSetBean> storedset = (SortedSet<SortedSetBean>) this.ObjectKVData.get(key);
-        if (null == storedset || storedset.isEmpty()) return;
-        for (Iterator<SortedSetBean> it = storedset.iterator(); it.hasNext(); ) {
-            Object obj = it.next().getMember();
-            byte[] objBytes = null;
-            if (null != obj)
-                objBytes = SerializeUtil.serialize(obj);
+        IndexedSkipList<Object> storedset = (IndexedSkipList<Object>) peekValue(key);
+        if (null == storedset) return;
+        byte[] record = null;
+        if (journaling()) {
+            JournalRecord r = JournalRecord.begin(JournalOp.REMOVE_SORTED_SET, key).writeInt(members.length);
+            for (T member : members)
+                r.writeItem(member);
+            record = r.end();
+        }
+        long removed = 0;
+        synchronized (storedset) {
             for (T member : members) {
-                if (member == obj && obj == null) {
-                    it.remove();
-                    break;
-                }
-                if (null == member || null == obj) {
-                    continue;
-                } else {
-                    byte[] memberBytes = SerializeUtil.serialize(member);
-                    if (byteEqual(memberBytes, objBytes)) {
-                        it.remove();
-                        break;
-                    }
-                }
+                Object obj = storedset.remove(memberKey(member));
+                if (null != obj)
+                    removed += 8 + weigh(obj);
             }
-
+            journal(record);
         }
+        recordWeightChange(key, -removed);
     }
 
     @Override
     public void removeStringSortedObjectSetMember(String key, String... members) {
-        if (isKeyExpired(key))
-            return;
-        if (null == members || members.length == 0) return;
-        SortedSet<SortedSetBean> storedset = (SortedSet<SortedSetBean>) this.ObjectKVData.get(key);
-        if (null == storedset || storedset.isEmpty()) return;
-        for (Iterator<SortedSetBean> it = storedset.iterator(); it.hasNext(); ) {
-            String obj = (String) it.next().getMember();
-            for (String member : members) {
-                if (member == obj && obj == null) {
-                    it.remove();
-                    break;
-                }
-                if (null == member || null == obj) {
-                    continue;
-                } else {
-                    if (obj.equals(member)) {
-                        it.remove();
-                        break;
-                    }
-                }
-            }
-
-        }
+        this.removeSortedObjectSetMember(key, (Object[]) members);
     }
 
     @Override
     public <T> void removeSortedObjectSetMember(String key, long start, long end) {
-        if (isKeyExpired(key))
-            return;
-        SortedSet<SortedSetBean> storedset = (SortedSet<SortedSetBean>) this.ObjectKVData.get(key);
+        IndexedSkipList<Object> storedset = (IndexedSkipList<Object>) peekValue(key);
         if (null == storedset) return;
-        if (start >= end && end != -1) return;
-        if (start >= storedset.size())
-            return;
-        if (start < 0) start = 0;
-        if (end > storedset.size())
-            end = storedset.size();
-        if (end == -1) end = storedset.size();
-        long iter_count = 0;
-        for (Iterator<SortedSetBean> it = storedset.iterator(); it.hasNext(); ) {
-            it.next();
-            if (iter_count >= start && iter_count < end)
-                it.remove();
-            iter_count++;
+        long removed = 0;
+        synchronized (storedset) {
+            for (Object obj : storedset.removeRange(start, end))
+                removed += 8 + weigh(obj);
+            if (journaling())
+                journal(JournalRecord.begin(JournalOp.REMOVE_SORTED_SET_RANGE, key).writeLong(start).writeLong(end).end());
         }
+        recordWeightChange(key, -removed);
     }
 
     @Override
     public void removeStringSortedObjectSetMember(String key, long start,
                                                   long end) {
-        if (isKeyExpired(key))
-            return;
-        SortedSet<SortedSetBean> storedset = (SortedSet<SortedSetBean>) this.ObjectKVData.get(key);
-        if (null == storedset) return;
-        if (start >= end && end != -1) return;
-        if (start >= storedset.size())
-            return;
-        if (start < 0) start = 0;
-        if (end > storedset.size())
-            end = storedset.size();
-        if (end == -1) end = storedset.size();
-        long iter_count = 0;
-        for (Iterator<SortedSetBean> it = storedset.iterator(); it.hasNext(); ) {
-            it.next();
-            if (iter_count >= start && iter_count < end)
-                it.remove();
-            iter_count++;
-        }
+        this.removeSortedObjectSetMember(key, start, end);
     }
 
     @Override
     public <T> Long increSortedObjectSetMemberScore(String key, T member,
                                                     long incr) {
         if (null == key || null == member) return 0L;
-        SortedSet<SortedSetBean> storedset = (SortedSet<SortedSetBean>) this.ObjectKVData.get(key);
-        if (null == storedset) {
-            storedset = Collections.synchronizedSortedSet(new TreeSet<SortedSetBean>());
-            this.ObjectKVData.put(key, storedset);
-        }
-        byte[] memberBytes = SerializeUtil.serialize(member);
-        for (Iterator<SortedSetBean> it = storedset.iterator(); it.hasNext(); ) {
-            SortedSetBean sb = it.next();
-            Object iterMember = sb.getMember();
-            byte[] iterMemberBytes = SerializeUtil.serialize(iterMember);
-            if (byteEqual(memberBytes, iterMemberBytes)) {
-                sb.setScore(sb.getScore() + incr);
-                it.remove();
-                storedset.add(sb);
-                return sb.getScore();
-            }
+        IndexedSkipList<Object> storedset = sortedSetOf(key);
+        Object memberKey = memberKey(member);
+        boolean exists;
+        long score;
+        synchronized (storedset) {
+            exists = storedset.contains(memberKey);
+            score = storedset.increment(memberKey, member, incr);
+            if (journaling())
+                journal(JournalRecord.begin(JournalOp.SET_SORTED_SET_SCORE, key).writeItem(member).writeLong(score).end());
         }
-
-        Map<Long, Object> map = new HashMap<Long, Object>();
-        map.put(incr, member);
-        this.appendSortedObjectSetMember(key, map);
-        return incr;
+        if (!exists)
+            recordWeightChange(key, 8 + weigh(member));
+        return score;
     }
 
     @Override
     public Long increStringSortedObjectSetMemberScore(String key,
                                                       String member, long incr) {
-        if (null == key || null == member) return 0L;
-        SortedSet<SortedSetBean> storedset = (SortedSet<SortedSetBean>) this.ObjectKVData.get(key);
-        if (null == storedset) {
-            storedset = Collections.synchronizedSortedSet(new TreeSet<SortedSetBean>());
-            this.ObjectKVData.put(key, storedset);
-        }
-        for (Iterator<SortedSetBean> it = storedset.iterator(); it.hasNext(); ) {
-            SortedSetBean sb = it.next();
-            String iterMember = (String) sb.getMember();
-            if (member.equals(iterMember)) {
-                sb.setScore(sb.getScore() + incr);
-                it.remove();
-                storedset.add(sb);
-                return sb.getScore();
-            }
-        }
-
-        Map<Long, Object> map = new HashMap<Long, Object>();
-        map.put(incr, member);
-        this.appendSortedObjectSetMember(key, map);
-        return incr;
+        return this.increSortedObjectSetMemberScore(key, member, incr);
     }
 
     @Override
     public <T> List<T> getSortedObjectSetMember(String key, long start, long end, Class<T> type) {
-        if (isKeyExpired(key))
-            return null;
-        SortedSet<SortedSetBean> storedset = (SortedSet<SortedSetBean>) this.ObjectKVData.get(key);
+        IndexedSkipList<T> storedset = (IndexedSkipList<T>) readValue(key);
         if (null == storedset) return null;
-        if (start >= end && end != -1) return null;
-        if (start >= storedset.size())
-            return null;
-        if (start < 0) start = 0;
-        if (end > storedset.size())
-            end = storedset.size();
-        if (end == -1) end = storedset.size();
-        int maxfetch = 0;
-        List<T> tmpstoredset = new ArrayList<T>();
-        for (Iterator<SortedSetBean> it = storedset.iterator(); it.hasNext(); ) {
-            SortedSetBean sb = it.next();
-            if (maxfetch >= start && maxfetch < end)
-                tmpstoredset.add((T) sb.getMember());
-            maxfetch++;
-            if (maxfetch >= end) break;
-        }
-        return tmpstoredset;
+        return storedset.range(start, end, false);
     }
 
     @Override
     public <T> List<T> getReverseSortedObjectSetMember(String key, long start,
                                                        long end, Class<T> type) {
-        if (isKeyExpired(key))
-            return null;
-        SortedSet<SortedSetBean> storedset = (SortedSet<SortedSetBean>) this.ObjectKVData.get(key);
+        IndexedSkipList<T> storedset = (IndexedSkipList<T>) readValue(key);
         if (null == storedset) return null;
-        if (start >= end && end != -1) return null;
-        if (start >= storedset.size())
-            return null;
-        if (start < 0) start = 0;
-        if (end > storedset.size())
-            end = storedset.size();
-        if (end == -1) end = storedset.size();
-        int maxfetch = 0;
-        long tmp = start;
-        start = storedset.size() - end;
-        end = storedset.size() - tmp;
-        //end as start and start as end
-        List<T> tmpstoredset = new ArrayList<T>();
-        for (Iterator<SortedSetBean> it = storedset.iterator(); it.hasNext(); ) {
-            SortedSetBean sb = it.next();
-            if (maxfetch >= start && maxfetch < end)
-                tmpstoredset.add(0, (T) sb.getMember());
-            maxfetch++;
-            if (maxfetch >= end) break;
-        }
-        return tmpstoredset;
+        return storedset.range(start, end, true);
     }
 
     @Override
     public List<String> getReverseStringSortedObjectSetMember(String key,
                                                               long start, long end) {
-        if (isKeyExpired(key))
-            return null;
-        SortedSet<SortedSetBean> storedset = (SortedSet<SortedSetBean>) this.ObjectKVData.get(key);
-        if (null == storedset) return null;
-        if (start >= end && end != -1) return null;
-        if (start >= storedset.size())
-            return null;
-        if (start < 0) start = 0;
-        if (end > storedset.size())
-            end = storedset.size();
-        if (end == -1) end = storedset.size();
-        int maxfetch = 0;
-        long tmp = start;
-        start = storedset.size() - end;
-        end = storedset.size() - tmp;
-        //end as start and start as end
-        List<String> tmpstoredset = new ArrayList<String>();
-        for (Iterator<SortedSetBean> it = storedset.iterator(); it.hasNext(); ) {
-            SortedSetBean sb = it.next();
-            if (maxfetch >= start && maxfetch < end)
-                tmpstoredset.add(0, (String) sb.getMember());
-            maxfetch++;
-            if (maxfetch >= end) break;
-        }
-        return tmpstoredset;
+        return this.getReverseSortedObjectSetMember(key, start, end, String.class);
     }
 
 
     @Override
     public List<String> getStringSortedObjectSetMember(String key, long start,
                                                        long end) {
-        if (isKeyExpired(key))
-            return null;
-        SortedSet<SortedSetBean> storedset = (SortedSet<SortedSetBean>) this.ObjectKVData.get(key);
+        return this.getSortedObjectSetMember(key, start, end, String.class);
+    }
+
+    @Override
+    public <T> List<T> getSortedObjectSetMemberByScore(String key, long min, long max, Class<T> type) {
+        IndexedSkipList<T> storedset = (IndexedSkipList<T>) readValue(key);
         if (null == storedset) return null;
-        if (start >= end && end != -1) return null;
-        if (start >= storedset.size())
-            return null;
-        if (start < 0) start = 0;
-        if (end > storedset.size())
-            end = storedset.size();
-        if (end == -1) end = storedset.size();
-        int maxfetch = 0;
-        List<String> tmpstoredset = new ArrayList<String>();
-        for (Iterator<SortedSetBean> it = storedset.iterator(); it.hasNext(); ) {
-            tmpstoredset.add((String) it.next().getMember());
-            maxfetch++;
-            if (maxfetch == (end - start)) break;
-        }
-        return tmpstoredset;
+        List<T> members = storedset.rangeByScore(min, max);
+        return members.isEmpty() ? null : members;
+    }
+
+    @Override
+    public List<String> getStringSortedObjectSetMemberByScore(String key, long min, long max) {
+        return this.getSortedObjectSetMemberByScore(key, min, max, String.class);
+    }
+
+    @Override
+    public <T> Long getSortedObjectSetMemberRank(String key, T member) {
+        IndexedSkipList<Object> storedset = (IndexedSkipList<Object>) readValue(key);
+        if (null == storedset) return null;
+        return storedset.rank(memberKey(member), false);
+    }
+
+    @Override
+    public Long getStringSortedObjectSetMemberRank(String key, String member) {
+        return this.getSortedObjectSetMemberRank(key, member);
+    }
+
+    @Override
+    public <T> Long getReverseSortedObjectSetMemberRank(String key, T member) {
+        IndexedSkipList<Object> storedset = (IndexedSkipList<Object>) readValue(key);
+        if (null == storedset) return null;
+        return storedset.rank(memberKey(member), true);
+    }
+
+    @Override
+    public Long getReverseStringSortedObjectSetMemberRank(String key, String member) {
+        return this.getReverseSortedObjectSetMemberRank(key, member);
+    }
+
+    @Override
+    public <T> Long getSortedObjectSetMemberScore(String key, T member) {
+        IndexedSkipList<Object> storedset = (IndexedSkipList<Object>) readValue(key);
+        if (null == storedset) return null;
+        return storedset.score(memberKey(member));
+    }
+
+    @Override
+    public Long getStringSortedObjectSetMemberScore(String key, String member) {
+        return this.getSortedObjectSetMemberScore(key, member);
     }
 
     public long getSortedSetSize(String key) {
-        if (isKeyExpired(key))
-            return 0;
-        SortedSet<SortedSetBean> storedset = (SortedSet<SortedSetBean>) this.ObjectKVData.get(key);
+        IndexedSkipList<Object> storedset = (IndexedSkipList<Object>) readValue(key);
         return null == storedset ? 0 : storedset.size();
     }
 
     @Override
     public void del(String key) {
-        this.ObjectKVData.remove(key);
-        this.hashData.remove(key);
-        this.expiredKeyMap.remove(key);
+        loadPending(key);
+        Object value;
+        if (!journaling()) {
+            value = this.ObjectKVData.remove(key);
+        } else {
+            byte[] record = JournalRecord.begin(JournalOp.DEL, key).end();
+            final Object[] removed = new Object[1];
+            this.ObjectKVData.compute(key, (k, v) -> {
+                removed[0] = v;
+                journal(record);
+                return null;
+            });
+            value = removed[0];
+        }
+        Map<Object, Object> map = this.hashData.remove(key);
+        Timeout<String> timeout = this.expiredKeyMap.remove(key);
+        if (null != timeout)
+            timeout.cancel();
+        release(value);
+        if (null != value || null != map) {
+            recordRemove(key);
+            indexRemove(key);
+        }
     }
 
     @Override
     public void hdel(String key, String field) {
-        if (isKeyExpired(key))
-            return;
-        Map<Object, Object> map = this.hashData.get(key);
-        if (null == map)
+        if (null == field)
             return;
-        map.remove(key);
+        removeHashField(key, field);
     }
 
     @Override
     public void hdel(String key, Object field) {
         assertKey(key);
-        Map<Object, Object> itemMap = hashData.get(key);
-        if (null == itemMap) {
+        if (null == peekHash(key)) {
             return;
         }
-        byte[] fieldBytes = SerializeUtil.serialize(field);
-        assertKey(fieldBytes);
-        String fieldMd5 = Md5Util.getMd5(fieldBytes);
-        itemMap.remove(fieldMd5);
+        removeHashField(key, FieldKey.of(field));
+        if (legacyFieldKeys)
+            removeHashField(key, legacyField(field));
     }
 
 
@@ -1056,37 +1818,39 @@ public class LocalCacheHelperImpl implements LocalCacheHelper {
     public void incr(String key, Long value) {
         if (null == value)
             return;
-        String _stored = (String) ObjectKVData.get(key);
-        if (null == _stored) {
-            _stored = "0";
-        }
-        if (isKeyExpired(key))
-            _stored = "0";
-        if (!_stored.matches("[0-9]+"))
-            throw new IllegalStateException("Target type is not a number.");
-        Long stored = Long.valueOf(_stored);
-        this.ObjectKVData.put(key, String.valueOf(stored + value));
+        expireIfNeeded(key);
+        final boolean[] created = new boolean[1];
+        Object result = this.ObjectKVData.compute(key, (k, v) -> {
+            created[0] = null == v;
+            String _stored = null == v ? "0" : (String) v;
+            if (!_stored.matches("[0-9]+"))
+                throw new IllegalStateException("Target type is not a number.");
+            String sum = String.valueOf(Long.valueOf(_stored) + value);
+            if (journaling())
+                journal(JournalRecord.begin(JournalOp.PUT, k).writeItem(sum).end());
+            return sum;
+        });
+        recordWrite(key, result);
+        if (created[0])
+            indexAdd(key);
     }
 
     @Override
     public void hincr(String key, String field, Long value) {
         if (null == value)
             return;
-        Map<Object, Object> map = this.hashData.get(key);
-        if (null == map) {
-            map = new HashMap<Object, Object>();
-            map.put(field, value);
-        } else {
-            String _stored = (String) map.get(field);
-            if (_stored == null)
-                _stored = "0";
-            if (isKeyExpired(key))
-                _stored = "0";
+        final long[] delta = new long[1];
+        hashOf(key).compute(field, (k, v) -> {
+            String _stored = null == v ? "0" : String.valueOf(v);
             if (!_stored.matches("[0-9]+"))
                 throw new IllegalStateException("Target type is not a number.");
-            Long store = Long.valueOf(String.valueOf(_stored));
-            map.put(field, (store + value));
-        }
+            String result = String.valueOf(Long.valueOf(_stored) + value);
+            delta[0] = weigh(result) - (null == v ? -weigh(k) : weigh(v));
+            if (journaling())
+                journal(JournalRecord.begin(JournalOp.HSET, key).writeItem(k).writeItem(result).end());
+            return result;
+        });
+        recordWeightChange(key, delta[0]);
     }
 
 
@@ -1097,72 +1861,691 @@ public class LocalCacheHelperImpl implements LocalCacheHelper {
      * @return
      */
     private boolean isKeyExpired(String key) {
-        Long expiredTime = expiredKeyMap.get(key);
-        if (null == expiredTime)
+        Timeout<String> timeout = expiredKeyMap.get(key);
+        if (null == timeout)
             return false;
-        return System.currentTimeMillis() > expiredTime ? true : false;
+        return timeout.isExpired(System.currentTimeMillis());
     }
 
-    public String info() {
-        return "{\"keys\":\"" + (ObjectKVData.size() + hashData.size()) + "\"}";
+    /**
+     * 如果key已过期但还未被时间轮删除，则立即删除
+     */
+    private void expireIfNeeded(String key) {
+        loadPending(key);
+        Timeout<String> timeout = expiredKeyMap.get(key);
+        if (null != timeout && timeout.isExpired(System.currentTimeMillis()))
+            expire(timeout);
     }
 
     /**
-     * 定时器任务，定时清理过期key
-     *
-     * @author Hetianyi
+     * 设置key的值，sec大于0时同时设置过期时间，否则清除原有的过期时间。<br>
+     * 值和过期任务在expiredKeyMap中该key所在的桶内一起更新，不会与时间轮的过期删除交错。
      */
-    class CleanKeyTask extends TimerTask {
-        int cleancount;
+    private void putWithExpire(String key, Object value, int sec) {
+        putWithDeadline(key, value, sec > 0 ? System.currentTimeMillis() + 1000L * sec : 0);
+    }
 
-        @Override
-        public void run() {
-            logger.debug("Cleaning expired keys...");
-            cleancount = 0;
-            String key = null;
-            String okey = null;
-            Long oval = null;
-            synchronized (expiredKeyMap) {
-                for (Iterator<String> outerIter = expiredKeyMap.keySet().iterator(); outerIter.hasNext(); ) {
-                    okey = outerIter.next();
-                    oval = expiredKeyMap.get(okey);
-                    if (System.currentTimeMillis() > oval) {
-                        ObjectKVData.remove(okey);
-                        hashData.remove(okey);
-                        outerIter.remove();
-                        cleancount++;
-                        logger.debug("del key -> {}", key);
-                    }
+    /**
+     * 设置key的值，deadline为过期时间点（毫秒时间戳），0表示不过期并清除原有的过期时间
+     */
+    private void putWithDeadline(String key, Object value, long deadline) {
+        loadPending(key);
+        byte[] record = journaling() ? JournalRecord.begin(JournalOp.SET, key).writeItem(value).writeLong(deadline).end() : null;
+        final Object[] replaced = new Object[1];
+        if (deadline > 0) {
+            expiredKeyMap.compute(key, (k, old) -> {
+                if (null != old)
+                    old.cancel();
+                replaced[0] = replaceValue(k, value, record);
+                return expireWheel.schedule(k, deadline);
+            });
+        } else if (expiredKeyMap.containsKey(key)) {
+            expiredKeyMap.compute(key, (k, old) -> {
+                if (null != old)
+                    old.cancel();
+                replaced[0] = replaceValue(k, value, record);
+                return null;
+            });
+        } else {
+            replaced[0] = replaceValue(key, value, record);
+        }
+        release(replaced[0]);
+        recordWrite(key, value);
+        if (null == replaced[0])
+            indexAdd(key);
+    }
+
+    /**
+     * 时间轮到期回调，只有key当前的过期任务仍然是该任务时才删除key
+     */
+    private boolean expire(Timeout<String> timeout) {
+        final boolean[] expired = new boolean[1];
+        final Object[] removed = new Object[1];
+        expiredKeyMap.computeIfPresent(timeout.getKey(), (k, current) -> {
+            if (current != timeout)
+                return current;
+            removed[0] = ObjectKVData.remove(k);
+            hashData.remove(k);
+            expired[0] = true;
+            return null;
+        });
+        release(removed[0]);
+        if (expired[0]) {
+            recordRemove(timeout.getKey());
+            indexRemove(timeout.getKey());
+            logger.debug("del key -> {}", timeout.getKey());
+        }
+        return expired[0];
+    }
+
+    /**
+     * 淘汰回调，在淘汰策略的锁内调用
+     */
+    private void evict(String key) {
+        Object value = ObjectKVData.remove(key);
+        hashData.remove(key);
+        Timeout<String> timeout = expiredKeyMap.remove(key);
+        if (null != timeout)
+            timeout.cancel();
+        release(value);
+        indexRemove(key);
+        logger.debug("evict key -> {}", key);
+    }
+
+    /**
+     * 快照中过期时间点的取值，0表示不过期
+     */
+    private long deadlineOf(String key) {
+        Timeout<String> timeout = expiredKeyMap.get(key);
+        return null == timeout ? 0 : timeout.getDeadline();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 先写入同目录下的临时文件，写完后替换原文件。各key分别在各自的锁内复制，快照不是全局同一时刻的。
+     */
+    @Override
+    public long snapshot(String path) {
+        loadAllPending();
+        File file = new File(path);
+        File tmp = new File(path + ".tmp");
+        long now = System.currentTimeMillis();
+        long begin = now;
+        int count;
+        int flags = legacyFieldKeys ? LocalCacheSnapshot.FLAG_LEGACY_FIELD_KEYS : 0;
+        try (LocalCacheSnapshot.Writer writer = new LocalCacheSnapshot.Writer(tmp, flags)) {
+            for (Entry<String, Object> entry : ObjectKVData.entrySet()) {
+                long deadline = deadlineOf(entry.getKey());
+                if (deadline > 0 && deadline <= now)
+                    continue;
+                writeSnapshotValue(writer, entry.getKey(), deadline, entry.getValue());
+            }
+            for (Entry<String, Map<Object, Object>> entry : hashData.entrySet()) {
+                long deadline = deadlineOf(entry.getKey());
+                if (deadline > 0 && deadline <= now)
+                    continue;
+                writer.writeHash(entry.getKey(), deadline, new HashMap<Object, Object>(entry.getValue()));
+            }
+            count = writer.getCount();
+        } catch (IOException e) {
+            tmp.delete();
+            throw new IllegalStateException("Failed to write snapshot " + path, e);
+        }
+        try {
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write snapshot " + path, e);
+        }
+        logger.info("Local cache snapshot {} written, {} entries in {}ms.", path, count,
+                System.currentTimeMillis() - begin);
+        return count;
+    }
 
+    /**
+     * 按值的存储形式写入快照，容器在其自身的锁内复制
+     */
+    private void writeSnapshotValue(LocalCacheSnapshot.Writer writer, String key, long deadline, Object value)
+            throws IOException {
+        if (value instanceof String) {
+            writer.writeString(key, deadline, (String) value);
+        } else if (value instanceof ByteSet) {
+            List<byte[]> members;
+            synchronized (value) {
+                members = ((ByteSet) value).toList();
+            }
+            writer.writeObjectSet(key, deadline, members);
+        } else if (value instanceof IndexedSkipList) {
+            List<SortedSetBean> members = ((IndexedSkipList<Object>) value).rangeWithScores(0, -1);
+            writer.writeSortedSet(key, deadline, null == members ? new ArrayList<SortedSetBean>(0) : members);
+        } else if (value instanceof ConcurrentHashMap.KeySetView) {
+            writer.writeStringSet(key, deadline, new ArrayList<String>((Set<String>) value));
+        } else if (value instanceof List) {
+            List<Object> copy;
+            synchronized (value) {
+                copy = new ArrayList<Object>((List<Object>) value);
+            }
+            if (value instanceof OffHeapByteList || (!copy.isEmpty() && copy.get(0) instanceof byte[])) {
+                writer.writeObjectList(key, deadline, (List<byte[]>) (List<?>) copy);
+            } else if (allStrings(copy)) {
+                writer.writeStringList(key, deadline, (List<String>) (List<?>) copy);
+            } else {
+                writer.writeObject(key, deadline, Codecs.encode(value));
+            }
+        } else {
+            writer.writeObject(key, deadline, Codecs.encode(value));
+        }
+    }
+
+    private static boolean allStrings(List<Object> list) {
+        for (Object o : list) {
+            if (!(o instanceof String))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 只读取快照的索引，各key在首次访问时加载，同时启动后台线程加载其余key。
+     * 恢复之后写入的值优先于快照中的值，快照中已过期的key被丢弃。
+     */
+    @Override
+    public synchronized long restore(String path) {
+        File file = new File(path);
+        if (!file.isFile()) {
+            logger.info("Local cache snapshot {} not found, nothing to restore.", path);
+            return 0;
+        }
+        long begin = System.currentTimeMillis();
+        LocalCacheSnapshot.Reader reader;
+        try {
+            reader = new LocalCacheSnapshot.Reader(file, snapshotValueFactory);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open snapshot " + path, e);
+        }
+        if ((reader.getFlags() & LocalCacheSnapshot.FLAG_LEGACY_FIELD_KEYS) != 0)
+            enableLegacyFieldKeys("Snapshot " + path);
+        Map<String, LocalCacheSnapshot.Entry> index = reader.readIndex();
+        loadAllPending();
+        final PendingSnapshot pending = new PendingSnapshot(reader, index);
+        pendingSnapshot = pending;
+        logger.info("Local cache snapshot {} mapped, {} keys indexed in {}ms.", path, index.size(),
+                System.currentTimeMillis() - begin);
+        Thread loader = new Thread(() -> {
+            long start = System.currentTimeMillis();
+            for (String key : pending.index.keySet())
+                loadPending(pending, key);
+            finishPending(pending);
+            logger.info("Local cache snapshot loaded in {}ms.", System.currentTimeMillis() - start);
+        }, "cache-helper-snapshot-loader");
+        loader.setDaemon(true);
+        loader.start();
+        return index.size();
+    }
+
+    /**
+     * 如果key还在待加载的快照中，则立即加载
+     */
+    private void loadPending(String key) {
+        PendingSnapshot pending = pendingSnapshot;
+        if (null != pending)
+            loadPending(pending, key);
+    }
+
+    private void loadPending(PendingSnapshot pending, String key) {
+        final Object[] loaded = new Object[2];
+        pending.index.computeIfPresent(key, (k, entry) -> {
+            install(pending.reader, k, entry, loaded);
+            return null;
+        });
+        if (null != loaded[0])
+            recordWrite(key, loaded[0]);
+        if (null != loaded[1]) {
+            if (null != loaded[0])
+                recordWeightChange(key, weigh(loaded[1]));
+            else
+                recordWrite(key, loaded[1]);
+        }
+        if (null != loaded[0] || null != loaded[1])
+            indexAdd(key);
+    }
+
+    /**
+     * 把快照中的一个key写入缓存，已存在的值（恢复后写入的）不被覆盖
+     */
+    private void install(LocalCacheSnapshot.Reader reader, String key, LocalCacheSnapshot.Entry entry,
+                         Object[] loaded) {
+        long now = System.currentTimeMillis();
+        for (LocalCacheSnapshot.Entry e = entry; null != e; e = e.getNext()) {
+            final long deadline = e.getDeadline();
+            if (deadline > 0 && deadline <= now)
+                continue;
+            Object value;
+            try {
+                value = reader.read(e);
+            } catch (RuntimeException ex) {
+                logger.warn("Failed to load key " + key + " from snapshot.", ex);
+                continue;
+            }
+            if (e.getType() == LocalCacheSnapshot.TYPE_HASH) {
+                if (null != hashData.putIfAbsent(key, (Map<Object, Object>) value))
+                    continue;
+                loaded[1] = value;
+            } else {
+                if (null != ObjectKVData.putIfAbsent(key, value)) {
+                    release(value);
+                    continue;
                 }
+                loaded[0] = value;
+            }
+            if (deadline > 0)
+                expiredKeyMap.computeIfAbsent(key, k -> expireWheel.schedule(k, deadline));
+        }
+    }
+
+    /**
+     * 加载快照中所有剩余的key
+     */
+    private void loadAllPending() {
+        PendingSnapshot pending = pendingSnapshot;
+        if (null == pending)
+            return;
+        for (String key : pending.index.keySet())
+            loadPending(pending, key);
+        finishPending(pending);
+    }
+
+    private synchronized void finishPending(PendingSnapshot pending) {
+        if (pendingSnapshot == pending && pending.index.isEmpty()) {
+            pendingSnapshot = null;
+            pending.reader.close();
+        }
+    }
+
+    /**
+     * 作为写日志重放目标的视图
+     */
+    LocalCacheJournal.Replica replica() {
+        return new LocalCacheJournal.Replica() {
+            @Override
+            public long restore(String path) {
+                return LocalCacheHelperImpl.this.restore(path);
+            }
+
+            @Override
+            public void replay(JournalRecord.Reader record) {
+                LocalCacheHelperImpl.this.replay(record);
+            }
+
+            @Override
+            public long snapshot(String path) {
+                return LocalCacheHelperImpl.this.snapshot(path);
+            }
+
+            @Override
+            public void legacyFieldKeys() {
+                enableLegacyFieldKeys("Journal");
+            }
+
+            @Override
+            public void close() {
+                expireWheel.stop();
+            }
+        };
+    }
+
+    /**
+     * 重放一条写日志记录，过期时间点已过的值直接删除
+     */
+    private void replay(JournalRecord.Reader record) {
+        String key = record.getKey();
+        switch (record.getOp()) {
+            case SET: {
+                Object value = record.readItem();
+                long deadline = record.readLong();
+                if (deadline > 0 && deadline <= System.currentTimeMillis())
+                    del(key);
+                else
+                    putWithDeadline(key, value, deadline);
+                break;
+            }
+            case PUT:
+                putValue(key, record.readItem(), null);
+                break;
+            case PUT_STRING_LIST:
+                setStringList(key, Arrays.asList(readStringArray(record)));
+                break;
+            case PUT_OBJECT_LIST:
+                putObjectList(key, readBytesArray(record));
+                break;
+            case PUT_STRING_SET:
+                setStringSet(key, new HashSet<String>(Arrays.asList(readStringArray(record))));
+                break;
+            case PUT_OBJECT_SET:
+                putObjectSet(key, readBytesArray(record));
+                break;
+            case PUT_SORTED_SET:
+                setSortedObjectSet(key, readScores(record));
+                break;
+            case APPEND_STRING_LIST: {
+                boolean tail = record.readBoolean();
+                appendStringListItem(key, tail, readStringArray(record));
+                break;
+            }
+            case APPEND_OBJECT_LIST: {
+                boolean tail = record.readBoolean();
+                appendObjectList(key, tail, readBytesArray(record));
+                break;
+            }
+            case TRIM_LIST: {
+                int start = record.readInt();
+                trimList(key, start, record.readInt());
+                break;
+            }
+            case REMOVE_STRING_LIST_ITEM: {
+                int count = record.readInt();
+                removeRepeatStringListItem(key, count, record.readString());
+                break;
+            }
+            case REMOVE_OBJECT_LIST_ITEM: {
+                int count = record.readInt();
+                removeObjectListItem(key, count, record.readBytes());
+                break;
             }
-            logger.debug("Clean total keys : {}", cleancount);
+            case ADD_STRING_SET:
+                appendStringSetMember(key, readStringArray(record));
+                break;
+            case REMOVE_STRING_SET:
+                removeStringSetMember(key, readStringArray(record));
+                break;
+            case ADD_OBJECT_SET:
+                addObjectSetMembers(key, readBytesArray(record));
+                break;
+            case REMOVE_OBJECT_SET:
+                removeObjectSetMembers(key, readBytesArray(record));
+                break;
+            case ADD_SORTED_SET:
+                appendSortedObjectSetMember(key, readScores(record));
+                break;
+            case REMOVE_SORTED_SET: {
+                Object[] members = new Object[record.readInt()];
+                for (int i = 0; i < members.length; i++)
+                    members[i] = record.readItem();
+                removeSortedObjectSetMember(key, members);
+                break;
+            }
+            case REMOVE_SORTED_SET_RANGE: {
+                long start = record.readLong();
+                removeSortedObjectSetMember(key, start, record.readLong());
+                break;
+            }
+            case SET_SORTED_SET_SCORE: {
+                Object member = record.readItem();
+                long score = record.readLong();
+                // 与追加成员同一路径：持有集合的锁，新成员计入权重
+                appendSortedObjectSetMember(key, Collections.singletonMap(score, member));
+                break;
+            }
+            case HSET: {
+                Object field = record.readItem();
+                putHashField(key, field, record.readItem());
+                break;
+            }
+            case HDEL:
+                removeHashField(key, record.readItem());
+                break;
+            case DEL_HASH:
+                setMap(key, null);
+                break;
+            case DEL:
+                del(key);
+                break;
+            case EXPIRE:
+                expireAt(key, record.readLong());
+                break;
+            default:
+                throw new IllegalStateException("Unsupported journal op " + record.getOp());
+        }
+    }
+
+    /**
+     * 注册读取时才计算的统计项，需要在淘汰策略、堆外存储等初始化之后调用
+     */
+    private void registerGauges() {
+        metrics.registerGauge("keys", () -> ObjectKVData.size() + hashData.size());
+        metrics.registerGauge("expiringKeys", expiredKeyMap::size);
+        metrics.registerGauge("expiredKeys", expireWheel::getExpiredCount);
+        metrics.registerGauge("expireLagMaxMs", expireWheel::getMaxLagMillis);
+        if (null != evictionPolicy) {
+            metrics.registerGauge("weightedSize", evictionPolicy::weightedSize);
+            metrics.registerGauge("evictedKeys", evictionPolicy::getEvictionCount);
+            metrics.registerGauge("evictedWeight", evictionPolicy::getEvictionWeight);
+        }
+        if (null != offHeapAllocator) {
+            metrics.registerGauge("offHeapUsedBytes", offHeapAllocator::getUsedBytes);
+            metrics.registerGauge("offHeapFailedAllocations", offHeapAllocator::getFailedAllocationCount);
         }
+        metrics.registerGauge("journalWrittenBytes", () -> {
+            LocalCacheJournal localCacheJournal = journal;
+            return null == localCacheJournal ? 0 : localCacheJournal.getWrittenBytes();
+        });
     }
 
     @Override
-    public void exKey(String key, int sec) {
-        if (sec > 0) {
-            expiredKeyMap.put(key, System.currentTimeMillis() + 1000 * sec);
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    public String info() {
+        StringBuilder info = new StringBuilder();
+        info.append("{\"keys\":\"").append(ObjectKVData.size() + hashData.size()).append("\"")
+                .append(",\"expiringKeys\":\"").append(expiredKeyMap.size()).append("\"")
+                .append(",\"expiredKeys\":\"").append(expireWheel.getExpiredCount()).append("\"")
+                .append(",\"expireLagLastMs\":\"").append(expireWheel.getLastLagMillis()).append("\"")
+                .append(",\"expireLagMaxMs\":\"").append(expireWheel.getMaxLagMillis()).append("\"")
+                .append(",\"expireLagAvgMs\":\"").append(String.format("%.2f", expireWheel.getAvgLagMillis())).append("\"");
+        if (null != evictionPolicy) {
+            info.append(",\"maxEntries\":\"").append(evictionPolicy.getMaxEntries()).append("\"")
+                    .append(",\"maxWeight\":\"").append(evictionPolicy.getMaxWeight()).append("\"")
+                    .append(",\"weightedSize\":\"").append(evictionPolicy.weightedSize()).append("\"")
+                    .append(",\"evictedKeys\":\"").append(evictionPolicy.getEvictionCount()).append("\"")
+                    .append(",\"evictedWeight\":\"").append(evictionPolicy.getEvictionWeight()).append("\"");
+        }
+        if (null != keyIndex) {
+            info.append(",\"indexedKeys\":\"").append(keyIndex.size()).append("\"");
+        }
+        PendingSnapshot pending = pendingSnapshot;
+        if (null != pending) {
+            info.append(",\"snapshotPendingKeys\":\"").append(pending.index.size()).append("\"");
         }
+        LocalCacheJournal localCacheJournal = journal;
+        if (null != localCacheJournal) {
+            info.append(",\"journalPendingRecords\":\"").append(localCacheJournal.getPendingRecords()).append("\"")
+                    .append(",\"journalAppendedRecords\":\"").append(localCacheJournal.getAppendedRecords()).append("\"")
+                    .append(",\"journalWrittenBytes\":\"").append(localCacheJournal.getWrittenBytes()).append("\"")
+                    .append(",\"journalSyncs\":\"").append(localCacheJournal.getSyncCount()).append("\"")
+                    .append(",\"journalLastSyncMillis\":\"").append(localCacheJournal.getLastSyncMillis()).append("\"")
+                    .append(",\"journalStalls\":\"").append(localCacheJournal.getStallCount()).append("\"")
+                    .append(",\"journalErrors\":\"").append(localCacheJournal.getErrorCount()).append("\"")
+                    .append(",\"journalCompactions\":\"").append(localCacheJournal.getCompactionCount()).append("\"");
+        }
+        if (null != offHeapAllocator) {
+            info.append(",\"offHeapMaxBytes\":\"").append(offHeapAllocator.getMaxBytes()).append("\"")
+                    .append(",\"offHeapReservedBytes\":\"").append(offHeapAllocator.getReservedBytes()).append("\"")
+                    .append(",\"offHeapUsedBytes\":\"").append(offHeapAllocator.getUsedBytes()).append("\"")
+                    .append(",\"offHeapPayloadBytes\":\"").append(offHeapAllocator.getPayloadBytes()).append("\"")
+                    .append(",\"offHeapAllocations\":\"").append(offHeapAllocator.getAllocationCount()).append("\"")
+                    .append(",\"offHeapFrees\":\"").append(offHeapAllocator.getFreeCount()).append("\"")
+                    .append(",\"offHeapFailedAllocations\":\"").append(offHeapAllocator.getFailedAllocationCount()).append("\"")
+                    .append(",\"offHeapClasses\":").append(offHeapAllocator.classInfo());
+        }
+        info.append(",\"valueHitRatio\":\"").append(String.format("%.3f", valueReads.getHitRatio())).append("\"")
+                .append(",\"hashHitRatio\":\"").append(String.format("%.3f", hashReads.getHitRatio())).append("\"");
+        return info.append("}").toString();
+    }
+
+    @Override
+    public void exKey(String key, int sec) {
+        if (sec > 0)
+            expireAt(key, System.currentTimeMillis() + 1000L * sec);
+    }
+
+    /**
+     * 设置key的过期时间点（毫秒时间戳）
+     */
+    private void expireAt(String key, long deadline) {
+        loadPending(key);
+        byte[] record = journaling() ? JournalRecord.begin(JournalOp.EXPIRE, key).writeLong(deadline).end() : null;
+        expiredKeyMap.compute(key, (k, old) -> {
+            if (null != old)
+                old.cancel();
+            journal(record);
+            return expireWheel.schedule(k, deadline);
+        });
     }
 
     @Override
     public Set<String> keys(String pattern) {
         Set<String> keys = new HashSet<String>();
+        Pattern regex = Pattern.compile(pattern);
+        PendingSnapshot pending = pendingSnapshot;
+        if (null != pending) {
+            for (String key : pending.index.keySet()) {
+                if (regex.matcher(key).matches())
+                    loadPending(key);
+            }
+        }
         for (Iterator<String> it = ObjectKVData.keySet().iterator(); it.hasNext(); ) {
             String key = it.next();
-            if (!isKeyExpired(key) && key.matches(pattern)) {
+            if (!isKeyExpired(key) && regex.matcher(key).matches()) {
                 keys.add(key);
             }
         }
         for (Iterator<String> it = hashData.keySet().iterator(); it.hasNext(); ) {
             String key = it.next();
-            if (!isKeyExpired(key) && key.matches(pattern)) {
+            if (!isKeyExpired(key) && regex.matcher(key).matches()) {
                 keys.add(key);
             }
         }
         return keys;
     }
 
+    /**
+     * 本地遍历不需要分批，batchSize只做校验；开启前缀索引时只遍历模式的字面前缀下的key。
+     */
+    @Override
+    public Iterator<String> scan(String pattern, int batchSize) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize must be greater than 0");
+        GlobMatcher matcher = GlobMatcher.compile(pattern);
+        return liveKeys(matcher.getLiteralPrefix(), matcher::matches);
+    }
+
+    @Override
+    public Set<String> keysWithPrefix(String prefix) {
+        assertKey(prefix);
+        Set<String> keys = new HashSet<String>();
+        for (Iterator<String> it = liveKeys(prefix, k -> k.startsWith(prefix)); it.hasNext(); )
+            keys.add(it.next());
+        return keys;
+    }
+
+    @Override
+    public long countKeysWithPrefix(String prefix) {
+        assertKey(prefix);
+        long count = 0;
+        for (Iterator<String> it = liveKeys(prefix, k -> k.startsWith(prefix)); it.hasNext(); it.next())
+            count++;
+        return count;
+    }
+
+    @Override
+    public long delByPrefix(String prefix) {
+        assertKey(prefix);
+        Set<String> keys = keysWithPrefix(prefix);
+        for (String key : keys)
+            del(key);
+        return keys.size();
+    }
+
+    /**
+     * 遍历以prefix开头、满足filter的未过期key，快照中还未载入的匹配key先载入。<br>
+     * 开启前缀索引且prefix不为空时从索引中取prefix下的key，
+     * 否则依次遍历K-V和Hash的key，同时存在K-V和Hash的key只返回一次。
+     * 遍历期间新增或删除的key可能返回也可能不返回。
+     */
+    private Iterator<String> liveKeys(String prefix, Predicate<String> filter) {
+        PendingSnapshot pending = pendingSnapshot;
+        return new Iterator<String>() {
+            private boolean started;
+            private Iterator<String> indexed;
+            private Iterator<String> kvKeys;
+            private Iterator<String> hashKeys;
+            private String next;
+
+            private void start() {
+                started = true;
+                if (null != pending) {
+                    for (String key : pending.index.keySet()) {
+                        if (key.startsWith(prefix) && filter.test(key))
+                            loadPending(key);
+                    }
+                }
+                if (null != keyIndex && !prefix.isEmpty()) {
+                    indexed = keyIndex.keysWithPrefix(prefix).iterator();
+                } else {
+                    kvKeys = ObjectKVData.keySet().iterator();
+                    hashKeys = hashData.keySet().iterator();
+                }
+            }
+
+            private String advance() {
+                if (null != indexed) {
+                    while (indexed.hasNext()) {
+                        String key = indexed.next();
+                        if (ObjectKVData.containsKey(key) || hashData.containsKey(key))
+                            return key;
+                    }
+                    return null;
+                }
+                if (kvKeys.hasNext())
+                    return kvKeys.next();
+                while (hashKeys.hasNext()) {
+                    String key = hashKeys.next();
+                    if (!ObjectKVData.containsKey(key))
+                        return key;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (!started)
+                    start();
+                while (null == next) {
+                    String key = advance();
+                    if (null == key)
+                        return false;
+                    if (key.startsWith(prefix) && filter.test(key) && !isKeyExpired(key))
+                        next = key;
+                }
+                return true;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                String key = next;
+                next = null;
+                return key;
+            }
+        };
+    }
+
 }
@@ -0,0 +1,781 @@
+package com.foxless.util.cache.cacher.impl;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.foxless.util.cache.bean.NearCacheConfigBean;
+import com.foxless.util.cache.cacher.CacheHelper;
+import com.foxless.util.cache.cacher.ExpiringValue;
+import com.foxless.util.cache.cacher.JedisCacheHelper;
+import com.foxless.util.cache.cacher.LocalCacheHelper;
+import com.foxless.util.cache.cacher.RefreshAhead;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+
+/**
+ * 两级缓存：有容量限制的本地缓存在前，Redis在后。<br>
+ * get、getObject、hget、getMapValue先读本地层，未命中时经JedisCacheHelper的getWithTtl等方法一次读取值和key的剩余过期时间并放入本地层，
+ * 本地层中的值最多保留nearCacheTtlSeconds秒，且不超过Redis中的过期时间；不存在的key也会被缓存。
+ * 其他读操作直接访问Redis。<br>
+ * 写操作先写Redis，再删除本地层中的该key，并通过pub/sub通知其他节点删除。
+ * 通知使用{@link NearCacheConfigBean#getInvalidationHost()}指定的Redis的独立连接，与存放数据的Redis（可以是分片的）无关。
+ * 只修改List、Set、SortedSet成员的操作不影响本地层缓存的值，不发送通知。<br>
+ * 与Redis的订阅连接断开期间可能漏掉通知，此时读操作不经过本地层，重新订阅后清空本地层。<br>
+ * 读到的对象与本地层共享同一个实例，调用方不应修改。
+ * 不经过近端缓存（直接使用JedisCacheHelper或在事务、管道中）写入的数据不会通知各节点，只能等待本地层的值过期。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+@SuppressWarnings("unchecked")
+public class NearCacheHelper implements CacheHelper, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearCacheHelper.class);
+
+    private static final int GENERATION_STRIPES = 1024;
+    private static final long RESUBSCRIBE_MILLIS = 1000;
+
+    /**
+     * 本地层中存放的值，区分读取方式，value为null表示key不存在
+     */
+    private static final class Cached {
+        private final boolean object;
+        private final Object value;
+
+        Cached(boolean object, Object value) {
+            this.object = object;
+            this.value = value;
+        }
+    }
+
+    private final JedisCacheHelper redis;
+    /**
+     * 发送和订阅失效通知的连接
+     */
+    private final JedisPool pubSubPool;
+    private final LocalCacheHelper local;
+    private final int ttlSeconds;
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString();
+    /**
+     * 按key分段的失效计数，从Redis读取期间该段发生过失效时，读到的值不放入本地层
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private volatile boolean subscribed;
+    private volatile boolean running = true;
+    private volatile JedisPubSub pubSub;
+
+    //统计
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidationsSent = new LongAdder();
+    private final LongAdder invalidationsReceived = new LongAdder();
+
+    public NearCacheHelper(JedisCacheHelper redis, NearCacheConfigBean nearCacheConfigBean) {
+        if (null == redis || null == nearCacheConfigBean)
+            throw new IllegalArgumentException("JedisCacheHelper and NearCacheConfigBean cannot be null!");
+        if (nearCacheConfigBean.getMaxEntries() <= 0 && nearCacheConfigBean.getMaxWeight() <= 0)
+            throw new IllegalArgumentException("Near cache requires maxEntries or maxWeight to be set.");
+        if (nearCacheConfigBean.getNearCacheTtlSeconds() <= 0)
+            throw new IllegalArgumentException("nearCacheTtlSeconds must be greater than 0");
+        if (null == nearCacheConfigBean.getInvalidationHost() || "".equals(nearCacheConfigBean.getInvalidationHost()))
+            throw new IllegalArgumentException("Near cache requires invalidationHost to be set.");
+        logger.debug("near.cache.ttlSeconds = {}", nearCacheConfigBean.getNearCacheTtlSeconds());
+        logger.debug("near.cache.invalidationChannel = {}", nearCacheConfigBean.getInvalidationChannel());
+        logger.debug("near.cache.invalidationHost = {}", nearCacheConfigBean.getInvalidationHost());
+        logger.debug("near.cache.invalidationPort = {}", nearCacheConfigBean.getInvalidationPort());
+        String password = nearCacheConfigBean.getInvalidationPassword();
+        this.pubSubPool = new JedisPool(new JedisPoolConfig(), nearCacheConfigBean.getInvalidationHost(),
+                nearCacheConfigBean.getInvalidationPort(), Protocol.DEFAULT_TIMEOUT,
+                null == password || "".equals(password) ? null : password);
+        this.redis = redis;
+        this.local = new LocalCacheHelperImpl(nearCacheConfigBean);
+        this.ttlSeconds = nearCacheConfigBean.getNearCacheTtlSeconds();
+        this.channel = nearCacheConfigBean.getInvalidationChannel();
+        Thread subscriber = new Thread(this::subscribe, "cache-helper-near-invalidate");
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    ////////////////////////////////////////////////////////////////////// 失效通知
+
+    private void subscribe() {
+        while (running) {
+            Jedis jedis = null;
+            try {
+                jedis = pubSubPool.getResource();
+                JedisPubSub listener = new JedisPubSub() {
+                    @Override
+                    public void onSubscribe(String channel, int subscribedChannels) {
+                        clearLocal();
+                        subscribed = true;
+                        logger.debug("Near cache subscribed to {}.", channel);
+                    }
+
+                    @Override
+                    public void onMessage(String channel, String message) {
+                        int i = message.indexOf(':');
+                        if (i < 0 || message.regionMatches(0, nodeId, 0, i) && i == nodeId.length())
+                            return;
+                        invalidationsReceived.increment();
+                        invalidateLocal(message.substring(i + 1));
+                    }
+                };
+                pubSub = listener;
+                jedis.subscribe(listener, channel);
+            } catch (Exception e) {
+                if (running)
+                    logger.warn("Near cache invalidation subscription lost, reads bypass the local tier until resubscribed.", e);
+            } finally {
+                subscribed = false;
+                if (null != jedis) {
+                    try {
+                        jedis.close();
+                    } catch (Exception e) {
+                        logger.debug("Failed to close subscription connection.", e);
+                    }
+                }
+            }
+            if (running) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RESUBSCRIBE_MILLIS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 清空本地层，订阅断开期间可能漏掉了通知
+     */
+    private void clearLocal() {
+        for (int i = 0; i < GENERATION_STRIPES; i++)
+            generations.incrementAndGet(i);
+        for (String key : local.keys(".*"))
+            local.del(key);
+    }
+
+    private int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private void invalidateLocal(String key) {
+        generations.incrementAndGet(stripe(key));
+        local.del(key);
+    }
+
+    /**
+     * 删除本地层中的key并通知其他节点
+     */
+    private void invalidate(String key) {
+        invalidateLocal(key);
+        Jedis jedis = null;
+        try {
+            jedis = pubSubPool.getResource();
+            jedis.publish(channel, nodeId + ":" + key);
+            invalidationsSent.increment();
+        } catch (Exception e) {
+            logger.warn("Failed to publish near cache invalidation of key " + key + ".", e);
+        } finally {
+            if (null != jedis)
+                jedis.close();
+        }
+    }
+
+    /**
+     * 删除本地层中的多个key，通知其他节点的消息在同一个pipeline中发送
+     */
+    private void invalidateAll(Collection<String> keys) {
+        for (String key : keys)
+            invalidateLocal(key);
+        Jedis jedis = null;
+        try {
+            jedis = pubSubPool.getResource();
+            Pipeline pipeline = jedis.pipelined();
+            for (String key : keys)
+                pipeline.publish(channel, nodeId + ":" + key);
+            pipeline.sync();
+            invalidationsSent.add(keys.size());
+        } catch (Exception e) {
+            logger.warn("Failed to publish near cache invalidation of keys " + keys + ".", e);
+        } finally {
+            if (null != jedis)
+                jedis.close();
+        }
+    }
+
+    /**
+     * 本地层保留的秒数，pttl为Redis中key剩余的毫秒数（-1不过期，-2不存在）
+     */
+    private int localTtl(long pttl) {
+        if (pttl < 0)
+            return ttlSeconds;
+        return (int) Math.min(ttlSeconds, pttl / 1000);
+    }
+
+    ////////////////////////////////////////////////////////////////////// 经过本地层的读取
+
+    /**
+     * 读取本地层中的值，返回null表示未命中
+     */
+    private Cached readLocal(String key, boolean object) {
+        if (!subscribed)
+            return null;
+        Cached cached = local.getObject(key, Cached.class);
+        if (null == cached || cached.object != object) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached;
+    }
+
+    private Cached readLocalField(String key, Object field, boolean object) {
+        if (!subscribed)
+            return null;
+        Cached cached = local.getMapValue(key, field, Cached.class);
+        if (null == cached || cached.object != object) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached;
+    }
+
+    private void populate(String key, Cached cached, long pttl, long generation) {
+        int sec = localTtl(pttl);
+        if (sec <= 0 || !subscribed)
+            return;
+        local.setObjectEX(key, cached, sec);
+        if (generations.get(stripe(key)) != generation)
+            local.del(key);
+    }
+
+    private void populateField(String key, Object field, Cached cached, long pttl, long generation) {
+        int sec = localTtl(pttl);
+        if (sec <= 0 || !subscribed)
+            return;
+        boolean created = !local.existsKey(key);
+        local.hset(key, field, cached);
+        if (created)
+            local.exKey(key, sec);
+        if (generations.get(stripe(key)) != generation)
+            local.del(key);
+    }
+
+    @Override
+    public String get(String key) {
+        Cached cached = readLocal(key, false);
+        if (null != cached)
+            return (String) cached.value;
+        if (!subscribed)
+            return redis.get(key);
+        long generation = generations.get(stripe(key));
+        ExpiringValue<String> read = redis.getWithTtl(key);
+        populate(key, new Cached(false, read.getValue()), read.getTimeToLive(), generation);
+        return read.getValue();
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> type) {
+        Cached cached = readLocal(key, true);
+        if (null != cached)
+            return (T) cached.value;
+        if (!subscribed)
+            return redis.getObject(key, type);
+        long generation = generations.get(stripe(key));
+        ExpiringValue<T> read = redis.getObjectWithTtl(key, type);
+        populate(key, new Cached(true, read.getValue()), read.getTimeToLive(), generation);
+        return read.getValue();
+    }
+
+    /**
+     * 本地层未命中的key经一次getObjectsWithTtl读取，值和剩余过期时间在同一个管道中返回
+     */
+    @Override
+    public <T> List<T> getObjects(Class<T> type, String... keys) {
+        if (!subscribed)
+            return redis.getObjects(type, keys);
+        if (null == keys || keys.length == 0)
+            throw new IllegalArgumentException("Keys cannot be null or empty!");
+        List<T> values = new ArrayList<T>(keys.length);
+        List<Integer> missing = new ArrayList<Integer>();
+        for (int i = 0; i < keys.length; i++) {
+            Cached cached = readLocal(keys[i], true);
+            values.add(null == cached ? null : (T) cached.value);
+            if (null == cached)
+                missing.add(i);
+        }
+        if (missing.isEmpty())
+            return values;
+        long[] generation = new long[missing.size()];
+        String[] missingKeys = new String[missing.size()];
+        for (int j = 0; j < missing.size(); j++) {
+            missingKeys[j] = keys[missing.get(j)];
+            generation[j] = generations.get(stripe(missingKeys[j]));
+        }
+        List<ExpiringValue<T>> fetched = redis.getObjectsWithTtl(type, missingKeys);
+        for (int j = 0; j < missing.size(); j++) {
+            ExpiringValue<T> read = fetched.get(j);
+            populate(missingKeys[j], new Cached(true, read.getValue()), read.getTimeToLive(), generation[j]);
+            values.set(missing.get(j), read.getValue());
+        }
+        return values;
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        Cached cached = readLocalField(key, field, false);
+        if (null != cached)
+            return (String) cached.value;
+        if (!subscribed)
+            return redis.hget(key, field);
+        long generation = generations.get(stripe(key));
+        ExpiringValue<String> read = redis.hgetWithTtl(key, field);
+        populateField(key, field, new Cached(false, read.getValue()), read.getTimeToLive(), generation);
+        return read.getValue();
+    }
+
+    @Override
+    public <T> T getMapValue(String mapKey, Object fieldKey, Class<T> type) {
+        Cached cached = readLocalField(mapKey, fieldKey, true);
+        if (null != cached)
+            return (T) cached.value;
+        if (!subscribed)
+            return redis.getMapValue(mapKey, fieldKey, type);
+        long generation = generations.get(stripe(mapKey));
+        ExpiringValue<T> read = redis.getMapValueWithTtl(mapKey, fieldKey, type);
+        populateField(mapKey, fieldKey, new Cached(true, read.getValue()), read.getTimeToLive(), generation);
+        return read.getValue();
+    }
+
+    /**
+     * 本地层的命中统计和本地缓存的状态，JSON格式
+     */
+    public String info() {
+        return "{\"subscribed\":\"" + subscribed + "\""
+                + ",\"hits\":\"" + hits.sum() + "\""
+                + ",\"misses\":\"" + misses.sum() + "\""
+                + ",\"invalidationsSent\":\"" + invalidationsSent.sum() + "\""
+                + ",\"invalidationsReceived\":\"" + invalidationsReceived.sum() + "\""
+                + ",\"local\":" + local.info() + "}";
+    }
+
+    /**
+     * 停止接收失效通知，关闭通知连接
+     */
+    @Override
+    public void close() {
+        running = false;
+        subscribed = false;
+        JedisPubSub listener = pubSub;
+        if (null != listener && listener.isSubscribed())
+            listener.unsubscribe();
+        pubSubPool.close();
+    }
+
+    ////////////////////////////////////////////////////////////////////// 写操作
+
+    @Override
+    public void exKey(String key, int sec) {
+        redis.exKey(key, sec);
+        invalidate(key);
+    }
+
+    @Override
+    public void set(String key, String value) {
+        redis.set(key, value);
+        invalidate(key);
+    }
+
+    @Override
+    public void hset(String key, String field, String value) {
+        redis.hset(key, field, value);
+        invalidate(key);
+    }
+
+    @Override
+    public void setEX(String key, String value, int sec) {
+        redis.setEX(key, value, sec);
+        invalidate(key);
+    }
+
+    @Override
+    public void setObjectEX(String key, Object value, int second) {
+        redis.setObjectEX(key, value, second);
+        invalidate(key);
+    }
+
+    @Override
+    public void setMap(String key, Map<?, ?> map) {
+        redis.setMap(key, map);
+        invalidate(key);
+    }
+
+    @Override
+    public void appendMapItem(String mapKey, Object fieldKey, Object value) {
+        redis.appendMapItem(mapKey, fieldKey, value);
+        invalidate(mapKey);
+    }
+
+    @Override
+    public void setObject(String key, Object obj) {
+        redis.setObject(key, obj);
+        invalidate(key);
+    }
+
+    @Override
+    public void setObjects(Map<String, ?> values, int second) {
+        redis.setObjects(values, second);
+        if (!values.isEmpty())
+            invalidateAll(values.keySet());
+    }
+
+    @Override
+    public void setStringList(String key, List<String> list) {
+        redis.setStringList(key, list);
+        invalidate(key);
+    }
+
+    @Override
+    public void setObjectList(String key, List<?> list) {
+        redis.setObjectList(key, list);
+        invalidate(key);
+    }
+
+    @Override
+    public <T> void setObjectSet(String key, Set<T> sets) {
+        redis.setObjectSet(key, sets);
+        invalidate(key);
+    }
+
+    @Override
+    public void setStringSet(String key, Set<String> sets) {
+        redis.setStringSet(key, sets);
+        invalidate(key);
+    }
+
+    @Override
+    public <T> void setSortedObjectSet(String key, Map<Long, T> set) {
+        redis.setSortedObjectSet(key, set);
+        invalidate(key);
+    }
+
+    @Override
+    public void setStringSortedObjectSet(String key, Map<Long, String> set) {
+        redis.setStringSortedObjectSet(key, set);
+        invalidate(key);
+    }
+
+    @Override
+    public void del(String key) {
+        redis.del(key);
+        invalidate(key);
+    }
+
+    @Override
+    public void hdel(String key, String field) {
+        redis.hdel(key, field);
+        invalidate(key);
+    }
+
+    @Override
+    public void hdel(String key, Object field) {
+        redis.hdel(key, field);
+        invalidate(key);
+    }
+
+    @Override
+    public void incr(String key, Long value) {
+        redis.incr(key, value);
+        invalidate(key);
+    }
+
+    @Override
+    public void hincr(String key, String field, Long value) {
+        redis.hincr(key, field, value);
+        invalidate(key);
+    }
+
+    ////////////////////////////////////////////////////////////////////// 直接访问Redis
+
+    @Override
+    public List<String> mget(String... keys) {
+        return redis.mget(keys);
+    }
+
+    @Override
+    public Map<String, String> hmget(String key, String... field) {
+        return redis.hmget(key, field);
+    }
+
+    @Override
+    public <T> List<T> getMapValues(String mapKey, Class<T> type) {
+        return redis.getMapValues(mapKey, type);
+    }
+
+    @Override
+    public <T, K> Map<K, T> getMultiMapValues(String mapKey, Class<T> type, K... keys) {
+        return redis.getMultiMapValues(mapKey, type, keys);
+    }
+
+    @Override
+    public void appendStringListItem(String key, boolean tail, String... strings) {
+        redis.appendStringListItem(key, tail, strings);
+    }
+
+    @Override
+    public String getStringListItem(String key, int index) {
+        return redis.getStringListItem(key, index);
+    }
+
+    @Override
+    public List<String> getStringListItems(String key, int start, int end) {
+        return redis.getStringListItems(key, start, end);
+    }
+
+    @Override
+    public <T> T getObjectListItem(String key, int index, Class<T> type) {
+        return redis.getObjectListItem(key, index, type);
+    }
+
+    @Override
+    public <T> List<T> getObjectListItems(String key, int start, int end, Class<T> type) {
+        return redis.getObjectListItems(key, start, end, type);
+    }
+
+    @Override
+    public void appendObjectListItem(String key, boolean tail, Object... items) {
+        redis.appendObjectListItem(key, tail, items);
+    }
+
+    @Override
+    public void trimList(String key, int start, int end) {
+        redis.trimList(key, start, end);
+    }
+
+    @Override
+    public void removeRepeatStringListItem(String key, int count, String value) {
+        redis.removeRepeatStringListItem(key, count, value);
+    }
+
+    @Override
+    public void removeRepeatObjectListItem(String key, int count, Object value) {
+        redis.removeRepeatObjectListItem(key, count, value);
+    }
+
+    @Override
+    public long getListLength(String key) {
+        return redis.getListLength(key);
+    }
+
+    @Override
+    public <T> Set<T> getObjectSetAll(String key, Class<T> type) {
+        return redis.getObjectSetAll(key, type);
+    }
+
+    @Override
+    public <T> void appendObjectSetMember(String key, T... objects) {
+        redis.appendObjectSetMember(key, objects);
+    }
+
+    @Override
+    public <T> void removeObjectSetMember(String key, T... objects) {
+        redis.removeObjectSetMember(key, objects);
+    }
+
+    @Override
+    public <T> Set<T> getInterObjectSet(Class<T> type, byte[]... keys) {
+        return redis.getInterObjectSet(type, keys);
+    }
+
+    @Override
+    public <T> Set<T> getDiffObjectSet(Class<T> type, byte[]... keys) {
+        return redis.getDiffObjectSet(type, keys);
+    }
+
+    @Override
+    public <T> Set<T> getUnionObjectSet(Class<T> type, byte[]... keys) {
+        return redis.getUnionObjectSet(type, keys);
+    }
+
+    @Override
+    public int moveObjectSetMember(byte[] source, byte[] dest, Object member) {
+        return redis.moveObjectSetMember(source, dest, member);
+    }
+
+    @Override
+    public boolean isObjectSetMember(byte[] key, Object member) {
+        return redis.isObjectSetMember(key, member);
+    }
+
+    @Override
+    public Set<String> getStringSetAll(String key) {
+        return redis.getStringSetAll(key);
+    }
+
+    @Override
+    public void appendStringSetMember(String key, String... strings) {
+        redis.appendStringSetMember(key, strings);
+    }
+
+    @Override
+    public void removeStringSetMember(String key, String... strings) {
+        redis.removeStringSetMember(key, strings);
+    }
+
+    @Override
+    public <T> void appendSortedObjectSetMember(String key, Map<Long, T> set) {
+        redis.appendSortedObjectSetMember(key, set);
+    }
+
+    @Override
+    public void appendStringSortedObjectSetMember(String key, Map<Long, String> set) {
+        redis.appendStringSortedObjectSetMember(key, set);
+    }
+
+    @Override
+    public <T> List<T> getSortedObjectSetMember(String key, long start, long end, Class<T> type) {
+        return redis.getSortedObjectSetMember(key, start, end, type);
+    }
+
+    @Override
+    public List<String> getStringSortedObjectSetMember(String key, long start, long end) {
+        return redis.getStringSortedObjectSetMember(key, start, end);
+    }
+
+    @Override
+    public <T> List<T> getReverseSortedObjectSetMember(String key, long start, long end, Class<T> type) {
+        return redis.getReverseSortedObjectSetMember(key, start, end, type);
+    }
+
+    @Override
+    public List<String> getReverseStringSortedObjectSetMember(String key, long start, long end) {
+        return redis.getReverseStringSortedObjectSetMember(key, start, end);
+    }
+
+    @Override
+    public long getSortedSetSize(String key) {
+        return redis.getSortedSetSize(key);
+    }
+
+    @Override
+    public <T> void removeSortedObjectSetMember(String key, T... members) {
+        redis.removeSortedObjectSetMember(key, members);
+    }
+
+    @Override
+    public void removeStringSortedObjectSetMember(String key, String... members) {
+        redis.removeStringSortedObjectSetMember(key, members);
+    }
+
+    @Override
+    public <T> void removeSortedObjectSetMember(String key, long start, long end) {
+        redis.removeSortedObjectSetMember(key, start, end);
+    }
+
+    @Override
+    public void removeStringSortedObjectSetMember(String key, long start, long end) {
+        redis.removeStringSortedObjectSetMember(key, start, end);
+    }
+
+    @Override
+    public <T> Long increSortedObjectSetMemberScore(String key, T member, long incr) {
+        return redis.increSortedObjectSetMemberScore(key, member, incr);
+    }
+
+    @Override
+    public Long increStringSortedObjectSetMemberScore(String key, String member, long incr) {
+        return redis.increStringSortedObjectSetMemberScore(key, member, incr);
+    }
+
+    @Override
+    public <T> List<T> getSortedObjectSetMemberByScore(String key, long min, long max, Class<T> type) {
+        return redis.getSortedObjectSetMemberByScore(key, min, max, type);
+    }
+
+    @Override
+    public List<String> getStringSortedObjectSetMemberByScore(String key, long min, long max) {
+        return redis.getStringSortedObjectSetMemberByScore(key, min, max);
+    }
+
+    @Override
+    public <T> Long getSortedObjectSetMemberRank(String key, T member) {
+        return redis.getSortedObjectSetMemberRank(key, member);
+    }
+
+    @Override
+    public Long getStringSortedObjectSetMemberRank(String key, String member) {
+        return redis.getStringSortedObjectSetMemberRank(key, member);
+    }
+
+    @Override
+    public <T> Long getReverseSortedObjectSetMemberRank(String key, T member) {
+        return redis.getReverseSortedObjectSetMemberRank(key, member);
+    }
+
+    @Override
+    public Long getReverseStringSortedObjectSetMemberRank(String key, String member) {
+        return redis.getReverseStringSortedObjectSetMemberRank(key, member);
+    }
+
+    @Override
+    public <T> Long getSortedObjectSetMemberScore(String key, T member) {
+        return redis.getSortedObjectSetMemberScore(key, member);
+    }
+
+    @Override
+    public Long getStringSortedObjectSetMemberScore(String key, String member) {
+        return redis.getStringSortedObjectSetMemberScore(key, member);
+    }
+
+    @Override
+    public boolean existsKey(String key) {
+        return redis.existsKey(key);
+    }
+
+    @Override
+    public long getTimeToLive(String key) {
+        return redis.getTimeToLive(key);
+    }
+
+    /**
+     * 使用Redis层的提前刷新设置
+     */
+    @Override
+    public RefreshAhead getRefreshAhead() {
+        return redis.getRefreshAhead();
+    }
+
+    @Override
+    public long getSetSize(String key) {
+        return redis.getSetSize(key);
+    }
+
+    @Override
+    public Set<String> keys(String pattern) {
+        return redis.keys(pattern);
+    }
+
+    @Override
+    public Iterator<String> scan(String pattern, int batchSize) {
+        return redis.scan(pattern, batchSize);
+    }
+}
@@ -0,0 +1,745 @@
+package com.foxless.util.cache.cacher.impl;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.foxless.util.cache.aop.CleanupJedisCacheHelper;
+import com.foxless.util.cache.cacher.ExpiringValue;
+import com.foxless.util.cache.cacher.JedisCacheHelper;
+import com.foxless.util.cache.cacher.RefreshAhead;
+import com.foxless.util.cache.metrics.CacheMetrics;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * 读写分离的JedisCacheHelper，写操作发给主节点，读操作发给从节点。<br>
+ * 读操作选择当前未完成请求最少的从节点，数量相同时随机选择；从节点连接失败时改为读主节点，
+ * 并在{@link #REPLICA_RETRY_MILLIS}内不再选择该从节点。<br>
+ * 从节点的数据有复制延迟，需要读到刚写入的数据时，单次调用使用{@link #master()}或{@link #readFromMaster(Supplier)}，
+ * 整个线程使用{@link #pinMaster()}和{@link #unpinMaster()}。
+ * 当前线程开启了事务、管道或绑定了Jedis时，读操作也发给主节点。<br>
+ * master需要在抛出异常时清除线程的事务和管道，如CacheHelperFactory中的{@link CleanupJedisCacheHelper}。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class ReplicatedJedisCacheHelper implements JedisCacheHelper {
+
+    /**
+     * 从节点连接失败后暂停使用的毫秒数
+     */
+    public static final long REPLICA_RETRY_MILLIS = 1000;
+
+    private static final class Replica {
+        private final String name;
+        private final JedisCacheHelper helper;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private volatile long downUntil;
+
+        Replica(String name, JedisCacheHelper helper) {
+            this.name = name;
+            this.helper = helper;
+        }
+    }
+
+    /**
+     * 线程的读状态
+     */
+    private static final class ReadState {
+        /**
+         * pinMaster的嵌套次数
+         */
+        private int pins;
+        /**
+         * 是否在主节点上开启了事务、管道或绑定了Jedis
+         */
+        private boolean bound;
+
+        boolean onMaster() {
+            return pins > 0 || bound;
+        }
+    }
+
+    private final JedisCacheHelper master;
+    private final Replica[] replicas;
+    private final ThreadLocal<ReadState> states = ThreadLocal.withInitial(ReadState::new);
+    private final CacheMetrics metrics = new CacheMetrics();
+
+    private final LongAdder masterReads = new LongAdder();
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder replicaFailovers = new LongAdder();
+
+    /**
+     * @param master   主节点
+     * @param replicas 从节点名称和对应的JedisCacheHelper，名称通常使用host:port；为空时读操作也发给主节点
+     */
+    public ReplicatedJedisCacheHelper(JedisCacheHelper master, Map<String, ? extends JedisCacheHelper> replicas) {
+        if (null == master || null == replicas)
+            throw new IllegalArgumentException("master and replicas cannot be null");
+        // 主节点抛出异常时它的事务、管道已被清除，这里同时清除线程的标记
+        this.master = new CleanupJedisCacheHelper(master, this::unbind);
+        this.replicas = new Replica[replicas.size()];
+        int i = 0;
+        for (Map.Entry<String, ? extends JedisCacheHelper> replica : replicas.entrySet()) {
+            if (null == replica.getValue())
+                throw new IllegalArgumentException("Replica cannot be null: " + replica.getKey());
+            Replica r = new Replica(replica.getKey(), replica.getValue());
+            this.replicas[i++] = r;
+            metrics.registerGauge("replica." + r.name + ".outstanding", r.outstanding::get);
+        }
+        metrics.registerGauge("masterReads", masterReads::sum);
+        metrics.registerGauge("replicaReads", replicaReads::sum);
+        metrics.registerGauge("replicaFailovers", replicaFailovers::sum);
+    }
+
+    /**
+     * 主节点，通过它的读操作总能读到已写入的数据
+     */
+    public JedisCacheHelper master() {
+        return master;
+    }
+
+    /**
+     * 所有从节点，不可修改
+     */
+    public Map<String, JedisCacheHelper> getReplicas() {
+        Map<String, JedisCacheHelper> map = new LinkedHashMap<String, JedisCacheHelper>();
+        for (Replica replica : replicas)
+            map.put(replica.name, replica.helper);
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * 当前线程之后的读操作都发给主节点，直到调用相同次数的{@link #unpinMaster()}
+     */
+    public void pinMaster() {
+        states.get().pins++;
+    }
+
+    public void unpinMaster() {
+        ReadState state = states.get();
+        if (state.pins == 0)
+            throw new IllegalStateException("Reads are not pinned to master in this thread");
+        state.pins--;
+    }
+
+    /**
+     * 执行reads，其中的读操作都发给主节点
+     */
+    public <R> R readFromMaster(Supplier<R> reads) {
+        pinMaster();
+        try {
+            return reads.get();
+        } finally {
+            unpinMaster();
+        }
+    }
+
+    /**
+     * 清除当前线程在主节点上开启了事务、管道或绑定了Jedis的标记
+     */
+    private void unbind() {
+        states.get().bound = false;
+    }
+
+    /**
+     * 未完成请求最少的可用从节点，没有时返回null
+     */
+    private Replica choose() {
+        int n = replicas.length;
+        if (n == 0)
+            return null;
+        long now = System.nanoTime();
+        int start = n == 1 ? 0 : ThreadLocalRandom.current().nextInt(n);
+        Replica best = null;
+        int least = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            Replica replica = replicas[(start + i) % n];
+            if (replica.downUntil - now > 0)
+                continue;
+            int outstanding = replica.outstanding.get();
+            if (outstanding < least) {
+                best = replica;
+                least = outstanding;
+            }
+        }
+        return best;
+    }
+
+    private <R> R read(Function<JedisCacheHelper, R> operation) {
+        Replica replica = states.get().onMaster() ? null : choose();
+        if (null == replica) {
+            masterReads.increment();
+            return operation.apply(master);
+        }
+        replica.outstanding.incrementAndGet();
+        try {
+            R ret = operation.apply(replica.helper);
+            replicaReads.increment();
+            return ret;
+        } catch (JedisConnectionException e) {
+            replica.downUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REPLICA_RETRY_MILLIS);
+            replicaFailovers.increment();
+            masterReads.increment();
+            return operation.apply(master);
+        } finally {
+            replica.outstanding.decrementAndGet();
+        }
+    }
+
+    ///////////////////////////////////////////////////////////// 模式，只在主节点上开启
+
+    @Override
+    public void info() {
+        master.info();
+        for (Replica replica : replicas)
+            replica.helper.info();
+    }
+
+    /**
+     * 关闭主节点和各从节点
+     */
+    @Override
+    public void close() {
+        master.close();
+        for (Replica replica : replicas)
+            replica.helper.close();
+    }
+
+    /**
+     * 读写分离层的统计，主从节点各自的统计通过{@link #master()}和{@link #getReplicas()}获取
+     */
+    @Override
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 使用主节点的提前刷新设置，刷新时从从节点读取剩余时间，写入主节点
+     */
+    @Override
+    public RefreshAhead getRefreshAhead() {
+        return master.getRefreshAhead();
+    }
+
+    @Override
+    public boolean startTransaction() {
+        return bind(master.startTransaction());
+    }
+
+    @Override
+    public boolean commit() {
+        try {
+            return master.commit();
+        } finally {
+            unbind();
+        }
+    }
+
+    @Override
+    public boolean openPipeline() {
+        return bind(master.openPipeline());
+    }
+
+    @Override
+    public void sync() {
+        master.sync();
+    }
+
+    @Override
+    public boolean closePipeline() {
+        try {
+            return master.closePipeline();
+        } finally {
+            unbind();
+        }
+    }
+
+    @Override
+    public Jedis getNewJedis() {
+        return master.getNewJedis();
+    }
+
+    @Override
+    public boolean tryLease(String key, String token, long millis) {
+        return master.tryLease(key, token, millis);
+    }
+
+    @Override
+    public boolean releaseLease(String key, String token) {
+        return master.releaseLease(key, token);
+    }
+
+    @Override
+    public boolean boundJedis() {
+        return bind(master.boundJedis());
+    }
+
+    @Override
+    public void unboundJedis() {
+        try {
+            master.unboundJedis();
+        } finally {
+            unbind();
+        }
+    }
+
+    @Override
+    public boolean discard() {
+        try {
+            return master.discard();
+        } finally {
+            unbind();
+        }
+    }
+
+    private boolean bind(boolean ok) {
+        if (ok)
+            states.get().bound = true;
+        return ok;
+    }
+
+    ///////////////////////////////////////////////////////////// 读操作，发给从节点
+
+    @Override
+    public String get(String key) {
+        return read(node -> node.get(key));
+    }
+
+    @Override
+    public List<String> mget(String... keys) {
+        return read(node -> node.mget(keys));
+    }
+
+    @Override
+    public <T> List<T> getObjects(Class<T> type, String... keys) {
+        return read(node -> node.getObjects(type, keys));
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        return read(node -> node.hget(key, field));
+    }
+
+    @Override
+    public Map<String, String> hmget(String key, String... field) {
+        return read(node -> node.hmget(key, field));
+    }
+
+    @Override
+    public <T> T getMapValue(String mapKey, Object fieldKey, Class<T> type) {
+        return read(node -> node.getMapValue(mapKey, fieldKey, type));
+    }
+
+    @Override
+    public <T> List<T> getMapValues(String mapKey, Class<T> type) {
+        return read(node -> node.getMapValues(mapKey, type));
+    }
+
+    @Override
+    public <T, K> Map<K, T> getMultiMapValues(String mapKey, Class<T> type, K... keys) {
+        return read(node -> node.getMultiMapValues(mapKey, type, keys));
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> type) {
+        return read(node -> node.getObject(key, type));
+    }
+
+    @Override
+    public String getStringListItem(String key, int index) {
+        return read(node -> node.getStringListItem(key, index));
+    }
+
+    @Override
+    public List<String> getStringListItems(String key, int start, int end) {
+        return read(node -> node.getStringListItems(key, start, end));
+    }
+
+    @Override
+    public <T> T getObjectListItem(String key, int index, Class<T> type) {
+        return read(node -> node.getObjectListItem(key, index, type));
+    }
+
+    @Override
+    public <T> List<T> getObjectListItems(String key, int start, int end, Class<T> type) {
+        return read(node -> node.getObjectListItems(key, start, end, type));
+    }
+
+    @Override
+    public long getListLength(String key) {
+        return read(node -> node.getListLength(key));
+    }
+
+    @Override
+    public <T> Set<T> getObjectSetAll(String key, Class<T> type) {
+        return read(node -> node.getObjectSetAll(key, type));
+    }
+
+    @Override
+    public <T> Set<T> getInterObjectSet(Class<T> type, byte[]... keys) {
+        return read(node -> node.getInterObjectSet(type, keys));
+    }
+
+    @Override
+    public <T> Set<T> getDiffObjectSet(Class<T> type, byte[]... keys) {
+        return read(node -> node.getDiffObjectSet(type, keys));
+    }
+
+    @Override
+    public <T> Set<T> getUnionObjectSet(Class<T> type, byte[]... keys) {
+        return read(node -> node.getUnionObjectSet(type, keys));
+    }
+
+    @Override
+    public boolean isObjectSetMember(byte[] key, Object member) {
+        return read(node -> node.isObjectSetMember(key, member));
+    }
+
+    @Override
+    public Set<String> getStringSetAll(String key) {
+        return read(node -> node.getStringSetAll(key));
+    }
+
+    @Override
+    public <T> List<T> getSortedObjectSetMember(String key, long start, long end, Class<T> type) {
+        return read(node -> node.getSortedObjectSetMember(key, start, end, type));
+    }
+
+    @Override
+    public List<String> getStringSortedObjectSetMember(String key, long start, long end) {
+        return read(node -> node.getStringSortedObjectSetMember(key, start, end));
+    }
+
+    @Override
+    public <T> List<T> getReverseSortedObjectSetMember(String key, long start, long end, Class<T> type) {
+        return read(node -> node.getReverseSortedObjectSetMember(key, start, end, type));
+    }
+
+    @Override
+    public List<String> getReverseStringSortedObjectSetMember(String key, long start, long end) {
+        return read(node -> node.getReverseStringSortedObjectSetMember(key, start, end));
+    }
+
+    @Override
+    public long getSortedSetSize(String key) {
+        return read(node -> node.getSortedSetSize(key));
+    }
+
+    @Override
+    public <T> List<T> getSortedObjectSetMemberByScore(String key, long min, long max, Class<T> type) {
+        return read(node -> node.getSortedObjectSetMemberByScore(key, min, max, type));
+    }
+
+    @Override
+    public List<String> getStringSortedObjectSetMemberByScore(String key, long min, long max) {
+        return read(node -> node.getStringSortedObjectSetMemberByScore(key, min, max));
+    }
+
+    @Override
+    public <T> Long getSortedObjectSetMemberRank(String key, T member) {
+        return read(node -> node.getSortedObjectSetMemberRank(key, member));
+    }
+
+    @Override
+    public Long getStringSortedObjectSetMemberRank(String key, String member) {
+        return read(node -> node.getStringSortedObjectSetMemberRank(key, member));
+    }
+
+    @Override
+    public <T> Long getReverseSortedObjectSetMemberRank(String key, T member) {
+        return read(node -> node.getReverseSortedObjectSetMemberRank(key, member));
+    }
+
+    @Override
+    public Long getReverseStringSortedObjectSetMemberRank(String key, String member) {
+        return read(node -> node.getReverseStringSortedObjectSetMemberRank(key, member));
+    }
+
+    @Override
+    public <T> Long getSortedObjectSetMemberScore(String key, T member) {
+        return read(node -> node.getSortedObjectSetMemberScore(key, member));
+    }
+
+    @Override
+    public Long getStringSortedObjectSetMemberScore(String key, String member) {
+        return read(node -> node.getStringSortedObjectSetMemberScore(key, member));
+    }
+
+    @Override
+    public boolean existsKey(String key) {
+        return read(node -> node.existsKey(key));
+    }
+
+    @Override
+    public long getTimeToLive(String key) {
+        return read(node -> node.getTimeToLive(key));
+    }
+
+    @Override
+    public ExpiringValue<String> getWithTtl(String key) {
+        return read(node -> node.getWithTtl(key));
+    }
+
+    @Override
+    public <T> ExpiringValue<T> getObjectWithTtl(String key, Class<T> type) {
+        return read(node -> node.getObjectWithTtl(key, type));
+    }
+
+    @Override
+    public <T> List<ExpiringValue<T>> getObjectsWithTtl(Class<T> type, String... keys) {
+        return read(node -> node.getObjectsWithTtl(type, keys));
+    }
+
+    @Override
+    public ExpiringValue<String> hgetWithTtl(String key, String field) {
+        return read(node -> node.hgetWithTtl(key, field));
+    }
+
+    @Override
+    public <T> ExpiringValue<T> getMapValueWithTtl(String mapKey, Object fieldKey, Class<T> type) {
+        return read(node -> node.getMapValueWithTtl(mapKey, fieldKey, type));
+    }
+
+    @Override
+    public long getSetSize(String key) {
+        return read(node -> node.getSetSize(key));
+    }
+
+    @Override
+    public Set<String> keys(String pattern) {
+        return read(node -> node.keys(pattern));
+    }
+
+    @Override
+    public Iterator<String> scan(String pattern, int batchSize) {
+        return read(node -> node.scan(pattern, batchSize));
+    }
+
+    @Override
+    public Set<String> getInterStringSet(String... key) {
+        return read(node -> node.getInterStringSet(key));
+    }
+
+    @Override
+    public Set<String> getDiffStringSet(String... keys) {
+        return read(node -> node.getDiffStringSet(keys));
+    }
+
+    @Override
+    public Set<String> getUnionObjectSet(String... keys) {
+        return read(node -> node.getUnionObjectSet(keys));
+    }
+
+    @Override
+    public boolean isStringSetMember(String key, String member) {
+        return read(node -> node.isStringSetMember(key, member));
+    }
+
+    ///////////////////////////////////////////////////////////// 写操作，发给主节点
+
+    @Override
+    public void exKey(String key, int sec) {
+        master.exKey(key, sec);
+    }
+
+    @Override
+    public void set(String key, String value) {
+        master.set(key, value);
+    }
+
+    @Override
+    public void hset(String key, String field, String value) {
+        master.hset(key, field, value);
+    }
+
+    @Override
+    public void setEX(String key, String value, int sec) {
+        master.setEX(key, value, sec);
+    }
+
+    @Override
+    public void setObjectEX(String key, Object value, int second) {
+        master.setObjectEX(key, value, second);
+    }
+
+    @Override
+    public void setMap(String key, Map<?, ?> map) {
+        master.setMap(key, map);
+    }
+
+    @Override
+    public void appendMapItem(String mapKey, Object fieldKey, Object value) {
+        master.appendMapItem(mapKey, fieldKey, value);
+    }
+
+    @Override
+    public void setObject(String key, Object obj) {
+        master.setObject(key, obj);
+    }
+
+    @Override
+    public void setObjects(Map<String, ?> values, int second) {
+        master.setObjects(values, second);
+    }
+
+    @Override
+    public void setStringList(String key, List<String> list) {
+        master.setStringList(key, list);
+    }
+
+    @Override
+    public void appendStringListItem(String key, boolean tail, String... strings) {
+        master.appendStringListItem(key, tail, strings);
+    }
+
+    @Override
+    public void setObjectList(String key, List<?> list) {
+        master.setObjectList(key, list);
+    }
+
+    @Override
+    public void appendObjectListItem(String key, boolean tail, Object... items) {
+        master.appendObjectListItem(key, tail, items);
+    }
+
+    @Override
+    public void trimList(String key, int start, int end) {
+        master.trimList(key, start, end);
+    }
+
+    @Override
+    public void removeRepeatStringListItem(String key, int count, String value) {
+        master.removeRepeatStringListItem(key, count, value);
+    }
+
+    @Override
+    public void removeRepeatObjectListItem(String key, int count, Object value) {
+        master.removeRepeatObjectListItem(key, count, value);
+    }
+
+    @Override
+    public <T> void setObjectSet(String key, Set<T> sets) {
+        master.setObjectSet(key, sets);
+    }
+
+    @Override
+    public <T> void appendObjectSetMember(String key, T... objects) {
+        master.appendObjectSetMember(key, objects);
+    }
+
+    @Override
+    public <T> void removeObjectSetMember(String key, T... objects) {
+        master.removeObjectSetMember(key, objects);
+    }
+
+    @Override
+    public int moveObjectSetMember(byte[] source, byte[] dest, Object member) {
+        return master.moveObjectSetMember(source, dest, member);
+    }
+
+    @Override
+    public void setStringSet(String key, Set<String> sets) {
+        master.setStringSet(key, sets);
+    }
+
+    @Override
+    public void appendStringSetMember(String key, String... strings) {
+        master.appendStringSetMember(key, strings);
+    }
+
+    @Override
+    public void removeStringSetMember(String key, String... strings) {
+        master.removeStringSetMember(key, strings);
+    }
+
+    @Override
+    public <T> void setSortedObjectSet(String key, Map<Long, T> set) {
+        master.setSortedObjectSet(key, set);
+    }
+
+    @Override
+    public void setStringSortedObjectSet(String key, Map<Long, String> set) {
+        master.setStringSortedObjectSet(key, set);
+    }
+
+    @Override
+    public <T> void appendSortedObjectSetMember(String key, Map<Long, T> set) {
+        master.appendSortedObjectSetMember(key, set);
+    }
+
+    @Override
+    public void appendStringSortedObjectSetMember(String key, Map<Long, String> set) {
+        master.appendStringSortedObjectSetMember(key, set);
+    }
+
+    @Override
+    public <T> void removeSortedObjectSetMember(String key, T... members) {
+        master.removeSortedObjectSetMember(key, members);
+    }
+
+    @Override
+    public void removeStringSortedObjectSetMember(String key, String... members) {
+        master.removeStringSortedObjectSetMember(key, members);
+    }
+
+    @Override
+    public <T> void removeSortedObjectSetMember(String key, long start, long end) {
+        master.removeSortedObjectSetMember(key, start, end);
+    }
+
+    @Override
+    public void removeStringSortedObjectSetMember(String key, long start, long end) {
+        master.removeStringSortedObjectSetMember(key, start, end);
+    }
+
+    @Override
+    public <T> Long increSortedObjectSetMemberScore(String key, T member, long incr) {
+        return master.increSortedObjectSetMemberScore(key, member, incr);
+    }
+
+    @Override
+    public Long increStringSortedObjectSetMemberScore(String key, String member, long incr) {
+        return master.increStringSortedObjectSetMemberScore(key, member, incr);
+    }
+
+    @Override
+    public void del(String key) {
+        master.del(key);
+    }
+
+    @Override
+    public void hdel(String key, String field) {
+        master.hdel(key, field);
+    }
+
+    @Override
+    public void hdel(String key, Object field) {
+        master.hdel(key, field);
+    }
+
+    @Override
+    public void incr(String key, Long value) {
+        master.incr(key, value);
+    }
+
+    @Override
+    public void hincr(String key, String field, Long value) {
+        master.hincr(key, field, value);
+    }
+
+    @Override
+    public int moveStringSetMember(String source, String dest, String member) {
+        return master.moveStringSetMember(source, dest, member);
+    }
+}
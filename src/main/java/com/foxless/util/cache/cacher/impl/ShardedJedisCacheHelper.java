@@ -0,0 +1,968 @@
+package com.foxless.util.cache.cacher.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import com.foxless.util.cache.cacher.ExpiringValue;
+import com.foxless.util.cache.cacher.JedisCacheHelper;
+import com.foxless.util.cache.codec.Codecs;
+import com.foxless.util.cache.metrics.CacheMetrics;
+import com.foxless.util.cache.util.ConsistentHashRing;
+import redis.clients.jedis.Jedis;
+
+/**
+ * 把key按一致性hash分布到多个Redis节点上的JedisCacheHelper，每个节点是一个独立的JedisCacheHelper。<br>
+ * 单key的操作直接交给负责该key的节点；mget、集合的交并差等多key操作按节点拆分，并行执行后合并结果，
+ * 所有key在同一节点上时仍由Redis计算。跨节点的集合运算在客户端完成，moveStringSetMember等跨节点移动不是原子的。<br>
+ * key中含有{tag}时只按tag分布，需要在服务端计算或原子移动的key可以用相同的tag放到同一节点。<br>
+ * 事务、管道和本地线程模式会在所有节点上同时开启，提交时逐个节点提交，不保证跨节点的原子性；
+ * 节点的事务、管道和绑定的Jedis都属于调用线程，开启期间多节点操作在调用线程中依次执行。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class ShardedJedisCacheHelper implements JedisCacheHelper {
+
+    /**
+     * 默认每个节点的虚拟节点数
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final ConsistentHashRing<JedisCacheHelper> ring;
+    private final CacheMetrics metrics = new CacheMetrics();
+    /**
+     * 执行多节点操作，调用线程自己执行其中一个节点
+     */
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "cache-helper-shard-" + THREAD_COUNTER.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+    /**
+     * 当前线程在各节点上开启了事务、管道或绑定了Jedis，节点结束任一模式时都会清除所有模式
+     */
+    private final ThreadLocal<Boolean> nodeModes = new ThreadLocal<Boolean>();
+
+    /**
+     * @param nodes        节点名称和对应的JedisCacheHelper，名称决定节点在环上的位置，通常使用host:port
+     * @param virtualNodes 每个节点在环上的点数
+     */
+    public ShardedJedisCacheHelper(Map<String, ? extends JedisCacheHelper> nodes, int virtualNodes) {
+        if (null == nodes || nodes.isEmpty())
+            throw new IllegalArgumentException("nodes cannot be null or empty");
+        ring = new ConsistentHashRing<JedisCacheHelper>(virtualNodes);
+        for (Map.Entry<String, ? extends JedisCacheHelper> node : nodes.entrySet())
+            ring.add(node.getKey(), node.getValue());
+        metrics.registerGauge("shardNodes", ring::size);
+    }
+
+    public ShardedJedisCacheHelper(Map<String, ? extends JedisCacheHelper> nodes) {
+        this(nodes, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * 加入节点，约1/N的key改为由新节点负责，这些key在原节点上的数据不会迁移
+     */
+    public void addNode(String name, JedisCacheHelper node) {
+        ring.add(name, node);
+    }
+
+    /**
+     * 移除节点，该节点负责的key改由其他节点负责；移除的节点不再随本对象关闭
+     */
+    public JedisCacheHelper removeNode(String name) {
+        if (ring.size() == 1 && ring.nodes().containsKey(name))
+            throw new IllegalStateException("Cannot remove the last node");
+        return ring.remove(name);
+    }
+
+    /**
+     * 负责key的节点
+     */
+    public JedisCacheHelper getNode(String key) {
+        return node(key);
+    }
+
+    /**
+     * 所有节点，不可修改
+     */
+    public Map<String, JedisCacheHelper> getNodes() {
+        return ring.nodes();
+    }
+
+    /**
+     * 停止执行多节点操作的线程，并关闭各节点
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        for (JedisCacheHelper node : ring.nodes().values())
+            node.close();
+    }
+
+    private static void assertKey(Object keyorfield) {
+        if (null == keyorfield)
+            throw new IllegalArgumentException("Key or field cannot be null!");
+    }
+
+    private JedisCacheHelper node(String key) {
+        assertKey(key);
+        return ring.get(key);
+    }
+
+    /**
+     * byte[]形式的key按平台默认编码转为String，与JedisHelperImpl中key.getBytes()对应
+     */
+    private JedisCacheHelper node(byte[] key) {
+        assertKey(key);
+        return ring.get(new String(key));
+    }
+
+    /**
+     * 按负责的节点分组，保持key原来的顺序，返回每组key在原数组中的下标
+     */
+    private Map<JedisCacheHelper, List<Integer>> group(String[] keys) {
+        Map<JedisCacheHelper, List<Integer>> groups = new IdentityHashMap<JedisCacheHelper, List<Integer>>();
+        for (int i = 0; i < keys.length; i++)
+            groups.computeIfAbsent(node(keys[i]), n -> new ArrayList<Integer>()).add(i);
+        return groups;
+    }
+
+    /**
+     * 并行执行，按tasks的顺序返回结果；第一个任务在调用线程中执行。任务抛出的异常原样抛出。<br>
+     * 当前线程开启了事务、管道或绑定了Jedis时，所有任务都在调用线程中依次执行
+     */
+    private <R> List<R> parallel(List<Callable<R>> tasks) {
+        boolean inline = null != nodeModes.get();
+        List<Future<R>> futures = new ArrayList<Future<R>>(tasks.size());
+        for (int i = 1; i < tasks.size(); i++)
+            futures.add(inline ? new FutureTask<R>(tasks.get(i)) : executor.submit(tasks.get(i)));
+        List<R> results = new ArrayList<R>(tasks.size());
+        RuntimeException failure = null;
+        try {
+            results.add(tasks.get(0).call());
+        } catch (RuntimeException e) {
+            failure = e;
+        } catch (Exception e) {
+            failure = new IllegalStateException(e);
+        }
+        for (Future<R> future : futures) {
+            if (inline)
+                ((FutureTask<R>) future).run();
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                RuntimeException ex = cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+                if (null == failure)
+                    failure = ex;
+                else
+                    failure.addSuppressed(ex);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (null == failure)
+                    failure = new IllegalStateException(e);
+            }
+        }
+        if (null != failure)
+            throw failure;
+        return results;
+    }
+
+    /**
+     * 在每个节点上执行，返回是否全部成功；某个节点失败时其余节点仍会执行，最后抛出第一个异常
+     */
+    private boolean forEachNode(Predicate<JedisCacheHelper> action) {
+        boolean ok = true;
+        RuntimeException failure = null;
+        for (JedisCacheHelper node : ring.nodes().values()) {
+            try {
+                ok &= action.test(node);
+            } catch (RuntimeException e) {
+                if (null == failure)
+                    failure = e;
+                else
+                    failure.addSuppressed(e);
+            }
+        }
+        if (null != failure)
+            throw failure;
+        return ok;
+    }
+
+    ///////////////////////////////////////////////////////////// 模式，在所有节点上执行
+
+    @Override
+    public void info() {
+        forEachNode(node -> {
+            node.info();
+            return true;
+        });
+    }
+
+    /**
+     * 分片层的统计，各节点的统计通过{@link #getNodes()}获取
+     */
+    @Override
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public boolean startTransaction() {
+        nodeModes.set(Boolean.TRUE);
+        return forEachNode(JedisCacheHelper::startTransaction);
+    }
+
+    @Override
+    public boolean commit() {
+        try {
+            return forEachNode(JedisCacheHelper::commit);
+        } finally {
+            nodeModes.remove();
+        }
+    }
+
+    @Override
+    public boolean openPipeline() {
+        nodeModes.set(Boolean.TRUE);
+        return forEachNode(JedisCacheHelper::openPipeline);
+    }
+
+    @Override
+    public void sync() {
+        forEachNode(node -> {
+            node.sync();
+            return true;
+        });
+    }
+
+    @Override
+    public boolean closePipeline() {
+        try {
+            return forEachNode(JedisCacheHelper::closePipeline);
+        } finally {
+            nodeModes.remove();
+        }
+    }
+
+    /**
+     * 没有唯一的节点，使用getNode(key).getNewJedis()
+     */
+    @Override
+    public Jedis getNewJedis() {
+        throw new IllegalStateException("A sharded helper has no single Jedis, use getNode(key).getNewJedis()");
+    }
+
+    @Override
+    public boolean tryLease(String key, String token, long millis) {
+        return node(key).tryLease(key, token, millis);
+    }
+
+    @Override
+    public boolean releaseLease(String key, String token) {
+        return node(key).releaseLease(key, token);
+    }
+
+    /**
+     * 由负责key的节点加载，使用该节点的提前刷新设置
+     */
+    @Override
+    public <T> T getOrLoad(String key, Class<T> type, int ttl, Supplier<? extends T> loader) {
+        return node(key).getOrLoad(key, type, ttl, loader);
+    }
+
+    /**
+     * 租约和值都在负责key的节点上
+     */
+    @Override
+    public <T> T getOrLoad(String key, Class<T> type, int ttl, long leaseMillis, Supplier<? extends T> loader) {
+        return node(key).getOrLoad(key, type, ttl, leaseMillis, loader);
+    }
+
+    @Override
+    public boolean boundJedis() {
+        nodeModes.set(Boolean.TRUE);
+        return forEachNode(JedisCacheHelper::boundJedis);
+    }
+
+    @Override
+    public void unboundJedis() {
+        try {
+            forEachNode(node -> {
+                node.unboundJedis();
+                return true;
+            });
+        } finally {
+            nodeModes.remove();
+        }
+    }
+
+    @Override
+    public boolean discard() {
+        try {
+            return forEachNode(JedisCacheHelper::discard);
+        } finally {
+            nodeModes.remove();
+        }
+    }
+
+    ///////////////////////////////////////////////////////////// 多key操作
+
+    @Override
+    public List<String> mget(String... keys) {
+        return scatter(keys, JedisCacheHelper::mget);
+    }
+
+    @Override
+    public <T> List<T> getObjects(Class<T> type, String... keys) {
+        return scatter(keys, (node, part) -> node.getObjects(type, part));
+    }
+
+    /**
+     * 按节点分组后并行读取，结果按keys的顺序合并
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> scatter(String[] keys, BiFunction<JedisCacheHelper, String[], List<T>> read) {
+        if (null == keys || keys.length == 0)
+            throw new IllegalArgumentException("Keys cannot be null or empty!");
+        Map<JedisCacheHelper, List<Integer>> groups = group(keys);
+        if (groups.size() == 1)
+            return read.apply(groups.keySet().iterator().next(), keys);
+        List<Callable<List<T>>> tasks = new ArrayList<Callable<List<T>>>(groups.size());
+        List<List<Integer>> positions = new ArrayList<List<Integer>>(groups.size());
+        for (Map.Entry<JedisCacheHelper, List<Integer>> group : groups.entrySet()) {
+            List<Integer> indexes = group.getValue();
+            String[] part = new String[indexes.size()];
+            for (int i = 0; i < part.length; i++)
+                part[i] = keys[indexes.get(i)];
+            JedisCacheHelper node = group.getKey();
+            tasks.add(() -> read.apply(node, part));
+            positions.add(indexes);
+        }
+        List<List<T>> results = parallel(tasks);
+        Object[] merged = new Object[keys.length];
+        for (int g = 0; g < results.size(); g++) {
+            List<Integer> indexes = positions.get(g);
+            List<T> values = results.get(g);
+            for (int i = 0; i < indexes.size(); i++)
+                merged[indexes.get(i)] = values.get(i);
+        }
+        List<T> ret = new ArrayList<T>(keys.length);
+        for (Object value : merged)
+            ret.add((T) value);
+        return ret;
+    }
+
+    /**
+     * keys所在的唯一节点，分布在多个节点上时返回null
+     */
+    private JedisCacheHelper sameNode(String[] keys) {
+        JedisCacheHelper first = node(keys[0]);
+        for (int i = 1; i < keys.length; i++) {
+            if (node(keys[i]) != first)
+                return null;
+        }
+        return first;
+    }
+
+    private static String[] toStrings(byte[][] keys) {
+        String[] strings = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            assertKey(keys[i]);
+            strings[i] = new String(keys[i]);
+        }
+        return strings;
+    }
+
+    /**
+     * 并行读取各个String集合
+     */
+    private List<Set<String>> stringSets(String[] keys) {
+        List<Callable<Set<String>>> tasks = new ArrayList<Callable<Set<String>>>(keys.length);
+        for (String key : keys) {
+            JedisCacheHelper node = node(key);
+            tasks.add(() -> node.getStringSetAll(key));
+        }
+        return parallel(tasks);
+    }
+
+    /**
+     * 并行读取各个对象集合，成员以未压缩的编码为key，与Redis按字节比较成员一致
+     */
+    private <T> List<Map<ByteBuffer, T>> objectSets(Class<T> type, String[] keys) {
+        List<Callable<Map<ByteBuffer, T>>> tasks = new ArrayList<Callable<Map<ByteBuffer, T>>>(keys.length);
+        for (String key : keys) {
+            JedisCacheHelper node = node(key);
+            tasks.add(() -> {
+                Map<ByteBuffer, T> members = new LinkedHashMap<ByteBuffer, T>();
+                Set<T> values = node.getObjectSetAll(key, type);
+                if (null != values) {
+                    for (T value : values)
+                        members.put(ByteBuffer.wrap(Codecs.encode(value)), value);
+                }
+                return members;
+            });
+        }
+        return parallel(tasks);
+    }
+
+    private static final int INTER = 0;
+    private static final int DIFF = 1;
+    private static final int UNION = 2;
+
+    private static <E> Set<E> combine(List<Set<E>> sets, int op) {
+        Set<E> ret = new LinkedHashSet<E>(null == sets.get(0) ? Collections.<E>emptySet() : sets.get(0));
+        for (int i = 1; i < sets.size(); i++) {
+            Set<E> other = null == sets.get(i) ? Collections.<E>emptySet() : sets.get(i);
+            if (op == INTER)
+                ret.retainAll(other);
+            else if (op == DIFF)
+                ret.removeAll(other);
+            else
+                ret.addAll(other);
+        }
+        return ret;
+    }
+
+    private <T> Set<T> combineObjectSets(Class<T> type, byte[][] keys, int op) {
+        List<Map<ByteBuffer, T>> sets = objectSets(type, toStrings(keys));
+        List<Set<ByteBuffer>> encoded = new ArrayList<Set<ByteBuffer>>(sets.size());
+        Map<ByteBuffer, T> values = new HashMap<ByteBuffer, T>();
+        for (Map<ByteBuffer, T> set : sets) {
+            encoded.add(set.keySet());
+            values.putAll(set);
+        }
+        Set<T> ret = new HashSet<T>();
+        for (ByteBuffer member : combine(encoded, op))
+            ret.add(values.get(member));
+        return ret;
+    }
+
+    @Override
+    public <T> Set<T> getInterObjectSet(Class<T> type, byte[]... keys) {
+        if (null == keys || keys.length == 0)
+            return null;
+        JedisCacheHelper node = sameNode(toStrings(keys));
+        return null != node ? node.getInterObjectSet(type, keys) : combineObjectSets(type, keys, INTER);
+    }
+
+    @Override
+    public <T> Set<T> getDiffObjectSet(Class<T> type, byte[]... keys) {
+        if (null == keys || keys.length == 0)
+            return null;
+        JedisCacheHelper node = sameNode(toStrings(keys));
+        return null != node ? node.getDiffObjectSet(type, keys) : combineObjectSets(type, keys, DIFF);
+    }
+
+    @Override
+    public <T> Set<T> getUnionObjectSet(Class<T> type, byte[]... keys) {
+        if (null == keys || keys.length == 0)
+            return null;
+        JedisCacheHelper node = sameNode(toStrings(keys));
+        return null != node ? node.getUnionObjectSet(type, keys) : combineObjectSets(type, keys, UNION);
+    }
+
+    @Override
+    public Set<String> getInterStringSet(String... keys) {
+        if (null == keys || keys.length == 0)
+            return null;
+        JedisCacheHelper node = sameNode(keys);
+        return null != node ? node.getInterStringSet(keys) : combine(stringSets(keys), INTER);
+    }
+
+    @Override
+    public Set<String> getDiffStringSet(String... keys) {
+        if (null == keys || keys.length == 0)
+            return null;
+        JedisCacheHelper node = sameNode(keys);
+        return null != node ? node.getDiffStringSet(keys) : combine(stringSets(keys), DIFF);
+    }
+
+    @Override
+    public Set<String> getUnionObjectSet(String... keys) {
+        if (null == keys || keys.length == 0)
+            return null;
+        JedisCacheHelper node = sameNode(keys);
+        return null != node ? node.getUnionObjectSet(keys) : combine(stringSets(keys), UNION);
+    }
+
+    @Override
+    public int moveObjectSetMember(byte[] source, byte[] dest, Object member) {
+        JedisCacheHelper from = node(source);
+        JedisCacheHelper to = node(dest);
+        if (from == to)
+            return from.moveObjectSetMember(source, dest, member);
+        if (!from.isObjectSetMember(source, member))
+            return 0;
+        to.appendObjectSetMember(new String(dest), member);
+        from.removeObjectSetMember(new String(source), member);
+        return 1;
+    }
+
+    @Override
+    public int moveStringSetMember(String source, String dest, String member) {
+        JedisCacheHelper from = node(source);
+        JedisCacheHelper to = node(dest);
+        if (from == to)
+            return from.moveStringSetMember(source, dest, member);
+        if (!from.isStringSetMember(source, member))
+            return 0;
+        to.appendStringSetMember(dest, member);
+        from.removeStringSetMember(source, member);
+        return 1;
+    }
+
+    @Override
+    public Set<String> keys(String pattern) {
+        List<Callable<Set<String>>> tasks = new ArrayList<Callable<Set<String>>>();
+        for (JedisCacheHelper node : ring.nodes().values())
+            tasks.add(() -> node.keys(pattern));
+        Set<String> keys = new HashSet<String>();
+        for (Set<String> part : parallel(tasks))
+            keys.addAll(part);
+        return keys;
+    }
+
+    /**
+     * 依次遍历各个节点
+     */
+    @Override
+    public Iterator<String> scan(String pattern, int batchSize) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize must be greater than 0");
+        Iterator<JedisCacheHelper> nodes = new ArrayList<JedisCacheHelper>(ring.nodes().values()).iterator();
+        return new Iterator<String>() {
+            private Iterator<String> current = Collections.<String>emptyList().iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && nodes.hasNext())
+                    current = nodes.next().scan(pattern, batchSize);
+                return current.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+    }
+
+    ///////////////////////////////////////////////////////////// 单key操作，交给负责该key的节点
+
+    @Override
+    public void exKey(String key, int sec) {
+        node(key).exKey(key, sec);
+    }
+
+    @Override
+    public void set(String key, String value) {
+        node(key).set(key, value);
+    }
+
+    @Override
+    public String get(String key) {
+        return node(key).get(key);
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        return node(key).hget(key, field);
+    }
+
+    @Override
+    public Map<String, String> hmget(String key, String... field) {
+        return node(key).hmget(key, field);
+    }
+
+    @Override
+    public void hset(String key, String field, String value) {
+        node(key).hset(key, field, value);
+    }
+
+    @Override
+    public void setEX(String key, String value, int sec) {
+        node(key).setEX(key, value, sec);
+    }
+
+    @Override
+    public void setObjectEX(String key, Object value, int second) {
+        node(key).setObjectEX(key, value, second);
+    }
+
+    @Override
+    public void setMap(String key, Map<?, ?> map) {
+        node(key).setMap(key, map);
+    }
+
+    @Override
+    public <T> T getMapValue(String mapKey, Object fieldKey, Class<T> type) {
+        return node(mapKey).getMapValue(mapKey, fieldKey, type);
+    }
+
+    @Override
+    public void appendMapItem(String mapKey, Object fieldKey, Object value) {
+        node(mapKey).appendMapItem(mapKey, fieldKey, value);
+    }
+
+    @Override
+    public <T> List<T> getMapValues(String mapKey, Class<T> type) {
+        return node(mapKey).getMapValues(mapKey, type);
+    }
+
+    @Override
+    public <T, K> Map<K, T> getMultiMapValues(String mapKey, Class<T> type, K... keys) {
+        return node(mapKey).getMultiMapValues(mapKey, type, keys);
+    }
+
+    @Override
+    public void setObject(String key, Object obj) {
+        node(key).setObject(key, obj);
+    }
+
+    @Override
+    public void setObjects(Map<String, ?> values, int second) {
+        if (null == values)
+            throw new IllegalArgumentException("Values cannot be null!");
+        Map<JedisCacheHelper, Map<String, Object>> groups = new IdentityHashMap<JedisCacheHelper, Map<String, Object>>();
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            assertKey(entry.getKey());
+            groups.computeIfAbsent(node(entry.getKey()), n -> new LinkedHashMap<String, Object>())
+                    .put(entry.getKey(), entry.getValue());
+        }
+        if (groups.size() <= 1) {
+            for (Map.Entry<JedisCacheHelper, Map<String, Object>> group : groups.entrySet())
+                group.getKey().setObjects(group.getValue(), second);
+            return;
+        }
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(groups.size());
+        for (Map.Entry<JedisCacheHelper, Map<String, Object>> group : groups.entrySet()) {
+            tasks.add(() -> {
+                group.getKey().setObjects(group.getValue(), second);
+                return null;
+            });
+        }
+        parallel(tasks);
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> type) {
+        return node(key).getObject(key, type);
+    }
+
+    @Override
+    public void setStringList(String key, List<String> list) {
+        node(key).setStringList(key, list);
+    }
+
+    @Override
+    public void appendStringListItem(String key, boolean tail, String... strings) {
+        node(key).appendStringListItem(key, tail, strings);
+    }
+
+    @Override
+    public String getStringListItem(String key, int index) {
+        return node(key).getStringListItem(key, index);
+    }
+
+    @Override
+    public List<String> getStringListItems(String key, int start, int end) {
+        return node(key).getStringListItems(key, start, end);
+    }
+
+    @Override
+    public void setObjectList(String key, List<?> list) {
+        node(key).setObjectList(key, list);
+    }
+
+    @Override
+    public <T> T getObjectListItem(String key, int index, Class<T> type) {
+        return node(key).getObjectListItem(key, index, type);
+    }
+
+    @Override
+    public <T> List<T> getObjectListItems(String key, int start, int end, Class<T> type) {
+        return node(key).getObjectListItems(key, start, end, type);
+    }
+
+    @Override
+    public void appendObjectListItem(String key, boolean tail, Object... items) {
+        node(key).appendObjectListItem(key, tail, items);
+    }
+
+    @Override
+    public void trimList(String key, int start, int end) {
+        node(key).trimList(key, start, end);
+    }
+
+    @Override
+    public void removeRepeatStringListItem(String key, int count, String value) {
+        node(key).removeRepeatStringListItem(key, count, value);
+    }
+
+    @Override
+    public void removeRepeatObjectListItem(String key, int count, Object value) {
+        node(key).removeRepeatObjectListItem(key, count, value);
+    }
+
+    @Override
+    public long getListLength(String key) {
+        return node(key).getListLength(key);
+    }
+
+    @Override
+    public <T> void setObjectSet(String key, Set<T> sets) {
+        node(key).setObjectSet(key, sets);
+    }
+
+    @Override
+    public <T> Set<T> getObjectSetAll(String key, Class<T> type) {
+        return node(key).getObjectSetAll(key, type);
+    }
+
+    @Override
+    public <T> void appendObjectSetMember(String key, T... objects) {
+        node(key).appendObjectSetMember(key, objects);
+    }
+
+    @Override
+    public <T> void removeObjectSetMember(String key, T... objects) {
+        node(key).removeObjectSetMember(key, objects);
+    }
+
+    @Override
+    public boolean isObjectSetMember(byte[] key, Object member) {
+        return node(key).isObjectSetMember(key, member);
+    }
+
+    @Override
+    public void setStringSet(String key, Set<String> sets) {
+        node(key).setStringSet(key, sets);
+    }
+
+    @Override
+    public Set<String> getStringSetAll(String key) {
+        return node(key).getStringSetAll(key);
+    }
+
+    @Override
+    public void appendStringSetMember(String key, String... strings) {
+        node(key).appendStringSetMember(key, strings);
+    }
+
+    @Override
+    public void removeStringSetMember(String key, String... strings) {
+        node(key).removeStringSetMember(key, strings);
+    }
+
+    @Override
+    public <T> void setSortedObjectSet(String key, Map<Long, T> set) {
+        node(key).setSortedObjectSet(key, set);
+    }
+
+    @Override
+    public void setStringSortedObjectSet(String key, Map<Long, String> set) {
+        node(key).setStringSortedObjectSet(key, set);
+    }
+
+    @Override
+    public <T> void appendSortedObjectSetMember(String key, Map<Long, T> set) {
+        node(key).appendSortedObjectSetMember(key, set);
+    }
+
+    @Override
+    public void appendStringSortedObjectSetMember(String key, Map<Long, String> set) {
+        node(key).appendStringSortedObjectSetMember(key, set);
+    }
+
+    @Override
+    public <T> List<T> getSortedObjectSetMember(String key, long start, long end, Class<T> type) {
+        return node(key).getSortedObjectSetMember(key, start, end, type);
+    }
+
+    @Override
+    public List<String> getStringSortedObjectSetMember(String key, long start, long end) {
+        return node(key).getStringSortedObjectSetMember(key, start, end);
+    }
+
+    @Override
+    public <T> List<T> getReverseSortedObjectSetMember(String key, long start, long end, Class<T> type) {
+        return node(key).getReverseSortedObjectSetMember(key, start, end, type);
+    }
+
+    @Override
+    public List<String> getReverseStringSortedObjectSetMember(String key, long start, long end) {
+        return node(key).getReverseStringSortedObjectSetMember(key, start, end);
+    }
+
+    @Override
+    public long getSortedSetSize(String key) {
+        return node(key).getSortedSetSize(key);
+    }
+
+    @Override
+    public <T> void removeSortedObjectSetMember(String key, T... members) {
+        node(key).removeSortedObjectSetMember(key, members);
+    }
+
+    @Override
+    public void removeStringSortedObjectSetMember(String key, String... members) {
+        node(key).removeStringSortedObjectSetMember(key, members);
+    }
+
+    @Override
+    public <T> void removeSortedObjectSetMember(String key, long start, long end) {
+        node(key).removeSortedObjectSetMember(key, start, end);
+    }
+
+    @Override
+    public void removeStringSortedObjectSetMember(String key, long start, long end) {
+        node(key).removeStringSortedObjectSetMember(key, start, end);
+    }
+
+    @Override
+    public <T> Long increSortedObjectSetMemberScore(String key, T member, long incr) {
+        return node(key).increSortedObjectSetMemberScore(key, member, incr);
+    }
+
+    @Override
+    public Long increStringSortedObjectSetMemberScore(String key, String member, long incr) {
+        return node(key).increStringSortedObjectSetMemberScore(key, member, incr);
+    }
+
+    @Override
+    public <T> List<T> getSortedObjectSetMemberByScore(String key, long min, long max, Class<T> type) {
+        return node(key).getSortedObjectSetMemberByScore(key, min, max, type);
+    }
+
+    @Override
+    public List<String> getStringSortedObjectSetMemberByScore(String key, long min, long max) {
+        return node(key).getStringSortedObjectSetMemberByScore(key, min, max);
+    }
+
+    @Override
+    public <T> Long getSortedObjectSetMemberRank(String key, T member) {
+        return node(key).getSortedObjectSetMemberRank(key, member);
+    }
+
+    @Override
+    public Long getStringSortedObjectSetMemberRank(String key, String member) {
+        return node(key).getStringSortedObjectSetMemberRank(key, member);
+    }
+
+    @Override
+    public <T> Long getReverseSortedObjectSetMemberRank(String key, T member) {
+        return node(key).getReverseSortedObjectSetMemberRank(key, member);
+    }
+
+    @Override
+    public Long getReverseStringSortedObjectSetMemberRank(String key, String member) {
+        return node(key).getReverseStringSortedObjectSetMemberRank(key, member);
+    }
+
+    @Override
+    public <T> Long getSortedObjectSetMemberScore(String key, T member) {
+        return node(key).getSortedObjectSetMemberScore(key, member);
+    }
+
+    @Override
+    public Long getStringSortedObjectSetMemberScore(String key, String member) {
+        return node(key).getStringSortedObjectSetMemberScore(key, member);
+    }
+
+    @Override
+    public boolean existsKey(String key) {
+        return node(key).existsKey(key);
+    }
+
+    @Override
+    public long getTimeToLive(String key) {
+        return node(key).getTimeToLive(key);
+    }
+
+    @Override
+    public ExpiringValue<String> getWithTtl(String key) {
+        return node(key).getWithTtl(key);
+    }
+
+    @Override
+    public <T> ExpiringValue<T> getObjectWithTtl(String key, Class<T> type) {
+        return node(key).getObjectWithTtl(key, type);
+    }
+
+    @Override
+    public <T> List<ExpiringValue<T>> getObjectsWithTtl(Class<T> type, String... keys) {
+        return scatter(keys, (node, part) -> node.getObjectsWithTtl(type, part));
+    }
+
+    @Override
+    public ExpiringValue<String> hgetWithTtl(String key, String field) {
+        return node(key).hgetWithTtl(key, field);
+    }
+
+    @Override
+    public <T> ExpiringValue<T> getMapValueWithTtl(String mapKey, Object fieldKey, Class<T> type) {
+        return node(mapKey).getMapValueWithTtl(mapKey, fieldKey, type);
+    }
+
+    @Override
+    public long getSetSize(String key) {
+        return node(key).getSetSize(key);
+    }
+
+    @Override
+    public void del(String key) {
+        node(key).del(key);
+    }
+
+    @Override
+    public void hdel(String key, String field) {
+        node(key).hdel(key, field);
+    }
+
+    @Override
+    public void hdel(String key, Object field) {
+        node(key).hdel(key, field);
+    }
+
+    @Override
+    public void incr(String key, Long value) {
+        node(key).incr(key, value);
+    }
+
+    @Override
+    public void hincr(String key, String field, Long value) {
+        node(key).hincr(key, field, value);
+    }
+
+    @Override
+    public boolean isStringSetMember(String key, String member) {
+        return node(key).isStringSetMember(key, member);
+    }
+}
@@ -0,0 +1,29 @@
+package com.foxless.util.cache.codec;
+
+/**
+ * 对象值的编解码器，通过{@link Codecs#register(Class, Codec)}按类型注册。<br>
+ * 编码结果前有两个字节的头（标记字节 + 编解码器id），解码时按id选择编解码器，
+ * 因此不同编解码器写入的值可以同时存在，修改注册不影响已写入数据的读取。<br>
+ * 实现必须是线程安全的。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public interface Codec<T> {
+
+    /**
+     * 编解码器id，写入编码头，1~15保留给内置编解码器，自定义编解码器使用16~255；
+     * 0表示Protostuff的原有格式，不写编码头
+     */
+    int getId();
+
+    /**
+     * 把value编码后写入out，编码头已由调用方写入
+     */
+    void encode(T value, CodecOutput out);
+
+    /**
+     * 从bytes的offset开始解码length个字节，不含编码头；bytes可能是复用的缓冲区，返回值不能引用它
+     */
+    T decode(byte[] bytes, int offset, int length);
+}
@@ -0,0 +1,88 @@
+package com.foxless.util.cache.codec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 按{@link CodecOutput}的格式从字节数组中读取数据
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class CodecInput {
+
+    private final byte[] buf;
+    private final int limit;
+    private int pos;
+
+    public CodecInput(byte[] bytes, int offset, int length) {
+        this.buf = bytes;
+        this.pos = offset;
+        this.limit = offset + length;
+    }
+
+    private void require(int n) {
+        if (n < 0 || pos + n > limit)
+            throw new IllegalArgumentException("Truncated codec data");
+    }
+
+    public int remaining() {
+        return limit - pos;
+    }
+
+    public byte readByte() {
+        require(1);
+        return buf[pos++];
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public byte[] readBytes(int length) {
+        require(length);
+        byte[] bytes = new byte[length];
+        System.arraycopy(buf, pos, bytes, 0, length);
+        pos += length;
+        return bytes;
+    }
+
+    public int readInt() {
+        require(4);
+        int v = (buf[pos] & 0xFF) << 24 | (buf[pos + 1] & 0xFF) << 16 | (buf[pos + 2] & 0xFF) << 8 | buf[pos + 3] & 0xFF;
+        pos += 4;
+        return v;
+    }
+
+    public long readLong() {
+        return (long) readInt() << 32 | readInt() & 0xFFFFFFFFL;
+    }
+
+    public double readDouble() {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    public long readVarLong() {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return v;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    public long readSignedVarLong() {
+        long v = readVarLong();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public String readString() {
+        long length = readVarLong();
+        if (length > remaining())
+            throw new IllegalArgumentException("Truncated codec data");
+        String s = new String(buf, pos, (int) length, StandardCharsets.UTF_8);
+        pos += (int) length;
+        return s;
+    }
+}
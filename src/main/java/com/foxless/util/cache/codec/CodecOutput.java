@@ -0,0 +1,156 @@
+package com.foxless.util.cache.codec;
+
+import java.util.Arrays;
+
+/**
+ * 编码时写入的可增长字节缓冲，{@link Codecs}在每个线程中复用一个实例。<br>
+ * 整数提供定长（大端）和变长（varint，有符号数先做zigzag）两种写法，字符串写为 varint字节数 + UTF-8。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class CodecOutput {
+
+    private byte[] buf;
+    private int pos;
+
+    public CodecOutput(int initialCapacity) {
+        buf = new byte[Math.max(16, initialCapacity)];
+    }
+
+    private void ensure(int n) {
+        if (pos + n > buf.length)
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+    }
+
+    public CodecOutput writeByte(int b) {
+        ensure(1);
+        buf[pos++] = (byte) b;
+        return this;
+    }
+
+    public CodecOutput writeBytes(byte[] bytes) {
+        return writeBytes(bytes, 0, bytes.length);
+    }
+
+    public CodecOutput writeBytes(byte[] bytes, int offset, int length) {
+        ensure(length);
+        System.arraycopy(bytes, offset, buf, pos, length);
+        pos += length;
+        return this;
+    }
+
+    public CodecOutput writeBoolean(boolean b) {
+        return writeByte(b ? 1 : 0);
+    }
+
+    public CodecOutput writeInt(int v) {
+        ensure(4);
+        buf[pos++] = (byte) (v >>> 24);
+        buf[pos++] = (byte) (v >>> 16);
+        buf[pos++] = (byte) (v >>> 8);
+        buf[pos++] = (byte) v;
+        return this;
+    }
+
+    public CodecOutput writeLong(long v) {
+        writeInt((int) (v >>> 32));
+        return writeInt((int) v);
+    }
+
+    public CodecOutput writeDouble(double v) {
+        return writeLong(Double.doubleToRawLongBits(v));
+    }
+
+    /**
+     * 无符号varint
+     */
+    public CodecOutput writeVarLong(long v) {
+        ensure(10);
+        while ((v & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+        return this;
+    }
+
+    /**
+     * zigzag编码后的varint，绝对值小的负数也只占少量字节
+     */
+    public CodecOutput writeSignedVarLong(long v) {
+        return writeVarLong((v << 1) ^ (v >> 63));
+    }
+
+    public CodecOutput writeString(String s) {
+        writeVarLong(utf8Length(s));
+        return writeUtf8(s);
+    }
+
+    /**
+     * 只写UTF-8字节，不写长度，孤立的代理字符写为'?'，与String.getBytes(UTF_8)一致
+     */
+    public CodecOutput writeUtf8(String s) {
+        int n = s.length();
+        ensure(n * 3);
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    private static int utf8Length(String s) {
+        int n = s.length();
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    public int size() {
+        return pos;
+    }
+
+    public void reset() {
+        pos = 0;
+    }
+
+    int capacity() {
+        return buf.length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, pos);
+    }
+}
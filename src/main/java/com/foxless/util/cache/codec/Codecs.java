@@ -0,0 +1,124 @@
+package com.foxless.util.cache.codec;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.foxless.util.cache.SerializeUtil;
+
+/**
+ * 编解码器注册表，缓存对象值的编码和解码都经过这里。<br>
+ * 编码时按值的实际类型（不含父类）查找编解码器，未注册的类型使用{@link ProtostuffCodec}；
+ * 带编码头的数据为 {@link #MAGIC}(1) + 编解码器id(1) + 数据，解码时按id查找，与当前的类型注册无关。<br>
+ * 默认注册了String、Long、Integer、Double、Boolean和byte[]的{@link RawCodecs}。
+ * 注意旧版本客户端只能读取Protostuff格式，滚动升级期间可以把这些类型注册为ProtostuffCodec。<br>
+ * Hash的field、Set和SortedSet的成员、List的元素需要按字节比较，仍固定使用Protostuff格式，不经过这里。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+@SuppressWarnings("unchecked")
+public final class Codecs {
+
+    /**
+     * 编码头的标记字节，Protostuff格式的数据总是以{@link SerializeUtil#CONTAINER_TAG}开头，不会与它混淆
+     */
+    public static final byte MAGIC = (byte) 0xC5;
+
+    private static final int MAX_RETAINED_OUTPUT = 64 * 1024;
+
+    private static final ConcurrentHashMap<Class<?>, Codec<?>> byType = new ConcurrentHashMap<Class<?>, Codec<?>>();
+    private static final AtomicReferenceArray<Codec<?>> byId = new AtomicReferenceArray<Codec<?>>(256);
+
+    private static final ThreadLocal<CodecOutput> outputs = new ThreadLocal<CodecOutput>() {
+        @Override
+        protected CodecOutput initialValue() {
+            return new CodecOutput(SerializeUtil.LINK_BUFFER_SIZE);
+        }
+    };
+
+    static {
+        byId.set(0, ProtostuffCodec.INSTANCE);
+        register(String.class, RawCodecs.STRING);
+        register(Long.class, RawCodecs.LONG);
+        register(Integer.class, RawCodecs.INTEGER);
+        register(Double.class, RawCodecs.DOUBLE);
+        register(Boolean.class, RawCodecs.BOOLEAN);
+        register(byte[].class, RawCodecs.BYTES);
+    }
+
+    private Codecs() {
+    }
+
+    /**
+     * 为type注册编解码器，替换该类型原有的注册。<br>
+     * 一个id只能对应一个编解码器实例，已写入的数据按id解码，所以不要把用过的id分给格式不同的编解码器。
+     */
+    public static <T> void register(Class<T> type, Codec<? super T> codec) {
+        if (null == type || null == codec)
+            throw new IllegalArgumentException("type and codec cannot be null");
+        int id = codec.getId();
+        if (id < 0 || id > 255)
+            throw new IllegalArgumentException("Codec id must be between 0 and 255: " + id);
+        if (!byId.compareAndSet(id, null, codec) && byId.get(id) != codec)
+            throw new IllegalArgumentException("Codec id " + id + " is already used by " + byId.get(id));
+        byType.put(type, codec);
+    }
+
+    /**
+     * 返回type使用的编解码器
+     */
+    public static <T> Codec<? super T> codecFor(Class<T> type) {
+        Codec<?> codec = byType.get(type);
+        return (Codec<? super T>) (null == codec ? ProtostuffCodec.INSTANCE : codec);
+    }
+
+    /**
+     * 按值的类型编码，null按Protostuff格式编码
+     */
+    public static byte[] encode(Object value) {
+        if (null == value)
+            return SerializeUtil.serialize(null);
+        Codec<Object> codec = (Codec<Object>) byType.get(value.getClass());
+        if (null == codec || codec.getId() == 0)
+            return SerializeUtil.serialize(value);
+        CodecOutput out = outputs.get();
+        if (out.size() > 0) {
+            // 编解码器内部又调用了encode
+            out = new CodecOutput(SerializeUtil.LINK_BUFFER_SIZE);
+        }
+        try {
+            out.writeByte(MAGIC).writeByte(codec.getId());
+            codec.encode(value, out);
+            return out.toByteArray();
+        } finally {
+            out.reset();
+            if (out.capacity() > MAX_RETAINED_OUTPUT)
+                outputs.remove();
+        }
+    }
+
+    /**
+     * 解码带编码头的数据、Protostuff格式的数据或{@link ValueCompressor}压缩后的数据
+     */
+    public static Object decode(byte[] bytes, int offset, int length) {
+        if (null == bytes || length == 0)
+            return null;
+        if (bytes[offset] == SerializeUtil.CONTAINER_TAG)
+            return SerializeUtil.deserialize(bytes, offset, length, Object.class);
+        if (bytes[offset] == ValueCompressor.MAGIC)
+            return decode(ValueCompressor.decompress(bytes, offset, length));
+        if (bytes[offset] != MAGIC)
+            throw new IllegalArgumentException("Unknown data format, first byte: " + bytes[offset]);
+        if (length < 2)
+            throw new IllegalArgumentException("Truncated codec header");
+        int id = bytes[offset + 1] & 0xFF;
+        Codec<?> codec = byId.get(id);
+        if (null == codec)
+            throw new IllegalStateException("No codec registered for id " + id);
+        return codec.decode(bytes, offset + 2, length - 2);
+    }
+
+    public static Object decode(byte[] bytes) {
+        return null == bytes ? null : decode(bytes, 0, bytes.length);
+    }
+}
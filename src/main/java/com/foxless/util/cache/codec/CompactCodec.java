@@ -0,0 +1,41 @@
+package com.foxless.util.cache.codec;
+
+/**
+ * 手写字段编码的编解码器基类，适合访问频繁的领域对象：
+ * 按固定顺序写入各字段，不含字段名和类型信息，没有反射开销。<br>
+ * 字段增减时需要换用新的id，或在数据开头自行写入版本号。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public abstract class CompactCodec<T> implements Codec<T> {
+
+    private final int id;
+
+    protected CompactCodec(int id) {
+        this.id = id;
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    protected abstract void write(T value, CodecOutput out);
+
+    protected abstract T read(CodecInput in);
+
+    @Override
+    public void encode(T value, CodecOutput out) {
+        write(value, out);
+    }
+
+    @Override
+    public T decode(byte[] bytes, int offset, int length) {
+        CodecInput in = new CodecInput(bytes, offset, length);
+        T value = read(in);
+        if (in.remaining() != 0)
+            throw new IllegalArgumentException("Codec " + id + " left " + in.remaining() + " unread bytes");
+        return value;
+    }
+}
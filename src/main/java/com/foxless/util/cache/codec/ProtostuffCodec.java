@@ -0,0 +1,34 @@
+package com.foxless.util.cache.codec;
+
+import com.foxless.util.cache.SerializeUtil;
+
+/**
+ * 使用{@link SerializeUtil}的Protostuff格式，没有注册编解码器的类型都使用它。<br>
+ * 该格式自身以固定字节开头，可以与带编码头的数据区分，因此不写编码头，与原有数据兼容。
+ * 需要让旧版本客户端也能读取时，可以把它注册给内置编解码器对应的类型。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class ProtostuffCodec implements Codec<Object> {
+
+    public static final ProtostuffCodec INSTANCE = new ProtostuffCodec();
+
+    private ProtostuffCodec() {
+    }
+
+    @Override
+    public int getId() {
+        return 0;
+    }
+
+    @Override
+    public void encode(Object value, CodecOutput out) {
+        out.writeBytes(SerializeUtil.serialize(value));
+    }
+
+    @Override
+    public Object decode(byte[] bytes, int offset, int length) {
+        return SerializeUtil.deserialize(bytes, offset, length, Object.class);
+    }
+}
@@ -0,0 +1,134 @@
+package com.foxless.util.cache.codec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 内置的基本类型编解码器：数据直接写在编码头之后，没有容器和反射开销
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class RawCodecs {
+
+    private RawCodecs() {
+    }
+
+    /**
+     * UTF-8字节
+     */
+    public static final Codec<String> STRING = new Codec<String>() {
+        @Override
+        public int getId() {
+            return 1;
+        }
+
+        @Override
+        public void encode(String value, CodecOutput out) {
+            out.writeUtf8(value);
+        }
+
+        @Override
+        public String decode(byte[] bytes, int offset, int length) {
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * zigzag varint
+     */
+    public static final Codec<Long> LONG = new Codec<Long>() {
+        @Override
+        public int getId() {
+            return 2;
+        }
+
+        @Override
+        public void encode(Long value, CodecOutput out) {
+            out.writeSignedVarLong(value);
+        }
+
+        @Override
+        public Long decode(byte[] bytes, int offset, int length) {
+            return new CodecInput(bytes, offset, length).readSignedVarLong();
+        }
+    };
+
+    /**
+     * zigzag varint
+     */
+    public static final Codec<Integer> INTEGER = new Codec<Integer>() {
+        @Override
+        public int getId() {
+            return 3;
+        }
+
+        @Override
+        public void encode(Integer value, CodecOutput out) {
+            out.writeSignedVarLong(value);
+        }
+
+        @Override
+        public Integer decode(byte[] bytes, int offset, int length) {
+            return (int) new CodecInput(bytes, offset, length).readSignedVarLong();
+        }
+    };
+
+    /**
+     * 8字节IEEE 754
+     */
+    public static final Codec<Double> DOUBLE = new Codec<Double>() {
+        @Override
+        public int getId() {
+            return 4;
+        }
+
+        @Override
+        public void encode(Double value, CodecOutput out) {
+            out.writeDouble(value);
+        }
+
+        @Override
+        public Double decode(byte[] bytes, int offset, int length) {
+            return new CodecInput(bytes, offset, length).readDouble();
+        }
+    };
+
+    public static final Codec<Boolean> BOOLEAN = new Codec<Boolean>() {
+        @Override
+        public int getId() {
+            return 5;
+        }
+
+        @Override
+        public void encode(Boolean value, CodecOutput out) {
+            out.writeBoolean(value);
+        }
+
+        @Override
+        public Boolean decode(byte[] bytes, int offset, int length) {
+            return new CodecInput(bytes, offset, length).readBoolean();
+        }
+    };
+
+    /**
+     * 原样写入
+     */
+    public static final Codec<byte[]> BYTES = new Codec<byte[]>() {
+        @Override
+        public int getId() {
+            return 6;
+        }
+
+        @Override
+        public void encode(byte[] value, CodecOutput out) {
+            out.writeBytes(value);
+        }
+
+        @Override
+        public byte[] decode(byte[] bytes, int offset, int length) {
+            byte[] value = new byte[length];
+            System.arraycopy(bytes, offset, value, 0, length);
+            return value;
+        }
+    };
+}
@@ -0,0 +1,232 @@
+package com.foxless.util.cache.codec;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 对编码后的大对象值做Deflate压缩，不小于阈值且压缩后确实变小的值才会压缩。<br>
+ * 压缩后的数据为 {@link #MAGIC}(1) + 原长度(varint) + Deflate数据，原数据是{@link Codecs#encode(Object)}的结果；
+ * 解码由{@link Codecs#decode(byte[], int, int)}按首字节识别，与是否开启压缩无关，压缩和未压缩的值可以同时存在。<br>
+ * Deflater和Inflater占用堆外内存，放在有上限的池中复用。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class ValueCompressor {
+
+    /**
+     * 压缩数据的首字节，与Protostuff格式和{@link Codecs#MAGIC}都不同
+     */
+    public static final byte MAGIC = (byte) 0xC6;
+
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+    /**
+     * Deflate格式能达到的最大压缩比约为1032:1，头部声明的原长度超过 压缩数据长度 * 该值 时一定是损坏或不是本类写入的数据
+     */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    private static final ArrayBlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<Inflater>(POOL_SIZE);
+
+    //解压统计，所有实例共用
+    private static final LongAdder decompressedValues = new LongAdder();
+    private static final LongAdder decompressNanos = new LongAdder();
+
+    private static final class Slot {
+        private final Deflater deflater;
+        private byte[] buf = new byte[4096];
+
+        Slot(int level) {
+            deflater = new Deflater(level);
+        }
+    }
+
+    private final int threshold;
+    private final int level;
+    private final ArrayBlockingQueue<Slot> deflaters = new ArrayBlockingQueue<Slot>(POOL_SIZE);
+
+    //压缩统计
+    private final LongAdder compressedValues = new LongAdder();
+    private final LongAdder incompressibleValues = new LongAdder();
+    private final LongAdder bytesBeforeCompression = new LongAdder();
+    private final LongAdder bytesAfterCompression = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+
+    /**
+     * @param threshold 编码后不小于该字节数的值才尝试压缩
+     * @param level     Deflater的压缩级别，1~9
+     */
+    public ValueCompressor(int threshold, int level) {
+        if (threshold <= 0)
+            throw new IllegalArgumentException("compressThreshold must be greater than 0");
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("compressLevel must be between 1 and 9");
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    /**
+     * 压缩编码后的值，小于阈值或压缩后没有变小时原样返回
+     */
+    public byte[] compress(byte[] encoded) {
+        if (null == encoded || encoded.length < threshold)
+            return encoded;
+        long start = System.nanoTime();
+        Slot slot = deflaters.poll();
+        if (null == slot)
+            slot = new Slot(level);
+        try {
+            // 压缩结果必须小于原数据，缓冲区按原数据大小准备即可
+            if (slot.buf.length < encoded.length)
+                slot.buf = new byte[encoded.length];
+            byte[] buf = slot.buf;
+            int pos = 0;
+            buf[pos++] = MAGIC;
+            for (long v = encoded.length; ; v >>>= 7) {
+                if ((v & ~0x7FL) == 0) {
+                    buf[pos++] = (byte) v;
+                    break;
+                }
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            }
+            Deflater deflater = slot.deflater;
+            deflater.setInput(encoded);
+            deflater.finish();
+            while (!deflater.finished() && pos < encoded.length)
+                pos += deflater.deflate(buf, pos, encoded.length - pos);
+            boolean smaller = deflater.finished() && pos < encoded.length;
+            deflater.reset();
+            if (!smaller) {
+                incompressibleValues.increment();
+                return encoded;
+            }
+            compressedValues.increment();
+            bytesBeforeCompression.add(encoded.length);
+            bytesAfterCompression.add(pos);
+            return Arrays.copyOf(buf, pos);
+        } finally {
+            if (slot.buf.length > MAX_RETAINED_BUFFER)
+                slot.buf = new byte[4096];
+            if (!deflaters.offer(slot))
+                slot.deflater.end();
+            compressNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 解压以{@link #MAGIC}开头的数据，返回压缩前的编码结果
+     */
+    static byte[] decompress(byte[] bytes, int offset, int length) {
+        long start = System.nanoTime();
+        int end = offset + length;
+        int pos = offset + 1;
+        long size = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (pos >= end || shift > 28)
+                throw new IllegalArgumentException("Malformed compressed value header");
+            byte b = bytes[pos++];
+            size |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                break;
+        }
+        // 按压缩数据的长度限制头部声明的原长度，避免损坏的数据导致巨大的内存分配
+        if (size > Integer.MAX_VALUE || size > (long) (end - pos) * MAX_DEFLATE_RATIO)
+            throw new IllegalArgumentException("Malformed compressed value header, declared size " + size
+                    + " for " + (end - pos) + " compressed bytes");
+        byte[] out = new byte[(int) size];
+        Inflater inflater = inflaters.poll();
+        if (null == inflater)
+            inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, pos, end - pos);
+            int n = 0;
+            while (n < out.length) {
+                int r = inflater.inflate(out, n, out.length - n);
+                if (r == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                n += r;
+            }
+            if (n != out.length || !inflater.finished())
+                throw new IllegalArgumentException("Corrupted compressed value");
+            return out;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupted compressed value", e);
+        } finally {
+            inflater.reset();
+            if (!inflaters.offer(inflater))
+                inflater.end();
+            decompressedValues.increment();
+            decompressNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public long getCompressedValues() {
+        return compressedValues.sum();
+    }
+
+    /**
+     * 达到阈值但压缩后没有变小、按原样保存的值的数量
+     */
+    public long getIncompressibleValues() {
+        return incompressibleValues.sum();
+    }
+
+    public long getBytesBeforeCompression() {
+        return bytesBeforeCompression.sum();
+    }
+
+    public long getBytesAfterCompression() {
+        return bytesAfterCompression.sum();
+    }
+
+    public long getBytesSaved() {
+        return getBytesBeforeCompression() - getBytesAfterCompression();
+    }
+
+    /**
+     * 压缩后与压缩前的字节数之比，没有压缩过时为1
+     */
+    public double getCompressionRatio() {
+        long before = getBytesBeforeCompression();
+        return before == 0 ? 1.0 : (double) getBytesAfterCompression() / before;
+    }
+
+    /**
+     * 达到阈值的值花在压缩上的总纳秒数，包括没有变小的值
+     */
+    public long getCompressNanos() {
+        return compressNanos.sum();
+    }
+
+    public static long getDecompressedValues() {
+        return decompressedValues.sum();
+    }
+
+    public static long getDecompressNanos() {
+        return decompressNanos.sum();
+    }
+
+    /**
+     * 统计信息，json格式
+     */
+    public String info() {
+        return "{\"compressThreshold\":\"" + threshold + "\""
+                + ",\"compressedValues\":\"" + getCompressedValues() + "\""
+                + ",\"incompressibleValues\":\"" + getIncompressibleValues() + "\""
+                + ",\"bytesBeforeCompression\":\"" + getBytesBeforeCompression() + "\""
+                + ",\"bytesAfterCompression\":\"" + getBytesAfterCompression() + "\""
+                + ",\"bytesSaved\":\"" + getBytesSaved() + "\""
+                + ",\"compressionRatio\":\"" + String.format("%.3f", getCompressionRatio()) + "\""
+                + ",\"compressMillis\":\"" + getCompressNanos() / 1000000 + "\""
+                + ",\"decompressedValues\":\"" + getDecompressedValues() + "\""
+                + ",\"decompressMillis\":\"" + getDecompressNanos() / 1000000 + "\"}";
+    }
+}
@@ -0,0 +1,133 @@
+package com.foxless.util.cache.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 缓存客户端的统计项注册表，记录时无锁，统计结果由调用方按需拉取：<br>
+ * {@link #snapshot()}返回扁平的名称-数值表，便于采集程序定时读取；{@link #info()}返回json格式。<br>
+ * 包含的内容：<br>
+ * 1.各操作的延迟直方图（纳秒）、异常次数，读操作的命中、未命中和返回null的次数，见{@link OperationMetrics}；<br>
+ * 2.从连接池获取连接的等待时间；<br>
+ * 3.对象值编码后写出和读入的字节数；<br>
+ * 4.由缓存实现注册的计数和状态，如连接池空闲连接数、本地缓存的过期和淘汰数量，读取时才计算。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class CacheMetrics {
+
+    private final ConcurrentHashMap<String, OperationMetrics> operations = new ConcurrentHashMap<String, OperationMetrics>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<String, LongSupplier>();
+    private final LatencyHistogram poolWait = new LatencyHistogram();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    /**
+     * 返回name对应的操作统计，不存在时创建
+     *
+     * @param read 是否为读操作，只有读操作统计命中情况
+     */
+    public OperationMetrics operation(String name, boolean read) {
+        OperationMetrics metrics = operations.get(name);
+        if (null != metrics)
+            return metrics;
+        return operations.computeIfAbsent(name, n -> new OperationMetrics(n, read));
+    }
+
+    /**
+     * 返回name对应的操作统计，没有记录过时为null
+     */
+    public OperationMetrics getOperation(String name) {
+        return operations.get(name);
+    }
+
+    /**
+     * 注册一个读取时才计算的数值，同名的会被替换
+     */
+    public void registerGauge(String name, LongSupplier supplier) {
+        if (null == name || null == supplier)
+            throw new IllegalArgumentException("name and supplier cannot be null");
+        gauges.put(name, supplier);
+    }
+
+    public void recordPoolWait(long nanos) {
+        poolWait.record(nanos);
+    }
+
+    public void recordBytesIn(int bytes) {
+        bytesIn.add(bytes);
+    }
+
+    public void recordBytesOut(int bytes) {
+        bytesOut.add(bytes);
+    }
+
+    public LatencyHistogram getPoolWait() {
+        return poolWait;
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * 当前所有统计项的值，按名称排序。<br>
+     * 名称形如 bytesOut、poolWait.p99Nanos、op.getObject.count、op.getObject.hits、gauge.poolIdle
+     */
+    public Map<String, Number> snapshot() {
+        Map<String, Number> values = new TreeMap<String, Number>();
+        values.put("bytesIn", getBytesIn());
+        values.put("bytesOut", getBytesOut());
+        putHistogram(values, "poolWait", poolWait);
+        for (OperationMetrics op : operations.values()) {
+            String prefix = "op." + op.getName();
+            putHistogram(values, prefix, op.getLatency());
+            values.put(prefix + ".errors", op.getErrors());
+            if (op.isRead()) {
+                values.put(prefix + ".hits", op.getHits());
+                values.put(prefix + ".misses", op.getMisses());
+                values.put(prefix + ".nulls", op.getNulls());
+            }
+        }
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet())
+            values.put("gauge." + gauge.getKey(), gauge.getValue().getAsLong());
+        return values;
+    }
+
+    private static void putHistogram(Map<String, Number> values, String prefix, LatencyHistogram histogram) {
+        long count = histogram.getCount();
+        values.put(prefix + ".count", count);
+        if (count == 0)
+            return;
+        long[] percentiles = histogram.getPercentiles();
+        values.put(prefix + ".meanNanos", (long) histogram.getMean());
+        values.put(prefix + ".p50Nanos", percentiles[0]);
+        values.put(prefix + ".p90Nanos", percentiles[1]);
+        values.put(prefix + ".p99Nanos", percentiles[2]);
+        values.put(prefix + ".p999Nanos", percentiles[3]);
+        values.put(prefix + ".maxNanos", histogram.getMax());
+    }
+
+    /**
+     * 统计信息，json格式
+     */
+    public String info() {
+        StringBuilder info = new StringBuilder("{");
+        boolean first = true;
+        for (Map.Entry<String, Number> entry : snapshot().entrySet()) {
+            if (!first)
+                info.append(',');
+            first = false;
+            info.append('"').append(entry.getKey()).append("\":\"").append(entry.getValue()).append('"');
+        }
+        return info.append('}').toString();
+    }
+}
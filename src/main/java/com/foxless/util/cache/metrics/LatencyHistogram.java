@@ -0,0 +1,114 @@
+package com.foxless.util.cache.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的延迟直方图，按HdrHistogram的方式分桶：每个2的幂区间再等分为{@link #SUB_BUCKETS}个子桶，
+ * 相对误差不超过1/{@link #SUB_BUCKETS}。<br>
+ * 记录时只做一次CAS自增，不分配对象；读取百分位时遍历所有桶，适合低频拉取。数据累计保存，不会重置。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    /**
+     * 可记录的最大值为2^40纳秒（约18分钟），更大的值记入最后一个桶
+     */
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS)
+            return value < 0 ? 0 : (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT)
+            return BUCKETS - 1;
+        int shift = exponent - SUB_BITS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * 桶中的最大值
+     */
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + (index - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * 记录一个值，单位由调用方决定，本项目中统一为纳秒
+     */
+    public void record(long value) {
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        for (long m = max.get(); value > m && !max.compareAndSet(m, value); m = max.get()) {
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * 百分位对应的值（0~100），为所在桶的上界且不超过最大值，没有数据时为0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        return valueAtPercentile(snapshot, total, percentile);
+    }
+
+    private long valueAtPercentile(long[] snapshot, long total, double percentile) {
+        if (total == 0)
+            return 0;
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target)
+                return Math.min(highestValue(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * 常用的百分位：p50、p90、p99、p999
+     */
+    public long[] getPercentiles() {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        return new long[]{valueAtPercentile(snapshot, total, 50), valueAtPercentile(snapshot, total, 90),
+                valueAtPercentile(snapshot, total, 99), valueAtPercentile(snapshot, total, 99.9)};
+    }
+}
@@ -0,0 +1,101 @@
+package com.foxless.util.cache.metrics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一类操作的统计：调用延迟、异常次数，读操作另外统计命中、未命中和返回null的次数。<br>
+ * 返回null表示key（或field）不存在；返回空集合、空Map或false计为未命中；其他结果计为命中。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class OperationMetrics {
+
+    private final String name;
+    private final boolean read;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder nulls = new LongAdder();
+
+    OperationMetrics(String name, boolean read) {
+        this.name = name;
+        this.read = read;
+    }
+
+    /**
+     * 记录一次成功的调用，读操作按结果统计命中情况
+     */
+    public void record(long nanos, Object result) {
+        latency.record(nanos);
+        if (read)
+            recordResult(result);
+    }
+
+    public void recordError(long nanos) {
+        latency.record(nanos);
+        errors.increment();
+    }
+
+    /**
+     * 只统计命中情况，不记录延迟
+     */
+    public void recordResult(Object result) {
+        if (null == result)
+            nulls.increment();
+        else if (Boolean.FALSE.equals(result)
+                || result instanceof Collection && ((Collection<?>) result).isEmpty()
+                || result instanceof Map && ((Map<?, ?>) result).isEmpty())
+            misses.increment();
+        else
+            hits.increment();
+    }
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordNull() {
+        nulls.increment();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isRead() {
+        return read;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getNulls() {
+        return nulls.sum();
+    }
+
+    /**
+     * 命中次数占读取次数的比例，没有读取时为0
+     */
+    public double getHitRatio() {
+        long hit = getHits();
+        long total = hit + getMisses() + getNulls();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+}
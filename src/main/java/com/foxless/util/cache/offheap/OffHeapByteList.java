@@ -0,0 +1,124 @@
+package com.foxless.util.cache.offheap;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * 元素存放在堆外的List&lt;byte[]&gt;，堆上只保留每个元素的handle。<br>
+ * get返回的是堆外数据的副本，add/set/remove会分配或释放堆外内存；subList().clear()等批量操作通过remove释放。<br>
+ * 非线程安全，由调用方以本对象为锁加锁；{@link #release()}之后List为空，再写入的元素被丢弃（与已从缓存中删除的堆上List相同）。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class OffHeapByteList extends AbstractList<byte[]> implements RandomAccess, OffHeapValue {
+
+    private final SlabAllocator allocator;
+    private long[] handles;
+    private int size;
+    private long bytes;
+    private boolean released;
+
+    public OffHeapByteList(SlabAllocator allocator) {
+        this(allocator, 10);
+    }
+
+    public OffHeapByteList(SlabAllocator allocator, int initialCapacity) {
+        this.allocator = allocator;
+        this.handles = new long[Math.max(1, initialCapacity)];
+    }
+
+    @Override
+    public byte[] get(int index) {
+        checkIndex(index);
+        return allocator.read(handles[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public byte[] set(int index, byte[] element) {
+        checkIndex(index);
+        if (released)
+            return null;
+        long handle = allocator.allocate(element);
+        byte[] old = allocator.read(handles[index]);
+        allocator.free(handles[index]);
+        handles[index] = handle;
+        bytes += element.length - old.length;
+        return old;
+    }
+
+    @Override
+    public void add(int index, byte[] element) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (released)
+            return;
+        long handle = allocator.allocate(element);
+        if (size == handles.length)
+            handles = Arrays.copyOf(handles, size + (size >> 1) + 1);
+        System.arraycopy(handles, index, handles, index + 1, size - index);
+        handles[index] = handle;
+        size++;
+        bytes += element.length;
+        modCount++;
+    }
+
+    @Override
+    public byte[] remove(int index) {
+        checkIndex(index);
+        long handle = handles[index];
+        byte[] old = allocator.read(handle);
+        removeHandles(index, index + 1);
+        return old;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        removeHandles(fromIndex, toIndex);
+    }
+
+    /**
+     * 比较指定位置的元素与data是否相等，不复制数据
+     */
+    public boolean contentEquals(int index, byte[] data) {
+        checkIndex(index);
+        return allocator.contentEquals(handles[index], data);
+    }
+
+    @Override
+    public long bytes() {
+        return bytes;
+    }
+
+    @Override
+    public void release() {
+        for (int i = 0; i < size; i++)
+            allocator.free(handles[i]);
+        handles = new long[1];
+        size = 0;
+        bytes = 0;
+        released = true;
+        modCount++;
+    }
+
+    private void removeHandles(int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            bytes -= allocator.length(handles[i]);
+            allocator.free(handles[i]);
+        }
+        System.arraycopy(handles, toIndex, handles, fromIndex, size - toIndex);
+        size -= toIndex - fromIndex;
+        modCount++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+}
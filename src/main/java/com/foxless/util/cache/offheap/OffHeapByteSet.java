@@ -0,0 +1,168 @@
+package com.foxless.util.cache.offheap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.foxless.util.cache.util.ByteSet;
+
+/**
+ * 成员存放在堆外的{@link ByteSet}，与{@link com.foxless.util.cache.util.ByteArrayHashSet}相同的开放寻址结构，
+ * 堆上只保留每个成员的handle和hash，比较成员时直接比较堆外的数据。<br>
+ * 非线程安全，由调用方以本对象为锁加锁；{@link #release()}之后集合为空，再添加的成员被丢弃。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class OffHeapByteSet implements ByteSet, OffHeapValue {
+
+    private static final int MIN_CAPACITY = 8;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final SlabAllocator allocator;
+    /**
+     * handle + 1，0表示空槽
+     */
+    private long[] slots;
+    private int[] hashes;
+    private int mask;
+    private int size;
+    private int threshold;
+    private long bytes;
+    private boolean released;
+
+    public OffHeapByteSet(SlabAllocator allocator) {
+        this(allocator, MIN_CAPACITY);
+    }
+
+    public OffHeapByteSet(SlabAllocator allocator, int expectedSize) {
+        this.allocator = allocator;
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long bytes() {
+        return bytes;
+    }
+
+    @Override
+    public boolean contains(byte[] member) {
+        return indexOf(member, hash(member)) >= 0;
+    }
+
+    @Override
+    public boolean add(byte[] member) {
+        if (null == member)
+            throw new IllegalArgumentException("Member cannot be null!");
+        if (released)
+            return false;
+        int hash = hash(member);
+        int i = hash & mask;
+        for (long slot; 0 != (slot = slots[i]); i = (i + 1) & mask) {
+            if (hashes[i] == hash && allocator.contentEquals(slot - 1, member))
+                return false;
+        }
+        slots[i] = allocator.allocate(member) + 1;
+        hashes[i] = hash;
+        bytes += member.length;
+        if (++size > threshold)
+            resize(slots.length << 1);
+        return true;
+    }
+
+    @Override
+    public boolean remove(byte[] member) {
+        int i = indexOf(member, hash(member));
+        if (i < 0)
+            return false;
+        allocator.free(slots[i] - 1);
+        bytes -= member.length;
+        size--;
+        int gap = i;
+        for (int j = (i + 1) & mask; 0 != slots[j]; j = (j + 1) & mask) {
+            int home = hashes[j] & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                slots[gap] = slots[j];
+                hashes[gap] = hashes[j];
+                gap = j;
+            }
+        }
+        slots[gap] = 0;
+        hashes[gap] = 0;
+        return true;
+    }
+
+    @Override
+    public List<byte[]> toList() {
+        List<byte[]> list = new ArrayList<byte[]>(size);
+        for (long slot : slots) {
+            if (0 != slot)
+                list.add(allocator.read(slot - 1));
+        }
+        return list;
+    }
+
+    @Override
+    public void release() {
+        for (long slot : slots) {
+            if (0 != slot)
+                allocator.free(slot - 1);
+        }
+        allocate(MIN_CAPACITY);
+        size = 0;
+        bytes = 0;
+        released = true;
+    }
+
+    private int indexOf(byte[] member, int hash) {
+        if (null == member)
+            return -1;
+        int i = hash & mask;
+        for (long slot; 0 != (slot = slots[i]); i = (i + 1) & mask) {
+            if (hashes[i] == hash && allocator.contentEquals(slot - 1, member))
+                return i;
+        }
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        if (capacity > MAX_CAPACITY)
+            throw new IllegalStateException("Set is too large.");
+        long[] oldSlots = slots;
+        int[] oldHashes = hashes;
+        allocate(capacity);
+        for (int j = 0; j < oldSlots.length; j++) {
+            if (0 == oldSlots[j])
+                continue;
+            int i = oldHashes[j] & mask;
+            while (0 != slots[i])
+                i = (i + 1) & mask;
+            slots[i] = oldSlots[j];
+            hashes[i] = oldHashes[j];
+        }
+    }
+
+    private void allocate(int capacity) {
+        slots = new long[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * 0.6f);
+    }
+
+    private static int hash(byte[] member) {
+        if (null == member)
+            return 0;
+        int h = Arrays.hashCode(member) * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long capacity = Math.max(MIN_CAPACITY, (long) (expectedSize / 0.6f) + 1);
+        return (int) Math.min(MAX_CAPACITY, Long.highestOneBit(capacity - 1) << 1);
+    }
+}
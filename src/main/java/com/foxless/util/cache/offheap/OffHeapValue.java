@@ -0,0 +1,20 @@
+package com.foxless.util.cache.offheap;
+
+/**
+ * 数据存放在堆外的缓存值，从缓存中移除（删除、过期、淘汰、覆盖）时必须调用{@link #release()}归还堆外内存
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public interface OffHeapValue {
+
+    /**
+     * 存放在堆外的数据字节数
+     */
+    long bytes();
+
+    /**
+     * 释放占用的堆外内存，之后该值视为空，重复调用无效
+     */
+    void release();
+}
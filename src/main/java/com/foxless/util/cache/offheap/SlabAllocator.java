@@ -0,0 +1,278 @@
+package com.foxless.util.cache.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 堆外slab分配器，用于存放本地缓存中序列化后的值。<br>
+ * 堆外内存按slabSize切分为若干slab（direct ByteBuffer），用到时才分配；每个slab只服务于一个大小级别(size class)，
+ * 级别之间按约1.25倍递增，slab内按该级别的chunk大小切分。释放的chunk进入所属级别的空闲栈，下次分配时复用。<br>
+ * 每个chunk的前4个字节存放数据长度。分配得到的handle为 slab下标 &lt;&lt; 32 | slab内偏移。<br>
+ * 已分配给某个级别的slab不会再归还给其他级别，写入的值大小分布变化很大时可能出现部分级别空闲而其他级别分配失败。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class SlabAllocator {
+
+    private static final int HEADER_SIZE = 4;
+    private static final int MIN_CHUNK_SIZE = 32;
+    private static final double GROWTH_FACTOR = 1.25;
+
+    /**
+     * 一个大小级别
+     */
+    private static final class SizeClass {
+        private final int chunkSize;
+        private long[] free = new long[16];
+        private int freeCount;
+        private int currentSlab = -1;
+        private int nextOffset;
+        private long chunks;
+
+        SizeClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    private final int slabSize;
+    private final int maxSlabs;
+    private final SizeClass[] classes;
+    private final AtomicReferenceArray<ByteBuffer> slabs;
+    private final int[] slabClass;
+    private int slabCount;
+
+    //内存统计
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final AtomicLong payloadBytes = new AtomicLong();
+    private final LongAdder allocations = new LongAdder();
+    private final LongAdder frees = new LongAdder();
+    private final LongAdder failedAllocations = new LongAdder();
+
+    /**
+     * @param maxBytes 最多使用的堆外内存字节数
+     * @param slabSize 每个slab的字节数，也是单个值（含4字节长度）的上限
+     */
+    public SlabAllocator(long maxBytes, int slabSize) {
+        if (slabSize < MIN_CHUNK_SIZE * 2)
+            throw new IllegalArgumentException("slabSize must be at least " + MIN_CHUNK_SIZE * 2);
+        if (maxBytes < slabSize)
+            throw new IllegalArgumentException("maxBytes must be at least slabSize");
+        this.slabSize = slabSize;
+        this.maxSlabs = (int) Math.min(Integer.MAX_VALUE, maxBytes / slabSize);
+        this.slabs = new AtomicReferenceArray<ByteBuffer>(maxSlabs);
+        this.slabClass = new int[maxSlabs];
+        int[] sizes = new int[64];
+        int count = 0;
+        for (double size = MIN_CHUNK_SIZE; size < slabSize / 2; size *= GROWTH_FACTOR) {
+            int chunkSize = ((int) size + 7) & ~7;
+            if (count == 0 || chunkSize > sizes[count - 1])
+                sizes[count++] = chunkSize;
+            if (count == sizes.length)
+                sizes = Arrays.copyOf(sizes, count * 2);
+        }
+        sizes[count++] = slabSize;
+        this.classes = new SizeClass[count];
+        for (int i = 0; i < count; i++)
+            classes[i] = new SizeClass(sizes[i]);
+    }
+
+    /**
+     * 单个值的最大字节数
+     */
+    public int getMaxValueSize() {
+        return slabSize - HEADER_SIZE;
+    }
+
+    /**
+     * 把data复制到堆外并返回handle
+     *
+     * @throws IllegalArgumentException 值超过slab大小
+     * @throws IllegalStateException    堆外内存已用完
+     */
+    public long allocate(byte[] data) {
+        int required = data.length + HEADER_SIZE;
+        if (required > slabSize)
+            throw new IllegalArgumentException("Value of " + data.length
+                    + " bytes exceeds the off-heap slab size " + slabSize);
+        SizeClass sizeClass = classFor(required);
+        long handle;
+        synchronized (sizeClass) {
+            if (sizeClass.freeCount > 0) {
+                handle = sizeClass.free[--sizeClass.freeCount];
+            } else {
+                if (sizeClass.currentSlab < 0 || sizeClass.nextOffset + sizeClass.chunkSize > slabSize) {
+                    int slab = newSlab(sizeClass);
+                    if (slab < 0) {
+                        failedAllocations.increment();
+                        throw new IllegalStateException("Off-heap memory exhausted, "
+                                + maxSlabs + " slabs of " + slabSize + " bytes in use.");
+                    }
+                    sizeClass.currentSlab = slab;
+                    sizeClass.nextOffset = 0;
+                }
+                handle = ((long) sizeClass.currentSlab << 32) | sizeClass.nextOffset;
+                sizeClass.nextOffset += sizeClass.chunkSize;
+                sizeClass.chunks++;
+            }
+        }
+        ByteBuffer slab = slabOf(handle).duplicate();
+        slab.position(offsetOf(handle));
+        slab.putInt(data.length);
+        slab.put(data);
+        usedBytes.addAndGet(sizeClass.chunkSize);
+        payloadBytes.addAndGet(data.length);
+        allocations.increment();
+        return handle;
+    }
+
+    /**
+     * 读出handle对应的数据
+     */
+    public byte[] read(long handle) {
+        ByteBuffer slab = slabOf(handle).duplicate();
+        slab.position(offsetOf(handle));
+        byte[] data = new byte[slab.getInt()];
+        slab.get(data);
+        return data;
+    }
+
+    /**
+     * handle对应数据的字节数
+     */
+    public int length(long handle) {
+        return slabOf(handle).getInt(offsetOf(handle));
+    }
+
+    /**
+     * 比较handle对应的数据与data是否相等，不复制数据
+     */
+    public boolean contentEquals(long handle, byte[] data) {
+        ByteBuffer slab = slabOf(handle);
+        int offset = offsetOf(handle);
+        if (slab.getInt(offset) != data.length)
+            return false;
+        offset += HEADER_SIZE;
+        for (int i = 0; i < data.length; i++) {
+            if (slab.get(offset + i) != data[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * 释放handle，同一个handle只能释放一次
+     */
+    public void free(long handle) {
+        int length = length(handle);
+        SizeClass sizeClass = classes[slabClass[(int) (handle >>> 32)]];
+        synchronized (sizeClass) {
+            if (sizeClass.freeCount == sizeClass.free.length)
+                sizeClass.free = Arrays.copyOf(sizeClass.free, sizeClass.free.length * 2);
+            sizeClass.free[sizeClass.freeCount++] = handle;
+        }
+        usedBytes.addAndGet(-sizeClass.chunkSize);
+        payloadBytes.addAndGet(-length);
+        frees.increment();
+    }
+
+    private SizeClass classFor(int required) {
+        int low = 0;
+        int high = classes.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (classes[mid].chunkSize < required)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return classes[low];
+    }
+
+    private synchronized int newSlab(SizeClass sizeClass) {
+        if (slabCount == maxSlabs)
+            return -1;
+        int index = slabCount;
+        for (int i = 0; i < classes.length; i++) {
+            if (classes[i] == sizeClass)
+                slabClass[index] = i;
+        }
+        slabs.set(index, ByteBuffer.allocateDirect(slabSize));
+        slabCount++;
+        return index;
+    }
+
+    private ByteBuffer slabOf(long handle) {
+        return slabs.get((int) (handle >>> 32));
+    }
+
+    private static int offsetOf(long handle) {
+        return (int) handle;
+    }
+
+    /**
+     * 可使用的堆外内存上限
+     */
+    public long getMaxBytes() {
+        return (long) maxSlabs * slabSize;
+    }
+
+    /**
+     * 已向操作系统申请的堆外内存（已分配的slab）
+     */
+    public synchronized long getReservedBytes() {
+        return (long) slabCount * slabSize;
+    }
+
+    /**
+     * 正在使用的chunk占用的字节数
+     */
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * 正在使用的chunk中实际数据的字节数
+     */
+    public long getPayloadBytes() {
+        return payloadBytes.get();
+    }
+
+    public long getAllocationCount() {
+        return allocations.sum();
+    }
+
+    public long getFreeCount() {
+        return frees.sum();
+    }
+
+    public long getFailedAllocationCount() {
+        return failedAllocations.sum();
+    }
+
+    /**
+     * 各大小级别的使用情况，JSON格式
+     */
+    public String classInfo() {
+        StringBuilder info = new StringBuilder("[");
+        for (SizeClass sizeClass : classes) {
+            long chunks;
+            int freeCount;
+            synchronized (sizeClass) {
+                chunks = sizeClass.chunks;
+                freeCount = sizeClass.freeCount;
+            }
+            if (chunks == 0)
+                continue;
+            if (info.length() > 1)
+                info.append(",");
+            info.append("{\"chunkSize\":\"").append(sizeClass.chunkSize).append("\"")
+                    .append(",\"chunks\":\"").append(chunks).append("\"")
+                    .append(",\"freeChunks\":\"").append(freeCount).append("\"}");
+        }
+        return info.append("]").toString();
+    }
+}
@@ -0,0 +1,113 @@
+package com.foxless.util.cache.persist;
+
+/**
+ * 本地缓存写日志中记录的操作。<br>
+ * 每种操作记录的是修改后可以确定重放结果的参数：对象以序列化后的字节记录，
+ * 过期时间以时间点记录，自增类操作记录自增后的值。code写入文件，已有的code不能修改。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public enum JournalOp {
+    /**
+     * 设置值和过期时间点：item value, long deadline（0表示不过期）
+     */
+    SET(1),
+    /**
+     * 替换值，不改变过期时间：item value
+     */
+    PUT(2),
+    PUT_STRING_LIST(3),
+    PUT_OBJECT_LIST(4),
+    PUT_STRING_SET(5),
+    PUT_OBJECT_SET(6),
+    /**
+     * int n, n * (long score, item member)
+     */
+    PUT_SORTED_SET(7),
+    /**
+     * boolean tail, int n, n * string
+     */
+    APPEND_STRING_LIST(8),
+    /**
+     * boolean tail, int n, n * bytes
+     */
+    APPEND_OBJECT_LIST(9),
+    /**
+     * int start, int end
+     */
+    TRIM_LIST(10),
+    /**
+     * int count, string value
+     */
+    REMOVE_STRING_LIST_ITEM(11),
+    /**
+     * int count, bytes value
+     */
+    REMOVE_OBJECT_LIST_ITEM(12),
+    ADD_STRING_SET(13),
+    REMOVE_STRING_SET(14),
+    ADD_OBJECT_SET(15),
+    REMOVE_OBJECT_SET(16),
+    /**
+     * int n, n * (long score, item member)
+     */
+    ADD_SORTED_SET(17),
+    /**
+     * int n, n * item member
+     */
+    REMOVE_SORTED_SET(18),
+    /**
+     * long start, long end
+     */
+    REMOVE_SORTED_SET_RANGE(19),
+    /**
+     * item member, long score（自增后的score）
+     */
+    SET_SORTED_SET_SCORE(20),
+    /**
+     * item field, item value
+     */
+    HSET(21),
+    /**
+     * item field
+     */
+    HDEL(22),
+    /**
+     * 删除Hash结构，保留同名的K-V值
+     */
+    DEL_HASH(23),
+    DEL(24),
+    /**
+     * long deadline
+     */
+    EXPIRE(25),
+    /**
+     * int version，每个日志段的第一条记录，key为空字符串；没有该记录的日志段由旧版本写入
+     */
+    FORMAT(26);
+
+    private static final JournalOp[] BY_CODE = new JournalOp[32];
+
+    static {
+        for (JournalOp op : values())
+            BY_CODE[op.code] = op;
+    }
+
+    private final byte code;
+
+    JournalOp(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static JournalOp valueOf(byte code) {
+        JournalOp op = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (null == op)
+            throw new IllegalStateException("Unknown journal op " + code);
+        return op;
+    }
+}
@@ -0,0 +1,186 @@
+package com.foxless.util.cache.persist;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.foxless.util.cache.SerializeUtil;
+import com.foxless.util.cache.codec.Codecs;
+import com.foxless.util.cache.util.FieldKey;
+
+/**
+ * 写日志中的一条记录：op(1) key(string) 参数...<br>
+ * string为 长度(4, -1表示null) + UTF-8字节，bytes为 长度(4) + 字节，
+ * item为 类型(1) + string、按{@link Codecs}编码后的bytes或Hash的{@link FieldKey}字节，与快照文件中的成员格式一致。<br>
+ * 编码使用线程内复用的缓冲区，{@link #begin(JournalOp, String)}到{@link #end()}之间不能嵌套。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class JournalRecord {
+
+    private static final byte ITEM_STRING = 0;
+    private static final byte ITEM_OBJECT = 1;
+    private static final byte ITEM_FIELD = 2;
+    private static final int INITIAL_SIZE = 256;
+    private static final int RETAINED_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<JournalRecord> LOCAL = ThreadLocal.withInitial(JournalRecord::new);
+
+    private byte[] buf = new byte[INITIAL_SIZE];
+    private int pos;
+
+    private JournalRecord() {
+    }
+
+    /**
+     * 开始编码一条记录
+     */
+    public static JournalRecord begin(JournalOp op, String key) {
+        JournalRecord record = LOCAL.get();
+        record.pos = 0;
+        record.writeByte(op.getCode());
+        record.writeString(key);
+        return record;
+    }
+
+    /**
+     * 结束编码，返回记录的字节
+     */
+    public byte[] end() {
+        byte[] ret = Arrays.copyOf(buf, pos);
+        if (buf.length > RETAINED_SIZE)
+            buf = new byte[INITIAL_SIZE];
+        return ret;
+    }
+
+    private void ensure(int n) {
+        if (pos + n > buf.length)
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+    }
+
+    public JournalRecord writeByte(int b) {
+        ensure(1);
+        buf[pos++] = (byte) b;
+        return this;
+    }
+
+    public JournalRecord writeBoolean(boolean b) {
+        return writeByte(b ? 1 : 0);
+    }
+
+    public JournalRecord writeInt(int v) {
+        ensure(4);
+        buf[pos++] = (byte) (v >>> 24);
+        buf[pos++] = (byte) (v >>> 16);
+        buf[pos++] = (byte) (v >>> 8);
+        buf[pos++] = (byte) v;
+        return this;
+    }
+
+    public JournalRecord writeLong(long v) {
+        writeInt((int) (v >>> 32));
+        return writeInt((int) v);
+    }
+
+    public JournalRecord writeBytes(byte[] bs) {
+        writeInt(bs.length);
+        ensure(bs.length);
+        System.arraycopy(bs, 0, buf, pos, bs.length);
+        pos += bs.length;
+        return this;
+    }
+
+    public JournalRecord writeString(String s) {
+        if (null == s)
+            return writeInt(-1);
+        return writeBytes(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * String原样写入，其他对象序列化后写入
+     */
+    public JournalRecord writeItem(Object item) {
+        if (item instanceof String) {
+            writeByte(ITEM_STRING);
+            return writeString((String) item);
+        }
+        if (item instanceof FieldKey) {
+            writeByte(ITEM_FIELD);
+            return writeBytes(((FieldKey) item).toBytes());
+        }
+        writeByte(ITEM_OBJECT);
+        return writeBytes(Codecs.encode(item));
+    }
+
+    /**
+     * 读取一条记录
+     */
+    public static final class Reader {
+        private final byte[] buf;
+        private int pos;
+        private final JournalOp op;
+        private final String key;
+
+        public Reader(byte[] record) {
+            this.buf = record;
+            this.op = JournalOp.valueOf(readByte());
+            this.key = readString();
+        }
+
+        public JournalOp getOp() {
+            return op;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public byte readByte() {
+            if (pos >= buf.length)
+                throw new IllegalStateException("Truncated journal record");
+            return buf[pos++];
+        }
+
+        public boolean readBoolean() {
+            return readByte() != 0;
+        }
+
+        public int readInt() {
+            return (readByte() & 0xff) << 24 | (readByte() & 0xff) << 16
+                    | (readByte() & 0xff) << 8 | (readByte() & 0xff);
+        }
+
+        public long readLong() {
+            return (long) readInt() << 32 | (readInt() & 0xffffffffL);
+        }
+
+        public byte[] readBytes() {
+            int length = readInt();
+            if (length < 0 || pos + length > buf.length)
+                throw new IllegalStateException("Truncated journal record");
+            byte[] bs = Arrays.copyOfRange(buf, pos, pos + length);
+            pos += length;
+            return bs;
+        }
+
+        public String readString() {
+            int length = readInt();
+            if (length == -1)
+                return null;
+            if (length < 0 || pos + length > buf.length)
+                throw new IllegalStateException("Truncated journal record");
+            String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+
+        public Object readItem() {
+            byte type = readByte();
+            if (type == ITEM_STRING)
+                return readString();
+            if (type == ITEM_FIELD)
+                return FieldKey.fromBytes(readBytes());
+            return SerializeUtil.deserialize(readBytes(), Object.class);
+        }
+    }
+}
@@ -0,0 +1,563 @@
+package com.foxless.util.cache.persist;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import com.foxless.util.cache.util.MpscRingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 本地缓存的追加写日志（类似redis的AOF）。<br>
+ * 写操作把编码好的记录放入无锁环形队列后立即返回，由一个后台线程批量写入当前的日志段文件，
+ * 按fsyncMillis合并执行fsync（为0时每批写入后执行），写操作本身不等待磁盘I/O，只有队列写满时才短暂等待。<br>
+ * 日志目录中的文件：journal-&lt;id&gt;.log为日志段，超过segmentBytes后切换到下一段；
+ * journal-&lt;id&gt;.snapshot为基础快照，包含id及之前所有日志段的结果。
+ * 已关闭的日志段累计超过compactBytes时，后台在一个临时实例中把基础快照和这些日志段重放后写成新的基础快照，
+ * 再删除旧快照和已合并的日志段，压缩期间需要与数据量相当的额外堆内存。<br>
+ * 每条记录为 长度(4) + CRC32(4) + 内容，恢复时遇到不完整或校验失败的记录即认为是崩溃时未写完的尾部，截断后继续。<br>
+ * 每个日志段以一条{@link JournalOp#FORMAT}记录开头，第一条记录不是它的日志段由旧版本写入，Hash的对象field以md5保存。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class LocalCacheJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalCacheJournal.class);
+
+    private static final String PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_BATCH = 4096;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long STALL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    /**
+     * 日志段的格式版本，写在{@link JournalOp#FORMAT}记录中
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * 日志重放的目标
+     */
+    public interface Replica {
+
+        /**
+         * 从基础快照恢复
+         */
+        long restore(String path);
+
+        /**
+         * 重放一条记录
+         */
+        void replay(JournalRecord.Reader record);
+
+        /**
+         * 把当前数据写成快照
+         */
+        long snapshot(String path);
+
+        /**
+         * 重放的日志段由旧版本写入，其中Hash的对象field以序列化字节的md5保存
+         */
+        void legacyFieldKeys();
+
+        /**
+         * 释放临时实例，只对压缩时创建的实例调用
+         */
+        void close();
+    }
+
+    private final File dir;
+    private final long fsyncNanos;
+    private final long segmentBytes;
+    private final long compactBytes;
+    private final Supplier<Replica> scratchFactory;
+    private final MpscRingBuffer<byte[]> ring;
+
+    //以下字段只由写入线程访问
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private long segmentSize;
+    private boolean dirty;
+    private long lastSyncNanos;
+
+    private volatile long segmentId;
+    private volatile long baseId = -1;
+    private volatile boolean running;
+    private volatile boolean closed;
+    private Thread writer;
+    private final AtomicLong closedSegmentBytes = new AtomicLong();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    //统计
+    private final LongAdder appendedRecords = new LongAdder();
+    private final LongAdder writtenBytes = new LongAdder();
+    private final LongAdder syncCount = new LongAdder();
+    private final LongAdder stallCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder compactionCount = new LongAdder();
+    private volatile long lastSyncMillis;
+
+    /**
+     * @param dir            日志目录，不存在时创建
+     * @param fsyncMillis    两次fsync之间的最大毫秒数，崩溃时最多丢失这段时间内的写入；0表示每批写入后fsync
+     * @param bufferSize     内存队列能容纳的记录数
+     * @param segmentBytes   单个日志段的字节数上限
+     * @param compactBytes   已关闭日志段累计超过该字节数时触发压缩
+     * @param scratchFactory 创建压缩用的临时实例
+     */
+    public LocalCacheJournal(File dir, long fsyncMillis, int bufferSize, long segmentBytes, long compactBytes,
+                             Supplier<Replica> scratchFactory) {
+        if (fsyncMillis < 0)
+            throw new IllegalArgumentException("fsyncMillis cannot be negative");
+        if (segmentBytes <= 0 || compactBytes <= 0)
+            throw new IllegalArgumentException("segmentBytes and compactBytes must be greater than 0");
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IllegalStateException("Cannot create journal directory " + dir);
+        this.dir = dir;
+        this.fsyncNanos = TimeUnit.MILLISECONDS.toNanos(fsyncMillis);
+        this.segmentBytes = segmentBytes;
+        this.compactBytes = compactBytes;
+        this.scratchFactory = scratchFactory;
+        this.ring = new MpscRingBuffer<byte[]>(bufferSize);
+    }
+
+    /**
+     * 把基础快照和之后的日志段重放到target中，然后打开新的日志段并启动写入线程
+     *
+     * @return 重放的记录数
+     */
+    public synchronized long recover(Replica target) {
+        if (running)
+            throw new IllegalStateException("Journal has already been started.");
+        long begin = System.currentTimeMillis();
+        String[] names = dir.list();
+        for (String name : null == names ? new String[0] : names) {
+            if (name.startsWith(PREFIX) && name.endsWith(".tmp"))
+                delete(new File(dir, name));
+        }
+        List<Long> snapshots = listIds(SNAPSHOT_SUFFIX);
+        List<Long> segments = listIds(SEGMENT_SUFFIX);
+        if (!snapshots.isEmpty()) {
+            baseId = snapshots.get(snapshots.size() - 1);
+            for (long id : snapshots) {
+                if (id != baseId)
+                    delete(fileOf(id, SNAPSHOT_SUFFIX));
+            }
+            target.restore(fileOf(baseId, SNAPSHOT_SUFFIX).getPath());
+        }
+        long records = 0;
+        long lastId = baseId;
+        for (long id : segments) {
+            File segment = fileOf(id, SEGMENT_SUFFIX);
+            if (id <= baseId) {
+                delete(segment);
+                continue;
+            }
+            records += replay(segment, target, true);
+            closedSegmentBytes.addAndGet(segment.length());
+            lastId = id;
+        }
+        logger.info("Local cache journal {} recovered, {} records replayed in {}ms.", dir, records,
+                System.currentTimeMillis() - begin);
+        try {
+            openSegment(lastId + 1);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open journal segment in " + dir, e);
+        }
+        running = true;
+        writer = new Thread(this::work, "cache-helper-journal");
+        writer.setDaemon(true);
+        writer.start();
+        maybeCompact();
+        return records;
+    }
+
+    /**
+     * 追加一条记录，不等待写入磁盘；队列已满时等待写入线程腾出空间。日志关闭后的记录被丢弃。
+     */
+    public void append(byte[] record) {
+        if (closed)
+            return;
+        appendedRecords.increment();
+        if (ring.offer(record))
+            return;
+        stallCount.increment();
+        while (!ring.offer(record)) {
+            if (closed)
+                return;
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(STALL_PARK_NANOS);
+        }
+    }
+
+    private void work() {
+        logger.debug("Journal writer started.");
+        lastSyncNanos = System.nanoTime();
+        while (true) {
+            int written = 0;
+            try {
+                written = drain();
+                long now = System.nanoTime();
+                if (dirty && now - lastSyncNanos >= fsyncNanos)
+                    sync(now);
+                if (segmentSize >= segmentBytes)
+                    roll();
+            } catch (IOException e) {
+                errorCount.increment();
+                logger.error("Failed to write local cache journal.", e);
+            } catch (Throwable e) {
+                errorCount.increment();
+                logger.error("Error in journal writer.", e);
+            }
+            if (written > 0)
+                continue;
+            if (!ring.isEmpty()) {
+                // 生产者已占位但还未写入元素
+                Thread.yield();
+                continue;
+            }
+            if (!running)
+                break;
+            long park = IDLE_PARK_NANOS;
+            if (dirty)
+                park = Math.min(park, Math.max(0, lastSyncNanos + fsyncNanos - System.nanoTime()));
+            if (park > 0)
+                LockSupport.parkNanos(this, park);
+        }
+        try {
+            flush();
+            if (dirty)
+                sync(System.nanoTime());
+            channel.close();
+        } catch (IOException e) {
+            logger.error("Failed to close local cache journal.", e);
+        }
+        logger.debug("Journal writer stopped.");
+    }
+
+    /**
+     * 从队列取出一批记录写入文件
+     */
+    private int drain() throws IOException {
+        int n = 0;
+        for (byte[] record; n < MAX_BATCH && null != (record = ring.poll()); n++) {
+            crc.reset();
+            crc.update(record, 0, record.length);
+            if (writeBuffer.remaining() < RECORD_HEADER_SIZE + record.length)
+                flush();
+            writeBuffer.putInt(record.length);
+            writeBuffer.putInt((int) crc.getValue());
+            if (writeBuffer.remaining() < record.length) {
+                flush();
+                writeFully(ByteBuffer.wrap(record));
+            } else {
+                writeBuffer.put(record);
+            }
+        }
+        if (n > 0)
+            flush();
+        return n;
+    }
+
+    private void flush() throws IOException {
+        if (writeBuffer.position() == 0)
+            return;
+        writeBuffer.flip();
+        try {
+            writeFully(writeBuffer);
+        } finally {
+            writeBuffer.clear();
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        segmentSize += length;
+        writtenBytes.add(length);
+        dirty = true;
+    }
+
+    private void sync(long now) throws IOException {
+        channel.force(false);
+        dirty = false;
+        lastSyncNanos = now;
+        lastSyncMillis = System.currentTimeMillis();
+        syncCount.increment();
+    }
+
+    /**
+     * 关闭当前日志段，切换到下一段
+     */
+    private void roll() throws IOException {
+        flush();
+        if (dirty)
+            sync(System.nanoTime());
+        channel.close();
+        closedSegmentBytes.addAndGet(segmentSize);
+        openSegment(segmentId + 1);
+        maybeCompact();
+    }
+
+    private void openSegment(long id) throws IOException {
+        channel = FileChannel.open(fileOf(id, SEGMENT_SUFFIX).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentId = id;
+        segmentSize = channel.size();
+        if (segmentSize == 0) {
+            byte[] record = JournalRecord.begin(JournalOp.FORMAT, "").writeInt(FORMAT_VERSION).end();
+            crc.reset();
+            crc.update(record, 0, record.length);
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + record.length);
+            buffer.putInt(record.length).putInt((int) crc.getValue()).put(record).flip();
+            writeFully(buffer);
+        }
+    }
+
+    private void maybeCompact() {
+        if (closedSegmentBytes.get() < compactBytes || !compacting.compareAndSet(false, true))
+            return;
+        final long upTo = segmentId - 1;
+        Thread compactor = new Thread(() -> {
+            boolean compacted = false;
+            try {
+                compacted = compact(upTo);
+            } catch (Throwable e) {
+                errorCount.increment();
+                logger.error("Failed to compact local cache journal.", e);
+            } finally {
+                compacting.set(false);
+            }
+            // 压缩期间又关闭了足够多的日志段时继续压缩，失败时等到下一次切换日志段再重试
+            if (compacted && running)
+                maybeCompact();
+        }, "cache-helper-journal-compact");
+        compactor.setDaemon(true);
+        compactor.start();
+    }
+
+    /**
+     * 把基础快照和upTo及之前的日志段合并为新的基础快照，没有可合并的日志段时返回false
+     */
+    private boolean compact(long upTo) {
+        long begin = System.currentTimeMillis();
+        long oldBase = baseId;
+        if (upTo <= oldBase)
+            return false;
+        Replica scratch = scratchFactory.get();
+        List<File> folded = new ArrayList<File>();
+        long foldedBytes = 0;
+        try {
+            if (oldBase >= 0)
+                scratch.restore(fileOf(oldBase, SNAPSHOT_SUFFIX).getPath());
+            for (long id : listIds(SEGMENT_SUFFIX)) {
+                if (id <= oldBase || id > upTo)
+                    continue;
+                File segment = fileOf(id, SEGMENT_SUFFIX);
+                replay(segment, scratch, false);
+                folded.add(segment);
+                foldedBytes += segment.length();
+            }
+            scratch.snapshot(fileOf(upTo, SNAPSHOT_SUFFIX).getPath());
+        } finally {
+            scratch.close();
+        }
+        baseId = upTo;
+        closedSegmentBytes.addAndGet(-foldedBytes);
+        if (oldBase >= 0)
+            delete(fileOf(oldBase, SNAPSHOT_SUFFIX));
+        for (File segment : folded)
+            delete(segment);
+        compactionCount.increment();
+        logger.info("Local cache journal compacted, {} segments folded in {}ms.", folded.size(),
+                System.currentTimeMillis() - begin);
+        return !folded.isEmpty();
+    }
+
+    /**
+     * 重放一个日志段，遇到不完整的记录时停止；truncate为true时把文件截断到最后一条完整的记录
+     */
+    private long replay(File segment, Replica target, boolean truncate) {
+        long valid = 0;
+        long records = 0;
+        boolean torn = false;
+        CRC32 checksum = new CRC32();
+        try (InputStream fin = new FileInputStream(segment);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fin, WRITE_BUFFER_SIZE))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    // 长度只写了一部分
+                    torn = valid < segment.length();
+                    break;
+                }
+                byte[] record;
+                try {
+                    int expected = in.readInt();
+                    if (length < 0 || length > segment.length())
+                        throw new EOFException();
+                    record = new byte[length];
+                    in.readFully(record);
+                    checksum.reset();
+                    checksum.update(record, 0, length);
+                    if ((int) checksum.getValue() != expected)
+                        throw new EOFException();
+                } catch (EOFException e) {
+                    torn = true;
+                    break;
+                }
+                valid += RECORD_HEADER_SIZE + length;
+                boolean first = valid == RECORD_HEADER_SIZE + length;
+                try {
+                    JournalRecord.Reader reader = new JournalRecord.Reader(record);
+                    if (reader.getOp() == JournalOp.FORMAT)
+                        continue;
+                    if (first)
+                        target.legacyFieldKeys();
+                    records++;
+                    target.replay(reader);
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to replay a record of journal segment " + segment + ".", e);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read journal segment " + segment, e);
+        }
+        if (torn) {
+            logger.warn("Journal segment {} has an incomplete tail after {} bytes.", segment, valid);
+            if (truncate) {
+                try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+                    file.setLength(valid);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to truncate journal segment " + segment, e);
+                }
+            }
+        }
+        return records;
+    }
+
+    private File fileOf(long id, String suffix) {
+        return new File(dir, PREFIX + String.format("%016x", id) + suffix);
+    }
+
+    /**
+     * 目录中指定后缀的文件id，升序排列
+     */
+    private List<Long> listIds(String suffix) {
+        List<Long> ids = new ArrayList<Long>();
+        String[] names = dir.list();
+        if (null == names)
+            return ids;
+        for (String name : names) {
+            if (!name.startsWith(PREFIX) || !name.endsWith(suffix))
+                continue;
+            try {
+                ids.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - suffix.length()), 16));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring unexpected file {} in journal directory.", name);
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private static void delete(File file) {
+        if (file.exists() && !file.delete())
+            logger.warn("Failed to delete {}.", file);
+    }
+
+    /**
+     * 停止接收记录，写完队列中剩余的记录并fsync后返回
+     */
+    @Override
+    public void close() {
+        Thread w;
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            running = false;
+            w = writer;
+        }
+        if (null == w)
+            return;
+        LockSupport.unpark(w);
+        try {
+            w.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    /**
+     * 队列中尚未写入文件的记录数
+     */
+    public int getPendingRecords() {
+        return ring.size();
+    }
+
+    public long getAppendedRecords() {
+        return appendedRecords.sum();
+    }
+
+    public long getWrittenBytes() {
+        return writtenBytes.sum();
+    }
+
+    public long getSyncCount() {
+        return syncCount.sum();
+    }
+
+    /**
+     * 最近一次fsync的时间戳（毫秒）
+     */
+    public long getLastSyncMillis() {
+        return lastSyncMillis;
+    }
+
+    /**
+     * 因队列已满而等待的写操作次数
+     */
+    public long getStallCount() {
+        return stallCount.sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    public long getCompactionCount() {
+        return compactionCount.sum();
+    }
+}
@@ -0,0 +1,419 @@
+package com.foxless.util.cache.persist;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.foxless.util.cache.SerializeUtil;
+import com.foxless.util.cache.bean.SortedSetBean;
+import com.foxless.util.cache.codec.Codecs;
+import com.foxless.util.cache.util.ByteSet;
+import com.foxless.util.cache.util.FieldKey;
+import com.foxless.util.cache.util.IndexedSkipList;
+
+/**
+ * 本地缓存快照文件的格式和读写。<br>
+ * 文件结构：文件头 | 数据区（每个key一条记录）| 索引区（key、类型、过期时间点、记录位置）。<br>
+ * 文件头：magic(8) version(4) entryCount(4) createdMillis(8) indexOffset(8) dataLength(8) flags(4)。
+ * 版本1没有flags，由不以{@link FieldKey}保存对象field的旧版本写入，按{@link #FLAG_LEGACY_FIELD_KEYS}读取。<br>
+ * 写入时先写数据区再写索引区，最后回填文件头；恢复时只读取索引区，记录在首次访问时才解码。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class LocalCacheSnapshot {
+
+    private static final long MAGIC = 0x4348534E41503031L; // "CHSNAP01"
+    private static final int VERSION = 2;
+    private static final int V1_HEADER_SIZE = 40;
+    private static final int HEADER_SIZE = 44;
+    private static final long ENTRY_COUNT_OFFSET = 12;
+    private static final long INDEX_OFFSET_OFFSET = 24;
+    private static final long DATA_LENGTH_OFFSET = 32;
+
+    /**
+     * Hash中可能有旧版本以序列化字节的md5保存的对象field
+     */
+    public static final int FLAG_LEGACY_FIELD_KEYS = 1;
+
+    public static final byte TYPE_STRING = 1;
+    public static final byte TYPE_OBJECT = 2;
+    public static final byte TYPE_STRING_LIST = 3;
+    public static final byte TYPE_OBJECT_LIST = 4;
+    public static final byte TYPE_STRING_SET = 5;
+    public static final byte TYPE_OBJECT_SET = 6;
+    public static final byte TYPE_SORTED_SET = 7;
+    public static final byte TYPE_HASH = 8;
+
+    private static final byte ITEM_STRING = 0;
+    private static final byte ITEM_OBJECT = 1;
+    private static final byte ITEM_FIELD = 2;
+
+    private LocalCacheSnapshot() {
+    }
+
+    /**
+     * 恢复时创建缓存内部容器的工厂，使恢复出的值与缓存当前的存储方式（堆上/堆外）一致
+     */
+    public interface ValueFactory {
+
+        List<byte[]> newObjectList(int size);
+
+        ByteSet newObjectSet(int size);
+
+        IndexedSkipList<Object> newSortedSet();
+
+        /**
+         * 有序集合成员的唯一标识
+         */
+        Object memberKey(Object member);
+    }
+
+    /**
+     * 索引中的一条记录，同一个key在K-V和Hash两个空间中各有一条时以next相连
+     */
+    public static final class Entry {
+        private final String key;
+        private final byte type;
+        private final long deadline;
+        private final long offset;
+        private Entry next;
+
+        private Entry(String key, byte type, long deadline, long offset) {
+            this.key = key;
+            this.type = type;
+            this.deadline = deadline;
+            this.offset = offset;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public byte getType() {
+            return type;
+        }
+
+        /**
+         * 过期时间点（毫秒时间戳），0表示不过期
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public Entry getNext() {
+            return next;
+        }
+    }
+
+    /**
+     * 快照写入器，非线程安全
+     */
+    public static final class Writer implements Closeable {
+        private final MappedFileWriter out;
+        private final ByteArrayIndex index = new ByteArrayIndex();
+        private int count;
+
+        public Writer(File path) throws IOException {
+            this(path, 0);
+        }
+
+        /**
+         * @param flags 写入文件头的标志，如{@link #FLAG_LEGACY_FIELD_KEYS}
+         */
+        public Writer(File path, int flags) throws IOException {
+            out = new MappedFileWriter(path);
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(0);
+            out.writeLong(System.currentTimeMillis());
+            out.writeLong(0);
+            out.writeLong(0);
+            out.writeInt(flags);
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        private void begin(String key, byte type, long deadline) {
+            index.add(key, type, deadline, out.position());
+            count++;
+        }
+
+        public void writeString(String key, long deadline, String value) throws IOException {
+            begin(key, TYPE_STRING, deadline);
+            out.writeString(value);
+        }
+
+        /**
+         * @param value 已序列化的对象
+         */
+        public void writeObject(String key, long deadline, byte[] value) throws IOException {
+            begin(key, TYPE_OBJECT, deadline);
+            out.writeBytes(value);
+        }
+
+        public void writeStringList(String key, long deadline, Collection<String> list) throws IOException {
+            begin(key, TYPE_STRING_LIST, deadline);
+            out.writeInt(list.size());
+            for (String s : list)
+                out.writeString(s);
+        }
+
+        public void writeObjectList(String key, long deadline, Collection<byte[]> list) throws IOException {
+            begin(key, TYPE_OBJECT_LIST, deadline);
+            out.writeInt(list.size());
+            for (byte[] bs : list)
+                out.writeBytes(bs);
+        }
+
+        public void writeStringSet(String key, long deadline, Collection<String> set) throws IOException {
+            begin(key, TYPE_STRING_SET, deadline);
+            out.writeInt(set.size());
+            for (String s : set)
+                out.writeString(s);
+        }
+
+        public void writeObjectSet(String key, long deadline, Collection<byte[]> members) throws IOException {
+            begin(key, TYPE_OBJECT_SET, deadline);
+            out.writeInt(members.size());
+            for (byte[] bs : members)
+                out.writeBytes(bs);
+        }
+
+        /**
+         * @param members 按score升序排列的成员
+         */
+        public void writeSortedSet(String key, long deadline, List<SortedSetBean> members) throws IOException {
+            begin(key, TYPE_SORTED_SET, deadline);
+            out.writeInt(members.size());
+            for (SortedSetBean sb : members) {
+                out.writeLong(sb.getScore());
+                writeItem(sb.getMember());
+            }
+        }
+
+        public void writeHash(String key, long deadline, Map<Object, Object> map) throws IOException {
+            begin(key, TYPE_HASH, deadline);
+            out.writeInt(map.size());
+            for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                writeItem(entry.getKey());
+                writeItem(entry.getValue());
+            }
+        }
+
+        private void writeItem(Object item) throws IOException {
+            if (item instanceof String) {
+                out.writeByte(ITEM_STRING);
+                out.writeString((String) item);
+            } else if (item instanceof FieldKey) {
+                out.writeByte(ITEM_FIELD);
+                out.writeBytes(((FieldKey) item).toBytes());
+            } else {
+                out.writeByte(ITEM_OBJECT);
+                out.writeBytes(Codecs.encode(item));
+            }
+        }
+
+        /**
+         * 写入索引区，回填文件头并关闭文件
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                long indexOffset = out.position();
+                index.writeTo(out);
+                long dataLength = out.position();
+                out.putInt(ENTRY_COUNT_OFFSET, count);
+                out.putLong(INDEX_OFFSET_OFFSET, indexOffset);
+                out.putLong(DATA_LENGTH_OFFSET, dataLength);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * 写入过程中暂存的索引，key以UTF-8字节保存以减少内存占用
+     */
+    private static final class ByteArrayIndex {
+        private final List<byte[]> keys = new ArrayList<byte[]>();
+        private byte[] types = new byte[1024];
+        private long[] deadlines = new long[1024];
+        private long[] offsets = new long[1024];
+
+        void add(String key, byte type, long deadline, long offset) {
+            int i = keys.size();
+            if (i == types.length) {
+                types = Arrays.copyOf(types, i * 2);
+                deadlines = Arrays.copyOf(deadlines, i * 2);
+                offsets = Arrays.copyOf(offsets, i * 2);
+            }
+            keys.add(key.getBytes(StandardCharsets.UTF_8));
+            types[i] = type;
+            deadlines[i] = deadline;
+            offsets[i] = offset;
+        }
+
+        void writeTo(MappedFileWriter out) throws IOException {
+            for (int i = 0; i < keys.size(); i++) {
+                out.writeBytes(keys.get(i));
+                out.writeByte(types[i]);
+                out.writeLong(deadlines[i]);
+                out.writeLong(offsets[i]);
+            }
+        }
+    }
+
+    /**
+     * 快照读取器，可被多个线程同时使用
+     */
+    public static final class Reader implements Closeable {
+        private final MappedFileReader in;
+        private final ValueFactory factory;
+        private final long createdMillis;
+        private final int count;
+        private final long indexOffset;
+        private final long dataLength;
+        private final int flags;
+
+        public Reader(File path, ValueFactory factory) throws IOException {
+            this.in = new MappedFileReader(path);
+            this.factory = factory;
+            if (in.length() < V1_HEADER_SIZE)
+                throw new IllegalStateException("Not a cache snapshot: " + path);
+            MappedFileReader.Cursor header = in.cursor(0);
+            if (header.readLong() != MAGIC)
+                throw new IllegalStateException("Not a cache snapshot: " + path);
+            int version = header.readInt();
+            if (version != 1 && version != VERSION)
+                throw new IllegalStateException("Unsupported snapshot version " + version + ": " + path);
+            int headerSize = version == 1 ? V1_HEADER_SIZE : HEADER_SIZE;
+            this.count = header.readInt();
+            this.createdMillis = header.readLong();
+            this.indexOffset = header.readLong();
+            this.dataLength = header.readLong();
+            if (indexOffset < headerSize || dataLength > in.length() || indexOffset > dataLength)
+                throw new IllegalStateException("Incomplete cache snapshot: " + path);
+            this.flags = version == 1 ? FLAG_LEGACY_FIELD_KEYS : header.readInt();
+        }
+
+        /**
+         * 文件头中的标志
+         */
+        public int getFlags() {
+            return flags;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getCreatedMillis() {
+            return createdMillis;
+        }
+
+        /**
+         * 读取索引区
+         */
+        public Map<String, Entry> readIndex() {
+            Map<String, Entry> index = new ConcurrentHashMap<String, Entry>(Math.max(16, count * 4 / 3 + 1));
+            MappedFileReader.Cursor cursor = in.cursor(indexOffset);
+            for (int i = 0; i < count; i++) {
+                String key = cursor.readString();
+                byte type = cursor.readByte();
+                long deadline = cursor.readLong();
+                long offset = cursor.readLong();
+                Entry entry = new Entry(key, type, deadline, offset);
+                entry.next = index.put(key, entry);
+            }
+            return index;
+        }
+
+        /**
+         * 解码一条记录，返回缓存内部存储的形式
+         */
+        public Object read(Entry entry) {
+            MappedFileReader.Cursor cursor = in.cursor(entry.offset);
+            switch (entry.type) {
+                case TYPE_STRING:
+                    return cursor.readString();
+                case TYPE_OBJECT:
+                    return SerializeUtil.deserialize(cursor.readBytes(), Object.class);
+                case TYPE_STRING_LIST: {
+                    int size = cursor.readInt();
+                    List<String> list = new ArrayList<String>(size);
+                    for (int i = 0; i < size; i++)
+                        list.add(cursor.readString());
+                    return list;
+                }
+                case TYPE_OBJECT_LIST: {
+                    int size = cursor.readInt();
+                    List<byte[]> list = factory.newObjectList(size);
+                    for (int i = 0; i < size; i++)
+                        list.add(cursor.readBytes());
+                    return list;
+                }
+                case TYPE_STRING_SET: {
+                    int size = cursor.readInt();
+                    Set<String> set = ConcurrentHashMap.newKeySet(size);
+                    for (int i = 0; i < size; i++)
+                        set.add(cursor.readString());
+                    return set;
+                }
+                case TYPE_OBJECT_SET: {
+                    int size = cursor.readInt();
+                    ByteSet set = factory.newObjectSet(size);
+                    for (int i = 0; i < size; i++)
+                        set.add(cursor.readBytes());
+                    return set;
+                }
+                case TYPE_SORTED_SET: {
+                    int size = cursor.readInt();
+                    IndexedSkipList<Object> set = factory.newSortedSet();
+                    for (int i = 0; i < size; i++) {
+                        long score = cursor.readLong();
+                        Object member = readItem(cursor);
+                        set.add(factory.memberKey(member), member, score);
+                    }
+                    return set;
+                }
+                case TYPE_HASH: {
+                    int size = cursor.readInt();
+                    Map<Object, Object> map = new ConcurrentHashMap<Object, Object>(Math.max(16, size * 4 / 3 + 1));
+                    for (int i = 0; i < size; i++) {
+                        Object field = readItem(cursor);
+                        Object value = readItem(cursor);
+                        map.put(field, value);
+                    }
+                    return map;
+                }
+                default:
+                    throw new IllegalStateException("Unknown snapshot entry type " + entry.type + " of key " + entry.key);
+            }
+        }
+
+        private static Object readItem(MappedFileReader.Cursor cursor) {
+            byte type = cursor.readByte();
+            if (type == ITEM_STRING)
+                return cursor.readString();
+            if (type == ITEM_FIELD)
+                return FieldKey.fromBytes(cursor.readBytes());
+            return SerializeUtil.deserialize(cursor.readBytes(), Object.class);
+        }
+
+        @Override
+        public void close() {
+            in.close();
+        }
+    }
+}
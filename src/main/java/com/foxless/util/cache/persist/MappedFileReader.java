@@ -0,0 +1,147 @@
+package com.foxless.util.cache.persist;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 以只读内存映射的方式随机读取文件，文件按1GB分段映射，读取跨段的数据时自动拼接。<br>
+ * 所有读取都按绝对位置进行，可以被多个线程同时使用。映射只在对象被回收后才释放。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class MappedFileReader implements Closeable {
+
+    private static final int REGION_BITS = 30;
+    private static final long REGION_SIZE = 1L << REGION_BITS;
+
+    private final long length;
+    private volatile MappedByteBuffer[] regions;
+
+    public MappedFileReader(File path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+            FileChannel channel = file.getChannel();
+            this.length = channel.size();
+            int count = (int) ((length + REGION_SIZE - 1) >>> REGION_BITS);
+            MappedByteBuffer[] mapped = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = (long) i << REGION_BITS;
+                mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, length - start));
+            }
+            this.regions = mapped;
+        }
+    }
+
+    /**
+     * 文件长度
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * 从pos开始顺序读取的游标
+     */
+    public Cursor cursor(long pos) {
+        return new Cursor(pos);
+    }
+
+    /**
+     * 把pos开始的数据读入dst
+     */
+    public void read(long pos, byte[] dst) {
+        read(pos, dst, dst.length);
+    }
+
+    private void read(long pos, byte[] dst, int length) {
+        if (pos < 0 || pos + length > this.length)
+            throw new IllegalStateException("Read beyond the end of the mapped file: " + pos);
+        MappedByteBuffer[] mapped = regions();
+        int offset = 0;
+        while (offset < length) {
+            ByteBuffer region = mapped[(int) (pos >>> REGION_BITS)].duplicate();
+            region.position((int) (pos & (REGION_SIZE - 1)));
+            int n = Math.min(length - offset, region.remaining());
+            region.get(dst, offset, n);
+            offset += n;
+            pos += n;
+        }
+    }
+
+    private MappedByteBuffer[] regions() {
+        MappedByteBuffer[] mapped = regions;
+        if (null == mapped)
+            throw new IllegalStateException("Mapped file has been closed.");
+        return mapped;
+    }
+
+    /**
+     * 放弃映射的引用，映射在被回收后释放
+     */
+    @Override
+    public void close() {
+        regions = null;
+    }
+
+    /**
+     * 顺序读取的游标，非线程安全
+     */
+    public final class Cursor {
+        private final ByteBuffer scratch = ByteBuffer.allocate(8);
+        private long position;
+
+        private Cursor(long position) {
+            this.position = position;
+        }
+
+        public long position() {
+            return position;
+        }
+
+        public void skip(long bytes) {
+            position += bytes;
+        }
+
+        public byte readByte() {
+            return fill(1).get(0);
+        }
+
+        public int readInt() {
+            return fill(4).getInt(0);
+        }
+
+        public long readLong() {
+            return fill(8).getLong(0);
+        }
+
+        /**
+         * 读取长度和内容，长度为-1时返回null
+         */
+        public byte[] readBytes() {
+            int len = readInt();
+            if (len < 0)
+                return null;
+            byte[] bs = new byte[len];
+            read(position, bs);
+            position += len;
+            return bs;
+        }
+
+        public String readString() {
+            byte[] bs = readBytes();
+            return null == bs ? null : new String(bs, StandardCharsets.UTF_8);
+        }
+
+        private ByteBuffer fill(int bytes) {
+            read(position, scratch.array(), bytes);
+            position += bytes;
+            return scratch;
+        }
+    }
+}
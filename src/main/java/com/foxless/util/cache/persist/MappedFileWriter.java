@@ -0,0 +1,143 @@
+package com.foxless.util.cache.persist;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 通过内存映射顺序写文件，文件按regionSize分段映射，写满一段后映射下一段。<br>
+ * 关闭时把文件截断到实际写入的长度（部分平台上映射未释放时截断会失败，此时保留尾部的空白，由文件头记录有效长度）。<br>
+ * 非线程安全。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class MappedFileWriter implements Closeable {
+
+    private static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int regionSize;
+    private MappedByteBuffer region;
+    private long position;
+
+    public MappedFileWriter(File path) throws IOException {
+        this(path, DEFAULT_REGION_SIZE);
+    }
+
+    public MappedFileWriter(File path, int regionSize) throws IOException {
+        this.file = new RandomAccessFile(path, "rw");
+        this.file.setLength(0);
+        this.channel = file.getChannel();
+        this.regionSize = regionSize;
+        map(0, 0);
+    }
+
+    /**
+     * 当前写入位置
+     */
+    public long position() {
+        return position;
+    }
+
+    public void writeByte(int b) throws IOException {
+        ensure(1);
+        region.put((byte) b);
+        position++;
+    }
+
+    public void writeInt(int v) throws IOException {
+        ensure(4);
+        region.putInt(v);
+        position += 4;
+    }
+
+    public void writeLong(long v) throws IOException {
+        ensure(8);
+        region.putLong(v);
+        position += 8;
+    }
+
+    /**
+     * 写入长度和内容，null写为长度-1
+     */
+    public void writeBytes(byte[] bs) throws IOException {
+        if (null == bs) {
+            writeInt(-1);
+            return;
+        }
+        writeInt(bs.length);
+        int offset = 0;
+        while (offset < bs.length) {
+            if (!region.hasRemaining())
+                map(position, 1);
+            int n = Math.min(bs.length - offset, region.remaining());
+            region.put(bs, offset, n);
+            offset += n;
+            position += n;
+        }
+    }
+
+    /**
+     * 以UTF-8写入字符串，null写为长度-1
+     */
+    public void writeString(String s) throws IOException {
+        writeBytes(null == s ? null : s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 在指定位置写入一个long，不改变当前写入位置，用于回填文件头
+     */
+    public void putLong(long at, long v) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putLong(v).flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer, at + buffer.position());
+    }
+
+    /**
+     * 在指定位置写入一个int，不改变当前写入位置，用于回填文件头
+     */
+    public void putInt(long at, int v) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        buffer.putInt(v).flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer, at + buffer.position());
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (region.remaining() < bytes)
+            map(position, bytes);
+    }
+
+    private void map(long start, int atLeast) throws IOException {
+        if (null != region)
+            region.force();
+        region = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.max(regionSize, atLeast));
+    }
+
+    /**
+     * 刷盘并关闭文件
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            region.force();
+            region = null;
+            try {
+                channel.truncate(position);
+            } catch (IOException e) {
+                // 映射未释放时部分平台不允许截断，文件头中已记录有效长度
+            }
+            channel.force(true);
+        } finally {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.foxless.util.cache.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按内容比较的byte[]集合，用于存放序列化后的对象集合成员。<br>
+ * 开放寻址（线性探测），每个槽缓存成员的hash，比较时先比hash再比内容；删除时后移填补空位，不留墓碑。
+ * 每个成员只占用一个引用和一个int，没有HashSet的Entry对象。<br>
+ * 非线程安全，由调用方加锁。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class ByteArrayHashSet implements ByteSet {
+
+    private static final int MIN_CAPACITY = 8;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private byte[][] members;
+    private int[] hashes;
+    private int mask;
+    private int size;
+    private int threshold;
+    private long bytes;
+
+    public ByteArrayHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public ByteArrayHashSet(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * 成员数量
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 所有成员的字节数之和
+     */
+    @Override
+    public long bytes() {
+        return bytes;
+    }
+
+    @Override
+    public boolean contains(byte[] member) {
+        return indexOf(member, hash(member)) >= 0;
+    }
+
+    /**
+     * 添加成员，已存在时返回false
+     */
+    @Override
+    public boolean add(byte[] member) {
+        if (null == member)
+            throw new IllegalArgumentException("Member cannot be null!");
+        int hash = hash(member);
+        int i = hash & mask;
+        for (byte[] m; null != (m = members[i]); i = (i + 1) & mask) {
+            if (hashes[i] == hash && Arrays.equals(m, member))
+                return false;
+        }
+        members[i] = member;
+        hashes[i] = hash;
+        bytes += member.length;
+        if (++size > threshold)
+            resize(members.length << 1);
+        return true;
+    }
+
+    /**
+     * 移除成员，不存在时返回false
+     */
+    @Override
+    public boolean remove(byte[] member) {
+        int i = indexOf(member, hash(member));
+        if (i < 0)
+            return false;
+        bytes -= members[i].length;
+        size--;
+        // 把后面同一探测序列上的成员前移，保证查找时不会提前遇到空槽
+        int gap = i;
+        for (int j = (i + 1) & mask; null != members[j]; j = (j + 1) & mask) {
+            int home = hashes[j] & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                members[gap] = members[j];
+                hashes[gap] = hashes[j];
+                gap = j;
+            }
+        }
+        members[gap] = null;
+        hashes[gap] = 0;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(members, null);
+        Arrays.fill(hashes, 0);
+        size = 0;
+        bytes = 0;
+    }
+
+    /**
+     * 复制出所有成员，返回的List与集合不再关联
+     */
+    @Override
+    public List<byte[]> toList() {
+        List<byte[]> list = new ArrayList<byte[]>(size);
+        for (byte[] m : members) {
+            if (null != m)
+                list.add(m);
+        }
+        return list;
+    }
+
+    private int indexOf(byte[] member, int hash) {
+        if (null == member)
+            return -1;
+        int i = hash & mask;
+        for (byte[] m; null != (m = members[i]); i = (i + 1) & mask) {
+            if (hashes[i] == hash && Arrays.equals(m, member))
+                return i;
+        }
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        if (capacity > MAX_CAPACITY)
+            throw new IllegalStateException("Set is too large.");
+        byte[][] oldMembers = members;
+        int[] oldHashes = hashes;
+        allocate(capacity);
+        for (int j = 0; j < oldMembers.length; j++) {
+            if (null == oldMembers[j])
+                continue;
+            int i = oldHashes[j] & mask;
+            while (null != members[i])
+                i = (i + 1) & mask;
+            members[i] = oldMembers[j];
+            hashes[i] = oldHashes[j];
+        }
+    }
+
+    private void allocate(int capacity) {
+        members = new byte[capacity][];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * 0.6f);
+    }
+
+    private static int hash(byte[] member) {
+        if (null == member)
+            return 0;
+        int h = Arrays.hashCode(member) * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long capacity = Math.max(MIN_CAPACITY, (long) (expectedSize / 0.6f) + 1);
+        return (int) Math.min(MAX_CAPACITY, Long.highestOneBit(capacity - 1) << 1);
+    }
+}
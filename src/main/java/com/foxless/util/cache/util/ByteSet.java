@@ -0,0 +1,40 @@
+package com.foxless.util.cache.util;
+
+import java.util.List;
+
+/**
+ * 按内容比较的byte[]集合，本地缓存的对象集合以此形式存放序列化后的成员。<br>
+ * 实现类非线程安全，由调用方加锁。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public interface ByteSet {
+
+    /**
+     * 成员数量
+     */
+    int size();
+
+    /**
+     * 所有成员的字节数之和
+     */
+    long bytes();
+
+    boolean contains(byte[] member);
+
+    /**
+     * 添加成员，已存在时返回false
+     */
+    boolean add(byte[] member);
+
+    /**
+     * 移除成员，不存在时返回false
+     */
+    boolean remove(byte[] member);
+
+    /**
+     * 复制出所有成员，返回的List与集合不再关联
+     */
+    List<byte[]> toList();
+}
@@ -0,0 +1,154 @@
+package com.foxless.util.cache.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 带虚拟节点的一致性hash环。每个节点按名称在环上放置若干个点，key顺时针找到的第一个点所属的节点负责该key；
+ * 增加或移除一个节点时只有约1/N的key改变归属。<br>
+ * 点的位置只由节点名称决定，与节点加入的顺序无关。key中含有非空的{tag}时只按第一个tag计算hash，
+ * 可以让相关的key落在同一个节点上。<br>
+ * 查找不加锁：环的数据是不可变的数组，增删节点时整体替换。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class ConsistentHashRing<T> {
+
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+
+    /**
+     * 不可变的环，points升序排列，owners[i]是points[i]所属节点的名称
+     */
+    private static final class Ring<T> {
+        private final long[] points;
+        private final String[] owners;
+        private final Map<String, T> nodes;
+
+        Ring(long[] points, String[] owners, Map<String, T> nodes) {
+            this.points = points;
+            this.owners = owners;
+            this.nodes = nodes;
+        }
+    }
+
+    private final int virtualNodes;
+    private final Map<String, T> nodes = new LinkedHashMap<String, T>();
+    private volatile Ring<T> ring = new Ring<T>(new long[0], new String[0], Collections.<String, T>emptyMap());
+
+    /**
+     * @param virtualNodes 每个节点在环上的点数，越多分布越均匀
+     */
+    public ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes <= 0)
+            throw new IllegalArgumentException("virtualNodes must be greater than 0");
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * 加入节点，同名节点会被替换
+     */
+    public synchronized void add(String name, T node) {
+        if (null == name || null == node)
+            throw new IllegalArgumentException("name and node cannot be null");
+        nodes.put(name, node);
+        rebuild();
+    }
+
+    /**
+     * 移除节点，返回被移除的节点，不存在时返回null
+     */
+    public synchronized T remove(String name) {
+        T node = nodes.remove(name);
+        if (null != node)
+            rebuild();
+        return node;
+    }
+
+    private void rebuild() {
+        List<long[]> entries = new ArrayList<long[]>(nodes.size() * virtualNodes);
+        List<String> names = new ArrayList<String>(nodes.keySet());
+        for (int n = 0; n < names.size(); n++) {
+            for (int i = 0; i < virtualNodes; i++)
+                entries.add(new long[]{hash(names.get(n) + "#" + i), n});
+        }
+        // hash相同的点按名称排序，结果与加入顺序无关
+        entries.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : names.get((int) a[1]).compareTo(names.get((int) b[1])));
+        long[] points = new long[entries.size()];
+        String[] owners = new String[entries.size()];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = entries.get(i)[0];
+            owners[i] = names.get((int) entries.get(i)[1]);
+        }
+        ring = new Ring<T>(points, owners, Collections.unmodifiableMap(new LinkedHashMap<String, T>(nodes)));
+    }
+
+    /**
+     * 负责key的节点名称，环为空时抛出IllegalStateException
+     */
+    public String nameFor(String key) {
+        return locate(ring, hashKey(key));
+    }
+
+    /**
+     * 负责key的节点，环为空时抛出IllegalStateException
+     */
+    public T get(String key) {
+        Ring<T> r = ring;
+        return r.nodes.get(locate(r, hashKey(key)));
+    }
+
+    private static String locate(Ring<?> r, long hash) {
+        if (r.points.length == 0)
+            throw new IllegalStateException("No nodes in the hash ring");
+        int i = Arrays.binarySearch(r.points, hash);
+        if (i < 0)
+            i = -i - 1;
+        return r.owners[i == r.points.length ? 0 : i];
+    }
+
+    /**
+     * 当前所有节点，按加入顺序排列，不可修改
+     */
+    public Map<String, T> nodes() {
+        return ring.nodes;
+    }
+
+    public int size() {
+        return ring.nodes.size();
+    }
+
+    /**
+     * key的hash，含有非空{tag}时只计算第一个tag
+     */
+    public static long hashKey(String key) {
+        int open = key.indexOf('{');
+        if (open >= 0) {
+            int close = key.indexOf('}', open + 1);
+            if (close > open + 1)
+                return hash(key, open + 1, close);
+        }
+        return hash(key, 0, key.length());
+    }
+
+    public static long hash(CharSequence s) {
+        return hash(s, 0, s.length());
+    }
+
+    private static long hash(CharSequence s, int from, int to) {
+        long h = (to - from) * PRIME_1;
+        for (int i = from; i < to; i++)
+            h = Long.rotateLeft(h ^ s.charAt(i) * PRIME_2, 31) * PRIME_1;
+        h ^= h >>> 33;
+        h *= PRIME_2;
+        h ^= h >>> 29;
+        h *= PRIME_1;
+        h ^= h >>> 32;
+        return h;
+    }
+}
@@ -0,0 +1,110 @@
+package com.foxless.util.cache.util;
+
+import java.util.Arrays;
+
+import com.foxless.util.cache.SerializeUtil;
+
+/**
+ * 本地Hash结构中对象类型field的键。<br>
+ * String、基本类型的包装类和枚举直接按对象本身比较，不做序列化；其他对象按序列化后的字节比较，并缓存64位hash。
+ * 两种形式都区分类型，8L和8是不同的field，对象field "a"也不会与hset(key, String, String)写入的field "a"相同。<br>
+ * {@link #toBytes()}和{@link #fromBytes(byte[])}用于写日志和快照，恢复出的键与原来的键相等。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class FieldKey {
+
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+
+    /**
+     * 不可变且equals区分类型的对象，否则为null
+     */
+    private final Object natural;
+    private final byte[] bytes;
+    private final long hash;
+
+    private FieldKey(Object natural, byte[] bytes, long hash) {
+        this.natural = natural;
+        this.bytes = bytes;
+        this.hash = hash;
+    }
+
+    private static boolean isNatural(Object field) {
+        return field instanceof String || field instanceof Long || field instanceof Integer
+                || field instanceof Short || field instanceof Byte || field instanceof Character
+                || field instanceof Boolean || field instanceof Enum;
+    }
+
+    public static FieldKey of(Object field) {
+        if (isNatural(field))
+            return new FieldKey(field, null, field.hashCode() * PRIME_1 ^ field.getClass().hashCode());
+        byte[] bs = SerializeUtil.serialize(field);
+        return new FieldKey(null, bs, hash(bs));
+    }
+
+    /**
+     * 由{@link #toBytes()}的结果恢复
+     */
+    public static FieldKey fromBytes(byte[] bytes) {
+        Object field = SerializeUtil.deserialize(bytes, Object.class);
+        if (isNatural(field))
+            return of(field);
+        return new FieldKey(null, bytes, hash(bytes));
+    }
+
+    public byte[] toBytes() {
+        return null != bytes ? bytes : SerializeUtil.serialize(natural);
+    }
+
+    /**
+     * 64位hash，每次处理8个字节
+     */
+    public static long hash(byte[] bs) {
+        long h = bs.length * PRIME_1;
+        int i = 0;
+        for (; i + 8 <= bs.length; i += 8) {
+            long k = (bs[i] & 0xFFL) | (bs[i + 1] & 0xFFL) << 8 | (bs[i + 2] & 0xFFL) << 16 | (bs[i + 3] & 0xFFL) << 24
+                    | (bs[i + 4] & 0xFFL) << 32 | (bs[i + 5] & 0xFFL) << 40 | (bs[i + 6] & 0xFFL) << 48 | (bs[i + 7] & 0xFFL) << 56;
+            h = Long.rotateLeft(h ^ k * PRIME_2, 31) * PRIME_1;
+        }
+        for (; i < bs.length; i++)
+            h = Long.rotateLeft(h ^ (bs[i] & 0xFFL) * PRIME_1, 11) * PRIME_2;
+        h ^= h >>> 33;
+        h *= PRIME_2;
+        h ^= h >>> 29;
+        return h;
+    }
+
+    /**
+     * 按序列化字节比较时的字节数，按对象比较时为0
+     */
+    public int length() {
+        return null == bytes ? 0 : bytes.length;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof FieldKey))
+            return false;
+        FieldKey other = (FieldKey) o;
+        if (hash != other.hash)
+            return false;
+        if (null != natural)
+            return natural.equals(other.natural);
+        return null == other.natural && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public String toString() {
+        return null != natural ? String.valueOf(natural) : "FieldKey" + Arrays.toString(bytes);
+    }
+}
@@ -0,0 +1,113 @@
+package com.foxless.util.cache.util;
+
+/**
+ * 4位Count-Min Sketch，用于估算key的访问频率（TinyLFU）。<br>
+ * 每个long存放16个4位计数器，每个key映射到4个计数器，取最小值作为频率估计；
+ * 累计增加次数达到采样数后所有计数器减半，使频率随时间衰减。<br>
+ * 非线程安全，由调用方加锁。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class FrequencySketch {
+
+    private static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int size;
+
+    public FrequencySketch(long expectedEntries) {
+        ensureCapacity(expectedEntries);
+    }
+
+    /**
+     * 按预期的key数量扩容，扩容后频率信息清零
+     */
+    public void ensureCapacity(long expectedEntries) {
+        int maximum = (int) Math.min(Math.max(expectedEntries, 8), MAX_TABLE_SIZE);
+        if (null != table && table.length >= maximum)
+            return;
+        table = new long[ceilingPowerOfTwo(maximum)];
+        tableMask = table.length - 1;
+        sampleSize = (int) Math.min(10L * maximum, Integer.MAX_VALUE);
+        size = 0;
+    }
+
+    public int capacity() {
+        return table.length;
+    }
+
+    /**
+     * 估算key的访问频率，最大为15
+     */
+    public int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 增加key的访问频率
+     */
+    public void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = 0xfL << offset;
+        if ((table[i] & mask) != mask) {
+            table[i] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 所有计数器减半
+     */
+    private void reset() {
+        int count = 0;
+        for (int i = 0; i < table.length; i++) {
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (count >>> 2);
+    }
+
+    private int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += hash >>> 32;
+        return ((int) hash) & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return 1 << -Integer.numberOfLeadingZeros(x - 1);
+    }
+}
@@ -0,0 +1,187 @@
+package com.foxless.util.cache.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按Redis的glob规则匹配key，与KEYS、SCAN的MATCH参数含义相同：<br>
+ * *匹配任意个字符，?匹配一个字符，[abc]、[a-z]匹配其中一个字符，[^a]匹配不在其中的字符，\转义下一个字符。<br>
+ * 模式只编译一次，匹配时不回溯整个模式，不含通配符、只有末尾一个*的模式按equals、startsWith处理。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class GlobMatcher {
+
+    private static final byte LITERAL = 0;
+    private static final byte ANY = 1;
+    private static final byte STAR = 2;
+    private static final byte CLASS = 3;
+
+    private static final GlobMatcher ALL = new GlobMatcher("*", new byte[]{STAR}, new char[1], new CharClass[1], "");
+
+    private final String pattern;
+    private final byte[] types;
+    private final char[] literals;
+    private final CharClass[] classes;
+    /**
+     * 第一个通配符之前的字面前缀
+     */
+    private final String literalPrefix;
+    /**
+     * 0：一般模式，1：整个模式是字面值，2：字面前缀加一个*
+     */
+    private final int shape;
+
+    private static final class CharClass {
+        private final boolean negate;
+        private final StringBuilder singles = new StringBuilder();
+        private final StringBuilder ranges = new StringBuilder();
+
+        CharClass(boolean negate) {
+            this.negate = negate;
+        }
+
+        boolean matches(char c) {
+            boolean found = singles.indexOf(String.valueOf(c)) >= 0;
+            for (int i = 0; !found && i < ranges.length(); i += 2)
+                found = c >= ranges.charAt(i) && c <= ranges.charAt(i + 1);
+            return found != negate;
+        }
+    }
+
+    private GlobMatcher(String pattern, byte[] types, char[] literals, CharClass[] classes, String literalPrefix) {
+        this.pattern = pattern;
+        this.types = types;
+        this.literals = literals;
+        this.classes = classes;
+        this.literalPrefix = literalPrefix;
+        if (literalPrefix.length() == types.length)
+            shape = 1;
+        else if (literalPrefix.length() == types.length - 1 && types[types.length - 1] == STAR)
+            shape = 2;
+        else
+            shape = 0;
+    }
+
+    /**
+     * 编译一个glob模式，null和"*"匹配所有key
+     */
+    public static GlobMatcher compile(String pattern) {
+        if (null == pattern || "*".equals(pattern))
+            return ALL;
+        List<Byte> types = new ArrayList<Byte>();
+        StringBuilder literals = new StringBuilder();
+        List<CharClass> classes = new ArrayList<CharClass>();
+        int n = pattern.length();
+        for (int i = 0; i < n; i++) {
+            char c = pattern.charAt(i);
+            CharClass cc = null;
+            byte type;
+            if (c == '*') {
+                if (!types.isEmpty() && types.get(types.size() - 1) == STAR)
+                    continue;
+                type = STAR;
+            } else if (c == '?') {
+                type = ANY;
+            } else if (c == '[') {
+                type = CLASS;
+                i++;
+                boolean negate = i < n && pattern.charAt(i) == '^';
+                if (negate)
+                    i++;
+                cc = new CharClass(negate);
+                for (; i < n && pattern.charAt(i) != ']'; i++) {
+                    char start = pattern.charAt(i);
+                    if (start == '\\' && i + 1 < n) {
+                        cc.singles.append(pattern.charAt(++i));
+                    } else if (i + 2 < n && pattern.charAt(i + 1) == '-' && pattern.charAt(i + 2) != ']') {
+                        char end = pattern.charAt(i + 2);
+                        cc.ranges.append(start <= end ? start : end).append(start <= end ? end : start);
+                        i += 2;
+                    } else {
+                        cc.singles.append(start);
+                    }
+                }
+            } else {
+                type = LITERAL;
+                if (c == '\\' && i + 1 < n)
+                    c = pattern.charAt(++i);
+            }
+            types.add(type);
+            literals.append(type == LITERAL ? c : '\0');
+            classes.add(cc);
+        }
+        byte[] ts = new byte[types.size()];
+        int prefix = -1;
+        for (int i = 0; i < ts.length; i++) {
+            ts[i] = types.get(i);
+            if (prefix < 0 && ts[i] != LITERAL)
+                prefix = i;
+        }
+        if (prefix < 0)
+            prefix = ts.length;
+        return new GlobMatcher(pattern, ts, literals.toString().toCharArray(),
+                classes.toArray(new CharClass[0]), literals.substring(0, prefix));
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * 第一个通配符之前的字面前缀，匹配的key都以它开头
+     */
+    public String getLiteralPrefix() {
+        return literalPrefix;
+    }
+
+    /**
+     * 是否匹配所有key
+     */
+    public boolean matchesAll() {
+        return this == ALL || types.length == 1 && types[0] == STAR;
+    }
+
+    public boolean matches(String s) {
+        if (shape == 1)
+            return literalPrefix.equals(s);
+        if (shape == 2)
+            return s.startsWith(literalPrefix);
+        int p = 0, i = 0, starP = -1, starI = 0;
+        int n = s.length();
+        while (i < n) {
+            if (p < types.length && types[p] != STAR && matchOne(p, s.charAt(i))) {
+                p++;
+                i++;
+            } else if (p < types.length && types[p] == STAR) {
+                starP = p++;
+                starI = i;
+            } else if (starP >= 0) {
+                p = starP + 1;
+                i = ++starI;
+            } else {
+                return false;
+            }
+        }
+        while (p < types.length && types[p] == STAR)
+            p++;
+        return p == types.length;
+    }
+
+    private boolean matchOne(int p, char c) {
+        switch (types[p]) {
+            case LITERAL:
+                return literals[p] == c;
+            case ANY:
+                return true;
+            default:
+                return classes[p].matches(c);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
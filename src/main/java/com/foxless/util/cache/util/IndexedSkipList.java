@@ -0,0 +1,429 @@
+package com.foxless.util.cache.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToLongFunction;
+
+import com.foxless.util.cache.bean.SortedSetBean;
+
+/**
+ * 仿照redis zset实现的有序集合：带跨度(span)的跳表 + 成员到节点的哈希表。<br>
+ * 按score升序排列，score相同的按加入的先后排列；同一成员只出现一次，成员的相等性由调用方给出的memberKey决定。<br>
+ * 按成员查找/删除/改分、按名次定位、按score定位均为O(log n)，范围读取为O(log n + m)。<br>
+ * 使用读写锁，读操作之间互不阻塞。<br>
+ * 给出weigher时在增删成员时累计成员的权重，{@link #weight()}不需要遍历。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class IndexedSkipList<M> {
+
+    private static final int MAX_LEVEL = 32;
+    private static final int LEVEL_PROBABILITY = 4;
+
+    private static final class Node<M> {
+        private final Object memberKey;
+        private final M member;
+        private long score;
+        private final long seq;
+        private Node<M> backward;
+        private final Node<M>[] forward;
+        private final long[] span;
+
+        @SuppressWarnings("unchecked")
+        Node(Object memberKey, M member, long score, long seq, int level) {
+            this.memberKey = memberKey;
+            this.member = member;
+            this.score = score;
+            this.seq = seq;
+            // 不能创建泛型数组，数组中只放入Node<M>
+            this.forward = (Node<M>[]) new Node<?>[level];
+            this.span = new long[level];
+        }
+    }
+
+    private final Node<M> header = new Node<M>(null, null, 0, 0, MAX_LEVEL);
+    private final Map<Object, Node<M>> dict = new HashMap<Object, Node<M>>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int level = 1;
+    private volatile long length;
+    private volatile long weight;
+    private long nextSeq;
+    private final ToLongFunction<? super M> weigher;
+
+    public IndexedSkipList() {
+        this(null);
+    }
+
+    /**
+     * @param weigher 成员的权重，为null时{@link #weight()}总是0
+     */
+    public IndexedSkipList(ToLongFunction<? super M> weigher) {
+        this.weigher = weigher;
+    }
+
+    /**
+     * 成员数量
+     */
+    public long size() {
+        return length;
+    }
+
+    /**
+     * 所有成员的权重之和
+     */
+    public long weight() {
+        return weight;
+    }
+
+    /**
+     * 添加成员，成员已存在时更新其score
+     *
+     * @return 成员是否为新加入的
+     */
+    public boolean add(Object memberKey, M member, long score) {
+        lock.writeLock().lock();
+        try {
+            Node<M> node = dict.get(memberKey);
+            if (null != node) {
+                updateScore(node, score);
+                return false;
+            }
+            dict.put(memberKey, insert(memberKey, member, score));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 将成员的score增加incr，成员不存在时以incr为score加入
+     *
+     * @return 增加后的score
+     */
+    public long increment(Object memberKey, M member, long incr) {
+        lock.writeLock().lock();
+        try {
+            Node<M> node = dict.get(memberKey);
+            if (null == node) {
+                dict.put(memberKey, insert(memberKey, member, incr));
+                return incr;
+            }
+            return updateScore(node, node.score + incr).score;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除成员
+     *
+     * @return 被移除的成员，不存在时返回null
+     */
+    public M remove(Object memberKey) {
+        lock.writeLock().lock();
+        try {
+            Node<M> node = dict.remove(memberKey);
+            if (null == node)
+                return null;
+            delete(node);
+            return node.member;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 是否包含成员
+     */
+    public boolean contains(Object memberKey) {
+        lock.readLock().lock();
+        try {
+            return dict.containsKey(memberKey);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 成员的score，不存在时返回null
+     */
+    public Long score(Object memberKey) {
+        lock.readLock().lock();
+        try {
+            Node<M> node = dict.get(memberKey);
+            return null == node ? null : node.score;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 成员的名次（从0开始），reverse为true时按score从高到低计算，不存在时返回null
+     */
+    public Long rank(Object memberKey, boolean reverse) {
+        lock.readLock().lock();
+        try {
+            Node<M> node = dict.get(memberKey);
+            if (null == node)
+                return null;
+            long rank = 0;
+            Node<M> x = header;
+            for (int i = level - 1; i >= 0; i--) {
+                while (null != x.forward[i] && compare(x.forward[i], node.score, node.seq) <= 0) {
+                    rank += x.span[i];
+                    x = x.forward[i];
+                }
+            }
+            return reverse ? length - rank : rank - 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按名次取一段成员
+     *
+     * @param start   起始位置
+     * @param end     终止位置(不包括)，-1表示到末尾
+     * @param reverse 为true时按score从高到低计算名次
+     * @return 超出范围时返回null
+     */
+    public List<M> range(long start, long end, boolean reverse) {
+        lock.readLock().lock();
+        try {
+            long[] bounds = bounds(start, end);
+            if (null == bounds)
+                return null;
+            int count = (int) (bounds[1] - bounds[0]);
+            List<M> ret = new ArrayList<M>(count);
+            Node<M> x = byRank(reverse ? length - bounds[0] : bounds[0] + 1);
+            for (int i = 0; i < count && null != x; i++) {
+                ret.add(x.member);
+                x = reverse ? x.backward : x.forward[0];
+            }
+            return ret;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按名次（升序）取一段成员及其score，参数含义同{@link #range(long, long, boolean)}
+     */
+    public List<SortedSetBean> rangeWithScores(long start, long end) {
+        lock.readLock().lock();
+        try {
+            long[] bounds = bounds(start, end);
+            if (null == bounds)
+                return null;
+            int count = (int) (bounds[1] - bounds[0]);
+            List<SortedSetBean> ret = new ArrayList<SortedSetBean>(count);
+            Node<M> x = byRank(bounds[0] + 1);
+            for (int i = 0; i < count && null != x; i++) {
+                ret.add(new SortedSetBean(x.score, x.member));
+                x = x.forward[0];
+            }
+            return ret;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 取score在[min, max]之间的成员，按score升序排列
+     */
+    public List<M> rangeByScore(long min, long max) {
+        lock.readLock().lock();
+        try {
+            List<M> ret = new ArrayList<M>();
+            if (min > max)
+                return ret;
+            Node<M> x = header;
+            for (int i = level - 1; i >= 0; i--) {
+                while (null != x.forward[i] && x.forward[i].score < min)
+                    x = x.forward[i];
+            }
+            for (x = x.forward[0]; null != x && x.score <= max; x = x.forward[0])
+                ret.add(x.member);
+            return ret;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按名次移除一段成员，参数含义同{@link #range(long, long, boolean)}（升序）
+     *
+     * @return 被移除的成员
+     */
+    public List<M> removeRange(long start, long end) {
+        lock.writeLock().lock();
+        try {
+            long[] bounds = bounds(start, end);
+            if (null == bounds)
+                return new ArrayList<M>(0);
+            Node<M>[] update = newUpdate();
+            long traversed = 0;
+            Node<M> x = header;
+            for (int i = level - 1; i >= 0; i--) {
+                while (null != x.forward[i] && traversed + x.span[i] <= bounds[0]) {
+                    traversed += x.span[i];
+                    x = x.forward[i];
+                }
+                update[i] = x;
+            }
+            List<M> removed = new ArrayList<M>((int) (bounds[1] - bounds[0]));
+            x = x.forward[0];
+            for (long i = bounds[0]; i < bounds[1] && null != x; i++) {
+                Node<M> next = x.forward[0];
+                deleteNode(x, update);
+                dict.remove(x.memberKey);
+                removed.add(x.member);
+                x = next;
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 把start/end换算成[from, to)，超出范围时返回null
+     */
+    private long[] bounds(long start, long end) {
+        if (start >= end && end != -1)
+            return null;
+        if (start >= length)
+            return null;
+        if (start < 0)
+            start = 0;
+        if (end == -1 || end > length)
+            end = length;
+        return new long[]{start, end};
+    }
+
+    /**
+     * 按名次（从1开始）定位节点
+     */
+    private Node<M> byRank(long rank) {
+        long traversed = 0;
+        Node<M> x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (null != x.forward[i] && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.forward[i];
+            }
+            if (traversed == rank)
+                return x;
+        }
+        return null;
+    }
+
+    private static int compare(Node<?> node, long score, long seq) {
+        if (node.score != score)
+            return node.score < score ? -1 : 1;
+        return Long.compare(node.seq, seq);
+    }
+
+    private static int randomLevel() {
+        int level = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (level < MAX_LEVEL && random.nextInt(LEVEL_PROBABILITY) == 0)
+            level++;
+        return level;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<M>[] newUpdate() {
+        return (Node<M>[]) new Node<?>[MAX_LEVEL];
+    }
+
+    private Node<M> insert(Object memberKey, M member, long score) {
+        Node<M>[] update = newUpdate();
+        long[] rank = new long[MAX_LEVEL];
+        long seq = nextSeq++;
+        Node<M> x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (null != x.forward[i] && compare(x.forward[i], score, seq) < 0) {
+                rank[i] += x.span[i];
+                x = x.forward[i];
+            }
+            update[i] = x;
+        }
+        int newLevel = randomLevel();
+        if (newLevel > level) {
+            for (int i = level; i < newLevel; i++) {
+                rank[i] = 0;
+                update[i] = header;
+                header.span[i] = length;
+            }
+            level = newLevel;
+        }
+        x = new Node<M>(memberKey, member, score, seq, newLevel);
+        for (int i = 0; i < newLevel; i++) {
+            x.forward[i] = update[i].forward[i];
+            update[i].forward[i] = x;
+            x.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = (rank[0] - rank[i]) + 1;
+        }
+        for (int i = newLevel; i < level; i++)
+            update[i].span[i]++;
+        x.backward = update[0] == header ? null : update[0];
+        if (null != x.forward[0])
+            x.forward[0].backward = x;
+        length++;
+        if (null != weigher)
+            weight += weigher.applyAsLong(member);
+        return x;
+    }
+
+    private void delete(Node<M> node) {
+        Node<M>[] update = newUpdate();
+        Node<M> x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (null != x.forward[i] && compare(x.forward[i], node.score, node.seq) < 0)
+                x = x.forward[i];
+            update[i] = x;
+        }
+        deleteNode(node, update);
+    }
+
+    private void deleteNode(Node<M> x, Node<M>[] update) {
+        for (int i = 0; i < level; i++) {
+            if (update[i].forward[i] == x) {
+                update[i].span[i] += x.span[i] - 1;
+                update[i].forward[i] = x.forward[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        if (null != x.forward[0])
+            x.forward[0].backward = x.backward;
+        while (level > 1 && null == header.forward[level - 1])
+            level--;
+        length--;
+        if (null != weigher)
+            weight -= weigher.applyAsLong(x.member);
+    }
+
+    /**
+     * 更新节点的score，位置不变时原地修改，否则删除后重新插入
+     */
+    private Node<M> updateScore(Node<M> node, long score) {
+        if ((null == node.backward || compare(node.backward, score, node.seq) < 0)
+                && (null == node.forward[0] || compare(node.forward[0], score, node.seq) > 0)) {
+            node.score = score;
+            return node;
+        }
+        delete(node);
+        Node<M> updated = insert(node.memberKey, node.member, score);
+        dict.put(node.memberKey, updated);
+        return updated;
+    }
+}
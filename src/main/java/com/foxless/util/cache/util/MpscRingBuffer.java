@@ -0,0 +1,77 @@
+package com.foxless.util.cache.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界的多生产者单消费者环形队列，不加锁。<br>
+ * 生产者以CAS争抢写入位置，写入元素后该槽才对消费者可见；消费者只有一个，读取后清空槽并推进读取位置。<br>
+ * 队列满时{@link #offer(Object)}立即返回false，由调用方决定等待还是放弃。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity 容量，向上取整为2的幂
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30)
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(2, size);
+        this.slots = new AtomicReferenceArray<E>(size);
+        this.mask = size - 1;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 放入一个元素，队列已满时返回false，可以由多个线程同时调用
+     */
+    public boolean offer(E e) {
+        if (null == e)
+            throw new IllegalArgumentException("Element cannot be null!");
+        long t;
+        do {
+            t = tail.get();
+            if (t - head.get() > mask)
+                return false;
+        } while (!tail.compareAndSet(t, t + 1));
+        slots.lazySet((int) t & mask, e);
+        return true;
+    }
+
+    /**
+     * 取出一个元素，队列为空或下一个元素还未写完时返回null，只能由消费者线程调用
+     */
+    public E poll() {
+        long h = head.get();
+        int index = (int) h & mask;
+        E e = slots.get(index);
+        if (null == e)
+            return null;
+        slots.lazySet(index, null);
+        head.lazySet(h + 1);
+        return e;
+    }
+
+    /**
+     * 当前元素数量的估计值
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+}
@@ -0,0 +1,224 @@
+package com.foxless.util.cache.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 压缩前缀树（radix tree）形式的key索引，公共前缀只存一份。<br>
+ * 每个节点的边上是一段字符，子节点按边的首字符排序；只有一个子节点且本身不是key的节点会与子节点合并。<br>
+ * 按前缀查询时先沿前缀走到对应节点，只遍历该节点下的子树，耗时与前缀长度和结果数量成正比，与key的总数无关。<br>
+ * 所有方法都在该对象的锁内执行。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class RadixKeyIndex {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final char[] EMPTY_LABEL = new char[0];
+
+    private static final class Node {
+        private char[] label;
+        private boolean terminal;
+        private Node[] children = NO_CHILDREN;
+
+        Node(char[] label, boolean terminal) {
+            this.label = label;
+            this.terminal = terminal;
+        }
+
+        /**
+         * 二分查找首字符为c的子节点的位置，不存在时返回(-(插入位置) - 1)
+         */
+        int indexOf(char c) {
+            int lo = 0, hi = children.length - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                char m = children[mid].label[0];
+                if (m < c)
+                    lo = mid + 1;
+                else if (m > c)
+                    hi = mid - 1;
+                else
+                    return mid;
+            }
+            return -(lo + 1);
+        }
+
+        void insertChild(int pos, Node child) {
+            Node[] cs = new Node[children.length + 1];
+            System.arraycopy(children, 0, cs, 0, pos);
+            cs[pos] = child;
+            System.arraycopy(children, pos, cs, pos + 1, children.length - pos);
+            children = cs;
+        }
+
+        void removeChild(int pos) {
+            if (children.length == 1) {
+                children = NO_CHILDREN;
+                return;
+            }
+            Node[] cs = new Node[children.length - 1];
+            System.arraycopy(children, 0, cs, 0, pos);
+            System.arraycopy(children, pos + 1, cs, pos, children.length - pos - 1);
+            children = cs;
+        }
+
+        /**
+         * 与唯一的子节点合并
+         */
+        void mergeWithChild() {
+            Node child = children[0];
+            char[] merged = Arrays.copyOf(label, label.length + child.label.length);
+            System.arraycopy(child.label, 0, merged, label.length, child.label.length);
+            label = merged;
+            terminal = child.terminal;
+            children = child.children;
+        }
+    }
+
+    private final Node root = new Node(EMPTY_LABEL, false);
+    private int size;
+
+    /**
+     * key与label从offset开始的公共长度
+     */
+    private static int common(char[] label, String key, int offset) {
+        int n = Math.min(label.length, key.length() - offset);
+        int i = 0;
+        while (i < n && label[i] == key.charAt(offset + i))
+            i++;
+        return i;
+    }
+
+    /**
+     * 加入一个key，已存在时返回false
+     */
+    public synchronized boolean add(String key) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int pos = node.indexOf(key.charAt(i));
+            if (pos < 0) {
+                node.insertChild(-pos - 1, new Node(key.substring(i).toCharArray(), true));
+                size++;
+                return true;
+            }
+            Node child = node.children[pos];
+            int c = common(child.label, key, i);
+            if (c < child.label.length) {
+                // 在公共部分之后拆分子节点
+                Node mid = new Node(Arrays.copyOf(child.label, c), false);
+                child.label = Arrays.copyOfRange(child.label, c, child.label.length);
+                mid.children = new Node[]{child};
+                node.children[pos] = mid;
+                child = mid;
+            }
+            node = child;
+            i += c;
+        }
+        if (node.terminal)
+            return false;
+        node.terminal = true;
+        size++;
+        return true;
+    }
+
+    /**
+     * 删除一个key，不存在时返回false
+     */
+    public synchronized boolean remove(String key) {
+        Node parent = null;
+        int parentPos = -1;
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int pos = node.indexOf(key.charAt(i));
+            if (pos < 0)
+                return false;
+            Node child = node.children[pos];
+            if (common(child.label, key, i) < child.label.length)
+                return false;
+            parent = node;
+            parentPos = pos;
+            node = child;
+            i += child.label.length;
+        }
+        if (!node.terminal)
+            return false;
+        node.terminal = false;
+        size--;
+        if (node == root)
+            return true;
+        if (node.children.length == 0) {
+            parent.removeChild(parentPos);
+            if (parent != root && !parent.terminal && parent.children.length == 1)
+                parent.mergeWithChild();
+        } else if (node.children.length == 1) {
+            node.mergeWithChild();
+        }
+        return true;
+    }
+
+    public synchronized boolean contains(String key) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int pos = node.indexOf(key.charAt(i));
+            if (pos < 0)
+                return false;
+            Node child = node.children[pos];
+            if (common(child.label, key, i) < child.label.length)
+                return false;
+            node = child;
+            i += child.label.length;
+        }
+        return node.terminal;
+    }
+
+    /**
+     * 按字典序返回以prefix开头的所有key
+     */
+    public synchronized List<String> keysWithPrefix(String prefix) {
+        List<String> keys = new ArrayList<String>();
+        Node node = root;
+        StringBuilder path = new StringBuilder(prefix.length() + 16);
+        int i = 0;
+        while (i < prefix.length()) {
+            int pos = node.indexOf(prefix.charAt(i));
+            if (pos < 0)
+                return keys;
+            Node child = node.children[pos];
+            int c = common(child.label, prefix, i);
+            if (c < child.label.length && i + c < prefix.length())
+                return keys;
+            path.append(child.label);
+            node = child;
+            i += child.label.length;
+        }
+        collect(node, path, keys);
+        return keys;
+    }
+
+    private static void collect(Node node, StringBuilder path, List<String> keys) {
+        if (node.terminal)
+            keys.add(path.toString());
+        for (Node child : node.children) {
+            int length = path.length();
+            path.append(child.label);
+            collect(child, path, keys);
+            path.setLength(length);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        root.children = NO_CHILDREN;
+        root.terminal = false;
+        size = 0;
+    }
+}
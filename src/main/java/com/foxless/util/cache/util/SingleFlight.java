@@ -0,0 +1,128 @@
+package com.foxless.util.cache.util;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 合并同一个key的并发加载：同一时刻每个key只有一个线程执行加载，其他线程等待并得到相同的结果或异常。<br>
+ * 加载完成后立即移除，之后的调用会重新加载，结果需要由调用方缓存。<br>
+ * 加载函数中不能再加载同一个key，否则线程会等待自己。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<K, CompletableFuture<V>>();
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * 加载key，已有线程在加载时等待它的结果
+     */
+    public V execute(K key, Supplier<? extends V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<V>();
+        CompletableFuture<V> running = calls.putIfAbsent(key, call);
+        if (null != running) {
+            coalesced.increment();
+            return await(running);
+        }
+        loads.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * 加载多个key，没有线程在加载的key交给一次loader调用，其余的等待各自的结果。<br>
+     * loader返回的Map中没有的key结果为null，返回的Map中也不含结果为null的key，顺序与keys相同
+     */
+    public Map<K, V> executeAll(Collection<? extends K> keys, Function<? super Collection<K>, ? extends Map<K, ? extends V>> loader) {
+        Map<K, CompletableFuture<V>> own = new LinkedHashMap<K, CompletableFuture<V>>();
+        Map<K, CompletableFuture<V>> all = new LinkedHashMap<K, CompletableFuture<V>>();
+        for (K key : keys) {
+            if (all.containsKey(key))
+                continue;
+            CompletableFuture<V> call = new CompletableFuture<V>();
+            CompletableFuture<V> running = calls.putIfAbsent(key, call);
+            if (null == running) {
+                own.put(key, call);
+                all.put(key, call);
+            } else {
+                coalesced.increment();
+                all.put(key, running);
+            }
+        }
+        if (!own.isEmpty()) {
+            loads.add(own.size());
+            try {
+                Map<K, ? extends V> values = loader.apply(own.keySet());
+                for (Map.Entry<K, CompletableFuture<V>> call : own.entrySet())
+                    call.getValue().complete(null == values ? null : values.get(call.getKey()));
+            } catch (RuntimeException | Error e) {
+                for (CompletableFuture<V> call : own.values())
+                    call.completeExceptionally(e);
+                throw e;
+            } finally {
+                for (Map.Entry<K, CompletableFuture<V>> call : own.entrySet())
+                    calls.remove(call.getKey(), call.getValue());
+            }
+        }
+        Map<K, V> result = new LinkedHashMap<K, V>();
+        for (Map.Entry<K, CompletableFuture<V>> call : all.entrySet()) {
+            V value = await(call.getValue());
+            if (null != value)
+                result.put(call.getKey(), value);
+        }
+        return result;
+    }
+
+    private static <V> V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 正在加载的key的数量
+     */
+    public int inFlight() {
+        return calls.size();
+    }
+
+    /**
+     * 实际执行加载的key的数量
+     */
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * 等待其他线程加载结果的次数
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+}
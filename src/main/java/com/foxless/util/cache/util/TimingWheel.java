@@ -0,0 +1,354 @@
+package com.foxless.util.cache.util;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 分层时间轮，用于本地缓存key的过期调度。<br>
+ * 共{@value #LEVELS}层，每层{@value #WHEEL_SIZE}个槽，第0层每个槽代表一个tick，
+ * 第n层每个槽代表WHEEL_SIZE^n个tick，高层的槽到期时将其中的任务下放(cascade)到低层。<br>
+ * 调度和取消只是向无锁队列投递任务，复杂度O(1)，不持有任何锁；
+ * 时间轮本身只由一个后台线程访问，到期的任务按时间片分批处理，每个时间片不超过sliceNanos，
+ * 避免一次性处理大量过期key时长时间占用CPU。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class TimingWheel<K> {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private static final int STATE_INIT = 0;
+    private static final int STATE_CANCELLED = 1;
+    private static final int STATE_EXPIRED = 2;
+
+    /**
+     * 到期处理器，返回true表示key确实被过期删除
+     */
+    public interface ExpireHandler<K> {
+        boolean expire(Timeout<K> timeout);
+    }
+
+    /**
+     * 时间轮中的一个过期任务
+     */
+    public static final class Timeout<K> {
+        private final K key;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(STATE_INIT);
+        private final TimingWheel<K> wheel;
+        //以下字段只由时间轮线程访问
+        private Bucket<K> bucket;
+        private Timeout<K> prev;
+        private Timeout<K> next;
+
+        private Timeout(TimingWheel<K> wheel, K key, long deadline) {
+            this.wheel = wheel;
+            this.key = key;
+            this.deadline = deadline;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        /**
+         * 过期时间点（毫秒时间戳）
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public boolean isExpired(long now) {
+            return now >= deadline;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == STATE_CANCELLED;
+        }
+
+        /**
+         * 取消过期任务，任务会在时间轮线程中以O(1)的代价从槽中摘除
+         */
+        public void cancel() {
+            if (state.compareAndSet(STATE_INIT, STATE_CANCELLED)) {
+                wheel.cancelled.offer(this);
+            }
+        }
+    }
+
+    /**
+     * 时间轮的一个槽，双向链表，只由时间轮线程访问
+     */
+    private static final class Bucket<K> {
+        private Timeout<K> head;
+        private Timeout<K> tail;
+
+        void add(Timeout<K> timeout) {
+            timeout.bucket = this;
+            if (null == head) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout<K> timeout) {
+            if (null != timeout.prev)
+                timeout.prev.next = timeout.next;
+            else
+                head = timeout.next;
+            if (null != timeout.next)
+                timeout.next.prev = timeout.prev;
+            else
+                tail = timeout.prev;
+            timeout.prev = timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        /**
+         * 取出槽中全部任务，槽被清空
+         */
+        Timeout<K> drain() {
+            Timeout<K> first = head;
+            for (Timeout<K> t = first; null != t; t = t.next)
+                t.bucket = null;
+            head = tail = null;
+            return first;
+        }
+    }
+
+    private final long tickMillis;
+    private final long sliceNanos;
+    private final ExpireHandler<K> handler;
+    private final Bucket<K>[][] wheel;
+    private final Queue<Timeout<K>> pending = new ConcurrentLinkedQueue<Timeout<K>>();
+    private final Queue<Timeout<K>> cancelled = new ConcurrentLinkedQueue<Timeout<K>>();
+    /**
+     * 已到期待处理的任务，只由时间轮线程访问
+     */
+    private final ArrayDeque<Timeout<K>> expiring = new ArrayDeque<Timeout<K>>();
+    private long currentTick;
+    private volatile boolean running;
+    private Thread worker;
+
+    //过期统计
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder totalLagMillis = new LongAdder();
+    private final LongAccumulator maxLagMillis = new LongAccumulator(Math::max, 0);
+    private final AtomicLong lastLagMillis = new AtomicLong();
+
+    /**
+     * @param tickMillis 每个tick的毫秒数
+     * @param sliceMillis 每个处理时间片的最大毫秒数
+     * @param handler 到期处理器
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long sliceMillis, ExpireHandler<K> handler) {
+        if (tickMillis <= 0)
+            throw new IllegalArgumentException("tickMillis must be greater than 0");
+        this.tickMillis = tickMillis;
+        this.sliceNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, sliceMillis));
+        this.handler = handler;
+        // 不能创建泛型数组，每个槽位都在下面放入Bucket<K>
+        this.wheel = (Bucket<K>[][]) new Bucket<?>[LEVELS][WHEEL_SIZE];
+        for (int i = 0; i < LEVELS; i++)
+            for (int j = 0; j < WHEEL_SIZE; j++)
+                wheel[i][j] = new Bucket<K>();
+    }
+
+    /**
+     * 启动时间轮线程
+     */
+    public synchronized void start(String threadName) {
+        if (running)
+            return;
+        running = true;
+        currentTick = System.currentTimeMillis() / tickMillis;
+        worker = new Thread(this::work, threadName);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 停止时间轮线程，未到期的任务不会被处理
+     */
+    public synchronized void stop() {
+        running = false;
+        if (null != worker)
+            worker.interrupt();
+    }
+
+    /**
+     * 调度一个过期任务，deadline为过期时间点（毫秒时间戳）
+     */
+    public Timeout<K> schedule(K key, long deadline) {
+        Timeout<K> timeout = new Timeout<K>(this, key, deadline);
+        pending.offer(timeout);
+        return timeout;
+    }
+
+    private void work() {
+        logger.debug("Timing wheel started.");
+        while (running) {
+            try {
+                long now = System.currentTimeMillis();
+                long targetTick = now / tickMillis;
+                processCancelled();
+                transferPending();
+                while (currentTick < targetTick) {
+                    currentTick++;
+                    cascadeAndCollect();
+                }
+                if (!expireSlice()) {
+                    // 本时间片没有处理完，让出CPU后继续
+                    Thread.yield();
+                    continue;
+                }
+                long sleep = (currentTick + 1) * tickMillis - System.currentTimeMillis();
+                if (sleep > 0)
+                    Thread.sleep(sleep);
+            } catch (InterruptedException e) {
+                if (!running)
+                    break;
+            } catch (Throwable e) {
+                logger.error("Error in timing wheel.", e);
+            }
+        }
+        logger.debug("Timing wheel stopped.");
+    }
+
+    private void processCancelled() {
+        for (Timeout<K> t; null != (t = cancelled.poll()); ) {
+            if (null != t.bucket)
+                t.bucket.remove(t);
+        }
+    }
+
+    private void transferPending() {
+        for (Timeout<K> t; null != (t = pending.poll()); ) {
+            if (t.state.get() == STATE_INIT)
+                place(t);
+        }
+    }
+
+    /**
+     * 根据任务的到期tick和当前tick选择层和槽
+     */
+    private void place(Timeout<K> t) {
+        long deadlineTick = (t.deadline + tickMillis - 1) / tickMillis;
+        if (deadlineTick <= currentTick) {
+            expiring.add(t);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = level * WHEEL_BITS;
+            if ((deadlineTick >>> shift) - (currentTick >>> shift) < WHEEL_SIZE) {
+                wheel[level][(int) ((deadlineTick >>> shift) & WHEEL_MASK)].add(t);
+                return;
+            }
+        }
+        // 超出时间轮范围，先放在最高层最远的槽，下放时重新计算
+        int shift = (LEVELS - 1) * WHEEL_BITS;
+        wheel[LEVELS - 1][(int) (((currentTick >>> shift) + WHEEL_MASK) & WHEEL_MASK)].add(t);
+    }
+
+    /**
+     * 前进一个tick：先从高层向低层下放任务，再取出第0层当前槽的任务
+     */
+    private void cascadeAndCollect() {
+        for (int level = LEVELS - 1; level > 0; level--) {
+            int shift = level * WHEEL_BITS;
+            if ((currentTick & ((1L << shift) - 1)) != 0)
+                continue;
+            Timeout<K> t = wheel[level][(int) ((currentTick >>> shift) & WHEEL_MASK)].drain();
+            while (null != t) {
+                Timeout<K> next = t.next;
+                t.prev = t.next = null;
+                if (t.state.get() == STATE_INIT)
+                    place(t);
+                t = next;
+            }
+        }
+        Timeout<K> t = wheel[0][(int) (currentTick & WHEEL_MASK)].drain();
+        while (null != t) {
+            Timeout<K> next = t.next;
+            t.prev = t.next = null;
+            if (t.state.get() == STATE_INIT)
+                expiring.add(t);
+            t = next;
+        }
+    }
+
+    /**
+     * 在一个时间片内处理到期任务，全部处理完返回true
+     */
+    private boolean expireSlice() {
+        long start = System.nanoTime();
+        int processed = 0;
+        for (Timeout<K> t; null != (t = expiring.poll()); ) {
+            if (t.state.compareAndSet(STATE_INIT, STATE_EXPIRED)) {
+                long now = System.currentTimeMillis();
+                if (!t.isExpired(now)) {
+                    // 以tick为粒度取整后可能提前到期，放回时间轮
+                    t.state.set(STATE_INIT);
+                    place(t);
+                } else if (handler.expire(t)) {
+                    long lag = now - t.deadline;
+                    expiredCount.increment();
+                    totalLagMillis.add(lag);
+                    maxLagMillis.accumulate(lag);
+                    lastLagMillis.set(lag);
+                }
+            }
+            if ((++processed & 63) == 0 && System.nanoTime() - start > sliceNanos)
+                return expiring.isEmpty();
+        }
+        return true;
+    }
+
+    /**
+     * 已过期删除的key数量
+     */
+    public long getExpiredCount() {
+        return expiredCount.sum();
+    }
+
+    /**
+     * 最近一次过期的延迟（实际删除时间与过期时间点之差，毫秒）
+     */
+    public long getLastLagMillis() {
+        return lastLagMillis.get();
+    }
+
+    /**
+     * 最大过期延迟（毫秒）
+     */
+    public long getMaxLagMillis() {
+        return maxLagMillis.get();
+    }
+
+    /**
+     * 平均过期延迟（毫秒）
+     */
+    public double getAvgLagMillis() {
+        long count = expiredCount.sum();
+        return count == 0 ? 0 : (double) totalLagMillis.sum() / count;
+    }
+}
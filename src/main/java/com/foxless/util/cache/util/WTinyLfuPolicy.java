@@ -0,0 +1,465 @@
+package com.foxless.util.cache.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * W-TinyLFU淘汰策略。<br>
+ * 新写入的key先进入容量约为1%的窗口LRU，从窗口淘汰出来的key作为候选者进入主区的试用段，
+ * 当缓存超出容量时，候选者与试用段最久未使用的key比较{@link FrequencySketch}估算的访问频率，频率高者留下；
+ * 试用段中被再次访问的key晋升到保护段（占主区80%）。一次性的扫描访问因频率低无法挤掉热点数据。<br>
+ * 读操作只写入一个有损的分段环形缓冲区，缓冲区满时丢弃；写操作写入无锁队列；
+ * 两者都由拿到tryLock的线程批量回放，调用方线程不会阻塞在策略锁上。<br>
+ * 注意：不要在ConcurrentHashMap的compute等回调中调用本类的方法，淘汰回调会修改缓存的Map。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class WTinyLfuPolicy<K> {
+
+    /**
+     * 淘汰回调，在策略锁内调用
+     */
+    public interface EvictionListener<K> {
+        void onEvict(K key);
+    }
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private static final int EVENT_WRITE = 0;
+    private static final int EVENT_WEIGHT = 1;
+    private static final int EVENT_REMOVE = 2;
+
+    /**
+     * 写缓冲区积压超过此数量时写线程阻塞等待回放，防止积压无限增长
+     */
+    private static final int WRITE_BUFFER_MAX = 1 << 16;
+
+    private static final class Node<K> {
+        final K key;
+        long weight;
+        int queue;
+        Node<K> prev;
+        Node<K> next;
+
+        Node(K key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * 侵入式双向链表，head为最久未使用
+     */
+    private static final class AccessOrderDeque<K> {
+        Node<K> head;
+        Node<K> tail;
+        long cost;
+
+        void addLast(Node<K> node, long nodeCost) {
+            node.prev = tail;
+            node.next = null;
+            if (null == tail)
+                head = node;
+            else
+                tail.next = node;
+            tail = node;
+            cost += nodeCost;
+        }
+
+        void remove(Node<K> node, long nodeCost) {
+            if (null == node.prev)
+                head = node.next;
+            else
+                node.prev.next = node.next;
+            if (null == node.next)
+                tail = node.prev;
+            else
+                node.next.prev = node.prev;
+            node.prev = node.next = null;
+            cost -= nodeCost;
+        }
+
+        void moveToLast(Node<K> node, long nodeCost) {
+            if (tail == node)
+                return;
+            remove(node, nodeCost);
+            addLast(node, nodeCost);
+        }
+    }
+
+    private static final class WriteEvent<K> {
+        final int type;
+        final K key;
+        final long weight;
+
+        WriteEvent(int type, K key, long weight) {
+            this.type = type;
+            this.key = key;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 有损的分段环形读缓冲区
+     */
+    private static final class ReadBuffer<K> {
+        private static final int SIZE = 64;
+        private static final int MASK = SIZE - 1;
+        private final int stripeMask;
+        private final AtomicLong[] tails;
+        private final AtomicLongArray heads;
+        private final AtomicReferenceArray<K>[] buffers;
+
+        @SuppressWarnings("unchecked")
+        ReadBuffer() {
+            int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+            stripeMask = stripes - 1;
+            tails = new AtomicLong[stripes];
+            heads = new AtomicLongArray(stripes);
+            // 不能创建泛型数组，每个元素都在下面放入AtomicReferenceArray<K>
+            buffers = (AtomicReferenceArray<K>[]) new AtomicReferenceArray<?>[stripes];
+            for (int i = 0; i < stripes; i++) {
+                tails[i] = new AtomicLong();
+                buffers[i] = new AtomicReferenceArray<K>(SIZE);
+            }
+        }
+
+        /**
+         * 记录一次读，缓冲区满或者发生竞争时丢弃并返回false
+         */
+        boolean offer(K key) {
+            int stripe = (int) Thread.currentThread().getId() & stripeMask;
+            AtomicLong tail = tails[stripe];
+            long t = tail.get();
+            if (t - heads.get(stripe) >= SIZE)
+                return false;
+            if (tail.compareAndSet(t, t + 1)) {
+                buffers[stripe].lazySet((int) (t & MASK), key);
+                return true;
+            }
+            return false;
+        }
+
+        void drainTo(WTinyLfuPolicy<K> policy) {
+            for (int stripe = 0; stripe < buffers.length; stripe++) {
+                long h = heads.get(stripe);
+                long t = tails[stripe].get();
+                AtomicReferenceArray<K> buffer = buffers[stripe];
+                for (; h < t; h++) {
+                    int index = (int) (h & MASK);
+                    K key = buffer.get(index);
+                    if (null == key)
+                        break;
+                    buffer.lazySet(index, null);
+                    policy.onAccess(key);
+                }
+                heads.lazySet(stripe, h);
+            }
+        }
+    }
+
+    private final long maxEntries;
+    private final long maxWeight;
+    private final boolean weighted;
+    private final long windowMax;
+    private final long protectedMax;
+    private final EvictionListener<K> listener;
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Map<K, Node<K>> nodes = new HashMap<K, Node<K>>();
+    private final FrequencySketch sketch;
+    private final AccessOrderDeque<K> window = new AccessOrderDeque<K>();
+    private final AccessOrderDeque<K> probation = new AccessOrderDeque<K>();
+    private final AccessOrderDeque<K> protectedQueue = new AccessOrderDeque<K>();
+    private final ReadBuffer<K> readBuffer = new ReadBuffer<K>();
+    private final Queue<WriteEvent<K>> writeBuffer = new ConcurrentLinkedQueue<WriteEvent<K>>();
+    private final AtomicLong pendingWrites = new AtomicLong();
+
+    private volatile long size;
+    private volatile long weightedSize;
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder evictionWeight = new LongAdder();
+
+    /**
+     * @param maxEntries 最大key数量，小于等于0表示不限制
+     * @param maxWeight 最大权重，小于等于0表示不限制
+     * @param listener 淘汰回调
+     */
+    public WTinyLfuPolicy(long maxEntries, long maxWeight, EvictionListener<K> listener) {
+        if (maxEntries <= 0 && maxWeight <= 0)
+            throw new IllegalArgumentException("maxEntries or maxWeight must be greater than 0");
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weighted = maxWeight > 0;
+        this.listener = listener;
+        long capacity = weighted ? maxWeight : maxEntries;
+        this.windowMax = Math.max(1, capacity / 100);
+        this.protectedMax = (capacity - windowMax) * 80 / 100;
+        this.sketch = new FrequencySketch(maxEntries > 0 ? maxEntries : 1024);
+    }
+
+    /**
+     * 记录一次命中的读
+     */
+    public void recordAccess(K key) {
+        if (!readBuffer.offer(key))
+            tryMaintenance();
+    }
+
+    /**
+     * 记录一次写入（新增或整体替换），weight为新值的权重
+     */
+    public void recordWrite(K key, long weight) {
+        offerWrite(new WriteEvent<K>(EVENT_WRITE, key, weight));
+    }
+
+    /**
+     * 记录值内部修改导致的权重变化
+     */
+    public void recordWeightChange(K key, long delta) {
+        if (delta == 0)
+            return;
+        offerWrite(new WriteEvent<K>(EVENT_WEIGHT, key, delta));
+    }
+
+    /**
+     * 记录key被删除（del或过期）
+     */
+    public void recordRemove(K key) {
+        offerWrite(new WriteEvent<K>(EVENT_REMOVE, key, 0));
+    }
+
+    private void offerWrite(WriteEvent<K> event) {
+        writeBuffer.offer(event);
+        if (pendingWrites.incrementAndGet() > WRITE_BUFFER_MAX) {
+            evictionLock.lock();
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        } else {
+            tryMaintenance();
+        }
+    }
+
+    private void tryMaintenance() {
+        while (evictionLock.tryLock()) {
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+            if (writeBuffer.isEmpty())
+                return;
+        }
+    }
+
+    /**
+     * 回放读写缓冲区并执行淘汰，必须持有evictionLock
+     */
+    private void maintenance() {
+        readBuffer.drainTo(this);
+        for (WriteEvent<K> event; null != (event = writeBuffer.poll()); ) {
+            pendingWrites.decrementAndGet();
+            switch (event.type) {
+                case EVENT_WRITE:
+                    onWrite(event.key, event.weight);
+                    break;
+                case EVENT_WEIGHT:
+                    onWeightChange(event.key, event.weight);
+                    break;
+                default:
+                    onRemove(event.key);
+            }
+        }
+        evict();
+        size = nodes.size();
+    }
+
+    private long cost(Node<K> node) {
+        return weighted ? node.weight : 1;
+    }
+
+    private AccessOrderDeque<K> queueOf(Node<K> node) {
+        switch (node.queue) {
+            case WINDOW:
+                return window;
+            case PROBATION:
+                return probation;
+            default:
+                return protectedQueue;
+        }
+    }
+
+    private void onAccess(K key) {
+        sketch.increment(key);
+        Node<K> node = nodes.get(key);
+        if (null == node)
+            return;
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToLast(node, cost(node));
+                break;
+            case PROBATION:
+                probation.remove(node, cost(node));
+                node.queue = PROTECTED;
+                protectedQueue.addLast(node, cost(node));
+                while (protectedQueue.cost > protectedMax && protectedQueue.head != node) {
+                    Node<K> demoted = protectedQueue.head;
+                    protectedQueue.remove(demoted, cost(demoted));
+                    demoted.queue = PROBATION;
+                    probation.addLast(demoted, cost(demoted));
+                }
+                break;
+            default:
+                protectedQueue.moveToLast(node, cost(node));
+        }
+    }
+
+    private void onWrite(K key, long weight) {
+        sketch.increment(key);
+        Node<K> node = nodes.get(key);
+        if (null == node) {
+            node = new Node<K>(key);
+            node.weight = Math.max(0, weight);
+            node.queue = WINDOW;
+            nodes.put(key, node);
+            window.addLast(node, cost(node));
+            weightedSize += node.weight;
+            if (nodes.size() > sketch.capacity())
+                sketch.ensureCapacity(2L * nodes.size());
+        } else {
+            setWeight(node, weight);
+            queueOf(node).moveToLast(node, cost(node));
+        }
+    }
+
+    private void onWeightChange(K key, long delta) {
+        Node<K> node = nodes.get(key);
+        if (null == node) {
+            onWrite(key, delta);
+            return;
+        }
+        setWeight(node, node.weight + delta);
+    }
+
+    private void setWeight(Node<K> node, long weight) {
+        weight = Math.max(0, weight);
+        AccessOrderDeque<K> queue = queueOf(node);
+        queue.cost -= cost(node);
+        weightedSize += weight - node.weight;
+        node.weight = weight;
+        queue.cost += cost(node);
+    }
+
+    private void onRemove(K key) {
+        Node<K> node = nodes.remove(key);
+        if (null != node) {
+            queueOf(node).remove(node, cost(node));
+            weightedSize -= node.weight;
+        }
+    }
+
+    private boolean overCapacity() {
+        return (maxWeight > 0 && weightedSize > maxWeight)
+                || (maxEntries > 0 && nodes.size() > maxEntries);
+    }
+
+    /**
+     * 窗口溢出的key作为候选者进入试用段，超出容量时候选者与试用段的受害者按频率决斗
+     */
+    private void evict() {
+        int candidates = 0;
+        while (window.cost > windowMax && null != window.head) {
+            Node<K> node = window.head;
+            window.remove(node, cost(node));
+            node.queue = PROBATION;
+            probation.addLast(node, cost(node));
+            candidates++;
+        }
+        while (overCapacity()) {
+            Node<K> victim = probation.head;
+            Node<K> candidate = candidates > 0 ? probation.tail : null;
+            if (null == victim) {
+                victim = null != protectedQueue.head ? protectedQueue.head : window.head;
+                if (null == victim)
+                    break;
+                evictNode(victim);
+            } else if (null == candidate || candidate == victim) {
+                evictNode(victim);
+                if (candidate == victim)
+                    candidates--;
+            } else if (admit(candidate.key, victim.key)) {
+                evictNode(victim);
+            } else {
+                evictNode(candidate);
+                candidates--;
+            }
+        }
+    }
+
+    private boolean admit(K candidateKey, K victimKey) {
+        return sketch.frequency(candidateKey) > sketch.frequency(victimKey);
+    }
+
+    private void evictNode(Node<K> node) {
+        queueOf(node).remove(node, cost(node));
+        nodes.remove(node.key);
+        weightedSize -= node.weight;
+        evictionCount.increment();
+        evictionWeight.add(node.weight);
+        listener.onEvict(node.key);
+    }
+
+    /**
+     * 立即回放缓冲区并执行淘汰
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public long getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * 策略记录的key数量（最近一次回放后）
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 策略记录的总权重
+     */
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public long getEvictionWeight() {
+        return evictionWeight.sum();
+    }
+}
@@ -0,0 +1,565 @@
+package com.foxless.util.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.foxless.util.cache.bean.JedisConfigBean;
+
+/**
+ * 进程内的Redis协议（RESP）服务端，单元测试和benchmarks在没有Redis的机器上用它代替Redis。<br>
+ * 数据保存在内存中，只实现测试用到的命令：PING、AUTH、SELECT、QUIT、GET、MGET、SET、SETEX、DEL、EXISTS、EXPIRE、
+ * PTTL、INCRBY、HSET、HGET、HDEL、RPUSH、LLEN、SADD、SREM、SMEMBERS、SISMEMBER、SINTER、SDIFF、SUNION、SMOVE、SCAN、
+ * MULTI、EXEC、DISCARD，其他命令返回错误。SCAN一次返回所有匹配的key，只支持*通配符。
+ * EVAL只支持租约释放用的比较后删除脚本。SUBSCRIBE、UNSUBSCRIBE、PUBLISH只支持频道，不支持模式。
+ * SET支持NX、EX、PX选项。EXPIRE、SETEX和SET设置的过期时间只用于PTTL的返回值，key不会过期。<br>
+ * 每个连接一个线程，输入缓冲中没有更多请求时才刷新输出，管道中的多个请求的响应会合并发送。
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class RespServer implements Closeable {
+
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+    private final List<Socket> connections = Collections.synchronizedList(new ArrayList<Socket>());
+    private volatile boolean running = true;
+
+    private final Map<String, byte[]> strings = new ConcurrentHashMap<String, byte[]>();
+    private final Map<String, Map<String, byte[]>> hashes = new ConcurrentHashMap<String, Map<String, byte[]>>();
+    private final Map<String, List<byte[]>> lists = new ConcurrentHashMap<String, List<byte[]>>();
+    private final Map<String, Set<String>> sets = new ConcurrentHashMap<String, Set<String>>();
+    private final Map<String, Long> deadlines = new ConcurrentHashMap<String, Long>();
+    /**
+     * 频道的订阅连接，向连接写入时需要持有输出流的锁
+     */
+    private final Map<String, Set<OutputStream>> channels = new ConcurrentHashMap<String, Set<OutputStream>>();
+
+    private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PONG = "+PONG\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] QUEUED = "+QUEUED\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NIL = "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final String COMPARE_AND_DEL_SCRIPT =
+            "if redis.call('get',KEYS[1])==ARGV[1] then return redis.call('del',KEYS[1]) end";
+
+    /**
+     * 在本机的随机端口上启动
+     */
+    public RespServer() throws IOException {
+        serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::accept, "resp-server-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public String getHost() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * 连接到该服务端的配置
+     *
+     * @param autoBatching 是否开启自动批量
+     */
+    public JedisConfigBean jedisConfig(boolean autoBatching) {
+        return jedisConfig(autoBatching, 65536);
+    }
+
+    /**
+     * @param parallelDecodeBytes getObjects并行解码的字节数阈值，不大于0时不并行
+     */
+    public JedisConfigBean jedisConfig(boolean autoBatching, int parallelDecodeBytes) {
+        String host = getHost();
+        int port = getPort();
+        return new JedisConfigBean() {
+            public int getMaxTotal() { return 256; }
+            public int getMaxActive() { return 256; }
+            public int getMaxIdle() { return 256; }
+            public int getMinIdle() { return 0; }
+            public int getMaxWait() { return 5000; }
+            public String getHost() { return host; }
+            public int getPort() { return port; }
+            public int getDefaultDb() { return 0; }
+            public String getPassword() { return ""; }
+            public boolean isTestOnBorrow() { return false; }
+            public boolean isTestOnReturn() { return false; }
+            public boolean isAutoBatching() { return autoBatching; }
+            public int getParallelDecodeBytes() { return parallelDecodeBytes; }
+        };
+    }
+
+    /**
+     * 清空数据
+     */
+    public void flush() {
+        strings.clear();
+        hashes.clear();
+        lists.clear();
+        sets.clear();
+        deadlines.clear();
+    }
+
+    /**
+     * 所有key的数量
+     */
+    public int size() {
+        return strings.size() + hashes.size() + lists.size() + sets.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        synchronized (connections) {
+            for (Socket socket : connections)
+                socket.close();
+        }
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                Thread t = new Thread(() -> serve(socket), "resp-server-connection");
+                t.setDaemon(true);
+                t.start();
+            } catch (IOException e) {
+                if (running)
+                    e.printStackTrace();
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        OutputStream out = null;
+        Set<String> subscriptions = new LinkedHashSet<String>();
+        try (Socket s = socket) {
+            InputStream in = new BufferedInputStream(s.getInputStream(), 64 * 1024);
+            out = new BufferedOutputStream(s.getOutputStream(), 64 * 1024);
+            List<byte[][]> queued = null;
+            while (true) {
+                byte[][] command = readCommand(in);
+                if (null == command)
+                    return;
+                String name = new String(command[0], StandardCharsets.US_ASCII).toUpperCase();
+                // PUBLISH在其他连接的线程中写入订阅连接
+                synchronized (out) {
+                    if ("SUBSCRIBE".equals(name)) {
+                        for (int i = 1; i < command.length; i++) {
+                            String channel = key(command[i]);
+                            subscriptions.add(channel);
+                            channels.computeIfAbsent(channel, c -> ConcurrentHashMap.newKeySet()).add(out);
+                            writePubSub(out, "subscribe", command[i], subscriptions.size());
+                        }
+                    } else if ("UNSUBSCRIBE".equals(name)) {
+                        List<String> targets = new ArrayList<String>();
+                        for (int i = 1; i < command.length; i++)
+                            targets.add(key(command[i]));
+                        if (targets.isEmpty())
+                            targets.addAll(subscriptions);
+                        if (targets.isEmpty())
+                            writePubSub(out, "unsubscribe", null, 0);
+                        for (String channel : targets) {
+                            subscriptions.remove(channel);
+                            unsubscribe(channel, out);
+                            writePubSub(out, "unsubscribe", channel.getBytes(StandardCharsets.ISO_8859_1), subscriptions.size());
+                        }
+                    } else if ("PUBLISH".equals(name)) {
+                        writeInteger(out, publish(key(command[1]), command[2]));
+                    } else if ("MULTI".equals(name)) {
+                        queued = new ArrayList<byte[][]>();
+                        out.write(OK);
+                    } else if ("EXEC".equals(name) && null != queued) {
+                        writeArrayHeader(out, queued.size());
+                        for (byte[][] c : queued)
+                            execute(new String(c[0], StandardCharsets.US_ASCII).toUpperCase(), c, out);
+                        queued = null;
+                    } else if ("DISCARD".equals(name) && null != queued) {
+                        queued = null;
+                        out.write(OK);
+                    } else if (null != queued) {
+                        queued.add(command);
+                        out.write(QUEUED);
+                    } else if ("QUIT".equals(name)) {
+                        out.write(OK);
+                        out.flush();
+                        return;
+                    } else {
+                        execute(name, command, out);
+                    }
+                    if (in.available() == 0)
+                        out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // 连接关闭
+        } finally {
+            connections.remove(socket);
+            for (String channel : subscriptions)
+                unsubscribe(channel, out);
+        }
+    }
+
+    private void unsubscribe(String channel, OutputStream out) {
+        Set<OutputStream> subscribers = channels.get(channel);
+        if (null != subscribers)
+            subscribers.remove(out);
+    }
+
+    private long publish(String channel, byte[] message) {
+        Set<OutputStream> subscribers = channels.get(channel);
+        if (null == subscribers)
+            return 0;
+        long n = 0;
+        byte[] name = channel.getBytes(StandardCharsets.ISO_8859_1);
+        for (OutputStream subscriber : subscribers) {
+            try {
+                synchronized (subscriber) {
+                    writeArrayHeader(subscriber, 3);
+                    writeBulk(subscriber, "message".getBytes(StandardCharsets.US_ASCII));
+                    writeBulk(subscriber, name);
+                    writeBulk(subscriber, message);
+                    subscriber.flush();
+                }
+                n++;
+            } catch (IOException e) {
+                subscribers.remove(subscriber);
+            }
+        }
+        return n;
+    }
+
+    private static void writePubSub(OutputStream out, String kind, byte[] channel, int count) throws IOException {
+        writeArrayHeader(out, 3);
+        writeBulk(out, kind.getBytes(StandardCharsets.US_ASCII));
+        writeBulk(out, channel);
+        writeInteger(out, count);
+    }
+
+    private void execute(String name, byte[][] c, OutputStream out) throws IOException {
+        switch (name) {
+            case "PING":
+                out.write(PONG);
+                break;
+            case "AUTH":
+            case "SELECT":
+                out.write(OK);
+                break;
+            case "SET": {
+                boolean nx = false;
+                long ttl = -1;
+                for (int i = 3; i < c.length; i++) {
+                    String option = key(c[i]);
+                    nx |= "NX".equalsIgnoreCase(option);
+                    if ("EX".equalsIgnoreCase(option))
+                        ttl = 1000L * Long.parseLong(key(c[++i]));
+                    else if ("PX".equalsIgnoreCase(option))
+                        ttl = Long.parseLong(key(c[++i]));
+                }
+                if (nx && null != strings.putIfAbsent(key(c[1]), c[2]))
+                    out.write(NIL);
+                else {
+                    if (!nx)
+                        strings.put(key(c[1]), c[2]);
+                    if (ttl >= 0)
+                        deadlines.put(key(c[1]), System.currentTimeMillis() + ttl);
+                    else
+                        deadlines.remove(key(c[1]));
+                    out.write(OK);
+                }
+                break;
+            }
+            case "SETEX":
+                strings.put(key(c[1]), c[3]);
+                deadlines.put(key(c[1]), System.currentTimeMillis() + 1000L * Long.parseLong(key(c[2])));
+                out.write(OK);
+                break;
+            case "GET":
+                writeBulk(out, strings.get(key(c[1])));
+                break;
+            case "DEL": {
+                long n = 0;
+                for (int i = 1; i < c.length; i++) {
+                    String k = key(c[i]);
+                    deadlines.remove(k);
+                    if (null != strings.remove(k) | null != hashes.remove(k) | null != lists.remove(k) | null != sets.remove(k))
+                        n++;
+                }
+                writeInteger(out, n);
+                break;
+            }
+            case "EXISTS": {
+                String k = key(c[1]);
+                writeInteger(out, strings.containsKey(k) || hashes.containsKey(k) || lists.containsKey(k) || sets.containsKey(k) ? 1 : 0);
+                break;
+            }
+            case "EXPIRE":
+                deadlines.put(key(c[1]), System.currentTimeMillis() + 1000L * Long.parseLong(key(c[2])));
+                writeInteger(out, 1);
+                break;
+            case "PTTL": {
+                String k = key(c[1]);
+                Long deadline = deadlines.get(k);
+                if (!(strings.containsKey(k) || hashes.containsKey(k) || lists.containsKey(k) || sets.containsKey(k)))
+                    writeInteger(out, -2);
+                else
+                    writeInteger(out, null == deadline ? -1 : Math.max(0, deadline - System.currentTimeMillis()));
+                break;
+            }
+            case "INCRBY": {
+                String k = key(c[1]);
+                long delta = Long.parseLong(new String(c[2], StandardCharsets.US_ASCII));
+                long[] result = new long[1];
+                strings.compute(k, (kk, v) -> {
+                    result[0] = (null == v ? 0 : Long.parseLong(new String(v, StandardCharsets.US_ASCII))) + delta;
+                    return String.valueOf(result[0]).getBytes(StandardCharsets.US_ASCII);
+                });
+                writeInteger(out, result[0]);
+                break;
+            }
+            case "HSET": {
+                byte[] old = hashes.computeIfAbsent(key(c[1]), k -> new ConcurrentHashMap<String, byte[]>()).put(key(c[2]), c[3]);
+                writeInteger(out, null == old ? 1 : 0);
+                break;
+            }
+            case "HGET": {
+                Map<String, byte[]> hash = hashes.get(key(c[1]));
+                writeBulk(out, null == hash ? null : hash.get(key(c[2])));
+                break;
+            }
+            case "HDEL": {
+                Map<String, byte[]> hash = hashes.get(key(c[1]));
+                writeInteger(out, null != hash && null != hash.remove(key(c[2])) ? 1 : 0);
+                break;
+            }
+            case "RPUSH": {
+                List<byte[]> list = lists.computeIfAbsent(key(c[1]), k -> Collections.synchronizedList(new ArrayList<byte[]>()));
+                for (int i = 2; i < c.length; i++)
+                    list.add(c[i]);
+                writeInteger(out, list.size());
+                break;
+            }
+            case "LLEN": {
+                List<byte[]> list = lists.get(key(c[1]));
+                writeInteger(out, null == list ? 0 : list.size());
+                break;
+            }
+            case "MSET":
+                for (int i = 1; i + 1 < c.length; i += 2) {
+                    strings.put(key(c[i]), c[i + 1]);
+                    deadlines.remove(key(c[i]));
+                }
+                out.write(OK);
+                break;
+            case "MGET":
+                writeArrayHeader(out, c.length - 1);
+                for (int i = 1; i < c.length; i++)
+                    writeBulk(out, strings.get(key(c[i])));
+                break;
+            case "SADD": {
+                Set<String> set = sets.computeIfAbsent(key(c[1]), k -> Collections.synchronizedSet(new LinkedHashSet<String>()));
+                long n = 0;
+                for (int i = 2; i < c.length; i++) {
+                    if (set.add(key(c[i])))
+                        n++;
+                }
+                writeInteger(out, n);
+                break;
+            }
+            case "SREM": {
+                Set<String> set = sets.get(key(c[1]));
+                long n = 0;
+                for (int i = 2; null != set && i < c.length; i++) {
+                    if (set.remove(key(c[i])))
+                        n++;
+                }
+                writeInteger(out, n);
+                break;
+            }
+            case "SISMEMBER": {
+                Set<String> set = sets.get(key(c[1]));
+                writeInteger(out, null != set && set.contains(key(c[2])) ? 1 : 0);
+                break;
+            }
+            case "SMEMBERS":
+                writeSet(out, snapshot(sets.get(key(c[1]))));
+                break;
+            case "SINTER":
+            case "SDIFF":
+            case "SUNION": {
+                Set<String> result = snapshot(sets.get(key(c[1])));
+                for (int i = 2; i < c.length; i++) {
+                    Set<String> other = snapshot(sets.get(key(c[i])));
+                    if ("SINTER".equals(name))
+                        result.retainAll(other);
+                    else if ("SDIFF".equals(name))
+                        result.removeAll(other);
+                    else
+                        result.addAll(other);
+                }
+                writeSet(out, result);
+                break;
+            }
+            case "SMOVE": {
+                Set<String> source = sets.get(key(c[1]));
+                String member = key(c[3]);
+                if (null == source || !source.remove(member)) {
+                    writeInteger(out, 0);
+                } else {
+                    sets.computeIfAbsent(key(c[2]), k -> Collections.synchronizedSet(new LinkedHashSet<String>())).add(member);
+                    writeInteger(out, 1);
+                }
+                break;
+            }
+            case "EVAL": {
+                if (!COMPARE_AND_DEL_SCRIPT.equals(new String(c[1], StandardCharsets.UTF_8))) {
+                    out.write("-ERR unsupported script\r\n".getBytes(StandardCharsets.US_ASCII));
+                    break;
+                }
+                String k = key(c[3]);
+                byte[] expected = c[4];
+                boolean[] removed = new boolean[1];
+                strings.computeIfPresent(k, (kk, v) -> {
+                    removed[0] = Arrays.equals(v, expected);
+                    return removed[0] ? null : v;
+                });
+                if (removed[0]) {
+                    deadlines.remove(k);
+                    writeInteger(out, 1);
+                } else {
+                    out.write(NIL);
+                }
+                break;
+            }
+            case "SCAN": {
+                String pattern = "*";
+                for (int i = 2; i + 1 < c.length; i += 2) {
+                    if ("MATCH".equalsIgnoreCase(key(c[i])))
+                        pattern = key(c[i + 1]);
+                }
+                String regex = ("\\Q" + pattern + "\\E").replace("*", "\\E.*\\Q");
+                List<String> keys = new ArrayList<String>();
+                for (Map<String, ?> data : Arrays.<Map<String, ?>>asList(strings, hashes, lists, sets)) {
+                    for (String k : data.keySet()) {
+                        if (k.matches(regex))
+                            keys.add(k);
+                    }
+                }
+                writeArrayHeader(out, 2);
+                writeBulk(out, "0".getBytes(StandardCharsets.US_ASCII));
+                writeArrayHeader(out, keys.size());
+                for (String k : keys)
+                    writeBulk(out, k.getBytes(StandardCharsets.ISO_8859_1));
+                break;
+            }
+            default:
+                out.write(("-ERR unknown command '" + name + "'\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Set<String> snapshot(Set<String> set) {
+        if (null == set)
+            return new LinkedHashSet<String>();
+        synchronized (set) {
+            return new LinkedHashSet<String>(set);
+        }
+    }
+
+    private static void writeSet(OutputStream out, Set<String> set) throws IOException {
+        writeArrayHeader(out, set.size());
+        for (String member : set)
+            writeBulk(out, member.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static String key(byte[] bs) {
+        return new String(bs, StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[][] readCommand(InputStream in) throws IOException {
+        int b = in.read();
+        if (b == -1)
+            return null;
+        if (b != '*')
+            throw new IOException("Expected array, got " + (char) b);
+        int n = (int) readLong(in);
+        byte[][] args = new byte[n][];
+        for (int i = 0; i < n; i++) {
+            if (in.read() != '$')
+                throw new IOException("Expected bulk string");
+            int length = (int) readLong(in);
+            byte[] arg = new byte[length];
+            for (int read = 0; read < length; ) {
+                int r = in.read(arg, read, length - read);
+                if (r == -1)
+                    throw new EOFException();
+                read += r;
+            }
+            in.read();
+            in.read();
+            args[i] = arg;
+        }
+        return args;
+    }
+
+    private static long readLong(InputStream in) throws IOException {
+        long v = 0;
+        boolean negative = false;
+        for (int b; (b = in.read()) != '\r'; ) {
+            if (b == -1)
+                throw new EOFException();
+            if (b == '-')
+                negative = true;
+            else
+                v = v * 10 + (b - '0');
+        }
+        in.read();
+        return negative ? -v : v;
+    }
+
+    private static void writeBulk(OutputStream out, byte[] value) throws IOException {
+        if (null == value) {
+            out.write(NIL);
+            return;
+        }
+        out.write('$');
+        out.write(Integer.toString(value.length).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+        out.write(value);
+        out.write(CRLF);
+    }
+
+    private static void writeInteger(OutputStream out, long v) throws IOException {
+        out.write(':');
+        out.write(Long.toString(v).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+    }
+
+    private static void writeArrayHeader(OutputStream out, int n) throws IOException {
+        out.write('*');
+        out.write(Integer.toString(n).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+    }
+}
@@ -0,0 +1,31 @@
+package com.foxless.util.cache;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * 测试共用的工具方法
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public final class TestUtil {
+
+    private TestUtil() {
+    }
+
+    /**
+     * 轮询等待条件成立，5秒内未成立时以AssertionError失败
+     */
+    public static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline)
+                throw new AssertionError("Condition not met within 5s");
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
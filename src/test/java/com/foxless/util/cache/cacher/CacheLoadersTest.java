@@ -0,0 +1,169 @@
+package com.foxless.util.cache.cacher;
+
+import static com.foxless.util.cache.TestUtil.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.foxless.util.cache.RespServer;
+import com.foxless.util.cache.cacher.impl.JedisHelperImpl;
+
+/**
+ * getOrLoad在同一JVM中的合并加载，以及两个helper（模拟两个节点）之间经Redis租约的合并加载
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class CacheLoadersTest {
+
+    private static final int THREADS = 8;
+
+    private RespServer server;
+    private JedisHelperImpl helper;
+    private JedisHelperImpl other;
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    @Before
+    public void setUp() throws IOException {
+        server = new RespServer();
+        helper = new JedisHelperImpl(server.jedisConfig(false));
+        other = new JedisHelperImpl(server.jedisConfig(true));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        helper.close();
+        other.close();
+        server.close();
+    }
+
+    private static <T> Supplier<T> blocking(CountDownLatch release, AtomicInteger calls, T value) {
+        return () -> {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return value;
+        };
+    }
+
+    @Test
+    public void concurrentLoadsOfOneKeyRunOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        List<Future<String>> results = new ArrayList<Future<String>>();
+        for (int i = 0; i < THREADS; i++)
+            results.add(executor.submit(() -> helper.getOrLoad("user:1", String.class, 60, blocking(release, calls, "alice"))));
+        await(() -> calls.get() == 1);
+        Thread.sleep(50);
+        release.countDown();
+        for (Future<String> result : results)
+            assertEquals("alice", result.get());
+        assertEquals(1, calls.get());
+        long ttl = helper.getTimeToLive("user:1");
+        assertTrue("ttl " + ttl, ttl > 55000 && ttl <= 60000);
+        // 已缓存，不再加载
+        assertEquals("alice", helper.getOrLoad("user:1", String.class, 60, () -> "bob"));
+    }
+
+    @Test
+    public void nullIsNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        assertNull(helper.getOrLoad("absent", String.class, 0, () -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+        assertEquals(0, server.size());
+        assertNull(helper.getOrLoad("absent", String.class, 0, () -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void sameKeyOnDifferentHelpersLoadsSeparately() {
+        assertEquals("a", helper.getOrLoad("k", String.class, 0, () -> "a"));
+        server.flush();
+        assertEquals("b", other.getOrLoad("k", String.class, 0, () -> "b"));
+    }
+
+    @Test
+    public void leaseHolderLoadsWhileOtherNodeWaits() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Future<String> holder = executor.submit(() ->
+                helper.getOrLoad("report", String.class, 60, 5000, blocking(release, calls, "done")));
+        await(() -> null != helper.get("report" + CacheLoaders.LEASE_SUFFIX));
+        AtomicInteger otherCalls = new AtomicInteger();
+        Future<String> waiter = executor.submit(() -> other.getOrLoad("report", String.class, 60, 5000, () -> {
+            otherCalls.incrementAndGet();
+            return "other";
+        }));
+        Thread.sleep(100);
+        assertFalse(waiter.isDone());
+        release.countDown();
+        assertEquals("done", holder.get());
+        assertEquals("done", waiter.get());
+        assertEquals(1, calls.get());
+        assertEquals(0, otherCalls.get());
+        // 租约在加载后释放
+        assertNull(helper.get("report" + CacheLoaders.LEASE_SUFFIX));
+    }
+
+    @Test
+    public void expiredWaitLoadsWithoutTheLease() {
+        String leaseKey = "report" + CacheLoaders.LEASE_SUFFIX;
+        assertTrue(other.tryLease(leaseKey, "crashed", 60000));
+        long start = System.currentTimeMillis();
+        assertEquals("mine", helper.getOrLoad("report", String.class, 0, 200, () -> "mine"));
+        assertTrue(System.currentTimeMillis() - start >= 200);
+        // 别人的租约不被释放
+        assertEquals("crashed", helper.get(leaseKey));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void leaseMillisMustBePositive() {
+        helper.getOrLoad("k", String.class, 0, 0, () -> "v");
+    }
+
+    @Test
+    public void getAllOrLoadLoadsOnlyMissingKeysInOneBatch() {
+        helper.setObject("a", 1);
+        List<Collection<String>> batches = new ArrayList<Collection<String>>();
+        Map<String, Integer> values = helper.getAllOrLoad(Arrays.asList("c", "a", "b", "c"), Integer.class, 30, keys -> {
+            batches.add(new ArrayList<String>(keys));
+            Map<String, Integer> loaded = new LinkedHashMap<String, Integer>();
+            loaded.put("b", 2);
+            return loaded;
+        });
+        assertEquals(Arrays.asList(Arrays.asList("c", "b")), batches);
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<String>(values.keySet()));
+        assertEquals(Arrays.asList(1, 2), new ArrayList<Integer>(values.values()));
+        assertEquals(Integer.valueOf(2), helper.getObject("b", Integer.class));
+        assertTrue(helper.getTimeToLive("b") > 0);
+        assertEquals(-2, helper.getTimeToLive("c"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.foxless.util.cache.cacher.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.foxless.util.cache.RespServer;
+import com.foxless.util.cache.cacher.AsyncCacheHelper;
+
+/**
+ * Redis和本地缓存的异步实现：参数不合法时不抛出异常，而是返回失败的future
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+@RunWith(Parameterized.class)
+public class AsyncCacheHelperTest {
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> helpers() {
+        return Arrays.asList(new Object[][]{
+                {"jedis", (Function<RespServer, AsyncCacheHelper>) server -> new JedisAsyncCacheHelper(server.jedisConfig(false))},
+                {"local", (Function<RespServer, AsyncCacheHelper>) server -> new LocalAsyncCacheHelper(new LocalCacheHelperImpl(null))},
+        });
+    }
+
+    private final Function<RespServer, AsyncCacheHelper> factory;
+    private RespServer server;
+    private AsyncCacheHelper helper;
+
+    public AsyncCacheHelperTest(String name, Function<RespServer, AsyncCacheHelper> factory) {
+        this.factory = factory;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = new RespServer();
+        helper = factory.apply(server);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (helper instanceof Closeable)
+            ((Closeable) helper).close();
+        server.close();
+    }
+
+    private static void assertFailsWith(Class<? extends Throwable> type, Supplier<CompletableFuture<?>> call) throws Exception {
+        CompletableFuture<?> future = call.get();
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("expected " + type.getSimpleName());
+        } catch (ExecutionException e) {
+            assertTrue(String.valueOf(e.getCause()), type.isInstance(e.getCause()));
+        }
+    }
+
+    @Test
+    public void invalidArgumentsFailTheFuture() throws Exception {
+        assertFailsWith(RuntimeException.class, () -> helper.setObject(null, 1));
+        assertFailsWith(RuntimeException.class, () -> helper.getObject(null, Integer.class));
+    }
+
+    @Test
+    public void nullKeysNeverThrowFromTheCall() throws Exception {
+        // 本地缓存把部分读取的null key当作不存在，Redis则报错，两者都不在调用时抛出
+        CompletableFuture<?>[] futures = {helper.get(null), helper.getMapValue(null, "f", Integer.class),
+                helper.appendObjectListItem(null, true, 1), helper.getObjectSetAll(null, Integer.class), helper.mget()};
+        // 成功或失败都可以，只要以future结束
+        for (CompletableFuture<?> future : futures)
+            future.handle((v, e) -> v).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void validCommandsStillComplete() throws Exception {
+        helper.setObject("k", 7).get(5, TimeUnit.SECONDS);
+        assertEquals(Integer.valueOf(7), helper.getObject("k", Integer.class).get(5, TimeUnit.SECONDS));
+        assertNull(helper.get("missing").get(5, TimeUnit.SECONDS));
+    }
+}
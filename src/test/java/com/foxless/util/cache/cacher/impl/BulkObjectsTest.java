@@ -0,0 +1,155 @@
+package com.foxless.util.cache.cacher.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.foxless.util.cache.RespServer;
+import com.foxless.util.cache.cacher.CacheHelper;
+import com.foxless.util.cache.cacher.JedisCacheHelper;
+
+/**
+ * getObjects/setObjects：结果与keys一一对应、null值删除key、过期时间作用于每个key。<br>
+ * Redis分别以直连和自动批量、依次解码和并行解码运行，本地缓存运行同样的用例
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+@RunWith(Parameterized.class)
+public class BulkObjectsTest {
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> helpers() {
+        return Arrays.asList(new Object[][]{
+                {"jedis", (Function<RespServer, CacheHelper>) server -> new JedisHelperImpl(server.jedisConfig(false, 0))},
+                // 1字节即并行解码
+                {"jedis-parallel", (Function<RespServer, CacheHelper>) server -> new JedisHelperImpl(server.jedisConfig(false, 1))},
+                {"jedis-batching", (Function<RespServer, CacheHelper>) server -> new JedisHelperImpl(server.jedisConfig(true, 1))},
+                {"local", (Function<RespServer, CacheHelper>) server -> new LocalCacheHelperImpl(null)},
+        });
+    }
+
+    private final Function<RespServer, CacheHelper> factory;
+    private RespServer server;
+    private CacheHelper helper;
+
+    public BulkObjectsTest(String name, Function<RespServer, CacheHelper> factory) {
+        this.factory = factory;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = new RespServer();
+        helper = factory.apply(server);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (helper instanceof JedisCacheHelper)
+            ((JedisCacheHelper) helper).close();
+        server.close();
+    }
+
+    @Test
+    public void valuesFollowKeyOrder() {
+        Map<String, Object> values = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < 50; i++)
+            values.put("k" + i, i % 3 == 0 ? "s" + i : i % 3 == 1 ? Integer.valueOf(i) : new ArrayList<Object>(Arrays.asList(i, "x")));
+        helper.setObjects(values, 0);
+        List<Object> read = helper.getObjects(Object.class, "k49", "missing", "k0", "k1", "k2", "k49");
+        assertEquals(Arrays.<Object>asList(Integer.valueOf(49), null, "s0", Integer.valueOf(1), Arrays.asList(2, "x"), Integer.valueOf(49)), read);
+        List<Object> all = helper.getObjects(Object.class, values.keySet().toArray(new String[values.size()]));
+        assertEquals(new ArrayList<Object>(values.values()), all);
+    }
+
+    @Test
+    public void nullValuesDeleteTheirKeys() {
+        helper.setObject("a", 1);
+        helper.setObject("b", 2);
+        Map<String, Object> values = new LinkedHashMap<String, Object>();
+        values.put("a", null);
+        values.put("c", 3);
+        values.put("b", null);
+        helper.setObjects(values, 0);
+        assertFalse(helper.existsKey("a"));
+        assertFalse(helper.existsKey("b"));
+        assertEquals(Arrays.asList(null, 3, null), helper.getObjects(Integer.class, "a", "c", "b"));
+        // 全部为null时只删除
+        helper.setObjects(Collections.singletonMap("c", null), 60);
+        assertFalse(helper.existsKey("c"));
+    }
+
+    @Test
+    public void nullValuesAreDeletedInsideTransactionAndPipeline() {
+        assumeTrue(helper instanceof JedisCacheHelper);
+        JedisCacheHelper jedis = (JedisCacheHelper) helper;
+        helper.setObject("a", 1);
+        Map<String, Object> values = new LinkedHashMap<String, Object>();
+        values.put("a", null);
+        values.put("b", 2);
+        jedis.startTransaction();
+        helper.setObjects(values, 30);
+        // 删除和写入都在事务中，提交前不生效
+        assertEquals(1, server.size());
+        jedis.commit();
+        assertFalse(helper.existsKey("a"));
+        assertEquals(Integer.valueOf(2), helper.getObject("b", Integer.class));
+
+        values.put("a", 3);
+        values.put("b", null);
+        jedis.openPipeline();
+        helper.setObjects(values, 0);
+        jedis.closePipeline();
+        assertEquals(Arrays.asList(3, null), helper.getObjects(Integer.class, "a", "b"));
+    }
+
+    @Test
+    public void ttlAppliesToEveryKey() {
+        Map<String, Object> values = new HashMap<String, Object>();
+        for (int i = 0; i < 20; i++)
+            values.put("t" + i, i);
+        helper.setObjects(values, 30);
+        for (String key : values.keySet()) {
+            long ttl = helper.getTimeToLive(key);
+            assertTrue(key + " ttl " + ttl, ttl > 25000 && ttl <= 30000);
+        }
+        assertEquals(Integer.valueOf(7), helper.getObjects(Integer.class, "t7").get(0));
+        helper.setObjects(Collections.singletonMap("forever", "v"), 0);
+        assertEquals(-1, helper.getTimeToLive("forever"));
+    }
+
+    @Test
+    public void emptyMapWritesNothing() {
+        helper.setObjects(Collections.<String, Object>emptyMap(), 30);
+        assertEquals(Arrays.asList((Object) null), helper.getObjects(Object.class, "any"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullMapIsRejected() {
+        helper.setObjects(null, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyKeysAreRejected() {
+        helper.getObjects(Object.class);
+    }
+}
@@ -0,0 +1,248 @@
+package com.foxless.util.cache.cacher.impl;
+
+import static com.foxless.util.cache.TestUtil.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.foxless.util.cache.bean.LocalCacheConfigBean;
+import com.foxless.util.cache.persist.JournalOp;
+import com.foxless.util.cache.persist.JournalRecord;
+import com.foxless.util.cache.persist.LocalCacheJournal;
+
+/**
+ * 写日志的恢复：截断到最后一条完整的记录、压缩后的状态与重放被合并的日志段相同、EXPIRE和DEL的重放
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class LocalCacheJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static LocalCacheJournal journal(File dir, long segmentBytes, long compactBytes) {
+        return new LocalCacheJournal(dir, 0, 1024, segmentBytes, compactBytes,
+                () -> new LocalCacheHelperImpl(null).replica());
+    }
+
+    /**
+     * 把records写入dir中的日志后关闭，每20条等待写入线程取走，使较小的segmentBytes能切换出多个日志段
+     */
+    private static void write(File dir, long segmentBytes, List<byte[]> records) {
+        LocalCacheJournal journal = journal(dir, segmentBytes, Long.MAX_VALUE);
+        journal.recover(new LocalCacheHelperImpl(null).replica());
+        for (int i = 0; i < records.size(); i++) {
+            journal.append(records.get(i));
+            if (i % 20 == 19)
+                await(() -> journal.getPendingRecords() == 0);
+        }
+        journal.close();
+    }
+
+    /**
+     * 从dir恢复一个新的实例，返回重放的记录数
+     */
+    private static long recover(File dir, LocalCacheHelperImpl target) {
+        LocalCacheJournal journal = journal(dir, 1 << 20, Long.MAX_VALUE);
+        try {
+            return journal.recover(target.replica());
+        } finally {
+            journal.close();
+        }
+    }
+
+    private static byte[] set(String key, Object value, long deadline) {
+        return JournalRecord.begin(JournalOp.SET, key).writeItem(value).writeLong(deadline).end();
+    }
+
+    private static byte[] del(String key) {
+        return JournalRecord.begin(JournalOp.DEL, key).end();
+    }
+
+    private static byte[] expire(String key, long deadline) {
+        return JournalRecord.begin(JournalOp.EXPIRE, key).writeLong(deadline).end();
+    }
+
+    private static byte[] score(String key, Object member, long score) {
+        return JournalRecord.begin(JournalOp.SET_SORTED_SET_SCORE, key).writeItem(member).writeLong(score).end();
+    }
+
+    private static byte[] hset(String key, Object field, Object value) {
+        return JournalRecord.begin(JournalOp.HSET, key).writeItem(field).writeItem(value).end();
+    }
+
+    private static List<File> files(File dir, String suffix) {
+        List<File> ret = new ArrayList<File>();
+        for (File file : dir.listFiles())
+            if (file.getName().endsWith(suffix))
+                ret.add(file);
+        return ret;
+    }
+
+    /**
+     * 各key的值和是否会过期，用于比较两个实例
+     */
+    private static Map<String, Object> state(LocalCacheHelperImpl helper) {
+        Map<String, Object> state = new TreeMap<String, Object>();
+        for (String key : helper.keys(".*")) {
+            Object value;
+            if (key.startsWith("z")) {
+                List<Object> members = helper.getSortedObjectSetMember(key, 0, -1, Object.class);
+                List<Object> scored = new ArrayList<Object>();
+                for (Object member : members)
+                    scored.add(member + "=" + helper.getSortedObjectSetMemberScore(key, member));
+                value = scored;
+            } else if (key.startsWith("h")) {
+                List<Object> fields = new ArrayList<Object>();
+                for (int i = 0; i < 5; i++)
+                    fields.add(helper.getMapValue(key, "f" + i, Object.class));
+                value = fields;
+            } else {
+                value = helper.getObject(key, Object.class);
+            }
+            state.put(key, value + (helper.getTimeToLive(key) > 0 ? " expiring" : ""));
+        }
+        return state;
+    }
+
+    @Test
+    public void tornTailIsTruncatedAndRecoveryContinues() throws IOException {
+        List<byte[]> records = new ArrayList<byte[]>();
+        for (int i = 0; i < 10; i++)
+            records.add(set("s" + i, "value" + i, 0));
+        int last = 8 + records.get(records.size() - 1).length;
+        // 截在最后一条记录的内容中，以及截在它的长度和校验和中
+        for (int cut : new int[]{3, last - 3}) {
+            File dir = folder.newFolder();
+            write(dir, 1 << 20, records);
+            File segment = files(dir, ".log").get(0);
+            long length = segment.length();
+            try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+                file.setLength(length - cut);
+            }
+
+            LocalCacheHelperImpl recovered = new LocalCacheHelperImpl(null);
+            assertEquals(9, recover(dir, recovered));
+            assertEquals(length - last, segment.length());
+            assertEquals("value8", recovered.getObject("s8", String.class));
+            assertNull(recovered.getObject("s9", String.class));
+
+            // 截断后的日志可以继续写入和恢复
+            write(dir, 1 << 20, Arrays.asList(set("after", 1, 0)));
+            LocalCacheHelperImpl again = new LocalCacheHelperImpl(null);
+            assertEquals(10, recover(dir, again));
+            assertEquals(Integer.valueOf(1), again.getObject("after", Integer.class));
+            assertEquals(state(recovered).size() + 1, state(again).size());
+        }
+    }
+
+    @Test
+    public void compactionMatchesReplayingTheFoldedSegments() throws Exception {
+        Random random = new Random(20180505L);
+        long future = System.currentTimeMillis() + 600000;
+        List<byte[]> records = new ArrayList<byte[]>();
+        for (int i = 0; i < 600; i++) {
+            int op = random.nextInt(6);
+            String s = "s" + random.nextInt(30);
+            switch (op) {
+                case 0:
+                    records.add(set(s, random.nextInt(100), random.nextBoolean() ? 0 : future));
+                    break;
+                case 1:
+                    records.add(del(s));
+                    break;
+                case 2:
+                    records.add(expire(s, future));
+                    break;
+                case 3:
+                    records.add(score("z" + random.nextInt(5), "m" + random.nextInt(8), random.nextInt(20)));
+                    break;
+                default:
+                    records.add(hset("h" + random.nextInt(5), "f" + random.nextInt(5), random.nextInt(100)));
+                    break;
+            }
+        }
+        File replayed = folder.newFolder();
+        write(replayed, 512, records);
+        assertTrue(files(replayed, ".log").size() > 3);
+        File compacted = folder.newFolder();
+        for (File file : replayed.listFiles())
+            Files.copy(file.toPath(), new File(compacted, file.getName()).toPath());
+
+        // 已关闭的日志段超过1字节即压缩，恢复后在后台把所有日志段合并为快照
+        LocalCacheJournal journal = journal(compacted, 1 << 20, 1);
+        journal.recover(new LocalCacheHelperImpl(null).replica());
+        await(() -> journal.getCompactionCount() > 0);
+        journal.close();
+        assertEquals(1, files(compacted, ".snapshot").size());
+        assertEquals(1, files(compacted, ".log").size());
+
+        LocalCacheHelperImpl fromSegments = new LocalCacheHelperImpl(null);
+        recover(replayed, fromSegments);
+        LocalCacheHelperImpl fromSnapshot = new LocalCacheHelperImpl(null);
+        recover(compacted, fromSnapshot);
+        Map<String, Object> expected = state(fromSegments);
+        assertTrue(expected.size() > 20);
+        assertEquals(expected, state(fromSnapshot));
+    }
+
+    @Test
+    public void expireAndDelAreReplayed() throws IOException {
+        long now = System.currentTimeMillis();
+        File dir = folder.newFolder();
+        write(dir, 1 << 20, Arrays.asList(
+                set("kept", 1, 0), set("expiring", 2, 0), set("deleted", 3, now + 60000), set("expired", 4, 0),
+                expire("expiring", now + 60000), del("deleted"), expire("expired", now - 1000),
+                set("recreated", 5, 0), del("recreated"), set("recreated", 6, 0), del("never")));
+        LocalCacheHelperImpl helper = new LocalCacheHelperImpl(null);
+        assertEquals(11, recover(dir, helper));
+        assertEquals(-1, helper.getTimeToLive("kept"));
+        long ttl = helper.getTimeToLive("expiring");
+        assertTrue("ttl " + ttl, ttl > 50000 && ttl <= 60000);
+        assertEquals(Integer.valueOf(2), helper.getObject("expiring", Integer.class));
+        assertFalse(helper.existsKey("deleted"));
+        assertFalse(helper.existsKey("never"));
+        await(() -> !helper.existsKey("expired"));
+        assertEquals(Integer.valueOf(6), helper.getObject("recreated", Integer.class));
+    }
+
+    @Test
+    public void sortedSetScoreReplayCountsNewMembers() throws IOException {
+        LocalCacheConfigBean config = new LocalCacheConfigBean() {
+            public long getMaxEntries() { return 0; }
+            public long getMaxWeight() { return 1L << 30; }
+        };
+        LocalCacheHelperImpl live = new LocalCacheHelperImpl(config);
+        List<byte[]> records = new ArrayList<byte[]>();
+        for (int i = 0; i < 20; i++) {
+            String member = "member" + (i % 7);
+            long score = live.increSortedObjectSetMemberScore("z", member, i);
+            records.add(score("z", member, score));
+        }
+        File dir = folder.newFolder();
+        write(dir, 1 << 20, records);
+        LocalCacheHelperImpl recovered = new LocalCacheHelperImpl(config);
+        recover(dir, recovered);
+        assertEquals(state(live), state(recovered));
+        Object weight = live.getMetrics().snapshot().get("gauge.weightedSize");
+        assertTrue(String.valueOf(weight), ((Number) weight).longValue() > 0);
+        assertEquals(weight, recovered.getMetrics().snapshot().get("gauge.weightedSize"));
+    }
+}
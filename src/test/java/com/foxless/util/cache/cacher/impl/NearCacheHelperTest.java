@@ -0,0 +1,127 @@
+package com.foxless.util.cache.cacher.impl;
+
+import static com.foxless.util.cache.TestUtil.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.foxless.util.cache.RespServer;
+import com.foxless.util.cache.bean.NearCacheConfigBean;
+import com.foxless.util.cache.cacher.JedisCacheHelper;
+
+/**
+ * 两个节点的近端缓存共用分片的Redis，失效通知经过单独的RespServer
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class NearCacheHelperTest {
+
+    private RespServer[] shards;
+    private RespServer bus;
+    private ShardedJedisCacheHelper redis;
+    private NearCacheHelper first;
+    private NearCacheHelper second;
+
+    @Before
+    public void setUp() throws IOException {
+        shards = new RespServer[]{new RespServer(), new RespServer()};
+        bus = new RespServer();
+        Map<String, JedisCacheHelper> nodes = new LinkedHashMap<String, JedisCacheHelper>();
+        for (int i = 0; i < shards.length; i++)
+            nodes.put("node" + i, new JedisHelperImpl(shards[i].jedisConfig(false)));
+        redis = new ShardedJedisCacheHelper(nodes);
+        first = new NearCacheHelper(redis, config(bus));
+        second = new NearCacheHelper(redis, config(bus));
+        await(() -> subscribed(first) && subscribed(second));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        first.close();
+        second.close();
+        redis.close();
+        for (RespServer shard : shards)
+            shard.close();
+        bus.close();
+    }
+
+    private static NearCacheConfigBean config(RespServer bus) {
+        return new NearCacheConfigBean() {
+            public long getMaxEntries() { return 1000; }
+            public long getMaxWeight() { return 0; }
+            public String getInvalidationHost() { return bus.getHost(); }
+            public int getInvalidationPort() { return bus.getPort(); }
+        };
+    }
+
+    private static boolean subscribed(NearCacheHelper helper) {
+        return helper.info().contains("\"subscribed\":\"true\"");
+    }
+
+    @Test
+    public void servesRepeatedReadsFromLocalTier() {
+        redis.setObject("user:1", "alice");
+        assertEquals("alice", second.getObject("user:1", String.class));
+        // 绕过近端缓存写入，不发送通知
+        redis.setObject("user:1", "bob");
+        assertEquals("alice", second.getObject("user:1", String.class));
+    }
+
+    @Test
+    public void writeOnOneNodeInvalidatesTheOther() {
+        first.setObject("user:1", "alice");
+        assertEquals("alice", second.getObject("user:1", String.class));
+        first.setObject("user:1", "bob");
+        await(() -> "bob".equals(second.getObject("user:1", String.class)));
+        first.del("user:1");
+        await(() -> null == second.getObject("user:1", String.class));
+    }
+
+    @Test
+    public void stringAndHashReadsAreInvalidated() {
+        first.set("name", "a");
+        first.hset("map", "field", "1");
+        assertEquals("a", second.get("name"));
+        assertEquals("1", second.hget("map", "field"));
+        first.set("name", "b");
+        first.hset("map", "field", "2");
+        await(() -> "b".equals(second.get("name")) && "2".equals(second.hget("map", "field")));
+    }
+
+    @Test
+    public void getObjectsKeepsOrderAcrossLocalHitsAndShards() {
+        for (int i = 0; i < 20; i++)
+            redis.setObject("k" + i, i);
+        assertEquals(Integer.valueOf(3), second.getObject("k3", Integer.class));
+        assertEquals(Arrays.asList(0, 3, null, 19, 3),
+                second.getObjects(Integer.class, "k0", "k3", "missing", "k19", "k3"));
+        first.setObject("missing", 7);
+        await(() -> Integer.valueOf(7).equals(second.getObjects(Integer.class, "k0", "missing").get(1)));
+    }
+
+    @Test
+    public void missingKeysAreCachedUntilInvalidated() {
+        assertNull(second.getObject("absent", String.class));
+        redis.setObject("absent", "now present");
+        assertNull(second.getObject("absent", String.class));
+        first.setObject("absent", "written");
+        await(() -> "written".equals(second.getObject("absent", String.class)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresInvalidationHost() {
+        new NearCacheHelper(redis, new NearCacheConfigBean() {
+            public long getMaxEntries() { return 1000; }
+            public long getMaxWeight() { return 0; }
+        });
+    }
+}
@@ -0,0 +1,157 @@
+package com.foxless.util.cache.cacher.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.foxless.util.cache.RespServer;
+import com.foxless.util.cache.aop.CacheOperation;
+import com.foxless.util.cache.aop.ForwardingJedisCacheHelper;
+import com.foxless.util.cache.cacher.JedisCacheHelper;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * 主节点和两个从节点各是一个RespServer，数据互不复制，读到的值可以区分来自哪个节点。<br>
+ * 从节点包装在{@link Switchable}中，宕机时抛出JedisConnectionException
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class ReplicatedJedisCacheHelperTest {
+
+    private RespServer masterServer;
+    private RespServer[] replicaServers;
+    private JedisHelperImpl masterNode;
+    private JedisHelperImpl[] replicaNodes;
+    private Switchable[] switches;
+    private ReplicatedJedisCacheHelper helper;
+
+    private static class Switchable extends ForwardingJedisCacheHelper {
+
+        private volatile boolean down;
+
+        Switchable(JedisCacheHelper delegate) {
+            super(delegate);
+        }
+
+        @Override
+        protected long before(CacheOperation operation) {
+            if (down)
+                throw new JedisConnectionException("Connection refused");
+            return super.before(operation);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        masterServer = new RespServer();
+        masterNode = new JedisHelperImpl(masterServer.jedisConfig(false));
+        replicaServers = new RespServer[]{new RespServer(), new RespServer()};
+        replicaNodes = new JedisHelperImpl[replicaServers.length];
+        switches = new Switchable[replicaServers.length];
+        Map<String, JedisCacheHelper> replicas = new LinkedHashMap<String, JedisCacheHelper>();
+        for (int i = 0; i < replicaServers.length; i++) {
+            replicaNodes[i] = new JedisHelperImpl(replicaServers[i].jedisConfig(false));
+            switches[i] = new Switchable(replicaNodes[i]);
+            replicas.put("replica" + i, switches[i]);
+        }
+        helper = new ReplicatedJedisCacheHelper(masterNode, replicas);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        helper.close();
+        masterServer.close();
+        for (RespServer server : replicaServers)
+            server.close();
+    }
+
+    private long gauge(String name) {
+        return helper.getMetrics().snapshot().get("gauge." + name).longValue();
+    }
+
+    @Test
+    public void writesGoToMasterAndReadsToReplicas() {
+        helper.set("k", "master");
+        assertEquals(1, masterServer.size());
+        assertEquals(0, replicaServers[0].size() + replicaServers[1].size());
+        replicaNodes[0].set("k", "replica");
+        replicaNodes[1].set("k", "replica");
+        for (int i = 0; i < 20; i++)
+            assertEquals("replica", helper.get("k"));
+        assertEquals(20, gauge("replicaReads"));
+        assertEquals(0, gauge("masterReads"));
+    }
+
+    @Test
+    public void pinnedReadsGoToMaster() {
+        helper.set("k", "master");
+        replicaNodes[0].set("k", "replica");
+        replicaNodes[1].set("k", "replica");
+        assertEquals("master", helper.readFromMaster(() -> helper.get("k")));
+        helper.pinMaster();
+        try {
+            assertEquals("master", helper.get("k"));
+        } finally {
+            helper.unpinMaster();
+        }
+        assertEquals("replica", helper.get("k"));
+    }
+
+    @Test
+    public void readsInsideTransactionGoToMaster() {
+        replicaNodes[0].set("k", "replica");
+        replicaNodes[1].set("k", "replica");
+        masterNode.set("k", "master");
+        helper.boundJedis();
+        try {
+            assertEquals("master", helper.get("k"));
+        } finally {
+            helper.unboundJedis();
+        }
+        assertEquals("replica", helper.get("k"));
+    }
+
+    @Test
+    public void failedReplicaFallsBackToMasterAndIsSkipped() {
+        helper.set("k", "master");
+        replicaNodes[1].set("k", "replica1");
+        switches[0].down = true;
+        for (int i = 0; i < 40; i++) {
+            String value = helper.get("k");
+            assertTrue(value, "master".equals(value) || "replica1".equals(value));
+        }
+        // 第一次失败后该从节点在REPLICA_RETRY_MILLIS内不再被选择
+        assertEquals(1, gauge("replicaFailovers"));
+        assertEquals(1, gauge("masterReads"));
+        assertEquals(39, gauge("replicaReads"));
+    }
+
+    @Test
+    public void allReplicasDownServesFromMaster() {
+        helper.setObject("o", 42);
+        for (Switchable replica : switches)
+            replica.down = true;
+        for (int i = 0; i < 10; i++)
+            assertEquals(Integer.valueOf(42), helper.getObject("o", Integer.class));
+        assertEquals(2, gauge("replicaFailovers"));
+        assertEquals(10, gauge("masterReads"));
+        assertNull(helper.getObject("absent", Integer.class));
+    }
+
+    @Test
+    public void noReplicasReadsFromMaster() {
+        ReplicatedJedisCacheHelper masterOnly =
+                new ReplicatedJedisCacheHelper(masterNode, new LinkedHashMap<String, JedisCacheHelper>());
+        masterOnly.set("k", "v");
+        assertEquals("v", masterOnly.get("k"));
+    }
+}
@@ -0,0 +1,267 @@
+package com.foxless.util.cache.cacher.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.foxless.util.cache.RespServer;
+import com.foxless.util.cache.cacher.ExpiringValue;
+import com.foxless.util.cache.cacher.JedisCacheHelper;
+
+/**
+ * 三个RespServer节点上的分片：多key读取的拆分与合并、事务中的多节点写入、跨节点集合运算
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class ShardedJedisCacheHelperTest {
+
+    private RespServer[] servers;
+    private ShardedJedisCacheHelper helper;
+
+    @Before
+    public void setUp() throws IOException {
+        servers = new RespServer[3];
+        Map<String, JedisCacheHelper> nodes = new LinkedHashMap<String, JedisCacheHelper>();
+        for (int i = 0; i < servers.length; i++) {
+            servers[i] = new RespServer();
+            // 一个节点开启自动批量
+            nodes.put("node" + i, new JedisHelperImpl(servers[i].jedisConfig(i == 0)));
+        }
+        helper = new ShardedJedisCacheHelper(nodes);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        helper.close();
+        for (RespServer server : servers)
+            server.close();
+    }
+
+    private int totalKeys() {
+        int n = 0;
+        for (RespServer server : servers)
+            n += server.size();
+        return n;
+    }
+
+    private String[] keysOnAllNodes(int count) {
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++)
+            keys[i] = "key:" + i;
+        assertEquals(3, new HashSet<Object>(nodesOf(keys)).size());
+        return keys;
+    }
+
+    private List<JedisCacheHelper> nodesOf(String[] keys) {
+        List<JedisCacheHelper> nodes = new ArrayList<JedisCacheHelper>();
+        for (String key : keys)
+            nodes.add(helper.getNode(key));
+        return nodes;
+    }
+
+    @Test
+    public void keysAreStoredOnTheirOwnNode() {
+        String[] keys = keysOnAllNodes(60);
+        for (String key : keys)
+            helper.set(key, key);
+        assertEquals(60, totalKeys());
+        for (String key : keys)
+            assertEquals(key, helper.getNode(key).get(key));
+        for (RespServer server : servers)
+            assertTrue(server.size() > 0);
+    }
+
+    @Test
+    public void mgetMergesResultsInKeyOrder() {
+        String[] keys = keysOnAllNodes(30);
+        for (int i = 0; i < keys.length; i += 2)
+            helper.set(keys[i], "v" + i);
+        String[] query = new String[keys.length + 2];
+        for (int i = 0; i < keys.length; i++)
+            query[keys.length - 1 - i] = keys[i];
+        query[keys.length] = keys[0];
+        query[keys.length + 1] = "missing";
+        List<String> values = helper.mget(query);
+        assertEquals(query.length, values.size());
+        for (int i = 0; i < query.length; i++) {
+            String expected = null;
+            if (query[i].startsWith("key:")) {
+                int n = Integer.parseInt(query[i].substring(4));
+                expected = n % 2 == 0 ? "v" + n : null;
+            }
+            assertEquals(query[i], expected, values.get(i));
+        }
+    }
+
+    @Test
+    public void getObjectsMergesResultsInKeyOrder() {
+        String[] keys = keysOnAllNodes(40);
+        Map<String, Object> values = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < keys.length; i++)
+            values.put(keys[i], i);
+        helper.setObjects(values, 0);
+        List<Integer> read = helper.getObjects(Integer.class, keys[39], "nope", keys[0], keys[17], keys[39]);
+        assertEquals(Arrays.asList(39, null, 0, 17, 39), read);
+    }
+
+    @Test
+    public void valuesAndTtlsAreReadTogether() {
+        String[] keys = keysOnAllNodes(30);
+        for (int i = 0; i < keys.length; i++) {
+            if (i % 2 == 0)
+                helper.setObjectEX(keys[i], i, 60);
+            else if (i % 3 == 0)
+                helper.setObject(keys[i], i);
+        }
+        List<ExpiringValue<Integer>> read = helper.getObjectsWithTtl(Integer.class, keys);
+        assertEquals(keys.length, read.size());
+        for (int i = 0; i < keys.length; i++) {
+            ExpiringValue<Integer> value = read.get(i);
+            if (i % 2 == 0) {
+                assertEquals(Integer.valueOf(i), value.getValue());
+                assertTrue(value.getTimeToLive() > 55000 && value.getTimeToLive() <= 60000);
+            } else if (i % 3 == 0) {
+                assertEquals(Integer.valueOf(i), value.getValue());
+                assertEquals(-1, value.getTimeToLive());
+            } else {
+                assertNull(value.getValue());
+                assertEquals(-2, value.getTimeToLive());
+            }
+        }
+        assertEquals(Integer.valueOf(0), helper.getObjectWithTtl(keys[0], Integer.class).getValue());
+        helper.setEX("s", "v", 30);
+        ExpiringValue<String> s = helper.getWithTtl("s");
+        assertEquals("v", s.getValue());
+        assertTrue(s.getTimeToLive() > 25000 && s.getTimeToLive() <= 30000);
+        helper.hset("h", "f", "1");
+        assertEquals("1", helper.hgetWithTtl("h", "f").getValue());
+        assertEquals(-1, helper.hgetWithTtl("h", "f").getTimeToLive());
+        helper.appendMapItem("m", "field", 5);
+        assertEquals(Integer.valueOf(5), helper.getMapValueWithTtl("m", "field", Integer.class).getValue());
+        assertEquals(-2, helper.getMapValueWithTtl("none", "field", Integer.class).getTimeToLive());
+    }
+
+    @Test
+    public void singleNodeReadsGoStraightToTheNode() {
+        String[] keys = {"{tag}a", "{tag}b", "{tag}c"};
+        assertEquals(1, new HashSet<Object>(nodesOf(keys)).size());
+        helper.set("{tag}b", "b");
+        assertEquals(Arrays.asList(null, "b", null), helper.mget(keys));
+    }
+
+    @Test
+    public void transactionKeepsMultiNodeWritesUntilCommit() {
+        String[] keys = keysOnAllNodes(30);
+        Map<String, Object> values = new LinkedHashMap<String, Object>();
+        for (String key : keys)
+            values.put(key, key);
+        assertTrue(helper.startTransaction());
+        helper.setObjects(values, 60);
+        assertEquals(0, totalKeys());
+        assertTrue(helper.commit());
+        assertEquals(30, totalKeys());
+        // 提交后多节点操作恢复并行
+        assertEquals(keys[5], helper.getObjects(String.class, keys).get(5));
+    }
+
+    @Test
+    public void discardDropsMultiNodeWrites() {
+        String[] keys = keysOnAllNodes(30);
+        Map<String, Object> values = new LinkedHashMap<String, Object>();
+        for (String key : keys)
+            values.put(key, key);
+        helper.startTransaction();
+        helper.setObjects(values, 0);
+        helper.discard();
+        assertEquals(0, totalKeys());
+        helper.setObjects(values, 0);
+        assertEquals(30, totalKeys());
+    }
+
+    @Test
+    public void pipelineWritesAreSentOnClose() {
+        String[] keys = keysOnAllNodes(30);
+        Map<String, Object> values = new LinkedHashMap<String, Object>();
+        for (String key : keys)
+            values.put(key, 1);
+        helper.openPipeline();
+        helper.setObjects(values, 0);
+        helper.closePipeline();
+        assertEquals(30, totalKeys());
+    }
+
+    @Test
+    public void crossNodeSetOperations() {
+        String a = "set:a", b = "set:b", c = "set:c";
+        assertFalse(helper.getNode(a) == helper.getNode(b) && helper.getNode(b) == helper.getNode(c));
+        helper.appendObjectSetMember(a, new Object[]{1, 2, 3, "x"});
+        helper.appendObjectSetMember(b, new Object[]{2, 3, 4, "x"});
+        helper.appendObjectSetMember(c, new Object[]{3, "x", 9L});
+        assertEquals(new HashSet<Object>(Arrays.<Object>asList(3, "x")),
+                helper.getInterObjectSet(Object.class, a.getBytes(), b.getBytes(), c.getBytes()));
+        assertEquals(new HashSet<Object>(Arrays.<Object>asList(1)),
+                helper.getDiffObjectSet(Object.class, a.getBytes(), b.getBytes()));
+        assertEquals(new HashSet<Object>(Arrays.<Object>asList(1, 2, 3, 4, 9L, "x")),
+                helper.getUnionObjectSet(Object.class, a.getBytes(), b.getBytes(), c.getBytes()));
+        assertTrue(helper.getInterObjectSet(Object.class, a.getBytes(), "set:none".getBytes()).isEmpty());
+
+        helper.appendStringSetMember(a + "s", "1", "2");
+        helper.appendStringSetMember(b + "s", "2", "3");
+        assertEquals(new HashSet<String>(Arrays.asList("2")), helper.getInterStringSet(a + "s", b + "s"));
+    }
+
+    @Test
+    public void leasesAreTakenOnTheOwningNode() {
+        String[] keys = keysOnAllNodes(30);
+        for (String key : keys) {
+            assertTrue(helper.tryLease(key, "me", 1000));
+            assertFalse(helper.tryLease(key, "other", 1000));
+            assertEquals("me", helper.getNode(key).get(key));
+            assertFalse(helper.releaseLease(key, "other"));
+            assertTrue(helper.releaseLease(key, "me"));
+            assertNull(helper.get(key));
+        }
+    }
+
+    @Test
+    public void addedNodeTakesOverPartOfTheKeys() throws IOException {
+        String[] keys = keysOnAllNodes(300);
+        List<JedisCacheHelper> before = nodesOf(keys);
+        try (RespServer extra = new RespServer(); JedisHelperImpl node = new JedisHelperImpl(extra.jedisConfig(false))) {
+            helper.addNode("node3", node);
+            List<JedisCacheHelper> after = nodesOf(keys);
+            int moved = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (before.get(i) != after.get(i)) {
+                    assertSame(node, after.get(i));
+                    moved++;
+                }
+            }
+            assertTrue("moved " + moved, moved > 0 && moved < keys.length / 2);
+            helper.removeNode("node3");
+            assertEquals(before, nodesOf(keys));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void lastNodeCannotBeRemoved() {
+        helper.removeNode("node0");
+        helper.removeNode("node1");
+        helper.removeNode("node2");
+    }
+}
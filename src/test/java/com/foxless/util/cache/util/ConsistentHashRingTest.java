@@ -0,0 +1,111 @@
+package com.foxless.util.cache.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * 增删节点时key归属的稳定性
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class ConsistentHashRingTest {
+
+    private static final int KEYS = 20000;
+
+    private static ConsistentHashRing<String> ring(int nodes) {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<String>(160);
+        for (int i = 0; i < nodes; i++)
+            ring.add("10.0.0." + i + ":6379", "node" + i);
+        return ring;
+    }
+
+    private static Map<String, String> owners(ConsistentHashRing<String> ring) {
+        Map<String, String> owners = new HashMap<String, String>();
+        for (int i = 0; i < KEYS; i++)
+            owners.put("key:" + i, ring.nameFor("key:" + i));
+        return owners;
+    }
+
+    @Test
+    public void addingNodeMovesOnlyItsShareToTheNewNode() {
+        ConsistentHashRing<String> ring = ring(4);
+        Map<String, String> before = owners(ring);
+        ring.add("10.0.0.4:6379", "node4");
+        int moved = 0;
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String owner = ring.nameFor(entry.getKey());
+            if (!owner.equals(entry.getValue())) {
+                assertEquals("10.0.0.4:6379", owner);
+                moved++;
+            }
+        }
+        // 约1/5的key改变归属
+        assertTrue("moved " + moved, moved > KEYS / 5 * 0.6 && moved < KEYS / 5 * 1.4);
+    }
+
+    @Test
+    public void removingNodeMovesOnlyItsKeys() {
+        ConsistentHashRing<String> ring = ring(5);
+        Map<String, String> before = owners(ring);
+        assertEquals("node2", ring.remove("10.0.0.2:6379"));
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String owner = ring.nameFor(entry.getKey());
+            if ("10.0.0.2:6379".equals(entry.getValue()))
+                assertNotEquals("10.0.0.2:6379", owner);
+            else
+                assertEquals(entry.getValue(), owner);
+        }
+        assertNull(ring.remove("10.0.0.2:6379"));
+    }
+
+    @Test
+    public void placementDoesNotDependOnInsertionOrder() {
+        ConsistentHashRing<String> forward = ring(4);
+        ConsistentHashRing<String> backward = new ConsistentHashRing<String>(160);
+        for (int i = 3; i >= 0; i--)
+            backward.add("10.0.0." + i + ":6379", "node" + i);
+        assertEquals(owners(forward), owners(backward));
+    }
+
+    @Test
+    public void addingAndRemovingRestoresPlacement() {
+        ConsistentHashRing<String> ring = ring(3);
+        Map<String, String> before = owners(ring);
+        ring.add("10.0.0.9:6379", "node9");
+        ring.remove("10.0.0.9:6379");
+        assertEquals(before, owners(ring));
+    }
+
+    @Test
+    public void keysAreSpreadOverAllNodes() {
+        ConsistentHashRing<String> ring = ring(4);
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        for (String owner : owners(ring).values())
+            counts.merge(owner, 1, Integer::sum);
+        assertEquals(4, counts.size());
+        for (int count : counts.values())
+            assertTrue("count " + count, count > KEYS / 4 * 0.7 && count < KEYS / 4 * 1.3);
+    }
+
+    @Test
+    public void hashTagKeepsRelatedKeysTogether() {
+        ConsistentHashRing<String> ring = ring(8);
+        String owner = ring.nameFor("{user:42}:profile");
+        for (int i = 0; i < 100; i++)
+            assertEquals(owner, ring.nameFor("{user:42}:field" + i));
+        assertEquals(ConsistentHashRing.hashKey("user:42"), ConsistentHashRing.hashKey("{user:42}:x"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void emptyRingRejectsLookups() {
+        new ConsistentHashRing<String>(160).get("key");
+    }
+}
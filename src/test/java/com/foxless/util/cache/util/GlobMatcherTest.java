@@ -0,0 +1,193 @@
+package com.foxless.util.cache.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * 通配符、字符类、转义和字面前缀，随机模式与按Redis stringmatchlen移植的匹配结果对照
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class GlobMatcherTest {
+
+    private static void assertMatches(String pattern, String... keys) {
+        GlobMatcher matcher = GlobMatcher.compile(pattern);
+        for (String key : keys)
+            assertTrue(pattern + " ~ " + key, matcher.matches(key));
+    }
+
+    private static void assertNotMatches(String pattern, String... keys) {
+        GlobMatcher matcher = GlobMatcher.compile(pattern);
+        for (String key : keys)
+            assertFalse(pattern + " !~ " + key, matcher.matches(key));
+    }
+
+    private static char at(String s, int i) {
+        return i < s.length() ? s.charAt(i) : '\0';
+    }
+
+    /**
+     * Redis util.c中stringmatchlen的移植（区分大小写），作为对照
+     */
+    private static boolean redisMatch(String pattern, int p, String s, int i) {
+        int pl = pattern.length(), sl = s.length();
+        while (p < pl && i < sl) {
+            switch (pattern.charAt(p)) {
+                case '*':
+                    while (p + 1 < pl && pattern.charAt(p + 1) == '*')
+                        p++;
+                    if (p == pl - 1)
+                        return true;
+                    for (; i < sl; i++) {
+                        if (redisMatch(pattern, p + 1, s, i))
+                            return true;
+                    }
+                    return false;
+                case '?':
+                    i++;
+                    break;
+                case '[': {
+                    p++;
+                    boolean not = at(pattern, p) == '^';
+                    if (not)
+                        p++;
+                    boolean match = false;
+                    while (true) {
+                        int remaining = pl - p;
+                        char c = at(pattern, p);
+                        if (c == '\\' && remaining >= 2) {
+                            p++;
+                            if (pattern.charAt(p) == s.charAt(i))
+                                match = true;
+                        } else if (c == ']') {
+                            break;
+                        } else if (remaining <= 0) {
+                            p--;
+                            break;
+                        } else if (remaining >= 3 && pattern.charAt(p + 1) == '-') {
+                            char start = c, end = pattern.charAt(p + 2);
+                            if (start > end) {
+                                char t = start;
+                                start = end;
+                                end = t;
+                            }
+                            p += 2;
+                            if (s.charAt(i) >= start && s.charAt(i) <= end)
+                                match = true;
+                        } else if (c == s.charAt(i)) {
+                            match = true;
+                        }
+                        p++;
+                    }
+                    if (not)
+                        match = !match;
+                    if (!match)
+                        return false;
+                    i++;
+                    break;
+                }
+                default:
+                    // 转义后按字面值比较
+                    if (pattern.charAt(p) == '\\' && pl - p >= 2)
+                        p++;
+                    if (pattern.charAt(p) != s.charAt(i))
+                        return false;
+                    i++;
+                    break;
+            }
+            p++;
+            if (i == sl) {
+                while (p < pl && pattern.charAt(p) == '*')
+                    p++;
+                break;
+            }
+        }
+        return p == pl && i == sl;
+    }
+
+    @Test
+    public void starAndQuestionMark() {
+        assertMatches("*", "", "a", "user:1");
+        assertMatches("user:*", "user:", "user:1", "user:1:name");
+        assertNotMatches("user:*", "use", "admin:user:1");
+        assertMatches("*:name", "user:1:name", ":name");
+        assertMatches("a*b*c", "abc", "aXbYc", "abbbcc", "acbc");
+        assertNotMatches("a*b*c", "ab", "acb", "abcd");
+        assertMatches("h?llo", "hello", "hallo", "h?llo");
+        assertNotMatches("h?llo", "hllo", "heello");
+        assertMatches("a**?", "ab", "abc");
+        assertNotMatches("a**?", "a");
+    }
+
+    @Test
+    public void characterClasses() {
+        assertMatches("h[ae]llo", "hello", "hallo");
+        assertNotMatches("h[ae]llo", "hillo", "hllo");
+        assertMatches("key[0-9]", "key0", "key5", "key9");
+        assertNotMatches("key[0-9]", "keya", "key10", "key");
+        // 范围的两端可以颠倒
+        assertMatches("[z-a]", "a", "m", "z");
+        assertMatches("h[^e]llo", "hallo", "hbllo");
+        assertNotMatches("h[^e]llo", "hello", "hllo");
+        assertMatches("[^a-c]x", "dx", "-x");
+        assertNotMatches("[^a-c]x", "ax", "bx", "cx");
+        assertMatches("[a\\]]", "a", "]");
+        assertMatches("[\\^]", "^");
+        assertNotMatches("[]", "a", "");
+        assertMatches("[^]", "a", "]");
+    }
+
+    @Test
+    public void backslashEscapes() {
+        assertMatches("a\\*b", "a*b");
+        assertNotMatches("a\\*b", "aXb", "ab");
+        assertMatches("\\?", "?");
+        assertNotMatches("\\?", "x");
+        assertMatches("\\[x]", "[x]");
+        assertNotMatches("\\[x]", "x");
+        // 末尾的\按字面值匹配
+        assertMatches("a\\", "a\\");
+        assertMatches("a\\\\", "a\\");
+    }
+
+    @Test
+    public void literalPrefix() {
+        assertEquals("user:", GlobMatcher.compile("user:*").getLiteralPrefix());
+        assertEquals("user:", GlobMatcher.compile("user:[0-9]*").getLiteralPrefix());
+        assertEquals("user:", GlobMatcher.compile("user:?").getLiteralPrefix());
+        assertEquals("a*b", GlobMatcher.compile("a\\*b*").getLiteralPrefix());
+        assertEquals("", GlobMatcher.compile("*:name").getLiteralPrefix());
+        assertEquals("exact", GlobMatcher.compile("exact").getLiteralPrefix());
+        assertEquals("", GlobMatcher.compile(null).getLiteralPrefix());
+        assertTrue(GlobMatcher.compile(null).matchesAll());
+        assertTrue(GlobMatcher.compile("**").matchesAll());
+        assertFalse(GlobMatcher.compile("*a").matchesAll());
+        assertMatches("exact", "exact");
+        assertNotMatches("exact", "exact1", "exac");
+    }
+
+    @Test
+    public void matchesRedisForRandomPatterns() {
+        // 不含'-'：Redis把[a-]中的]当作范围的终点，这里按单个字符处理
+        String patternChars = "ab*?[]^\\";
+        String keyChars = "ab*?[]^\\";
+        Random random = new Random(20180505L);
+        for (int n = 0; n < 50000; n++) {
+            StringBuilder pattern = new StringBuilder();
+            for (int i = random.nextInt(7); i > 0; i--)
+                pattern.append(random.nextInt(4) == 0 ? "[a-b]" : String.valueOf(patternChars.charAt(random.nextInt(patternChars.length()))));
+            StringBuilder key = new StringBuilder();
+            // Redis中空字符串连*也不匹配，缓存中不会有空key，不做对照
+            for (int i = 1 + random.nextInt(6); i > 0; i--)
+                key.append(keyChars.charAt(random.nextInt(keyChars.length())));
+            String p = pattern.toString(), k = key.toString();
+            assertEquals(p + " ~ " + k, redisMatch(p, 0, k, 0), GlobMatcher.compile(p).matches(k));
+        }
+    }
+}
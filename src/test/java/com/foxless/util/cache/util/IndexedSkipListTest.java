@@ -0,0 +1,181 @@
+package com.foxless.util.cache.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * 名次、范围读取、逆序读取和按名次删除与TreeSet的结果对照，score大量重复，score相同的按加入先后排列
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class IndexedSkipListTest {
+
+    /**
+     * TreeSet中的一个成员：score相同时按加入的序号排列，与IndexedSkipList一致
+     */
+    private static final class Entry {
+        final String member;
+        final long score;
+        final long seq;
+
+        Entry(String member, long score, long seq) {
+            this.member = member;
+            this.score = score;
+            this.seq = seq;
+        }
+    }
+
+    private static final Comparator<Entry> ORDER = (a, b) -> a.score != b.score
+            ? Long.compare(a.score, b.score) : Long.compare(a.seq, b.seq);
+
+    private final Random random = new Random(20180505L);
+    private final IndexedSkipList<String> list = new IndexedSkipList<String>();
+    private final TreeSet<Entry> oracle = new TreeSet<Entry>(ORDER);
+    private final Map<String, Entry> members = new HashMap<String, Entry>();
+    private long seq;
+
+    private void add(String member, long score) {
+        assertEquals(!members.containsKey(member), list.add(member, member, score));
+        Entry old = members.remove(member);
+        Entry e = null;
+        if (null != old) {
+            // 改分后仍在原来的两个相邻成员之间时保持位置，否则与新加入的成员一样排在相同score的成员之后
+            Entry lower = oracle.lower(old), higher = oracle.higher(old);
+            oracle.remove(old);
+            Entry kept = new Entry(member, score, old.seq);
+            if ((null == lower || ORDER.compare(lower, kept) < 0) && (null == higher || ORDER.compare(higher, kept) > 0))
+                e = kept;
+        }
+        if (null == e)
+            e = new Entry(member, score, seq++);
+        oracle.add(e);
+        members.put(member, e);
+    }
+
+    private void remove(String member) {
+        Entry old = members.remove(member);
+        assertEquals(null == old ? null : member, list.remove(member));
+        if (null != old)
+            oracle.remove(old);
+    }
+
+    private List<String> expected() {
+        List<String> ret = new ArrayList<String>(oracle.size());
+        for (Entry e : oracle)
+            ret.add(e.member);
+        return ret;
+    }
+
+    /**
+     * 与IndexedSkipList相同的边界：end为-1或超出长度时到末尾，start超出长度或不小于end时返回null
+     */
+    private static List<String> slice(List<String> all, long start, long end) {
+        if (start >= end && end != -1)
+            return null;
+        if (start >= all.size())
+            return null;
+        int from = (int) Math.max(0, start);
+        int to = end == -1 || end > all.size() ? all.size() : (int) end;
+        return new ArrayList<String>(all.subList(from, to));
+    }
+
+    private void verify() {
+        List<String> asc = expected();
+        List<String> desc = new ArrayList<String>(asc);
+        Collections.reverse(desc);
+        assertEquals(asc.size(), list.size());
+        for (int i = 0; i < asc.size(); i++) {
+            assertEquals(Long.valueOf(i), list.rank(asc.get(i), false));
+            assertEquals(Long.valueOf(asc.size() - 1 - i), list.rank(asc.get(i), true));
+        }
+        assertNull(list.rank("absent", false));
+        assertEquals(asc, list.range(0, -1, false));
+        assertEquals(desc, list.range(0, -1, true));
+        for (int i = 0; i < 20; i++) {
+            long start = random.nextInt(asc.size() + 4) - 2;
+            long end = random.nextInt(4) == 0 ? -1 : random.nextInt(asc.size() + 4) - 2;
+            assertEquals(start + ".." + end, slice(asc, start, end), list.range(start, end, false));
+            assertEquals(start + ".." + end, slice(desc, start, end), list.range(start, end, true));
+        }
+        long min = random.nextInt(12) - 1, max = min + random.nextInt(4);
+        List<String> byScore = new ArrayList<String>();
+        for (Entry e : oracle)
+            if (e.score >= min && e.score <= max)
+                byScore.add(e.member);
+        assertEquals(byScore, list.rangeByScore(min, max));
+    }
+
+    @Test
+    public void matchesTreeSetWithDuplicateScores() {
+        for (int round = 0; round < 2000; round++) {
+            int op = random.nextInt(10);
+            String member = "m" + random.nextInt(300);
+            // score只有10种，大部分成员与其他成员的score相同
+            long score = random.nextInt(10);
+            if (op < 6) {
+                add(member, score);
+            } else if (op < 9) {
+                remove(member);
+            } else if (!oracle.isEmpty()) {
+                long start = random.nextInt(oracle.size());
+                long end = random.nextBoolean() ? -1 : start + 1 + random.nextInt(5);
+                List<String> expected = slice(expected(), start, end);
+                assertEquals(start + ".." + end, expected, list.removeRange(start, end));
+                for (String removed : expected)
+                    oracle.remove(members.remove(removed));
+            }
+            if (round % 25 == 0 && !oracle.isEmpty())
+                verify();
+        }
+        for (int i = 0; i < 500; i++)
+            add("bulk" + i, i % 7);
+        verify();
+    }
+
+    @Test
+    public void equalScoresKeepInsertionOrder() {
+        add("c", 1);
+        add("a", 1);
+        add("b", 0);
+        add("d", 1);
+        assertEquals(Arrays.asList("b", "c", "a", "d"), list.range(0, -1, false));
+        assertEquals(Arrays.asList("d", "a", "c", "b"), list.range(0, -1, true));
+        assertEquals(Long.valueOf(2), list.rank("a", false));
+        assertEquals(Long.valueOf(1), list.rank("a", true));
+        // 改分后移动的成员排在相同score的成员之后
+        add("b", 1);
+        assertEquals(Arrays.asList("c", "a", "d", "b"), list.range(0, -1, false));
+    }
+
+    @Test
+    public void endMinusOneMeansToTheEnd() {
+        for (int i = 0; i < 10; i++)
+            add("m" + i, i / 3);
+        assertEquals(expected().subList(4, 10), list.range(4, -1, false));
+        assertEquals(Arrays.asList("m5", "m4"), list.range(4, 6, true));
+        assertEquals(Arrays.asList("m9"), list.range(9, -1, false));
+        assertNull(list.range(10, -1, false));
+        assertNull(list.range(3, 3, false));
+        assertEquals(Arrays.asList("m7", "m8", "m9"), list.removeRange(7, -1));
+        assertEquals(7, list.size());
+        assertEquals(Arrays.asList("m0", "m1"), list.removeRange(-5, 2));
+        assertTrue(list.removeRange(5, -1).isEmpty());
+        assertEquals(Arrays.asList("m2", "m3", "m4", "m5", "m6"), list.removeRange(0, -1));
+        assertEquals(0, list.size());
+        assertNull(list.range(0, -1, false));
+    }
+}
@@ -0,0 +1,146 @@
+package com.foxless.util.cache.util;
+
+import static com.foxless.util.cache.TestUtil.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * 同一个key的并发加载只执行一次，等待的线程得到相同的结果或异常
+ *
+ * @author Hetianyi 2018/5/5
+ * @version 1.0
+ */
+public class SingleFlightTest {
+
+    private static final int THREADS = 8;
+
+    private final SingleFlight<String, Object> flight = new SingleFlight<String, Object>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void concurrentCallsShareOneLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        List<Future<Object>> results = new ArrayList<Future<Object>>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> flight.execute("k", () -> {
+                calls.incrementAndGet();
+                awaitLatch(release);
+                return new Object();
+            })));
+        }
+        // 一个线程在加载，其余都在等待它
+        await(() -> flight.getCoalesced() == THREADS - 1);
+        assertEquals(1, flight.inFlight());
+        release.countDown();
+        Object first = results.get(0).get();
+        for (Future<Object> result : results)
+            assertSame(first, result.get());
+        assertEquals(1, calls.get());
+        assertEquals(1, flight.getLoads());
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    public void failureIsSeenByAllWaiters() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("load failed");
+        List<Future<Object>> results = new ArrayList<Future<Object>>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> flight.execute("k", () -> {
+                awaitLatch(release);
+                throw failure;
+            })));
+        }
+        await(() -> flight.getCoalesced() == THREADS - 1);
+        release.countDown();
+        for (Future<Object> result : results) {
+            try {
+                result.get();
+                throw new AssertionError("Expected failure");
+            } catch (ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        }
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    public void completedCallsAreNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        assertEquals(1, flight.execute("k", calls::incrementAndGet));
+        assertEquals(2, flight.execute("k", calls::incrementAndGet));
+        assertEquals(2, flight.getLoads());
+        assertEquals(0, flight.getCoalesced());
+    }
+
+    @Test
+    public void executeAllLoadsOnlyKeysNotInFlight() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Object> running = executor.submit(() -> flight.execute("b", () -> {
+            awaitLatch(release);
+            return "B";
+        }));
+        await(() -> flight.inFlight() == 1);
+        List<Collection<String>> batches = new ArrayList<Collection<String>>();
+        Future<Map<String, Object>> all = executor.submit(() -> flight.executeAll(Arrays.asList("c", "b", "a", "c"), keys -> {
+            batches.add(new ArrayList<String>(keys));
+            Map<String, Object> values = new LinkedHashMap<String, Object>();
+            values.put("a", "A");
+            values.put("c", "C");
+            return values;
+        }));
+        // a、c已加载完成，b仍在等待另一个线程
+        await(() -> flight.getCoalesced() == 1 && flight.inFlight() == 1);
+        release.countDown();
+        assertEquals("B", running.get());
+        Map<String, Object> expected = new LinkedHashMap<String, Object>();
+        expected.put("c", "C");
+        expected.put("b", "B");
+        expected.put("a", "A");
+        assertEquals(new ArrayList<Object>(expected.entrySet()), new ArrayList<Object>(all.get().entrySet()));
+        assertEquals(Arrays.asList(Arrays.asList("c", "a")), batches);
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    public void executeAllOmitsMissingValues() {
+        Map<String, Object> values = flight.executeAll(Arrays.asList("a", "b"), keys -> {
+            Map<String, Object> ret = new LinkedHashMap<String, Object>();
+            ret.put("b", 2);
+            return ret;
+        });
+        assertEquals(1, values.size());
+        assertEquals(2, values.get("b"));
+        assertEquals(0, flight.executeAll(Arrays.asList("x"), keys -> null).size());
+    }
+}